@@ -26,7 +26,14 @@ public class ListMerger implements Merger<List<?>> {
 
     @Override
     public List<Object> merge(List<?>... items) {
-        List<Object> result = new ArrayList<Object>();
+        int size = 0;
+        for (List<?> item : items) {
+            if (item != null) {
+                size += item.size();
+            }
+        }
+        // presize, so that merging large lists copies every element only once
+        List<Object> result = new ArrayList<Object>(size);
         for (List<?> item : items) {
             if (item != null) {
                 result.addAll(item);
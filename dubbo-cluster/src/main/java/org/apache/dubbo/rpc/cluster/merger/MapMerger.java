@@ -28,8 +28,14 @@ public class MapMerger implements Merger<Map<?, ?>> {
         if (items.length == 0) {
             return null;
         }
-        // 创建结果 Map
-        Map<Object, Object> result = new HashMap<Object, Object>();
+        int size = 0;
+        for (Map<?, ?> item : items) {
+            if (item != null) {
+                size += item.size();
+            }
+        }
+        // 创建结果 Map ，预分配容量，避免合并大 Map 时反复扩容
+        Map<Object, Object> result = new HashMap<Object, Object>(Math.max((int) (size / .75f) + 1, 16));
         // 合并多个 Map
         for (Map<?, ?> item : items) {
             if (item != null) {
@@ -26,7 +26,14 @@ public class SetMerger implements Merger<Set<?>> {
     @Override
     public Set<Object> merge(Set<?>... items) {
 
-        Set<Object> result = new HashSet<Object>();
+        int size = 0;
+        for (Set<?> item : items) {
+            if (item != null) {
+                size += item.size();
+            }
+        }
+        // presize, so that merging large sets never rehashes
+        Set<Object> result = new HashSet<Object>(Math.max((int) (size / .75f) + 1, 16));
 
         for (Set<?> item : items) {
             if (item != null) {
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.outlier;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Record the outcome and the latency of the calls to each provider into its {@link OutlierDetector}.
+ * Only the RPC failures count, an exception thrown by the service itself is a success of the provider.
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.OUTLIER_KEY)
+public class OutlierDetectionFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        final URL url = invoker.getUrl();
+        // the detector of a reference destroyed isn't created again
+        final OutlierDetector detector = url.getParameter(Constants.OUTLIER_KEY, false) ? OutlierDetector.getOutlierDetector(url) : null;
+        if (detector == null) {
+            return invoker.invoke(invocation);
+        }
+        final long begin = System.currentTimeMillis();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RpcException e) {
+            detector.record(url, e.isBiz(), System.currentTimeMillis() - begin);
+            throw e;
+        }
+        if (result instanceof AsyncRpcResult) {
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> {
+                // a call completed exceptionally failed in transport, e.g. timed out
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                detector.record(url, cause == null ? r != null && isSuccess(r.getException()) : isBiz(cause),
+                        System.currentTimeMillis() - begin);
+            });
+        } else {
+            detector.record(url, isSuccess(result.getException()), System.currentTimeMillis() - begin);
+        }
+        return result;
+    }
+
+    private static boolean isSuccess(Throwable exception) {
+        return !(exception instanceof RpcException) || isBiz(exception);
+    }
+
+    private static boolean isBiz(Throwable exception) {
+        return exception instanceof RpcException && ((RpcException) exception).isBiz();
+    }
+
+}
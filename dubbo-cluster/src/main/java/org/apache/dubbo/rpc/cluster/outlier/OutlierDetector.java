@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.outlier;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invoker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outlier detection of the providers of a service. (API, Cached, ThreadSafe)
+ * <p>
+ * With <code>outlier=true</code>, a provider is ejected from the invokers listed by the cluster after
+ * <code>outlier.failures</code> consecutive failures, or when its mean latency over an <code>outlier.interval</code>
+ * exceeds <code>outlier.latency.factor</code> times the median of its peers. The ejection lasts
+ * <code>outlier.ejection.time</code>, doubled on each ejection in a row up to <code>outlier.max.ejection.time</code>,
+ * and at most <code>outlier.max.ejection.percent</code> of the providers are ejected at the same time.
+ * The calls are recorded by {@link OutlierDetectionFilter}.
+ *
+ * @see org.apache.dubbo.rpc.cluster.support.AbstractClusterInvoker#list
+ */
+public class OutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private static final ConcurrentMap<String, OutlierDetector> DETECTORS = new ConcurrentHashMap<String, OutlierDetector>();
+
+    /**
+     * the latency of a provider is compared only if that many peers have enough calls
+     */
+    private static final int MIN_PEERS = 3;
+
+    private final String key;
+
+    private final int failureThreshold;
+
+    private final double latencyFactor;
+
+    private final int minRequests;
+
+    private final long interval;
+
+    private final long ejectionTime;
+
+    private final long maxEjectionTime;
+
+    private final int maxEjectionPercent;
+
+    /**
+     * 服务提供者地址 与 状态 的映射
+     */
+    private final ConcurrentMap<String, ProviderStatus> providers = new ConcurrentHashMap<String, ProviderStatus>();
+
+    private final AtomicLong lastDetection = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * addresses currently ejected, replaced on each change so that listing the invokers needs no lock
+     */
+    private volatile Set<String> ejected = Collections.emptySet();
+
+    /**
+     * earliest end of the current ejections
+     */
+    private volatile long nextExpiry = Long.MAX_VALUE;
+
+    private volatile int providerCount;
+
+    /**
+     * 引用该检测器的集群 Invoker 数，由 {@link #DETECTORS} 的锁保护
+     */
+    private int references;
+
+    private OutlierDetector(String key, URL url) {
+        this.key = key;
+        this.failureThreshold = url.getParameter(Constants.OUTLIER_FAILURES_KEY, Constants.DEFAULT_OUTLIER_FAILURES);
+        this.latencyFactor = url.getParameter(Constants.OUTLIER_LATENCY_FACTOR_KEY, Constants.DEFAULT_OUTLIER_LATENCY_FACTOR);
+        this.minRequests = url.getParameter(Constants.OUTLIER_MIN_REQUESTS_KEY, Constants.DEFAULT_OUTLIER_MIN_REQUESTS);
+        this.interval = url.getParameter(Constants.OUTLIER_INTERVAL_KEY, Constants.DEFAULT_OUTLIER_INTERVAL);
+        this.ejectionTime = url.getParameter(Constants.OUTLIER_EJECTION_TIME_KEY, Constants.DEFAULT_OUTLIER_EJECTION_TIME);
+        this.maxEjectionTime = Math.max(ejectionTime,
+                url.getParameter(Constants.OUTLIER_MAX_EJECTION_TIME_KEY, Constants.DEFAULT_OUTLIER_MAX_EJECTION_TIME));
+        this.maxEjectionPercent = url.getParameter(Constants.OUTLIER_MAX_EJECTION_PERCENT_KEY,
+                Constants.DEFAULT_OUTLIER_MAX_EJECTION_PERCENT);
+    }
+
+    /**
+     * @param url consumer url
+     * @return the detector of the service, shared by the references to the service until each of them
+     * {@link #releaseOutlierDetector(OutlierDetector) releases} it
+     */
+    public static OutlierDetector referOutlierDetector(URL url) {
+        String key = url.getServiceKey();
+        synchronized (DETECTORS) {
+            OutlierDetector detector = DETECTORS.get(key);
+            if (detector == null) {
+                detector = new OutlierDetector(key, url);
+                DETECTORS.put(key, detector);
+            }
+            detector.references++;
+            return detector;
+        }
+    }
+
+    /**
+     * Removes the detector once released by all the references to the service, e.g. destroyed.
+     */
+    public static void releaseOutlierDetector(OutlierDetector detector) {
+        synchronized (DETECTORS) {
+            if (--detector.references == 0) {
+                DETECTORS.remove(detector.key, detector);
+            }
+        }
+    }
+
+    /**
+     * @param url consumer url, or the url of one of its providers
+     * @return the detector of the service, null if no reference detects outliers
+     */
+    public static OutlierDetector getOutlierDetector(URL url) {
+        return DETECTORS.get(url.getServiceKey());
+    }
+
+    /**
+     * @return all detectors, keyed by service key
+     */
+    public static Map<String, OutlierDetector> getOutlierDetectors() {
+        return Collections.unmodifiableMap(DETECTORS);
+    }
+
+    /**
+     * @param invokers invokers listed by the directory
+     * @return the invokers which are not ejected, the given list itself if none is
+     */
+    public <T> List<Invoker<T>> select(List<Invoker<T>> invokers) {
+        if (invokers == null) {
+            return null;
+        }
+        providerCount = invokers.size();
+        long now = System.currentTimeMillis();
+        detectIfDue(now);
+        if (now >= nextExpiry) {
+            refreshEjected(now);
+        }
+        Set<String> current = ejected;
+        if (current.isEmpty()) {
+            return invokers;
+        }
+        List<Invoker<T>> selected = null;
+        for (int i = 0; i < invokers.size(); i++) {
+            Invoker<T> invoker = invokers.get(i);
+            if (current.contains(invoker.getUrl().getAddress())) {
+                if (selected == null) {
+                    selected = new ArrayList<Invoker<T>>(invokers.subList(0, i));
+                }
+            } else if (selected != null) {
+                selected.add(invoker);
+            }
+        }
+        if (selected == null) {
+            return invokers;
+        }
+        // the percent cap is computed against a previous list, never leave the cluster without providers
+        return selected.isEmpty() ? invokers : selected;
+    }
+
+    /**
+     * Record the outcome of a call to a provider.
+     *
+     * @param url     provider url
+     * @param success false if the call failed because of the provider, e.g. a timeout or a network error
+     * @param elapsed elapsed time in milliseconds
+     */
+    public void record(URL url, boolean success, long elapsed) {
+        ProviderStatus status = getProviderStatus(url.getAddress());
+        status.requests.incrementAndGet();
+        status.elapsed.addAndGet(elapsed);
+        if (success) {
+            status.consecutiveFailures.set(0);
+        } else if (status.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            eject(status, System.currentTimeMillis(), "consecutive failures: " + status.consecutiveFailures.get());
+        }
+    }
+
+    private ProviderStatus getProviderStatus(String address) {
+        ProviderStatus status = providers.get(address);
+        if (status == null) {
+            providers.putIfAbsent(address, new ProviderStatus(address));
+            status = providers.get(address);
+        }
+        return status;
+    }
+
+    private void detectIfDue(long now) {
+        long last = lastDetection.get();
+        if (now - last >= interval && lastDetection.compareAndSet(last, now)) {
+            detect(now);
+        }
+    }
+
+    /**
+     * Compare the mean latency of the providers over the interval ended, and forget the idle ones.
+     */
+    void detect(long now) {
+        List<ProviderStatus> sampled = new ArrayList<ProviderStatus>();
+        for (ProviderStatus status : providers.values()) {
+            long requests = status.requests.getAndSet(0);
+            long elapsed = status.elapsed.getAndSet(0);
+            if (requests == 0 && !status.isEjected(now) && status.consecutiveFailures.get() == 0
+                    && status.ejections.get() == 0) {
+                // nothing to remember, e.g. the provider is gone
+                providers.remove(status.address, status);
+                continue;
+            }
+            status.meanLatency = requests >= minRequests ? (double) elapsed / requests : -1;
+            if (status.meanLatency >= 0) {
+                sampled.add(status);
+            }
+            if (!status.isEjected(now) && status.consecutiveFailures.get() == 0 && status.ejections.get() > 0) {
+                // a provider healthy for a whole interval gets back to a shorter ejection period
+                status.ejections.decrementAndGet();
+            }
+        }
+        if (sampled.size() >= MIN_PEERS) {
+            double[] means = new double[sampled.size()];
+            for (int i = 0; i < means.length; i++) {
+                means[i] = sampled.get(i).meanLatency;
+            }
+            Arrays.sort(means);
+            double median = means[means.length / 2];
+            for (ProviderStatus status : sampled) {
+                if (status.meanLatency > median * latencyFactor && !status.isEjected(now)) {
+                    eject(status, now, "mean latency " + (long) status.meanLatency + "ms, peers median " + (long) median + "ms");
+                }
+            }
+        }
+        refreshEjected(now);
+    }
+
+    private synchronized void eject(ProviderStatus status, long now, String reason) {
+        if (status.isEjected(now)) {
+            return;
+        }
+        int ejectedCount = 0;
+        for (ProviderStatus other : providers.values()) {
+            if (other.isEjected(now)) {
+                ejectedCount++;
+            }
+        }
+        int total = Math.max(providerCount, providers.size());
+        if ((ejectedCount + 1) * 100 > total * maxEjectionPercent) {
+            logger.warn("Not ejecting the provider " + status.address + " of the service " + key + ", " + reason
+                    + ", since " + ejectedCount + " of " + total + " providers are already ejected");
+            return;
+        }
+        int ejections = status.ejections.incrementAndGet();
+        long period = ejectionTime << Math.min(ejections - 1, 30);
+        if (period <= 0 || period > maxEjectionTime) {
+            period = maxEjectionTime;
+        }
+        status.ejectedUntil = now + period;
+        status.totalEjections.incrementAndGet();
+        status.consecutiveFailures.set(0);
+        logger.warn("Eject the provider " + status.address + " of the service " + key + " for " + period + "ms, " + reason);
+        refreshEjected(now);
+    }
+
+    private synchronized void refreshEjected(long now) {
+        Set<String> addresses = new HashSet<String>();
+        long expiry = Long.MAX_VALUE;
+        for (ProviderStatus status : providers.values()) {
+            if (status.isEjected(now)) {
+                addresses.add(status.address);
+                expiry = Math.min(expiry, status.ejectedUntil);
+            }
+        }
+        ejected = addresses.isEmpty() ? Collections.<String>emptySet() : Collections.unmodifiableSet(addresses);
+        nextExpiry = expiry;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return status of the providers, keyed by address
+     */
+    public Map<String, ProviderStatus> getProviderStatuses() {
+        return Collections.unmodifiableMap(providers);
+    }
+
+    /**
+     * Outlier detection state of one provider.
+     */
+    public static class ProviderStatus {
+
+        private final String address;
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private final AtomicLong elapsed = new AtomicLong();
+
+        /**
+         * ejections in a row, the ejection period doubles with each
+         */
+        private final AtomicInteger ejections = new AtomicInteger();
+
+        private final AtomicLong totalEjections = new AtomicLong();
+
+        private volatile double meanLatency = -1;
+
+        private volatile long ejectedUntil;
+
+        ProviderStatus(String address) {
+            this.address = address;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public boolean isEjected() {
+            return isEjected(System.currentTimeMillis());
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+
+        /**
+         * @return remaining ejection time in milliseconds, 0 if not ejected
+         */
+        public long getRemainingEjectionTime() {
+            return Math.max(0, ejectedUntil - System.currentTimeMillis());
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures.get();
+        }
+
+        public int getEjections() {
+            return ejections.get();
+        }
+
+        public long getTotalEjections() {
+            return totalEjections.get();
+        }
+
+        /**
+         * @return mean latency in milliseconds over the last interval, -1 if there were too few calls
+         */
+        public double getMeanLatency() {
+            return meanLatency;
+        }
+    }
+}
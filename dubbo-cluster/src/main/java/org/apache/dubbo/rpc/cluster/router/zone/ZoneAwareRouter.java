@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.router.zone;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.cluster.Router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ZoneAwareRouter
+ * 基于可用区的 Router 实现类
+ * <p>
+ * Prefers the providers whose <code>zone</code> equals the consumer's zone. When the health score of the local zone,
+ * i.e. the smaller one of its healthy capacity ratio and its recent success rate, falls below
+ * <code>zone.spillover.threshold</code>, a share of the calls proportional to the missing capacity is spilled over
+ * to the other zones of the same <code>region</code> first, then to any other zone.
+ * <p>
+ * The zone partition of an invoker list is cached until the directory hands out new invokers, so the per-call cost is
+ * a map lookup and a random draw. The success rate is computed from the calls recorded by {@link ZoneStatusFilter}, and
+ * kept per zone across the partitions.
+ */
+public class ZoneAwareRouter implements Router {
+
+    /**
+     * 路由规则 URL
+     */
+    private final URL url;
+    /**
+     * 路由规则的优先级，用于排序，优先级越大越靠前执行，可不填，缺省为 0
+     */
+    private final int priority;
+
+    private final double threshold;
+
+    private final int minRequests;
+
+    private final long healthInterval;
+
+    /**
+     * 方法名 与 ZoneRoute 的映射缓存
+     */
+    private final ConcurrentMap<String, ZoneRoute> routes = new ConcurrentHashMap<String, ZoneRoute>();
+
+    /**
+     * 方法名@可用区 与 ZoneHealth 的映射缓存
+     */
+    private final ConcurrentMap<String, ZoneHealth> healths = new ConcurrentHashMap<String, ZoneHealth>();
+
+    public ZoneAwareRouter(URL url) {
+        // zone routing depends on the runtime health of the providers, so it can't be pre-computed by the directory
+        this.url = url.addParameter(Constants.RUNTIME_KEY, true);
+        this.priority = url.getParameter(Constants.PRIORITY_KEY, 0);
+        this.threshold = url.getParameter(Constants.ZONE_SPILLOVER_THRESHOLD_KEY, Constants.DEFAULT_ZONE_SPILLOVER_THRESHOLD);
+        this.minRequests = url.getParameter(Constants.ZONE_MIN_REQUESTS_KEY, Constants.DEFAULT_ZONE_MIN_REQUESTS);
+        this.healthInterval = url.getParameter(Constants.ZONE_HEALTH_INTERVAL_KEY, Constants.DEFAULT_ZONE_HEALTH_INTERVAL);
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("Illegal " + Constants.ZONE_SPILLOVER_THRESHOLD_KEY + ": " + threshold + ", must be in (0, 1]");
+        }
+    }
+
+    @Override
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<Invoker<T>> route(List<Invoker<T>> invokers, URL url, Invocation invocation) throws RpcException {
+        if (invokers == null || invokers.isEmpty()) {
+            return invokers;
+        }
+        String zone = getParameter(url, Constants.ZONE_KEY);
+        if (StringUtils.isEmpty(zone)) {
+            return invokers;
+        }
+        String methodName = invocation == null ? "" : invocation.getMethodName();
+        ZoneRoute route = routes.get(methodName);
+        if (route == null || !zone.equals(route.zone) || !route.isPartitionOf(invokers)) {
+            route = new ZoneRoute(invokers, zone, getParameter(url, Constants.REGION_KEY), getHealth(methodName, zone));
+            routes.put(methodName, route);
+        }
+        return (List<Invoker<T>>) (List) route.select();
+    }
+
+    private ZoneHealth getHealth(String methodName, String zone) {
+        String key = methodName + "@" + zone;
+        ZoneHealth health = healths.get(key);
+        if (health == null) {
+            healths.putIfAbsent(key, new ZoneHealth(methodName, zone));
+            health = healths.get(key);
+        }
+        return health;
+    }
+
+    private String getParameter(URL consumerUrl, String key) {
+        String value = consumerUrl == null ? null : consumerUrl.getParameter(key);
+        if (StringUtils.isEmpty(value)) {
+            value = this.url.getParameter(key);
+        }
+        return value;
+    }
+
+    @Override
+    public int compareTo(Router o) {
+        if (o == null || o.getClass() != ZoneAwareRouter.class) {
+            return 1;
+        }
+        ZoneAwareRouter c = (ZoneAwareRouter) o;
+        return this.priority == c.priority ? url.toFullString().compareTo(c.url.toFullString()) : (this.priority > c.priority ? 1 : -1);
+    }
+
+    /**
+     * Zone partition of one invoker list.
+     */
+    private final class ZoneRoute {
+
+        /**
+         * 划分的 Invoker 集合，上游 Router 每次调用可能返回新的集合，故按元素比较
+         */
+        final Invoker<?>[] invokers;
+
+        final String zone;
+
+        final ZoneHealth health;
+
+        /**
+         * 本可用区的 Invoker 集合
+         */
+        final List<Invoker<?>> local = new ArrayList<Invoker<?>>();
+        /**
+         * 溢出时使用的 Invoker 集合，优先同地域的其他可用区
+         */
+        final List<Invoker<?>> spillover;
+
+        /**
+         * 分配给本可用区的调用比例，[0, 1]
+         */
+        private volatile double localShare = 1;
+
+        private volatile long nextHealthCheck;
+
+        ZoneRoute(List<? extends Invoker<?>> invokers, String zone, String region, ZoneHealth health) {
+            this.invokers = invokers.toArray(new Invoker<?>[0]);
+            this.zone = zone;
+            this.health = health;
+            List<Invoker<?>> sameRegion = new ArrayList<Invoker<?>>();
+            List<Invoker<?>> others = new ArrayList<Invoker<?>>();
+            for (Invoker<?> invoker : invokers) {
+                URL providerUrl = invoker.getUrl();
+                if (zone.equals(providerUrl.getParameter(Constants.ZONE_KEY))) {
+                    local.add(invoker);
+                } else {
+                    if (StringUtils.isNotEmpty(region) && region.equals(providerUrl.getParameter(Constants.REGION_KEY))) {
+                        sameRegion.add(invoker);
+                    }
+                    others.add(invoker);
+                }
+            }
+            this.spillover = hasAvailable(sameRegion) ? sameRegion : others;
+        }
+
+        /**
+         * @return whether the invokers are the same ones, in the same order, as those partitioned
+         */
+        boolean isPartitionOf(List<? extends Invoker<?>> list) {
+            if (list.size() != invokers.length) {
+                return false;
+            }
+            int i = 0;
+            for (Invoker<?> invoker : list) {
+                if (invoker != invokers[i++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<Invoker<?>> select() {
+            if (local.isEmpty()) {
+                return spillover;
+            }
+            if (spillover.isEmpty()) {
+                return local;
+            }
+            long now = System.currentTimeMillis();
+            if (now >= nextHealthCheck) {
+                nextHealthCheck = now + healthInterval;
+                refreshLocalShare();
+            }
+            double share = localShare;
+            if (share >= 1) {
+                return local;
+            }
+            return ThreadLocalRandom.current().nextDouble() < share ? local : spillover;
+        }
+
+        private synchronized void refreshLocalShare() {
+            long totalWeight = 0;
+            long healthyWeight = 0;
+            for (Invoker<?> invoker : local) {
+                int weight = invoker.getUrl().getMethodParameter(health.methodName, Constants.WEIGHT_KEY, Constants.DEFAULT_WEIGHT);
+                totalWeight += weight;
+                if (invoker.isAvailable()) {
+                    healthyWeight += weight;
+                }
+            }
+            double healthyRatio = totalWeight > 0 ? (double) healthyWeight / totalWeight : 0;
+            double score = Math.min(healthyRatio, health.getSuccessRate(local.get(0).getUrl().getServiceInterface()));
+            localShare = score >= threshold ? 1 : score / threshold;
+        }
+
+        private boolean hasAvailable(List<Invoker<?>> invokers) {
+            for (Invoker<?> invoker : invokers) {
+                if (invoker.isAvailable()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Recent success rate of the calls of a method to the local zone.
+     */
+    private final class ZoneHealth {
+
+        final String methodName;
+
+        final String zone;
+
+        private double successRate = 1;
+
+        /**
+         * 上次采样时的调用总数，-1 表示尚未采样
+         */
+        private long lastTotal = -1;
+
+        private long lastFailed;
+
+        ZoneHealth(String methodName, String zone) {
+            this.methodName = methodName;
+            this.zone = zone;
+        }
+
+        synchronized double getSuccessRate(String serviceInterface) {
+            ZoneStatus status = ZoneStatus.getStatus(serviceInterface, methodName, zone);
+            long total = status.getTotal();
+            long failed = status.getFailed();
+            if (lastTotal < 0) {
+                lastTotal = total;
+                lastFailed = failed;
+            } else if (total - lastTotal >= minRequests) {
+                // the success rate only moves once enough calls have been observed since the last sample
+                successRate = 1 - (double) (failed - lastFailed) / (total - lastTotal);
+                lastTotal = total;
+                lastFailed = failed;
+            }
+            return successRate;
+        }
+    }
+
+}
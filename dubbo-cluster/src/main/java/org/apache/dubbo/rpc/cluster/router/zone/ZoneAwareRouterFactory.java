@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.router.zone;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.cluster.Router;
+import org.apache.dubbo.rpc.cluster.RouterFactory;
+
+/**
+ * ZoneAwareRouterFactory
+ * <p>
+ * Example URLS used by Zone Aware Router Factory：
+ * <ol>
+ * <li> zone://0.0.0.0/com.foo.BarService?zone.spillover.threshold=0.8
+ * <li> consumer://10.20.153.10/com.foo.BarService?router=zone&amp;zone=hz-a&amp;region=hz
+ * </ol>
+ * ZoneAwareRouter 工厂实现类
+ */
+public class ZoneAwareRouterFactory implements RouterFactory {
+
+    public static final String NAME = "zone";
+
+    @Override
+    public Router getRouter(URL url) {
+        return new ZoneAwareRouter(url);
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.router.zone;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calls of a method to the providers of a zone, recorded by {@link ZoneStatusFilter}. (API, Cached, ThreadSafe)
+ * <p>
+ * The counts are kept per zone rather than per provider, so they survive the providers coming and going.
+ */
+public class ZoneStatus {
+
+    private static final ConcurrentMap<String, ZoneStatus> STATUSES = new ConcurrentHashMap<String, ZoneStatus>();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private ZoneStatus() {
+    }
+
+    /**
+     * @param url the url of a provider
+     * @return the status of the zone of the provider
+     */
+    public static ZoneStatus getStatus(URL url, String methodName) {
+        return getStatus(url.getServiceInterface(), methodName, url.getParameter(Constants.ZONE_KEY));
+    }
+
+    public static ZoneStatus getStatus(String serviceInterface, String methodName, String zone) {
+        String key = serviceInterface + "." + methodName + "@" + zone;
+        ZoneStatus status = STATUSES.get(key);
+        if (status == null) {
+            STATUSES.putIfAbsent(key, new ZoneStatus());
+            status = STATUSES.get(key);
+        }
+        return status;
+    }
+
+    public void record(boolean success) {
+        total.incrementAndGet();
+        if (!success) {
+            failed.incrementAndGet();
+        }
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+}
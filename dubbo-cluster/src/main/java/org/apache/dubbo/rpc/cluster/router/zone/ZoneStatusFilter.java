@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.router.zone;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Record the outcome of the calls to the providers of a zone into its {@link ZoneStatus}, read by
+ * {@link ZoneAwareRouter}. Only the RPC failures count, an exception thrown by the service itself is a success.
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.ZONE_KEY)
+public class ZoneStatusFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        final ZoneStatus status = ZoneStatus.getStatus(invoker.getUrl(), invocation.getMethodName());
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RpcException e) {
+            status.record(e.isBiz());
+            throw e;
+        }
+        if (result instanceof AsyncRpcResult) {
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> {
+                // a call completed exceptionally failed in transport, e.g. timed out
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                status.record(cause == null ? r != null && isSuccess(r.getException()) : isBiz(cause));
+            });
+        } else {
+            status.record(isSuccess(result.getException()));
+        }
+        return result;
+    }
+
+    private static boolean isSuccess(Throwable exception) {
+        return !(exception instanceof RpcException) || isBiz(exception);
+    }
+
+    private static boolean isBiz(Throwable exception) {
+        return exception instanceof RpcException && ((RpcException) exception).isBiz();
+    }
+
+}
@@ -31,6 +31,7 @@ import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.cluster.outlier.OutlierDetector;
 import org.apache.dubbo.rpc.support.RpcUtils;
 
 import java.util.ArrayList;
@@ -56,6 +57,11 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
      */
     protected final boolean availablecheck;
 
+    /**
+     * 离群检测，<code>outlier=true</code> 时剔除连续失败或明显慢于其他提供者的 Invoker
+     */
+    private final OutlierDetector outlierDetector;
+
     private AtomicBoolean destroyed = new AtomicBoolean(false);
 
     /**
@@ -77,6 +83,7 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
         this.directory = directory;
         //sticky: invoker.isAvailable() should always be checked before using when availablecheck is true.
         this.availablecheck = url.getParameter(Constants.CLUSTER_AVAILABLE_CHECK_KEY, Constants.DEFAULT_CLUSTER_AVAILABLE_CHECK);
+        this.outlierDetector = url.getParameter(Constants.OUTLIER_KEY, false) ? OutlierDetector.referOutlierDetector(url) : null;
     }
 
     @Override
@@ -102,6 +109,9 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
     public void destroy() {
         if (destroyed.compareAndSet(false, true)) {
             directory.destroy();
+            if (outlierDetector != null) {
+                OutlierDetector.releaseOutlierDetector(outlierDetector);
+            }
         }
     }
 
@@ -328,6 +338,10 @@ public abstract class AbstractClusterInvoker<T> implements Invoker<T> {
      */
     protected List<Invoker<T>> list(Invocation invocation) throws RpcException {
         List<Invoker<T>> invokers = directory.list(invocation);
+        // 剔除被离群检测驱逐的 Invoker
+        if (outlierDetector != null) {
+            invokers = outlierDetector.select(invokers);
+        }
         return invokers;
     }
 }
@@ -25,6 +25,7 @@ import org.apache.dubbo.rpc.cluster.Directory;
  * BroadcastCluster
  * 广播调用所有提供者，逐个调用，任意一台报错则报错
  * 通常用于通知所有提供者更新缓存或日志等本地资源信息
+ * 配置 broadcast.parallel=true 时并行调用，见 {@link BroadcastClusterInvoker}
  *
  */
 public class BroadcastCluster implements Cluster {
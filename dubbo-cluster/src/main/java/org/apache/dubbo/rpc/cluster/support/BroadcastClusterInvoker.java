@@ -16,21 +16,34 @@
  */
 package org.apache.dubbo.rpc.cluster.support;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.AsyncRpcResult;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * BroadcastClusterInvoker
- *
+ * <p>
+ * With <code>broadcast.parallel=true</code> all providers are called asynchronously, at most
+ * <code>broadcast.concurrency</code> at a time, and the call returns as soon as the number of successful calls
+ * required by <code>broadcast.wait</code> (all, quorum or a fixed count) is reached. As in the sequential broadcast,
+ * a business exception is a completed call, only the failures of the invocation itself count against the wait.
+ * The providers not called yet by then are not called at all.
  */
 public class BroadcastClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
@@ -46,6 +59,9 @@ public class BroadcastClusterInvoker<T> extends AbstractClusterInvoker<T> {
         // 检查 invokers 即可用Invoker集合是否为空，如果为空，那么抛出异常
         checkInvokers(invokers, invocation);
         RpcContext.getContext().setInvokers((List) invokers);
+        if (getUrl().getMethodParameter(invocation.getMethodName(), Constants.BROADCAST_PARALLEL_KEY, false)) {
+            return doParallelInvoke(invocation, invokers);
+        }
         RpcException exception = null;
         // 保存最后一次调用的结果
         Result result = null;
@@ -68,4 +84,161 @@ public class BroadcastClusterInvoker<T> extends AbstractClusterInvoker<T> {
         return result;
     }
 
+    private Result doParallelInvoke(Invocation invocation, List<Invoker<T>> invokers) throws RpcException {
+        String methodName = invocation.getMethodName();
+        int size = invokers.size();
+        int required = getRequired(getUrl().getMethodParameter(methodName, Constants.BROADCAST_WAIT_KEY, Constants.BROADCAST_WAIT_ALL), size);
+        int concurrency = getUrl().getMethodParameter(methodName, Constants.BROADCAST_CONCURRENCY_KEY, 0);
+        if (concurrency <= 0 || concurrency > size) {
+            concurrency = size;
+        }
+        // every window of `concurrency` calls gets the full method timeout
+        int timeout = getUrl().getMethodParameter(methodName, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        long deadline = System.currentTimeMillis() + (long) timeout * ((size + concurrency - 1) / concurrency);
+
+        BroadcastRound round = new BroadcastRound(invocation);
+        Result result = null;
+        int issued = 0;
+        int succeeded = 0;
+        int completed = 0;
+        List<String> failures = new ArrayList<String>();
+        List<Throwable> causes = new ArrayList<Throwable>();
+        try {
+            // the calls are issued by the caller only, each completed call freeing a slot for the next one
+            while (issued < concurrency) {
+                round.invoke(invokers.get(issued++));
+            }
+            while (succeeded < required && completed < size) {
+                NodeResult node;
+                try {
+                    long remaining = deadline - System.currentTimeMillis();
+                    node = remaining > 0 ? round.completions.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RpcException("Interrupted while broadcasting " + methodName + " to " + size + " providers", e);
+                }
+                if (node == null) {
+                    failures.add((size - completed) + " providers: timeout");
+                    break;
+                }
+                completed++;
+                Throwable t = node.getFailure();
+                if (t == null) {
+                    succeeded++;
+                    result = node.result;
+                } else {
+                    failures.add(node.invoker.getUrl().getAddress() + ": " + t.getMessage());
+                    causes.add(t);
+                }
+                if (succeeded < required && issued < size) {
+                    round.invoke(invokers.get(issued++));
+                }
+            }
+        } finally {
+            RpcContext.getContext().setFuture(null);
+        }
+        if (succeeded >= required) {
+            if (!failures.isEmpty()) {
+                logger.warn("Broadcast " + methodName + " succeeded on " + succeeded + " of " + size + " providers, failures: " + failures);
+            }
+            return result;
+        }
+        RpcException exception = new RpcException(causes.size() == failures.size() ? getCode(causes) : RpcException.TIMEOUT_EXCEPTION,
+                "Failed to broadcast " + methodName + " of " + getInterface().getName() + ", required " + required
+                        + " successful calls but got " + succeeded + " of " + size + ", failures: " + failures);
+        for (Throwable cause : causes) {
+            exception.addSuppressed(cause);
+        }
+        throw exception;
+    }
+
+    private int getRequired(String wait, int size) {
+        if (Constants.BROADCAST_WAIT_ALL.equals(wait)) {
+            return size;
+        } else if (Constants.BROADCAST_WAIT_QUORUM.equals(wait)) {
+            return size / 2 + 1;
+        }
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(wait), size));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal " + Constants.BROADCAST_WAIT_KEY + ": " + wait
+                    + ", must be " + Constants.BROADCAST_WAIT_ALL + ", " + Constants.BROADCAST_WAIT_QUORUM + " or a number");
+        }
+    }
+
+    private int getCode(List<Throwable> causes) {
+        for (Throwable cause : causes) {
+            if (cause instanceof RpcException) {
+                return ((RpcException) cause).getCode();
+            }
+        }
+        return RpcException.UNKNOWN_EXCEPTION;
+    }
+
+    /**
+     * One parallel broadcast. The calls are issued by the caller thread and complete on the IO threads, which only
+     * hand the outcome back.
+     */
+    private class BroadcastRound {
+
+        private final Invocation invocation;
+
+        private final BlockingQueue<NodeResult> completions = new LinkedBlockingQueue<NodeResult>();
+
+        BroadcastRound(Invocation invocation) {
+            this.invocation = invocation;
+        }
+
+        void invoke(final Invoker<T> invoker) {
+            RpcInvocation nodeInvocation = new RpcInvocation(invocation, invoker);
+            nodeInvocation.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
+            try {
+                Result result = invoker.invoke(nodeInvocation);
+                if (result instanceof AsyncRpcResult) {
+                    ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> completions.offer(new NodeResult(invoker, r, t)));
+                    return;
+                }
+                completions.offer(new NodeResult(invoker, result, null));
+            } catch (Throwable t) {
+                logger.warn(t.getMessage(), t);
+                completions.offer(new NodeResult(invoker, null, t));
+            }
+        }
+    }
+
+    private static class NodeResult {
+
+        private final Invoker<?> invoker;
+
+        private final Result result;
+
+        private final Throwable exception;
+
+        NodeResult(Invoker<?> invoker, Result result, Throwable exception) {
+            this.invoker = invoker;
+            this.result = result;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the failure of the call, null if it completed, with a business exception or not
+         */
+        Throwable getFailure() {
+            if (exception != null) {
+                Throwable t = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+                return isBiz(t) ? null : t;
+            }
+            if (result == null) {
+                return new IllegalStateException("null result");
+            }
+            // the exception thrown by the provider is a business one, unless the result wraps the failure of the call
+            Throwable t = result.hasException() ? result.getException() : null;
+            return t instanceof RpcException && !isBiz(t) ? t : null;
+        }
+
+        private static boolean isBiz(Throwable t) {
+            return t instanceof RpcException && ((RpcException) t).isBiz();
+        }
+    }
+
 }
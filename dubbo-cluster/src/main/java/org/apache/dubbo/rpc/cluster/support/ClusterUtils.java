@@ -86,6 +86,15 @@ public class ClusterUtils {
             if (methods != null && methods.length() > 0) {
                 map.put(Constants.METHODS_KEY, methods);
             }
+            // The zone and region of the consumer are only used to route, those of the invoker are the provider's.
+            for (String key : new String[]{Constants.ZONE_KEY, Constants.REGION_KEY}) {
+                String value = remoteMap.get(key);
+                if (value != null && value.length() > 0) {
+                    map.put(key, value);
+                } else {
+                    map.remove(key);
+                }
+            }
             // Reserve timestamp of provider url.
             String remoteTimestamp = remoteMap.get(Constants.TIMESTAMP_KEY);
             if (remoteTimestamp != null && remoteTimestamp.length() > 0) {
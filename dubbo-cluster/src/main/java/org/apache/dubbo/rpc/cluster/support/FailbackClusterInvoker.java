@@ -16,31 +16,46 @@
  */
 package org.apache.dubbo.rpc.cluster.support;
 
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.threadlocal.NamedInternalThreadFactory;
+import org.apache.dubbo.common.timer.HashedWheelTimer;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.common.timer.Timer;
+import org.apache.dubbo.common.timer.TimerTask;
+import org.apache.dubbo.rpc.AsyncRpcResult;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.RpcResult;
-import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.support.RpcUtils;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * When fails, record failure requests and schedule for retry on a regular interval.
+ * When fails, record failure requests and schedule for retry with an exponential backoff.
  * Especially useful for services of notification.
+ * <p>
+ * At most <code>failbacktasks</code> failed requests wait for a retry, the oldest one is dropped beyond, and each
+ * one is retried <code>retries</code> times, first after about <code>failback.retry.period</code>, then twice as
+ * late each time up to <code>failback.max.retry.period</code>. The delays are jittered so that the failed requests of
+ * an outage are not retried all together.
  *
  * <a href="http://en.wikipedia.org/wiki/Failback">Failback</a>
  *
@@ -48,95 +63,248 @@ import java.util.concurrent.TimeUnit;
 public class FailbackClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(FailbackClusterInvoker.class);
-    /**
-     * 重试频率
-     */
-    private static final long RETRY_FAILED_PERIOD = 5 * 1000;
+
+    private static final long RETRY_TICK = 100;
+
+    private static final int TICKS_PER_WHEEL = 512;
 
     /**
+     * Timer shared by all the failback clusters.
      * Use {@link NamedInternalThreadFactory} to produce {@link org.apache.dubbo.common.threadlocal.InternalThread}
      * which with the use of {@link org.apache.dubbo.common.threadlocal.InternalThreadLocal} in {@link RpcContext}.
      */
-    private final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(2,
-            new NamedInternalThreadFactory("failback-cluster-timer", true));
+    private static volatile Timer failTimer;
+
+    private final int retries;
+
+    private final long retryPeriod;
+
+    private final long maxRetryPeriod;
 
     /**
-     * 失败任务集合
-     */
-    private final ConcurrentMap<Invocation, AbstractClusterInvoker<?>> failed = new ConcurrentHashMap<Invocation, AbstractClusterInvoker<?>>();
-    /**
-     * 重试任务 Future
+     * 失败任务队列，按失败先后排序
      */
-    private volatile ScheduledFuture<?> retryFuture;
+    private final BlockingQueue<RetryTimerTask> failed;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong exhausted = new AtomicLong();
 
     public FailbackClusterInvoker(Directory<T> directory) {
         super(directory);
+        int retries = getUrl().getParameter(Constants.RETRIES_KEY, Constants.DEFAULT_FAILBACK_TIMES);
+        this.retries = retries <= 0 ? Constants.DEFAULT_FAILBACK_TIMES : retries;
+        int failbackTasks = getUrl().getParameter(Constants.FAIL_BACK_TASKS_KEY, Constants.DEFAULT_FAILBACK_TASKS);
+        this.failed = new LinkedBlockingQueue<RetryTimerTask>(failbackTasks <= 0 ? Constants.DEFAULT_FAILBACK_TASKS : failbackTasks);
+        this.retryPeriod = Math.max(RETRY_TICK, getUrl().getParameter(Constants.FAIL_BACK_RETRY_PERIOD_KEY,
+                Constants.DEFAULT_FAILBACK_RETRY_PERIOD));
+        this.maxRetryPeriod = Math.max(retryPeriod, getUrl().getParameter(Constants.FAIL_BACK_MAX_RETRY_PERIOD_KEY,
+                Constants.DEFAULT_FAILBACK_MAX_RETRY_PERIOD));
+    }
+
+    private static Timer getFailTimer() {
+        if (failTimer == null) {
+            synchronized (FailbackClusterInvoker.class) {
+                if (failTimer == null) {
+                    failTimer = new HashedWheelTimer(new NamedInternalThreadFactory("failback-cluster-timer", true),
+                            RETRY_TICK, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, 0);
+                }
+            }
+        }
+        return failTimer;
     }
 
     /**
-     * 重试任务，发起 RCP 调用
+     * 添加重试任务，队列已满时丢弃最早的任务
      * @param invocation
-     * @param router
+     * @param loadbalance
+     * @param lastInvoker
      */
-    private void addFailed(Invocation invocation, AbstractClusterInvoker<?> router) {
-        // 若定时任务未初始化，进行创建
-        if (retryFuture == null) {
-            synchronized (this) {
-                if (retryFuture == null) {
-                    retryFuture = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            // collect retry statistics
-                            try {
-                                retryFailed();
-                            } catch (Throwable t) { // Defensive fault tolerance
-                                logger.error("Unexpected error occur at collect statistic", t);
-                            }
-                        }
-                    }, RETRY_FAILED_PERIOD, RETRY_FAILED_PERIOD, TimeUnit.MILLISECONDS);
-                }
+    private void addFailed(Invocation invocation, LoadBalance loadbalance, Invoker<T> lastInvoker) {
+        RetryTimerTask task = new RetryTimerTask(invocation, loadbalance, lastInvoker);
+        while (!failed.offer(task)) {
+            RetryTimerTask oldest = failed.poll();
+            if (oldest != null && oldest.discard()) {
+                dropped.incrementAndGet();
+                logger.error("Too many failed invocations of the service " + getInterface().getName()
+                        + " waiting for a retry, drop the oldest one of the method " + oldest.invocation.getMethodName());
             }
         }
-        failed.put(invocation, router);
+        task.schedule();
     }
 
     /**
-     * 循环重试任务
+     * Retry now all the failed invocations, whatever their backoff.
      */
     void retryFailed() {
-        if (failed.size() == 0) {
-            return;
-        }
-        for (Map.Entry<Invocation, AbstractClusterInvoker<?>> entry : new HashMap<Invocation, AbstractClusterInvoker<?>>(
-                failed).entrySet()) {
-            Invocation invocation = entry.getKey();
-            Invoker<?> invoker = entry.getValue();
-            try {
-                invoker.invoke(invocation);
-                failed.remove(invocation);
-            } catch (Throwable e) {
-                logger.error("Failed retry to invoke method " + invocation.getMethodName() + ", waiting again.", e);
-            }
+        for (RetryTimerTask task : new ArrayList<RetryTimerTask>(failed)) {
+            task.retryNow();
         }
     }
 
     @Override
     protected Result doInvoke(Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
+        Invoker<T> invoker = null;
         try {
             // 检查 invokers 即可用Invoker集合是否为空，如果为空，那么抛出异常
             checkInvokers(invokers, invocation);
             // 根据负载均衡机制从 invokers 中选择一个Invoker
-            Invoker<T> invoker = select(loadbalance, invocation, invokers, null);
+            invoker = select(loadbalance, invocation, invokers, null);
             // RPC 调用得到 Result
             return invoker.invoke(invocation);
         } catch (Throwable e) {
             logger.error("Failback to invoke method " + invocation.getMethodName() + ", wait for retry in background. Ignored exception: "
                     + e.getMessage() + ", ", e);
             // 添加到失败任务
-            addFailed(invocation, this);
+            addFailed(invocation, loadbalance, invoker);
             return new RpcResult(); // ignore
         }
     }
 
+    @Override
+    public void destroy() {
+        super.destroy();
+        for (RetryTimerTask task = failed.poll(); task != null; task = failed.poll()) {
+            task.discard();
+        }
+    }
+
+    /**
+     * @return failed invocations waiting for a retry
+     */
+    public int getFailedCount() {
+        return failed.size();
+    }
+
+    /**
+     * @return failed invocations dropped because too many were waiting for a retry
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return failed invocations given up after all their retries failed
+     */
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    /**
+     * A failed invocation waiting for its next retry on the shared timer.
+     */
+    private class RetryTimerTask implements TimerTask {
+
+        private final Invocation invocation;
+
+        private final LoadBalance loadbalance;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private volatile Invoker<T> lastInvoker;
+
+        private volatile int retryTimes;
+
+        private volatile Timeout timeout;
+
+        RetryTimerTask(Invocation invocation, LoadBalance loadbalance, Invoker<T> lastInvoker) {
+            this.invocation = invocation;
+            this.loadbalance = loadbalance;
+            this.lastInvoker = lastInvoker;
+        }
+
+        void schedule() {
+            if (finished.get()) {
+                return;
+            }
+            long delay = Math.min(maxRetryPeriod, retryPeriod << Math.min(retryTimes, 30));
+            if (delay <= 0) {
+                delay = maxRetryPeriod;
+            }
+            // equal jitter: half of the backoff plus a random part of the other half
+            delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            timeout = getFailTimer().newTimeout(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        void retryNow() {
+            Timeout t = timeout;
+            if (t != null && t.cancel()) {
+                retry();
+            }
+        }
+
+        /**
+         * @return false if it was already finished
+         */
+        boolean discard() {
+            if (!finished.compareAndSet(false, true)) {
+                return false;
+            }
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+            return true;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            retry();
+        }
+
+        /**
+         * Send the retry asynchronously, the timer thread must not wait for the provider.
+         */
+        private void retry() {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                List<Invoker<T>> invokers = list(invocation);
+                checkInvokers(invokers, invocation);
+                LoadBalance lb = loadbalance;
+                if (lb == null) {
+                    lb = ExtensionLoader.getExtensionLoader(LoadBalance.class).getExtension(invokers.get(0).getUrl()
+                            .getMethodParameter(RpcUtils.getMethodName(invocation), Constants.LOADBALANCE_KEY, Constants.DEFAULT_LOADBALANCE));
+                }
+                Invoker<T> invoker = select(lb, invocation, invokers,
+                        lastInvoker == null ? null : Collections.singletonList(lastInvoker));
+                lastInvoker = invoker;
+                RpcInvocation retryInvocation = new RpcInvocation(invocation, invoker);
+                retryInvocation.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
+                Result result = invoker.invoke(retryInvocation);
+                if (result instanceof AsyncRpcResult) {
+                    ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) ->
+                            onRetried(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t));
+                } else {
+                    onRetried(null);
+                }
+            } catch (Throwable e) {
+                onRetried(e);
+            } finally {
+                RpcContext.getContext().setFuture(null);
+            }
+        }
+
+        private void onRetried(Throwable e) {
+            if (e == null) {
+                if (finished.compareAndSet(false, true)) {
+                    failed.remove(this);
+                }
+                return;
+            }
+            if (++retryTimes >= retries) {
+                if (finished.compareAndSet(false, true)) {
+                    failed.remove(this);
+                    exhausted.incrementAndGet();
+                    logger.error("Failed retry times exceed threshold (" + retries + "), We have to abandon, invocation->"
+                            + invocation, e);
+                }
+                return;
+            }
+            logger.error("Failed retry to invoke method " + invocation.getMethodName() + ", waiting again.", e);
+            schedule();
+        }
+    }
+
 }
@@ -33,6 +33,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * When invoke fails, log the initial error and retry other invokers (retry n times, which means at most n different invokers will be invoked)
@@ -50,6 +52,11 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(FailoverClusterInvoker.class);
 
+    /**
+     * 本服务引用的重试预算，键为 {@link RetryBudget#getKey(org.apache.dubbo.common.URL, String)}
+     */
+    private final ConcurrentMap<String, RetryBudget> budgets = new ConcurrentHashMap<String, RetryBudget>();
+
     public FailoverClusterInvoker(Directory<T> directory) {
         super(directory);
     }
@@ -78,11 +85,19 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
         RpcException le = null; // last exception.
         List<Invoker<T>> invoked = new ArrayList<Invoker<T>>(copyinvokers.size()); // invoked invokers.
         Set<String> providers = new HashSet<String>(len);
+        RetryBudget budget = getRetryBudget(invocation.getMethodName());
+        int tried = 0;
         for (int i = 0; i < len; i++) {
             //Reselect before retry to avoid a change of candidate `invokers`.
             //NOTE: if `invokers` changed, then `invoked` also lose accuracy.
             // failover机制核心实现：如果出现调用失败，那么重试其他服务器
             if (i > 0) {
+                // 重试预算耗尽时，不再重试，避免重试风暴
+                if (!budget.tryRetry()) {
+                    logger.warn("Suppressed the retry of the method " + invocation.getMethodName()
+                            + " in the service " + getInterface().getName() + ", the retry budget is exhausted");
+                    break;
+                }
                 checkWhetherDestroyed();
                 // 重试时，进行重新选择，避免重试时invoker列表已发生变化
                 copyinvokers = list(invocation);
@@ -95,9 +110,11 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
             invoked.add(invoker);
             // 设置已经调用的 Invoker 集合，到 Context 中
             RpcContext.getContext().setInvokers((List) invoked);
+            tried++;
             try {
                 // RPC 调用得到 Result
                 Result result = invoker.invoke(invocation);
+                budget.succeeded();
                 if (le != null && logger.isWarnEnabled()) {
                     logger.warn("Although retry the method " + invocation.getMethodName()
                             + " in the service " + getInterface().getName()
@@ -123,7 +140,7 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
         }
         throw new RpcException(le != null ? le.getCode() : 0, "Failed to invoke the method "
                 + invocation.getMethodName() + " in the service " + getInterface().getName()
-                + ". Tried " + len + " times of the providers " + providers
+                + ". Tried " + tried + " times of the providers " + providers
                 + " (" + providers.size() + "/" + copyinvokers.size()
                 + ") from the registry " + directory.getUrl().getAddress()
                 + " on the consumer " + NetUtils.getLocalHost() + " using the dubbo version "
@@ -131,4 +148,34 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
                 + (le != null ? le.getMessage() : ""), le != null && le.getCause() != null ? le.getCause() : le);
     }
 
+    @Override
+    public void destroy() {
+        super.destroy();
+        // 移除重试预算，避免销毁的服务引用一直占用内存
+        synchronized (budgets) {
+            for (RetryBudget budget : budgets.values()) {
+                budget.remove();
+            }
+            budgets.clear();
+        }
+    }
+
+    /**
+     * @return the budget of the service, or of the method if the url says so, of this reference
+     */
+    RetryBudget getRetryBudget(String methodName) {
+        String key = RetryBudget.getKey(getUrl(), methodName);
+        RetryBudget budget = budgets.get(key);
+        if (budget == null) {
+            synchronized (budgets) {
+                budget = budgets.get(key);
+                if (budget == null) {
+                    budget = RetryBudget.newRetryBudget(getUrl(), methodName);
+                    budgets.put(key, budget);
+                }
+            }
+        }
+        return budget;
+    }
+
 }
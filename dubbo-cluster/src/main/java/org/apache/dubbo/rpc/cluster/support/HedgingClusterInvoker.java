@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send the request to one invoker, and a second one to another invoker only when the first has not answered within
+ * the <code>hedging.percentile</code> latency of the method. The first answer wins and the other request is cancelled.
+ * The hedged requests are bounded by <code>hedging.budget</code> percent of the requests. Only use it for idempotent
+ * methods.
+ *
+ * <a href="https://research.google/pubs/pub40801/">The Tail at Scale</a>
+ */
+public class HedgingClusterInvoker<T> extends AbstractClusterInvoker<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingClusterInvoker.class);
+
+    /**
+     * the percentile is computed over the last one to two windows
+     */
+    private static final long LATENCY_WINDOW = 10000;
+
+    /**
+     * no hedging until the percentile is backed by that many samples
+     */
+    private static final long MIN_SAMPLES = 100;
+
+    /**
+     * 方法名 与 延迟直方图 的映射
+     */
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private volatile TokenBudget budget;
+
+    public HedgingClusterInvoker(Directory<T> directory) {
+        super(directory);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Result doInvoke(Invocation invocation, List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
+        checkInvokers(invokers, invocation);
+        String methodName = invocation.getMethodName();
+        int timeout = getUrl().getMethodParameter(methodName, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        TokenBudget budget = getBudget();
+        budget.deposit();
+        LatencyHistogram histogram = getLatencyHistogram(methodName);
+
+        List<Invoker<T>> selected = new ArrayList<Invoker<T>>(2);
+        RpcContext.getContext().setInvokers((List) selected);
+        BlockingQueue<Attempt> completions = new LinkedBlockingQueue<Attempt>();
+        List<Attempt> attempts = new ArrayList<Attempt>(2);
+        try {
+            Invoker<T> invoker = select(loadbalance, invocation, invokers, selected);
+            selected.add(invoker);
+            Attempt first = send(invoker, invocation, histogram, completions);
+            attempts.add(first);
+            if (first.syncResult != null) {
+                return first.syncResult;
+            }
+
+            Attempt done = null;
+            long delay = histogram.getPercentile(getUrl().getMethodParameter(methodName, Constants.HEDGING_PERCENTILE_KEY,
+                    Constants.DEFAULT_HEDGING_PERCENTILE), MIN_SAMPLES);
+            if (delay >= 0 && invokers.size() > 1) {
+                done = completions.poll(Math.min(delay, TimeUnit.NANOSECONDS.toMicros(deadline - System.nanoTime())), TimeUnit.MICROSECONDS);
+                if (done == null) {
+                    // withdraw a token only for a hedge actually sent, to a provider not tried yet
+                    Invoker<T> hedged = select(loadbalance, invocation, invokers, selected);
+                    if (!selected.contains(hedged) && budget.tryWithdraw()) {
+                        selected.add(hedged);
+                        attempts.add(send(hedged, invocation, histogram, completions));
+                    }
+                }
+            }
+
+            RpcException lastException = null;
+            int pending = attempts.size();
+            while (true) {
+                if (done == null) {
+                    long remaining = deadline - System.nanoTime();
+                    done = remaining > 0 ? completions.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (done == null) {
+                        throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Failed to invoke the method " + methodName
+                                + " in the service " + getInterface().getName() + ", hedged providers " + selected
+                                + " did not answer within " + timeout + "ms");
+                    }
+                }
+                pending--;
+                if (done.exception == null) {
+                    return done.result;
+                }
+                lastException = done.exception instanceof RpcException ? (RpcException) done.exception
+                        : new RpcException(done.exception.getMessage(), done.exception);
+                if (pending == 0) {
+                    throw lastException;
+                }
+                logger.warn("Hedged invocation of " + methodName + " to " + done.invoker.getUrl().getAddress()
+                        + " failed, wait for the other one. cause: " + done.exception.getMessage(), done.exception);
+                done = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("Interrupted while invoking the method " + methodName + " in the service " + getInterface().getName(), e);
+        } finally {
+            // cancel the losing request
+            for (Attempt attempt : attempts) {
+                attempt.cancel();
+            }
+            RpcContext.getContext().setFuture(null);
+        }
+    }
+
+    private Attempt send(final Invoker<T> invoker, Invocation invocation, final LatencyHistogram histogram,
+                         final BlockingQueue<Attempt> completions) {
+        RpcInvocation attemptInvocation = new RpcInvocation(invocation, invoker);
+        attemptInvocation.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
+        final long start = System.nanoTime();
+        final Attempt attempt = new Attempt(invoker);
+        Result result = invoker.invoke(attemptInvocation);
+        if (result instanceof AsyncRpcResult) {
+            attempt.future = ((AsyncRpcResult) result).getValueFuture();
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> {
+                if (t == null) {
+                    histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    attempt.result = r;
+                } else {
+                    attempt.exception = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                }
+                completions.offer(attempt);
+            });
+        } else {
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            attempt.syncResult = result;
+        }
+        return attempt;
+    }
+
+    TokenBudget getBudget() {
+        if (budget == null) {
+            synchronized (this) {
+                if (budget == null) {
+                    budget = new TokenBudget(getUrl().getParameter(Constants.HEDGING_BUDGET_KEY, Constants.DEFAULT_HEDGING_BUDGET) / 100, 0);
+                }
+            }
+        }
+        return budget;
+    }
+
+    private LatencyHistogram getLatencyHistogram(String methodName) {
+        LatencyHistogram histogram = latencies.get(methodName);
+        if (histogram == null) {
+            latencies.putIfAbsent(methodName, new LatencyHistogram(LATENCY_WINDOW));
+            histogram = latencies.get(methodName);
+        }
+        return histogram;
+    }
+
+    /**
+     * One request of a hedged invocation.
+     */
+    private static class Attempt {
+
+        private final Invoker<?> invoker;
+
+        private volatile Future<?> future;
+
+        private volatile Result syncResult;
+
+        private volatile Result result;
+
+        private volatile Throwable exception;
+
+        Attempt(Invoker<?> invoker) {
+            this.invoker = invoker;
+        }
+
+        void cancel() {
+            Future<?> f = future;
+            if (f != null && result == null && exception == null && !f.isDone()) {
+                f.cancel(true);
+            }
+        }
+    }
+}
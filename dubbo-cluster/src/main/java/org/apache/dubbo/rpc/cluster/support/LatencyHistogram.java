@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with quarter-octave buckets (about 19% precision), recording microseconds.
+ * <p>
+ * Percentiles are computed over the current and the previous window, so old samples age out after two windows.
+ */
+class LatencyHistogram {
+
+    /**
+     * 4 sub buckets for each power of 2, up to 2^32 us (about 70 minutes)
+     */
+    private static final int BUCKETS = 32 * 4;
+
+    private final long windowMillis;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    private volatile long windowEnd;
+
+    LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.windowEnd = System.currentTimeMillis() + windowMillis;
+    }
+
+    void record(long micros) {
+        rotate();
+        current.incrementAndGet(indexOf(micros));
+    }
+
+    /**
+     * @param percentile in (0, 100)
+     * @param minSamples the minimum number of samples the result can be trusted with
+     * @return the upper bound of the bucket holding the percentile in microseconds, -1 if there are too few samples
+     */
+    long getPercentile(double percentile, long minSamples) {
+        rotate();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = cur.get(i) + prev.get(i);
+            total += counts[i];
+        }
+        if (total == 0 || total < minSamples) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    private void rotate() {
+        long now = System.currentTimeMillis();
+        if (now < windowEnd) {
+            return;
+        }
+        synchronized (this) {
+            if (now < windowEnd) {
+                return;
+            }
+            // more than one window idle: the previous samples are stale as well
+            previous = now < windowEnd + windowMillis ? current : new AtomicLongArray(BUCKETS);
+            current = new AtomicLongArray(BUCKETS);
+            windowEnd = now + windowMillis;
+        }
+    }
+
+    static int indexOf(long micros) {
+        if (micros < 4) {
+            return micros <= 0 ? 0 : (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & 3;
+        return Math.min((exponent - 1) * 4 + sub, BUCKETS - 1);
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < 4) {
+            return index + 1;
+        }
+        int exponent = index / 4 + 1;
+        int sub = index % 4;
+        return (long) (4 + sub + 1) << (exponent - 2);
+    }
+}
@@ -22,10 +22,11 @@ import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.ConfigUtils;
-import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.rpc.AsyncRpcResult;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.RpcResult;
@@ -40,10 +41,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("unchecked")
@@ -54,7 +54,6 @@ public class MergeableClusterInvoker<T> implements Invoker<T> {
      * Directory$Adaptive 对象
      */
     private final Directory<T> directory;
-    private ExecutorService executor = Executors.newCachedThreadPool(new NamedThreadFactory("mergeable-cluster-executor", true));
 
     public MergeableClusterInvoker(Directory<T> directory) {
         this.directory = directory;
@@ -84,103 +83,67 @@ public class MergeableClusterInvoker<T> implements Invoker<T> {
         } catch (NoSuchMethodException e) {
             returnType = null;
         }
-        // 提交线程池，并行执行，发起 RPC 调用，并添加到 results 中
-        Map<String, Future<Result>> results = new HashMap<String, Future<Result>>();
-        for (final Invoker<T> invoker : invokers) {
-            Future<Result> future = executor.submit(new Callable<Result>() {
-                @Override
-                public Result call() throws Exception {
-                    return invoker.invoke(new RpcInvocation(invocation, invoker));
-                }
-            });
-            results.put(invoker.getUrl().getServiceKey(), future);
-        }
-
-        Object result = null;
-
-        // 阻塞等待执行执行结果，并添加到 resultList 中
-        List<Result> resultList = new ArrayList<Result>(results.size());
         int timeout = getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
-        for (Map.Entry<String, Future<Result>> entry : results.entrySet()) {
-            Future<Result> future = entry.getValue();
+        boolean partial = getUrl().getMethodParameter(invocation.getMethodName(), Constants.MERGER_PARTIAL_KEY, false);
+        long deadline = System.currentTimeMillis() + timeout;
+
+        // 异步发起 RPC 调用，结果到达时放入 arrivals 队列，无需额外线程
+        final BlockingQueue<GroupResult> arrivals = new LinkedBlockingQueue<GroupResult>();
+        // the consumer filters clear the context attachments after each call, so bind them before fanning out
+        Map<String, String> contextAttachments = new HashMap<String, String>(RpcContext.getContext().getAttachments());
+        for (final Invoker<T> invoker : invokers) {
+            final String serviceKey = invoker.getUrl().getServiceKey();
+            RpcInvocation groupInvocation = new RpcInvocation(invocation, invoker);
+            groupInvocation.addAttachmentsIfAbsent(contextAttachments);
+            groupInvocation.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
             try {
-                Result r = future.get(timeout, TimeUnit.MILLISECONDS);
-                if (r.hasException()) {
-                    log.error("Invoke " + getGroupDescFromServiceKey(entry.getKey()) + 
-                                    " failed: " + r.getException().getMessage(), 
-                            r.getException());
+                Result result = invoker.invoke(groupInvocation);
+                if (result instanceof AsyncRpcResult) {
+                    ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> arrivals.offer(new GroupResult(serviceKey, r, t)));
                 } else {
-                    resultList.add(r);
+                    arrivals.offer(new GroupResult(serviceKey, result, null));
                 }
-            } catch (Exception e) {
-                throw new RpcException("Failed to invoke service " + entry.getKey() + ": " + e.getMessage(), e);
+            } catch (Throwable t) {
+                arrivals.offer(new GroupResult(serviceKey, null, t));
             }
         }
+        RpcContext.getContext().setFuture(null);
 
-        if (resultList.isEmpty()) {
-            return new RpcResult((Object) null);
-        } else if (resultList.size() == 1) {
-            return resultList.iterator().next();
-        }
-
-        if (returnType == void.class) {
-            return new RpcResult((Object) null);
-        }
-        // 1. 基于合并方法
-        if (merger.startsWith(".")) {
-            merger = merger.substring(1);
-            Method method;
+        // 按到达顺序合并结果
+        ResultMerging merging = new ResultMerging(merger, returnType);
+        List<Result> batch = new ArrayList<Result>();
+        int pending = invokers.size();
+        while (pending > 0) {
+            GroupResult arrival;
             try {
-                // 获得合并方法 Method
-                method = returnType.getMethod(merger, returnType);
-            } catch (NoSuchMethodException e) {
-                throw new RpcException("Can not merge result because missing method [ " + merger + " ] in class [ " + 
-                        returnType.getClass().getName() + " ]");
+                long remaining = deadline - System.currentTimeMillis();
+                arrival = remaining > 0 ? arrivals.poll(remaining, TimeUnit.MILLISECONDS) : arrivals.poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RpcException("Interrupted while waiting for the merged result of " + getUrl().getServiceKey(), e);
             }
-            // 有 Method ，进行合并
-            if (!Modifier.isPublic(method.getModifiers())) {
-                method.setAccessible(true);
-            }
-            result = resultList.remove(0).getValue();
-            try {
-                if (method.getReturnType() != void.class
-                        && method.getReturnType().isAssignableFrom(result.getClass())) {
-                    for (Result r : resultList) {
-                        result = method.invoke(result, r.getValue());
-                    }
-                } else {
-                    for (Result r : resultList) {
-                        method.invoke(result, r.getValue());
-                    }
+            if (arrival == null) {
+                if (partial) {
+                    log.warn(pending + " of " + invokers.size() + " groups of " + getUrl().getServiceKey()
+                            + " did not return within " + timeout + "ms, merge the partial result");
+                    break;
                 }
-            } catch (Exception e) {
-                throw new RpcException("Can not merge result: " + e.getMessage(), e);
-            }
-        } else {
-            // 2. 基于 Merger
-            Merger resultMerger;
-            // 据返回值类型自动匹配 Merger
-            if (ConfigUtils.isDefault(merger)) {
-                resultMerger = MergerFactory.getMerger(returnType);
-            } else {
-                // 指定 Merger
-                resultMerger = ExtensionLoader.getExtensionLoader(Merger.class).getExtension(merger);
-            }
-            // 有 Merger ，进行合并
-            if (resultMerger != null) {
-                List<Object> rets = new ArrayList<Object>(resultList.size());
-                for (Result r : resultList) {
-                    rets.add(r.getValue());
-                }
-
-                result = resultMerger.merge(
-                        rets.toArray((Object[]) Array.newInstance(returnType, 0)));
-            } else {
-                throw new RpcException("There is no merger to merge result.");
+                throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Failed to invoke service " + getUrl().getServiceKey()
+                        + ": " + pending + " of " + invokers.size() + " groups did not return within " + timeout + "ms");
             }
+            // 将已到达的结果一次性取出，批量合并
+            do {
+                pending--;
+                Result r = arrival.getResult(partial);
+                if (r != null) {
+                    batch.add(r);
+                }
+            } while (pending > 0 && (arrival = arrivals.poll()) != null);
+            merging.merge(batch);
+            batch.clear();
         }
         // 返回 RpcResult 结果
-        return new RpcResult(result);
+        return merging.getResult();
     }
 
     @Override
@@ -210,4 +173,169 @@ public class MergeableClusterInvoker<T> implements Invoker<T> {
         }
         return key;
     }
+
+    /**
+     * Outcome of the call to one group.
+     */
+    private class GroupResult {
+
+        private final String serviceKey;
+
+        private final Result result;
+
+        private final Throwable exception;
+
+        GroupResult(String serviceKey, Result result, Throwable exception) {
+            this.serviceKey = serviceKey;
+            this.result = result;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the successful result, or null if the group failed and can be left out
+         */
+        Result getResult(boolean partial) {
+            Throwable t = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+            if (t == null && result == null) {
+                t = new IllegalStateException("null result");
+            }
+            if (t != null) {
+                if (partial) {
+                    log.error("Invoke " + getGroupDescFromServiceKey(serviceKey) + " failed: " + t.getMessage(), t);
+                    return null;
+                }
+                throw new RpcException("Failed to invoke service " + serviceKey + ": " + t.getMessage(), t);
+            }
+            if (result.hasException()) {
+                log.error("Invoke " + getGroupDescFromServiceKey(serviceKey) +
+                                " failed: " + result.getException().getMessage(),
+                        result.getException());
+                return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Merges the group results as they arrive: a merge method appends each of them to the first one, a {@link Merger}
+     * is called once with all of them at the end.
+     */
+    private class ResultMerging {
+
+        private final String merger;
+
+        private final Class<?> returnType;
+
+        private Result first;
+
+        private int count;
+
+        private Object merged;
+
+        /**
+         * 交给 Merger 一次合并的结果值
+         */
+        private final List<Object> values = new ArrayList<Object>();
+
+        private Method mergeMethod;
+
+        private Merger resultMerger;
+
+        ResultMerging(String merger, Class<?> returnType) {
+            this.merger = merger;
+            this.returnType = returnType;
+        }
+
+        void merge(List<Result> results) {
+            if (results.isEmpty()) {
+                return;
+            }
+            int from = 0;
+            if (first == null) {
+                first = results.get(0);
+                merged = first.getValue();
+                from = 1;
+            }
+            count += results.size();
+            if (from >= results.size() || returnType == void.class) {
+                return;
+            }
+            if (merger.startsWith(".")) {
+                // 1. 基于合并方法
+                Method method = getMergeMethod();
+                try {
+                    for (int i = from; i < results.size(); i++) {
+                        if (method.getReturnType() != void.class
+                                && method.getReturnType().isAssignableFrom(merged.getClass())) {
+                            merged = method.invoke(merged, results.get(i).getValue());
+                        } else {
+                            method.invoke(merged, results.get(i).getValue());
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RpcException("Can not merge result: " + e.getMessage(), e);
+                }
+            } else {
+                // 2. 基于 Merger ，先收集结果，在 getResult 时一次合并，避免每批重复复制已合并的结果
+                if (values.isEmpty()) {
+                    values.add(merged);
+                }
+                for (int i = from; i < results.size(); i++) {
+                    values.add(results.get(i).getValue());
+                }
+            }
+        }
+
+        Result getResult() {
+            if (count == 0) {
+                return new RpcResult((Object) null);
+            } else if (count == 1) {
+                return first;
+            }
+            if (returnType == void.class) {
+                return new RpcResult((Object) null);
+            }
+            if (!values.isEmpty()) {
+                Object[] items = (Object[]) Array.newInstance(returnType, values.size());
+                merged = getResultMerger().merge(values.toArray(items));
+                values.clear();
+            }
+            return new RpcResult(merged);
+        }
+
+        private Method getMergeMethod() {
+            if (mergeMethod == null) {
+                String name = merger.substring(1);
+                Method method;
+                try {
+                    // 获得合并方法 Method
+                    method = returnType.getMethod(name, returnType);
+                } catch (NoSuchMethodException e) {
+                    throw new RpcException("Can not merge result because missing method [ " + name + " ] in class [ " +
+                            returnType.getClass().getName() + " ]");
+                }
+                if (!Modifier.isPublic(method.getModifiers())) {
+                    method.setAccessible(true);
+                }
+                mergeMethod = method;
+            }
+            return mergeMethod;
+        }
+
+        private Merger getResultMerger() {
+            if (resultMerger == null) {
+                // 据返回值类型自动匹配 Merger
+                if (ConfigUtils.isDefault(merger)) {
+                    resultMerger = MergerFactory.getMerger(returnType);
+                } else {
+                    // 指定 Merger
+                    resultMerger = ExtensionLoader.getExtensionLoader(Merger.class).getExtension(merger);
+                }
+                if (resultMerger == null) {
+                    throw new RpcException("There is no merger to merge result.");
+                }
+            }
+            return resultMerger;
+        }
+    }
 }
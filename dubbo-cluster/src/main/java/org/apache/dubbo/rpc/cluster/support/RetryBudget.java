@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget and retry statistics of a reference to a service, or of a method with
+ * <code>retry.budget.method=true</code>. (API, ThreadSafe)
+ * <p>
+ * With <code>retry.budget</code> set, retries are capped at that percent of the successful calls, plus
+ * <code>retry.budget.min</code> retries per second, so that a brown out of the providers does not multiply the load.
+ * Each reference has budgets of its own, with its own settings, listed until the reference is destroyed.
+ *
+ * @see FailoverClusterInvoker
+ */
+public class RetryBudget {
+
+    /**
+     * 未销毁的服务引用的重试预算
+     */
+    private static final Set<RetryBudget> BUDGETS = Collections.newSetFromMap(new ConcurrentHashMap<RetryBudget, Boolean>());
+
+    private final String key;
+
+    private final TokenBudget tokens;
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private final AtomicLong exhausted = new AtomicLong();
+
+    private final AtomicBoolean exhaustedNow = new AtomicBoolean();
+
+    private RetryBudget(String key, double percent, int minPerSecond) {
+        this.key = key;
+        this.tokens = percent < 0 ? null : new TokenBudget(percent / 100, minPerSecond);
+    }
+
+    /**
+     * @param url        consumer url
+     * @param methodName invoked method
+     * @return the key of the budget, the service key, or the service key and the method joined by '#' if the url says
+     * the method has a budget of its own
+     */
+    public static String getKey(URL url, String methodName) {
+        String key = url.getServiceKey();
+        if (url.getMethodParameter(methodName, Constants.RETRY_BUDGET_METHOD_KEY, false)) {
+            key = key + "#" + methodName;
+        }
+        return key;
+    }
+
+    /**
+     * Creates a budget of a reference, listed by {@link #getRetryBudgets()} until {@link #remove() removed}.
+     *
+     * @param url        consumer url
+     * @param methodName invoked method
+     */
+    public static RetryBudget newRetryBudget(URL url, String methodName) {
+        RetryBudget budget = new RetryBudget(getKey(url, methodName),
+                url.getMethodParameter(methodName, Constants.RETRY_BUDGET_KEY, -1d),
+                url.getMethodParameter(methodName, Constants.RETRY_BUDGET_MIN_KEY, Constants.DEFAULT_RETRY_BUDGET_MIN));
+        BUDGETS.add(budget);
+        return budget;
+    }
+
+    /**
+     * @return the budgets of the references not destroyed
+     */
+    public static Collection<RetryBudget> getRetryBudgets() {
+        return Collections.unmodifiableSet(BUDGETS);
+    }
+
+    /**
+     * Stops listing the budget, once its reference destroyed.
+     */
+    public void remove() {
+        BUDGETS.remove(this);
+    }
+
+    /**
+     * Record a successful call, funding future retries.
+     */
+    public void succeeded() {
+        if (tokens != null) {
+            tokens.deposit();
+        }
+    }
+
+    /**
+     * @return whether a retry is allowed; it is counted either as a retry or as a suppressed retry
+     */
+    public boolean tryRetry() {
+        if (tokens == null || tokens.tryWithdraw()) {
+            exhaustedNow.set(false);
+            retries.incrementAndGet();
+            return true;
+        }
+        if (exhaustedNow.compareAndSet(false, true)) {
+            exhausted.incrementAndGet();
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isEnabled() {
+        return tokens != null;
+    }
+
+    /**
+     * @return the number of retries currently funded by the successful calls
+     */
+    public long getBalance() {
+        return tokens == null ? 0 : tokens.getBalance();
+    }
+
+    /**
+     * @return retries sent
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return retries not sent because the budget was exhausted
+     */
+    public long getSuppressedRetries() {
+        return suppressed.get();
+    }
+
+    /**
+     * @return times the budget got exhausted
+     */
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    public boolean isExhausted() {
+        return exhaustedNow.get();
+    }
+
+}
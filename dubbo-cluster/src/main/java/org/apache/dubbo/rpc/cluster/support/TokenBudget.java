@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket bounding the extra calls (retries, hedged calls) to a ratio of the regular calls.
+ * <p>
+ * Every regular call deposits <code>ratio</code> of a token, every extra call withdraws a whole one. Besides,
+ * <code>minPerSecond</code> extra calls per second are always allowed, so that a low traffic service can still retry.
+ */
+class TokenBudget {
+
+    private static final long SCALE = 1000;
+
+    /**
+     * the balance is capped, so that a long healthy period can't fund a storm of extra calls
+     */
+    private static final long MAX_DEPOSITS = 100;
+
+    private final long deposit;
+
+    private final long maxBalance;
+
+    private final int minPerSecond;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    private final AtomicLong floorSecond = new AtomicLong();
+
+    private final AtomicLong floorUsed = new AtomicLong();
+
+    /**
+     * @param ratio        extra calls allowed per regular call, e.g. 0.1 for 10%
+     * @param minPerSecond extra calls allowed per second regardless of the ratio
+     */
+    TokenBudget(double ratio, int minPerSecond) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("Illegal budget ratio: " + ratio);
+        }
+        this.deposit = (long) (ratio * SCALE);
+        this.maxBalance = Math.max(SCALE, deposit * MAX_DEPOSITS);
+        this.minPerSecond = minPerSecond;
+    }
+
+    void deposit() {
+        if (deposit == 0) {
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+            next = Math.min(maxBalance, current + deposit);
+        } while (!balance.compareAndSet(current, next));
+    }
+
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return tryWithdrawFloor();
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    private boolean tryWithdrawFloor() {
+        if (minPerSecond <= 0) {
+            return false;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long last = floorSecond.get();
+        if (last != second && floorSecond.compareAndSet(last, second)) {
+            floorUsed.set(0);
+        }
+        return floorUsed.incrementAndGet() <= minPerSecond;
+    }
+
+    /**
+     * @return the number of extra calls currently funded by the deposits
+     */
+    long getBalance() {
+        return balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.outlier;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.cluster.directory.StaticDirectory;
+import org.apache.dubbo.rpc.cluster.support.FailoverClusterInvoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings("unchecked")
+public class OutlierDetectorTest {
+
+    private List<Invoker<OutlierDetectorTest>> newInvokers(String service, int count, String parameters) {
+        List<Invoker<OutlierDetectorTest>> invokers = new ArrayList<Invoker<OutlierDetectorTest>>();
+        for (int i = 1; i <= count; i++) {
+            Invoker<OutlierDetectorTest> invoker = mock(Invoker.class);
+            given(invoker.getUrl()).willReturn(URL.valueOf("dubbo://10.20.3." + i + ":20880/" + service + "?outlier=true&" + parameters));
+            invokers.add(invoker);
+        }
+        return invokers;
+    }
+
+    @Test
+    public void testEjectOnConsecutiveFailures() throws Exception {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.failures", 3, "outlier.ejection.time=100");
+        URL url = invokers.get(0).getUrl();
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(url);
+        assertSame(invokers, detector.select(invokers));
+
+        for (int i = 0; i < 4; i++) {
+            detector.record(url, false, 1);
+        }
+        detector.record(url, true, 1);
+        assertSame("a success resets the consecutive failures", invokers, detector.select(invokers));
+        for (int i = 0; i < 5; i++) {
+            detector.record(url, false, 1);
+        }
+        List<Invoker<OutlierDetectorTest>> selected = detector.select(invokers);
+        assertEquals(2, selected.size());
+        Assert.assertFalse(selected.contains(invokers.get(0)));
+        OutlierDetector.ProviderStatus status = detector.getProviderStatuses().get(url.getAddress());
+        Assert.assertTrue(status.isEjected());
+        assertEquals(1, status.getEjections());
+
+        Thread.sleep(150);
+        assertSame("the ejection expired", invokers, detector.select(invokers));
+        for (int i = 0; i < 5; i++) {
+            detector.record(url, false, 1);
+        }
+        assertEquals(2, status.getEjections());
+        Assert.assertTrue("the ejection period doubled", status.getRemainingEjectionTime() > 100);
+    }
+
+    @Test
+    public void testMaxEjectionPercent() {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.percent", 4, "outlier.max.ejection.percent=50");
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(invokers.get(0).getUrl());
+        detector.select(invokers);
+        for (Invoker<OutlierDetectorTest> invoker : invokers) {
+            for (int i = 0; i < 5; i++) {
+                detector.record(invoker.getUrl(), false, 1);
+            }
+        }
+        assertEquals(2, detector.select(invokers).size());
+    }
+
+    @Test
+    public void testEjectSlowProvider() {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.latency", 4, "");
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(invokers.get(0).getUrl());
+        detector.select(invokers);
+        for (int i = 0; i < 10; i++) {
+            detector.record(invokers.get(0).getUrl(), true, 100);
+            detector.record(invokers.get(1).getUrl(), true, 10);
+            detector.record(invokers.get(2).getUrl(), true, 12);
+            detector.record(invokers.get(3).getUrl(), true, 15);
+        }
+        detector.detect(System.currentTimeMillis());
+        List<Invoker<OutlierDetectorTest>> selected = detector.select(invokers);
+        assertEquals(3, selected.size());
+        Assert.assertFalse(selected.contains(invokers.get(0)));
+    }
+
+    @Test
+    public void testFilterIgnoresBusinessExceptions() {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.filter", 2, "");
+        Invoker<OutlierDetectorTest> invoker = invokers.get(0);
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("method1");
+        OutlierDetectionFilter filter = new OutlierDetectionFilter();
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(invoker.getUrl());
+
+        given(invoker.invoke(invocation)).willReturn(new RpcResult(new IllegalStateException("biz")));
+        for (int i = 0; i < 5; i++) {
+            filter.invoke(invoker, invocation);
+        }
+        assertSame(invokers, detector.select(invokers));
+
+        given(invoker.invoke(invocation)).willThrow(new RpcException(RpcException.NETWORK_EXCEPTION, "network"));
+        for (int i = 0; i < 5; i++) {
+            try {
+                filter.invoke(invoker, invocation);
+                fail();
+            } catch (RpcException expected) {
+            }
+        }
+        assertEquals(1, detector.select(invokers).size());
+    }
+
+    @Test
+    public void testFilterCountsAsyncTransportFailures() {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.filter.async", 2, "");
+        Invoker<OutlierDetectorTest> invoker = invokers.get(0);
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName("method1");
+        OutlierDetectionFilter filter = new OutlierDetectionFilter();
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(invoker.getUrl());
+        assertSame(invokers, detector.select(invokers));
+
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<Result> resultFuture = new CompletableFuture<Result>();
+            given(invoker.invoke(invocation)).willReturn(new AsyncRpcResult(new CompletableFuture<Object>(), resultFuture, false));
+            filter.invoke(invoker, invocation);
+            resultFuture.completeExceptionally(new TimeoutException("timeout"));
+        }
+        assertEquals(1, detector.select(invokers).size());
+    }
+
+    @Test
+    public void testReleasedOnDestroy() {
+        List<Invoker<OutlierDetectorTest>> invokers = newInvokers("outlier.destroy", 2, "");
+        URL url = invokers.get(0).getUrl();
+        FailoverClusterInvoker<OutlierDetectorTest> first = new FailoverClusterInvoker<OutlierDetectorTest>(
+                new StaticDirectory<OutlierDetectorTest>(url, invokers));
+        FailoverClusterInvoker<OutlierDetectorTest> second = new FailoverClusterInvoker<OutlierDetectorTest>(
+                new StaticDirectory<OutlierDetectorTest>(url, invokers));
+        OutlierDetector detector = OutlierDetector.getOutlierDetector(url);
+        detector.record(url, false, 1);
+
+        // still detecting for the other reference
+        first.destroy();
+        first.destroy();
+        assertSame(detector, OutlierDetector.getOutlierDetector(url));
+        second.destroy();
+        assertNull(OutlierDetector.getOutlierDetector(url));
+        Assert.assertFalse(OutlierDetector.getOutlierDetectors().containsKey(url.getServiceKey()));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.router.zone;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.cluster.Router;
+import org.apache.dubbo.rpc.cluster.router.MockInvoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ZoneAwareRouterTest {
+
+    private static final URL ROUTER_URL = URL.valueOf("zone://0.0.0.0/com.foo.BarService");
+
+    private static final URL CONSUMER_URL = URL.valueOf("consumer://10.20.3.1/com.foo.BarService?zone=a&region=r1");
+
+    private RpcInvocation invocation() {
+        return invocation("sayHello");
+    }
+
+    private RpcInvocation invocation(String methodName) {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setMethodName(methodName);
+        return invocation;
+    }
+
+    private Invoker<String> invoker(String host, String zone, String region, boolean available) {
+        return new MockInvoker<String>(URL.valueOf("dubbo://" + host + ":20880/com.foo.BarService?zone=" + zone + "&region=" + region), available);
+    }
+
+    @Test
+    public void testRouteToLocalZone() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", true));
+        invokers.add(invoker("10.20.3.2", "b", "r1", true));
+        invokers.add(invoker("10.20.3.3", "a", "r1", true));
+
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL);
+        Assert.assertTrue(router.getUrl().getParameter(Constants.RUNTIME_KEY, false));
+        List<Invoker<String>> routed = router.route(invokers, CONSUMER_URL, invocation());
+        Assert.assertEquals(2, routed.size());
+        Assert.assertSame(invokers.get(0), routed.get(0));
+        Assert.assertSame(invokers.get(2), routed.get(1));
+        // cached for the same list
+        Assert.assertSame(routed, router.route(invokers, CONSUMER_URL, invocation()));
+    }
+
+    @Test
+    public void testRouteWithoutZone() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", true));
+        invokers.add(invoker("10.20.3.2", "b", "r1", true));
+
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL);
+        Assert.assertSame(invokers, router.route(invokers, URL.valueOf("consumer://10.20.3.1/com.foo.BarService"), invocation()));
+    }
+
+    @Test
+    public void testRouteNoLocalProviders() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "b", "r1", true));
+        invokers.add(invoker("10.20.3.2", "c", "r2", true));
+
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL);
+        List<Invoker<String>> routed = router.route(invokers, CONSUMER_URL, invocation());
+        Assert.assertEquals(1, routed.size());
+        Assert.assertSame(invokers.get(0), routed.get(0));
+    }
+
+    @Test
+    public void testSpilloverWhenLocalZoneUnhealthy() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", false));
+        invokers.add(invoker("10.20.3.2", "a", "r1", false));
+        invokers.add(invoker("10.20.3.3", "b", "r1", true));
+
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL);
+        for (int i = 0; i < 100; i++) {
+            List<Invoker<String>> routed = router.route(invokers, CONSUMER_URL, invocation());
+            Assert.assertEquals(1, routed.size());
+            Assert.assertSame(invokers.get(2), routed.get(0));
+        }
+    }
+
+    @Test
+    public void testGradualSpillover() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", true));
+        invokers.add(invoker("10.20.3.2", "a", "r1", false));
+        invokers.add(invoker("10.20.3.3", "b", "r1", true));
+
+        // local healthy capacity is 0.5 and the threshold 1, so about half of the calls spill over
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL.addParameter(Constants.ZONE_SPILLOVER_THRESHOLD_KEY, "1"));
+        int local = 0;
+        int runs = 10000;
+        for (int i = 0; i < runs; i++) {
+            List<Invoker<String>> routed = router.route(invokers, CONSUMER_URL, invocation());
+            if (routed.contains(invokers.get(0))) {
+                local++;
+            }
+        }
+        Assert.assertTrue("local calls: " + local, local > runs * 0.4 && local < runs * 0.6);
+    }
+
+    @Test
+    public void testPartitionCachedForSameInvokers() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", true));
+        invokers.add(invoker("10.20.3.2", "b", "r1", true));
+
+        // an upstream router hands out a new list on every call
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL);
+        List<Invoker<String>> routed = router.route(new ArrayList<Invoker<String>>(invokers), CONSUMER_URL, invocation());
+        Assert.assertSame(routed, router.route(new ArrayList<Invoker<String>>(invokers), CONSUMER_URL, invocation()));
+
+        invokers.add(invoker("10.20.3.3", "a", "r1", true));
+        Assert.assertEquals(2, router.route(new ArrayList<Invoker<String>>(invokers), CONSUMER_URL, invocation()).size());
+    }
+
+    @Test
+    public void testSpilloverOnFailures() {
+        List<Invoker<String>> invokers = new ArrayList<Invoker<String>>();
+        invokers.add(invoker("10.20.3.1", "a", "r1", true));
+        invokers.add(invoker("10.20.3.2", "b", "r1", true));
+
+        Router router = new ZoneAwareRouterFactory().getRouter(ROUTER_URL.addParameter(Constants.ZONE_MIN_REQUESTS_KEY, 10)
+                .addParameter(Constants.ZONE_HEALTH_INTERVAL_KEY, 0));
+        Invocation invocation = invocation("sayFailures");
+        Assert.assertSame(invokers.get(0), router.route(new ArrayList<Invoker<String>>(invokers), CONSUMER_URL, invocation).get(0));
+
+        // the calls to the local zone fail, recorded by the filter
+        Invoker<String> failing = new MockInvoker<String>(invokers.get(0).getUrl(), true) {
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                return new RpcResult(new RpcException(RpcException.NETWORK_EXCEPTION, "down"));
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            new ZoneStatusFilter().invoke(failing, invocation);
+        }
+        ZoneStatus status = ZoneStatus.getStatus(invokers.get(0).getUrl(), invocation.getMethodName());
+        Assert.assertEquals(10, status.getTotal());
+        Assert.assertEquals(10, status.getFailed());
+
+        // the health of the zone survives the partition being rebuilt
+        invokers.add(invoker("10.20.3.3", "b", "r1", true));
+        for (int i = 0; i < 100; i++) {
+            List<Invoker<String>> routed = router.route(new ArrayList<Invoker<String>>(invokers), CONSUMER_URL, invocation);
+            Assert.assertEquals(2, routed.size());
+            Assert.assertFalse(routed.contains(invokers.get(0)));
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * BroadcastClusterInvokerTest
+ */
+@SuppressWarnings("unchecked")
+public class BroadcastClusterInvokerTest {
+
+    private List<Invoker<BroadcastClusterInvokerTest>> invokers = new ArrayList<Invoker<BroadcastClusterInvokerTest>>();
+    private List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>();
+    private AtomicInteger inflight = new AtomicInteger();
+    private AtomicInteger maxInflight = new AtomicInteger();
+    private AtomicInteger issued = new AtomicInteger();
+    private Set<Thread> issuingThreads = new CopyOnWriteArraySet<Thread>();
+    private RpcInvocation invocation = new RpcInvocation();
+    private Directory<BroadcastClusterInvokerTest> dic;
+
+    @Before
+    public void setUp() throws Exception {
+        invocation.setMethodName("method1");
+        invocation.setAttachments(new HashMap<String, String>());
+        for (int i = 0; i < 5; i++) {
+            futures.add(new CompletableFuture<Object>());
+            invokers.add(new AsyncInvoker(i));
+        }
+    }
+
+    private BroadcastClusterInvoker<BroadcastClusterInvokerTest> newInvoker(String parameters) {
+        URL url = URL.valueOf("test://test:11/test?" + Constants.BROADCAST_PARALLEL_KEY + "=true&" + parameters);
+        dic = mock(Directory.class);
+        given(dic.getUrl()).willReturn(url);
+        given(dic.list(invocation)).willReturn(invokers);
+        given(dic.getInterface()).willReturn(BroadcastClusterInvokerTest.class);
+        return new BroadcastClusterInvoker<BroadcastClusterInvokerTest>(dic);
+    }
+
+    private void completeLater(final int... indexes) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i : indexes) {
+                    try {
+                        // the first call may not be issued yet
+                        while (inflight.get() == 0) {
+                            Thread.sleep(1);
+                        }
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    inflight.decrementAndGet();
+                    futures.get(i).complete("node" + i);
+                }
+            }
+        }).start();
+    }
+
+    @Test
+    public void testWaitForAll() {
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_CONCURRENCY_KEY + "=2");
+        completeLater(0, 1, 2, 3, 4);
+        Result result = invoker.invoke(invocation);
+        Assert.assertNotNull(result.getValue());
+        assertEquals(2, maxInflight.get());
+        for (CompletableFuture<Object> future : futures) {
+            Assert.assertTrue(future.isDone());
+        }
+    }
+
+    @Test
+    public void testWaitForQuorum() {
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_WAIT_KEY + "=quorum");
+        futures.get(0).completeExceptionally(new RpcException("node0 down"));
+        completeLater(1, 2, 3);
+        Result result = invoker.invoke(invocation);
+        Assert.assertNotNull(result.getValue());
+    }
+
+    @Test
+    public void testAggregatedFailures() {
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_WAIT_KEY + "=4");
+        futures.get(0).completeExceptionally(new RpcException("node0 down"));
+        futures.get(1).completeExceptionally(new RpcException("node1 down"));
+        completeLater(2, 3, 4);
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            assertEquals(2, expected.getSuppressed().length);
+            Assert.assertTrue(expected.getMessage().contains("node0 down"));
+            Assert.assertTrue(expected.getMessage().contains("node1 down"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCompletedFutures() {
+        // the calls completed when issued are not issued by recursion
+        invokers.clear();
+        futures.clear();
+        for (int i = 0; i < 20000; i++) {
+            futures.add(CompletableFuture.completedFuture((Object) ("node" + i)));
+            invokers.add(new AsyncInvoker(i));
+        }
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_CONCURRENCY_KEY + "=1");
+        Result result = invoker.invoke(invocation);
+        Assert.assertNotNull(result.getValue());
+    }
+
+    @Test
+    public void testBizExceptions() {
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_WAIT_KEY + "=all");
+        futures.get(0).completeExceptionally(new IllegalStateException("thrown by node0"));
+        futures.get(1).completeExceptionally(new RpcException(RpcException.BIZ_EXCEPTION, "thrown by node1"));
+        completeLater(2, 3, 4);
+        Result result = invoker.invoke(invocation);
+        Assert.assertNotNull(result);
+    }
+
+    @Test
+    public void testIssuedByCaller() throws Exception {
+        BroadcastClusterInvoker<BroadcastClusterInvokerTest> invoker = newInvoker(Constants.BROADCAST_CONCURRENCY_KEY + "=1&"
+                + Constants.BROADCAST_WAIT_KEY + "=2");
+        completeLater(0, 1, 2, 3, 4);
+        Result result = invoker.invoke(invocation);
+        Assert.assertNotNull(result.getValue());
+        // the round is over once the caller returns
+        Thread.sleep(200);
+        assertEquals(2, issued.get());
+        assertEquals(1, issuingThreads.size());
+        Assert.assertTrue(issuingThreads.contains(Thread.currentThread()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalWaitPolicy() {
+        newInvoker(Constants.BROADCAST_WAIT_KEY + "=some").invoke(invocation);
+    }
+
+    private class AsyncInvoker implements Invoker<BroadcastClusterInvokerTest> {
+
+        private final int index;
+
+        private final URL url;
+
+        AsyncInvoker(int index) {
+            this.index = index;
+            this.url = URL.valueOf("test://10.20.3." + index + ":20880/test");
+        }
+
+        @Override
+        public Class<BroadcastClusterInvokerTest> getInterface() {
+            return BroadcastClusterInvokerTest.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            issued.incrementAndGet();
+            issuingThreads.add(Thread.currentThread());
+            int current = inflight.incrementAndGet();
+            if (current > maxInflight.get()) {
+                maxInflight.set(current);
+            }
+            return new AsyncRpcResult(futures.get(index));
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -77,4 +77,15 @@ public class ClusterUtilsTest {
         Assert.assertEquals(url.getParameter(Constants.THREADPOOL_KEY), "foo");
     }
 
+    @Test
+    public void testMergeUrlZone() throws Exception {
+        URL providerURL = URL.valueOf("dubbo://localhost:55555/path?zone=b");
+        URL consumerURL = URL.valueOf("consumer://localhost/path?zone=a&region=r1");
+
+        URL url = ClusterUtils.mergeUrl(providerURL, consumerURL.getParameters());
+
+        Assert.assertEquals("b", url.getParameter(Constants.ZONE_KEY));
+        Assert.assertFalse(url.hasParameter(Constants.REGION_KEY));
+    }
+
 }
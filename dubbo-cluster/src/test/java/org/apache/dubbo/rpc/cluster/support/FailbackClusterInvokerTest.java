@@ -16,11 +16,14 @@
  */
 package org.apache.dubbo.rpc.cluster.support;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.utils.LogUtil;
+import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.RpcResult;
 import org.apache.dubbo.rpc.cluster.Directory;
@@ -30,11 +33,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @SuppressWarnings("unchecked")
 public class FailbackClusterInvokerTest {
@@ -59,6 +66,7 @@ public class FailbackClusterInvokerTest {
         given(dic.getInterface()).willReturn(FailbackClusterInvokerTest.class);
 
         invocation.setMethodName("method1");
+        invocation.setAttachments(new HashMap<String, String>());
 
         invokers.add(invoker);
     }
@@ -129,4 +137,54 @@ public class FailbackClusterInvokerTest {
         invoker.retryFailed();// when retry the invoker which get from failed map already is not the mocked invoker,so
         // it can be invoke successfully
     }
+
+    private FailbackClusterInvoker<FailbackClusterInvokerTest> newFailbackInvoker(String parameters) {
+        URL url = URL.valueOf("test://test:11/test?" + parameters);
+        Directory<FailbackClusterInvokerTest> dic = mock(Directory.class);
+        given(dic.getUrl()).willReturn(url);
+        given(dic.list(invocation)).willReturn(invokers);
+        given(dic.getInterface()).willReturn(FailbackClusterInvokerTest.class);
+        given(invoker.getUrl()).willReturn(url);
+        given(invoker.getInterface()).willReturn(FailbackClusterInvokerTest.class);
+        return new FailbackClusterInvoker<FailbackClusterInvokerTest>(dic);
+    }
+
+    @Test
+    public void testDropOldestFailed() {
+        given(invoker.invoke(any(Invocation.class))).willThrow(new RpcException("failed"));
+        FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = newFailbackInvoker(Constants.FAIL_BACK_TASKS_KEY + "=2");
+        for (int i = 0; i < 3; i++) {
+            invoker.invoke(invocation);
+        }
+        assertEquals(2, invoker.getFailedCount());
+        assertEquals(1, invoker.getDroppedCount());
+        invoker.destroy();
+        assertEquals(0, invoker.getFailedCount());
+    }
+
+    @Test
+    public void testRetrySucceeded() {
+        given(invoker.invoke(any(Invocation.class))).willThrow(new RpcException("failed")).willReturn(result);
+        FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = newFailbackInvoker("");
+        invoker.invoke(invocation);
+        assertEquals(1, invoker.getFailedCount());
+        invoker.retryFailed();
+        assertEquals(0, invoker.getFailedCount());
+        assertEquals(0, invoker.getExhaustedCount());
+    }
+
+    @Test
+    public void testRetryUntilExhausted() throws Exception {
+        given(invoker.invoke(any(Invocation.class))).willThrow(new RpcException("failed"));
+        FailbackClusterInvoker<FailbackClusterInvokerTest> invoker = newFailbackInvoker(Constants.RETRIES_KEY + "=2&"
+                + Constants.FAIL_BACK_RETRY_PERIOD_KEY + "=100&" + Constants.FAIL_BACK_MAX_RETRY_PERIOD_KEY + "=200");
+        invoker.invoke(invocation);
+        for (int i = 0; i < 50 && invoker.getExhaustedCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, invoker.getExhaustedCount());
+        assertEquals(0, invoker.getFailedCount());
+        // the call and its 2 retries
+        verify(this.invoker, times(3)).invoke(any(Invocation.class));
+    }
 }
\ No newline at end of file
@@ -36,6 +36,7 @@ import java.util.concurrent.Callable;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -117,6 +118,78 @@ public class FailoverClusterInvokerTest {
         }
     }
 
+    @Test()
+    public void testInvoke_retryBudget() {
+        URL budgetUrl = URL.valueOf("test://test:11/budget.test?retries=" + retries + "&retry.budget=10&retry.budget.min=0");
+        given(dic.getUrl()).willReturn(budgetUrl);
+        given(invoker1.invoke(invocation)).willThrow(new RpcException());
+        given(invoker1.isAvailable()).willReturn(true);
+        given(invoker1.getUrl()).willReturn(url);
+        given(invoker1.getInterface()).willReturn(FailoverClusterInvokerTest.class);
+
+        given(invoker2.invoke(invocation)).willThrow(new RpcException());
+        given(invoker2.isAvailable()).willReturn(true);
+        given(invoker2.getUrl()).willReturn(url);
+        given(invoker2.getInterface()).willReturn(FailoverClusterInvokerTest.class);
+
+        FailoverClusterInvoker<FailoverClusterInvokerTest> invoker = new FailoverClusterInvoker<FailoverClusterInvokerTest>(dic);
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            assertTrue(expected.getMessage().indexOf("Tried 1 times") > 0);
+        }
+        RetryBudget budget = invoker.getRetryBudget("method1");
+        assertEquals(0, budget.getRetries());
+        assertEquals(1, budget.getSuppressedRetries());
+        assertEquals(1, budget.getExhaustedCount());
+
+        // 10 successful calls fund one retry
+        for (int i = 0; i < 10; i++) {
+            budget.succeeded();
+        }
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            assertTrue(expected.getMessage().indexOf("Tried 2 times") > 0);
+        }
+        assertEquals(1, budget.getRetries());
+        assertEquals(2, budget.getSuppressedRetries());
+        assertEquals(2, budget.getExhaustedCount());
+
+        assertTrue(RetryBudget.getRetryBudgets().contains(budget));
+        invoker.destroy();
+        assertFalse(RetryBudget.getRetryBudgets().contains(budget));
+    }
+
+    @Test
+    public void testRetryBudgetPerReference() {
+        Directory<FailoverClusterInvokerTest> other = mock(Directory.class);
+        given(dic.getUrl()).willReturn(URL.valueOf("test://test:11/budget.reference?retry.budget=10&retry.budget.min=0"));
+        given(other.getUrl()).willReturn(URL.valueOf("test://test:11/budget.reference?retry.budget=20&retry.budget.min=0"));
+        FailoverClusterInvoker<FailoverClusterInvokerTest> first = new FailoverClusterInvoker<FailoverClusterInvokerTest>(dic);
+        FailoverClusterInvoker<FailoverClusterInvokerTest> second = new FailoverClusterInvoker<FailoverClusterInvokerTest>(other);
+        RetryBudget budget = second.getRetryBudget("method1");
+        assertNotSame(first.getRetryBudget("method1"), budget);
+        assertSame(budget, second.getRetryBudget("method1"));
+
+        // the settings of each reference, 10 successful calls fund 1 and 2 retries
+        for (int i = 0; i < 10; i++) {
+            first.getRetryBudget("method1").succeeded();
+            budget.succeeded();
+        }
+        assertEquals(2, budget.getBalance());
+        assertEquals(1, first.getRetryBudget("method1").getBalance());
+
+        // destroying one reference leaves the budget of the other
+        first.destroy();
+        assertTrue(RetryBudget.getRetryBudgets().contains(budget));
+        assertEquals(2, budget.getBalance());
+        second.destroy();
+        assertFalse(RetryBudget.getRetryBudgets().contains(budget));
+    }
+
     @Test()
     public void testInvoke_retryTimes() {
         given(invoker1.invoke(invocation)).willThrow(new RpcException(RpcException.TIMEOUT_EXCEPTION));
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * HedgingClusterInvokerTest
+ */
+@SuppressWarnings("unchecked")
+public class HedgingClusterInvokerTest {
+
+    private List<Invoker<HedgingClusterInvokerTest>> invokers = new ArrayList<Invoker<HedgingClusterInvokerTest>>();
+    private List<CompletableFuture<Object>> slowFutures = new ArrayList<CompletableFuture<Object>>();
+    private AtomicInteger calls = new AtomicInteger();
+    private volatile int slowCall = -1;
+    private RpcInvocation invocation = new RpcInvocation();
+
+    @Before
+    public void setUp() throws Exception {
+        invocation.setMethodName("method1");
+        invocation.setAttachments(new HashMap<String, String>());
+        invokers.add(new TestInvoker("10.20.3.1"));
+        invokers.add(new TestInvoker("10.20.3.2"));
+    }
+
+    private HedgingClusterInvoker<HedgingClusterInvokerTest> newInvoker(String parameters) {
+        URL url = URL.valueOf("test://test:11/test?" + Constants.TIMEOUT_KEY + "=200&" + parameters);
+        Directory<HedgingClusterInvokerTest> dic = mock(Directory.class);
+        given(dic.getUrl()).willReturn(url);
+        given(dic.list(invocation)).willReturn(invokers);
+        given(dic.getInterface()).willReturn(HedgingClusterInvokerTest.class);
+        return new HedgingClusterInvoker<HedgingClusterInvokerTest>(dic);
+    }
+
+    private void warmUp(HedgingClusterInvoker<HedgingClusterInvokerTest> invoker) {
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("ok", invoker.invoke(invocation).getValue());
+        }
+        calls.set(0);
+    }
+
+    @Test
+    public void testNoHedgingWithoutLatencySamples() {
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = newInvoker("");
+        slowCall = 0;
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            Assert.assertTrue(expected.isTimeout());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testHedgeSlowRequest() {
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = newInvoker("");
+        warmUp(invoker);
+        slowCall = 0;
+        Result result = invoker.invoke(invocation);
+        assertEquals("ok", result.getValue());
+        assertEquals(2, calls.get());
+        // the losing request is cancelled
+        Assert.assertTrue(slowFutures.get(0).isCancelled());
+    }
+
+    @Test
+    public void testNoHedgingWithoutBudget() {
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = newInvoker(Constants.HEDGING_BUDGET_KEY + "=0");
+        warmUp(invoker);
+        slowCall = 0;
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            Assert.assertTrue(expected.isTimeout());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNoTokenSpentWithoutHedge() {
+        HedgingClusterInvoker<HedgingClusterInvokerTest> invoker = newInvoker("");
+        warmUp(invoker);
+        long balance = invoker.getBudget().getBalance();
+        // the only other provider is down, the hedge would go to the slow one again
+        ((TestInvoker) invokers.get(1)).available = false;
+        slowCall = 0;
+        try {
+            invoker.invoke(invocation);
+            fail();
+        } catch (RpcException expected) {
+            Assert.assertTrue(expected.isTimeout());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(balance, invoker.getBudget().getBalance());
+    }
+
+    private class TestInvoker implements Invoker<HedgingClusterInvokerTest> {
+
+        private final URL url;
+
+        private volatile boolean available = true;
+
+        TestInvoker(String host) {
+            this.url = URL.valueOf("test://" + host + ":20880/test");
+        }
+
+        @Override
+        public Class<HedgingClusterInvokerTest> getInterface() {
+            return HedgingClusterInvokerTest.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            CompletableFuture<Object> future = new CompletableFuture<Object>();
+            if (calls.getAndIncrement() == slowCall) {
+                slowFutures.add(future);
+            } else {
+                future.complete("ok");
+            }
+            return new AsyncRpcResult(future);
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long micros = 0; micros < 1000000; micros += 7) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(micros));
+            Assert.assertTrue(micros + " -> " + upper, upper > micros);
+            Assert.assertTrue(micros + " -> " + upper, upper <= Math.max(micros * 1.25 + 1, 4));
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(60000);
+        assertEquals(-1, histogram.getPercentile(95, 1));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(-1, histogram.getPercentile(95, 101));
+        long p95 = histogram.getPercentile(95, 100);
+        Assert.assertTrue(String.valueOf(p95), p95 > 95000 && p95 <= 95000 * 1.25);
+        long p50 = histogram.getPercentile(50, 100);
+        Assert.assertTrue(String.valueOf(p50), p50 > 50000 && p50 <= 50000 * 1.25);
+    }
+}
@@ -18,9 +18,11 @@ package org.apache.dubbo.rpc.cluster.support;
 
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcResult;
 import org.apache.dubbo.rpc.cluster.Directory;
 
@@ -37,6 +39,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
@@ -223,4 +226,96 @@ public class MergeableClusterInvokerTest {
 
     }
 
+
+    private Invoker groupInvoker(final String group, final Object result) {
+        return (Invoker) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Invoker.class}, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getUrl".equals(method.getName())) {
+                    return url.addParameter(Constants.GROUP_KEY, group);
+                }
+                if ("getInterface".equals(method.getName())) {
+                    return MenuService.class;
+                }
+                if ("invoke".equals(method.getName())) {
+                    if (result instanceof RuntimeException) {
+                        throw (RuntimeException) result;
+                    }
+                    return result;
+                }
+                return null;
+            }
+        });
+    }
+
+    private void setUpGetMenu(final Invoker first, final Invoker second) {
+        given(invocation.getMethodName()).willReturn("getMenu");
+        given(invocation.getParameterTypes()).willReturn(new Class<?>[]{});
+        given(invocation.getArguments()).willReturn(new Object[]{});
+        given(invocation.getAttachments()).willReturn(new HashMap<String, String>());
+        given(directory.list(invocation)).willReturn(new ArrayList() {
+
+            {
+                add(first);
+                add(second);
+            }
+        });
+        given(directory.getUrl()).willReturn(url);
+        given(directory.getInterface()).willReturn(MenuService.class);
+        mergeableClusterInvoker = new MergeableClusterInvoker<MenuService>(directory);
+    }
+
+    @Test
+    public void testMergeAsyncResults() throws Exception {
+        url = url.addParameter(Constants.MERGER_KEY, ".merge");
+        final CompletableFuture<Object> future = new CompletableFuture<Object>();
+        setUpGetMenu(groupInvoker("first", new AsyncRpcResult(future)), groupInvoker("second", new RpcResult(secondMenu)));
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                future.complete(firstMenu);
+            }
+        }).start();
+        Result result = mergeableClusterInvoker.invoke(invocation);
+        Menu menu = (Menu) result.getValue();
+        assertEquals(3, menu.getMenus().size());
+        assertEquals(6, menu.getMenus().get("2").size());
+    }
+
+    @Test
+    public void testPartialResult() throws Exception {
+        url = url.addParameter(Constants.MERGER_KEY, ".merge")
+                .addParameter(Constants.TIMEOUT_KEY, 100)
+                .addParameter(Constants.MERGER_PARTIAL_KEY, true);
+        setUpGetMenu(groupInvoker("first", new AsyncRpcResult(new CompletableFuture<Object>())), groupInvoker("second", new RpcResult(secondMenu)));
+
+        Result result = mergeableClusterInvoker.invoke(invocation);
+        Assert.assertSame(secondMenu, result.getValue());
+    }
+
+    @Test
+    public void testPartialResultWithFailedGroup() throws Exception {
+        url = url.addParameter(Constants.MERGER_KEY, ".merge")
+                .addParameter(Constants.MERGER_PARTIAL_KEY, true);
+        setUpGetMenu(groupInvoker("first", new RpcException("no provider")), groupInvoker("second", new RpcResult(secondMenu)));
+
+        Result result = mergeableClusterInvoker.invoke(invocation);
+        Assert.assertSame(secondMenu, result.getValue());
+    }
+
+    @Test(expected = RpcException.class)
+    public void testTimeoutWithoutPartialResult() throws Exception {
+        url = url.addParameter(Constants.MERGER_KEY, ".merge")
+                .addParameter(Constants.TIMEOUT_KEY, 100);
+        setUpGetMenu(groupInvoker("first", new AsyncRpcResult(new CompletableFuture<Object>())), groupInvoker("second", new RpcResult(secondMenu)));
+
+        mergeableClusterInvoker.invoke(invocation);
+    }
+
 }
@@ -56,6 +56,30 @@ public class Constants {
 
     public static final String CACHE_KEY = "cache";
 
+    /**
+     * The provider caches the encoded responses of the method, for idempotent methods only
+     */
+    public static final String RESPONSE_CACHE_KEY = "response.cache";
+
+    public static final String RESPONSE_CACHE_TTL_KEY = "response.cache.ttl";
+
+    public static final int DEFAULT_RESPONSE_CACHE_TTL = 60 * 1000;
+
+    /**
+     * The bytes of the encoded responses cached per method, kept out of the heap
+     */
+    public static final String RESPONSE_CACHE_SIZE_KEY = "response.cache.size";
+
+    public static final int DEFAULT_RESPONSE_CACHE_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The bytes of the encoded responses cached by all the methods of the process, a system or dubbo.properties
+     * property
+     */
+    public static final String RESPONSE_CACHE_TOTAL_SIZE_KEY = "dubbo.response.cache.total.size";
+
+    public static final long DEFAULT_RESPONSE_CACHE_TOTAL_SIZE = 256 * 1024 * 1024;
+
     public static final String DYNAMIC_KEY = "dynamic";
 
     public static final String DUBBO_PROPERTIES_KEY = "dubbo.properties.file";
@@ -202,6 +226,39 @@ public class Constants {
 
     public static final String FORKS_KEY = "forks";
 
+    /**
+     * whether the broadcast cluster calls all providers concurrently instead of one by one
+     */
+    public static final String BROADCAST_PARALLEL_KEY = "broadcast.parallel";
+
+    /**
+     * completion policy of a parallel broadcast: "all", "quorum" or the number of successful calls to wait for
+     */
+    public static final String BROADCAST_WAIT_KEY = "broadcast.wait";
+
+    public static final String BROADCAST_WAIT_ALL = "all";
+
+    public static final String BROADCAST_WAIT_QUORUM = "quorum";
+
+    /**
+     * max in-flight calls of a parallel broadcast, 0 means no limit
+     */
+    public static final String BROADCAST_CONCURRENCY_KEY = "broadcast.concurrency";
+
+    /**
+     * latency percentile of a method after which the hedging cluster sends a second request
+     */
+    public static final String HEDGING_PERCENTILE_KEY = "hedging.percentile";
+
+    public static final double DEFAULT_HEDGING_PERCENTILE = 95d;
+
+    /**
+     * max extra load caused by hedged requests, in percent of the regular requests
+     */
+    public static final String HEDGING_BUDGET_KEY = "hedging.budget";
+
+    public static final double DEFAULT_HEDGING_BUDGET = 10d;
+
     public static final String DEFAULT_THREADPOOL = "limited";
 
     public static final String DEFAULT_CLIENT_THREADPOOL = "cached";
@@ -254,6 +311,46 @@ public class Constants {
 
     public static final String RETRIES_KEY = "retries";
 
+    /**
+     * max retries in percent of the successful calls, no limit if absent
+     */
+    public static final String RETRY_BUDGET_KEY = "retry.budget";
+
+    /**
+     * retries per second always allowed by the retry budget
+     */
+    public static final String RETRY_BUDGET_MIN_KEY = "retry.budget.min";
+
+    public static final int DEFAULT_RETRY_BUDGET_MIN = 10;
+
+    /**
+     * whether each method has its own retry budget, instead of one for the service
+     */
+    public static final String RETRY_BUDGET_METHOD_KEY = "retry.budget.method";
+
+    /**
+     * max failed invocations waiting for a retry in a failback cluster, the oldest is dropped beyond
+     */
+    public static final String FAIL_BACK_TASKS_KEY = "failbacktasks";
+
+    public static final int DEFAULT_FAILBACK_TASKS = 100;
+
+    /**
+     * retries of a failed invocation in a failback cluster, unless <code>retries</code> is set
+     */
+    public static final int DEFAULT_FAILBACK_TIMES = 3;
+
+    /**
+     * delay in milliseconds before the first retry of a failback cluster, doubled on each retry
+     */
+    public static final String FAIL_BACK_RETRY_PERIOD_KEY = "failback.retry.period";
+
+    public static final int DEFAULT_FAILBACK_RETRY_PERIOD = 5000;
+
+    public static final String FAIL_BACK_MAX_RETRY_PERIOD_KEY = "failback.max.retry.period";
+
+    public static final int DEFAULT_FAILBACK_MAX_RETRY_PERIOD = 60000;
+
     public static final String PROMPT_KEY = "prompt";
 
     public static final String DEFAULT_PROMPT = "dubbo>";
@@ -262,12 +359,23 @@ public class Constants {
 
     public static final String SERIALIZATION_KEY = "serialization";
 
+    /**
+     * The serializations to negotiate per connection, best first, see <code>serialization</code> for the one used
+     * until the provider answers or with providers not negotiating
+     */
+    public static final String PREFER_SERIALIZATION_KEY = "prefer.serialization";
+
     public static final String EXTENSION_KEY = "extension";
 
     public static final String KEEP_ALIVE_KEY = "keepalive";
 
     public static final String OPTIMIZER_KEY = "optimizer";
 
+    /**
+     * The digest of the classes of the serialization optimizer of the provider, checked by the consumers
+     */
+    public static final String OPTIMIZER_DIGEST_KEY = "optimizer.digest";
+
     public static final String EXCHANGER_KEY = "exchanger";
 
     public static final String TRANSPORTER_KEY = "transporter";
@@ -380,6 +488,8 @@ public class Constants {
 
     public static final String CHANNEL_ATTRIBUTE_READONLY_KEY = "channel.readonly";
 
+    public static final String CHANNEL_ATTRIBUTE_SERIALIZATION_KEY = "channel.serialization";
+
     public static final String CHANNEL_READONLYEVENT_SENT_KEY = "channel.readonly.sent";
 
     public static final String CHANNEL_SEND_READONLYEVENT_KEY = "channel.readonly.send";
@@ -416,6 +526,11 @@ public class Constants {
 
     public static final String MERGER_KEY = "merger";
 
+    /**
+     * whether the groups which failed or timed out are left out of the merged result instead of failing the call
+     */
+    public static final String MERGER_PARTIAL_KEY = "merger.partial";
+
     /**
      * To decide whether to exclude unavailable invoker from the cluster
      */
@@ -462,6 +577,12 @@ public class Constants {
      */
     public static final String REGISTRY_FILESAVE_SYNC_KEY = "save.file";
 
+    /**
+     * To decide whether register center saves file as a snapshot plus a journal of changes, instead of rewriting the
+     * whole properties file on each change
+     */
+    public static final String REGISTRY_FILE_JOURNAL_KEY = "file.journal";
+
     /**
      * Period of registry center's retry interval
      */
@@ -472,6 +593,60 @@ public class Constants {
      */
     public static final int DEFAULT_REGISTRY_RETRY_PERIOD = 5 * 1000;
 
+    /**
+     * Quiet period in milliseconds a subscriber's notifications are held back to coalesce a burst, 0 to disable
+     */
+    public static final String REGISTRY_NOTIFY_QUIET_PERIOD_KEY = "notify.quiet.period";
+
+    public static final int DEFAULT_REGISTRY_NOTIFY_QUIET_PERIOD = 0;
+
+    /**
+     * Max delay in milliseconds of a coalesced notification, however long the burst lasts
+     */
+    public static final String REGISTRY_NOTIFY_MAX_DELAY_KEY = "notify.max.delay";
+
+    public static final int DEFAULT_REGISTRY_NOTIFY_MAX_DELAY = 3 * 1000;
+
+    /**
+     * Threads notifying the subscribers off the registry client thread, 0 to notify on the registry client thread
+     */
+    public static final String REGISTRY_NOTIFY_THREADS_KEY = "notify.threads";
+
+    public static final int DEFAULT_REGISTRY_NOTIFY_THREADS = 0;
+
+    /**
+     * Redis registry events carry the changed urls, applied by the subscribers to their copy instead of reading it again
+     */
+    public static final String NOTIFY_DIFF_KEY = "notify.diff";
+
+    /**
+     * Register only the routing keys of the provider url, the other parameters are published to the metadata store
+     */
+    public static final String REGISTRY_SIMPLIFIED_KEY = "simplified";
+
+    /**
+     * Metadata store extension holding the parameters left out of the simplified provider urls, by default the one
+     * named after the registry protocol if any, else {@link #DEFAULT_METADATA_STORE}
+     */
+    public static final String METADATA_STORE_KEY = "metadata.store";
+
+    public static final String DEFAULT_METADATA_STORE = "file";
+
+    /**
+     * Directory of the file metadata store
+     */
+    public static final String METADATA_FILE_KEY = "metadata.file";
+
+    /**
+     * Whether the directory of the file metadata store is on a file system shared with the consumers
+     */
+    public static final String METADATA_SHARED_KEY = "metadata.shared";
+
+    /**
+     * Revision of the parameters left out of a simplified provider url
+     */
+    public static final String METADATA_REVISION_KEY = "metadata.revision";
+
     /**
      * Reconnection period in milliseconds for register center
      */
@@ -483,6 +658,11 @@ public class Constants {
 
     public static final int DEFAULT_SESSION_TIMEOUT = 60 * 1000;
 
+    /**
+     * Whether the zookeeper client keeps a local mirror of the children of the watched paths
+     */
+    public static final String ZOOKEEPER_CHILD_CACHE_KEY = "child.cache";
+
     /**
      * The key name for export URL in register center
      */
@@ -564,6 +744,82 @@ public class Constants {
 
     public static final String DEFAULT_SCRIPT_TYPE_KEY = "javascript";
 
+    public static final String ZONE_KEY = "zone";
+
+    public static final String REGION_KEY = "region";
+
+    /**
+     * minimum health score (healthy capacity ratio or success rate) of the local zone before spilling over
+     */
+    public static final String ZONE_SPILLOVER_THRESHOLD_KEY = "zone.spillover.threshold";
+
+    public static final double DEFAULT_ZONE_SPILLOVER_THRESHOLD = 0.7d;
+
+    /**
+     * minimum number of calls in the local zone before its success rate is taken into account
+     */
+    public static final String ZONE_MIN_REQUESTS_KEY = "zone.min.requests";
+
+    public static final int DEFAULT_ZONE_MIN_REQUESTS = 100;
+
+    /**
+     * interval in milliseconds between two refreshes of the cached zone health score
+     */
+    public static final String ZONE_HEALTH_INTERVAL_KEY = "zone.health.interval";
+
+    public static final int DEFAULT_ZONE_HEALTH_INTERVAL = 1000;
+
+    /**
+     * whether the providers failing or answering much slower than their peers are ejected
+     */
+    public static final String OUTLIER_KEY = "outlier";
+
+    /**
+     * consecutive failures ejecting a provider
+     */
+    public static final String OUTLIER_FAILURES_KEY = "outlier.failures";
+
+    public static final int DEFAULT_OUTLIER_FAILURES = 5;
+
+    /**
+     * a provider whose mean latency exceeds that many times the median of its peers is ejected
+     */
+    public static final String OUTLIER_LATENCY_FACTOR_KEY = "outlier.latency.factor";
+
+    public static final double DEFAULT_OUTLIER_LATENCY_FACTOR = 3d;
+
+    /**
+     * minimum number of calls to a provider in an interval before its latency is compared
+     */
+    public static final String OUTLIER_MIN_REQUESTS_KEY = "outlier.min.requests";
+
+    public static final int DEFAULT_OUTLIER_MIN_REQUESTS = 10;
+
+    /**
+     * interval in milliseconds between two latency comparisons
+     */
+    public static final String OUTLIER_INTERVAL_KEY = "outlier.interval";
+
+    public static final int DEFAULT_OUTLIER_INTERVAL = 10000;
+
+    /**
+     * first ejection period in milliseconds, doubled on each ejection in a row
+     */
+    public static final String OUTLIER_EJECTION_TIME_KEY = "outlier.ejection.time";
+
+    public static final int DEFAULT_OUTLIER_EJECTION_TIME = 30000;
+
+    public static final String OUTLIER_MAX_EJECTION_TIME_KEY = "outlier.max.ejection.time";
+
+    public static final int DEFAULT_OUTLIER_MAX_EJECTION_TIME = 300000;
+
+    /**
+     * max percent of the providers ejected at the same time
+     */
+    public static final String OUTLIER_MAX_EJECTION_PERCENT_KEY = "outlier.max.ejection.percent";
+
+    public static final int DEFAULT_OUTLIER_MAX_EJECTION_PERCENT = 50;
+
     public static final String STUB_EVENT_KEY = "dubbo.stub.event";
 
     public static final boolean DEFAULT_STUB_EVENT = false;
@@ -599,6 +855,11 @@ public class Constants {
 
     public static final boolean DEFAULT_DECODE_IN_IO_THREAD = true;
 
+    /**
+     * The provider takes the arguments of the calls after the attachments, serialized apart, decoded only when used
+     */
+    public static final String LAZY_ARGUMENTS_KEY = "lazy.arguments";
+
     public static final String INPUT_KEY = "input";
 
     public static final String OUTPUT_KEY = "output";
@@ -182,6 +182,11 @@ public /**final**/ class URL implements Serializable {
             path = path.substring(1);
         }
         this.path = path;
+        if (parameters instanceof URLParameters) {
+            // immutable, shared as is
+            this.parameters = parameters;
+            return;
+        }
         if (parameters == null) {
             parameters = new HashMap<String, String>();
         } else {
@@ -438,6 +443,26 @@ public /**final**/ class URL implements Serializable {
         return parameters;
     }
 
+    /**
+     * Compact form of the url, for the urls kept long and in large numbers such as the provider urls of a consumer.
+     * The parameter keys and values are interned and the parameters are shared with the equal ones, the urls derived
+     * from it by changing anything but the parameters keep sharing them. The numbers parsed from the parameters are
+     * cached along with them, while the strings of the url are built again on each call rather than cached.
+     *
+     * @return the compact url, this url if it is already compact
+     */
+    public URL compact() {
+        if (parameters instanceof URLParameters) {
+            return this;
+        }
+        URLParameters compact = URLParameters.of(parameters);
+        if (compact == null) {
+            return this;
+        }
+        return new URL(protocol == null ? null : protocol.intern(), username, password,
+                host == null ? null : host.intern(), port, path == null ? null : path.intern(), compact);
+    }
+
     public String getParameterAndDecoded(String key) {
         return getParameterAndDecoded(key, null);
     }
@@ -471,6 +496,9 @@ public /**final**/ class URL implements Serializable {
     }
 
     private Map<String, Number> getNumbers() {
+        if (parameters instanceof URLParameters) {
+            return ((URLParameters) parameters).getNumbers();
+        }
         if (numbers == null) { // concurrent initialization is tolerant
             numbers = new ConcurrentHashMap<String, Number>();
         }
@@ -1110,6 +1138,9 @@ public /**final**/ class URL implements Serializable {
 
     @Override
     public String toString() {
+        if (parameters instanceof URLParameters) {
+            return buildString(false, true);
+        }
         if (string != null) {
             return string;
         }
@@ -1132,6 +1163,9 @@ public /**final**/ class URL implements Serializable {
     }
 
     public String toFullString() {
+        if (parameters instanceof URLParameters) {
+            return buildString(true, true);
+        }
         if (full != null) {
             return full;
         }
@@ -1143,6 +1177,9 @@ public /**final**/ class URL implements Serializable {
     }
 
     public String toParameterString() {
+        if (parameters instanceof URLParameters) {
+            return toParameterString(new String[0]);
+        }
         if (parameter != null) {
             return parameter;
         }
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable compact parameters of a {@link URL}, see {@link URL#compact()}.
+ * <p>
+ * The keys are kept in an array sorted by hash code, shared by all the parameters with the same keys, and the values in
+ * an array of the same order. The keys and values are interned, and the values are shared with the equal parameters,
+ * so that the urls of the providers of a service, which mostly differ by their host and port, cost little more than
+ * one of them. The values proper to each process, such as <code>pid</code> and <code>timestamp</code>, would make every
+ * url unique, they are kept apart in a small array of each url.
+ */
+final class URLParameters extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = 2580414302960400745L;
+
+    private static final int MAX_SHAPES = 8192;
+
+    /**
+     * 各进程自有的参数，值几乎各不相同，不参与共享
+     */
+    private static final Set<String> OWN_KEYS = new HashSet<String>(Arrays.asList(
+            Constants.PID_KEY, Constants.TIMESTAMP_KEY, Constants.REMOTE_TIMESTAMP_KEY));
+
+    /**
+     * 共享的参数键数组
+     */
+    private static final ConcurrentMap<Shape, Shape> SHAPES = new ConcurrentHashMap<Shape, Shape>();
+
+    /**
+     * 共享的参数值，不再使用后回收，按哈希分段加锁
+     */
+    private static final Pool[] POOLS = new Pool[32];
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new Pool();
+        }
+    }
+
+    private static final Comparator<String> HASH_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String o1, String o2) {
+            int h1 = o1.hashCode();
+            int h2 = o2.hashCode();
+            return h1 < h2 ? -1 : (h1 == h2 ? o1.compareTo(o2) : 1);
+        }
+    };
+
+    private final SharedValues shared;
+
+    /**
+     * 自有参数的值，按 {@link Shape#own} 的顺序，无自有参数时为 null
+     */
+    private final String[] own;
+
+    private transient int hash;
+
+    private URLParameters(SharedValues shared, String[] own) {
+        this.shared = shared;
+        this.own = own;
+    }
+
+    /**
+     * @return the compact form of the parameters, null if a key is null
+     */
+    static URLParameters of(Map<String, String> parameters) {
+        if (parameters instanceof URLParameters) {
+            return (URLParameters) parameters;
+        }
+        String[] keys = new String[parameters.size()];
+        int i = 0;
+        for (String key : parameters.keySet()) {
+            if (key == null) {
+                return null;
+            }
+            keys[i++] = key.intern();
+        }
+        Arrays.sort(keys, HASH_ORDER);
+        Shape shape = new Shape(keys);
+        Shape shared = SHAPES.get(shape);
+        if (shared != null) {
+            shape = shared;
+        } else if (SHAPES.size() < MAX_SHAPES) {
+            shared = SHAPES.putIfAbsent(shape, shape);
+            if (shared != null) {
+                shape = shared;
+            }
+        }
+        String[] values = new String[keys.length];
+        String[] own = shape.ownCount == 0 ? null : new String[shape.ownCount];
+        for (i = 0; i < keys.length; i++) {
+            String value = parameters.get(keys[i]);
+            if (shape.own[i] >= 0) {
+                // not interned, nor shared
+                own[shape.own[i]] = value;
+            } else {
+                values[i] = value == null ? null : value.intern();
+            }
+        }
+        SharedValues sharedValues = SharedValues.of(shape, values);
+        return own == null ? sharedValues.parameters : new URLParameters(sharedValues, own);
+    }
+
+    /**
+     * @return the numbers parsed from the shared values, see {@link URL#getParameter(String, int)}
+     */
+    Map<String, Number> getNumbers() {
+        return shared.numbers;
+    }
+
+    @Override
+    public String get(Object key) {
+        int i = key instanceof String ? shared.shape.indexOf((String) key) : -1;
+        return i < 0 ? null : get(i);
+    }
+
+    private String get(int i) {
+        int o = shared.shape.own[i];
+        return o < 0 ? shared.values[i] : own[o];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && shared.shape.indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return shared.values.length;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < shared.values.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (i >= shared.values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<String, String>(shared.shape.keys[i], get(i));
+                        i++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return shared.values.length;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = super.hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof URLParameters) {
+            URLParameters other = (URLParameters) o;
+            if (other.shared.shape == shared.shape) {
+                return (other.shared == shared || Arrays.equals(other.shared.values, shared.values))
+                        && Arrays.equals(other.own, own);
+            }
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Serialized as a plain map, so that any peer can read it.
+     */
+    private Object writeReplace() {
+        return Collections.unmodifiableMap(new HashMap<String, String>(this));
+    }
+
+    /**
+     * Keys sorted by hash code.
+     */
+    private static final class Shape implements Serializable {
+
+        private static final long serialVersionUID = -3925733553829185227L;
+
+        private final String[] keys;
+
+        private final int[] hashes;
+
+        /**
+         * 各键在自有参数值数组中的下标，共享的键为 -1
+         */
+        private final int[] own;
+
+        private final int ownCount;
+
+        private final int hash;
+
+        Shape(String[] keys) {
+            this.keys = keys;
+            this.hashes = new int[keys.length];
+            this.own = new int[keys.length];
+            int count = 0;
+            for (int i = 0; i < keys.length; i++) {
+                hashes[i] = keys[i].hashCode();
+                own[i] = OWN_KEYS.contains(keys[i]) ? count++ : -1;
+            }
+            this.ownCount = count;
+            this.hash = Arrays.hashCode(keys);
+        }
+
+        int indexOf(String key) {
+            int h = key.hashCode();
+            int i = Arrays.binarySearch(hashes, h);
+            if (i < 0) {
+                return -1;
+            }
+            // several keys may have the same hash code
+            while (i > 0 && hashes[i - 1] == h) {
+                i--;
+            }
+            for (; i < hashes.length && hashes[i] == h; i++) {
+                if (keys[i] == key || keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape && Arrays.equals(keys, ((Shape) o).keys);
+        }
+    }
+
+    /**
+     * Values of the shared keys of a shape, the own ones are null.
+     */
+    private static final class SharedValues implements Serializable {
+
+        private static final long serialVersionUID = 5204914737151283340L;
+
+        private final Shape shape;
+
+        private final String[] values;
+
+        private final int hash;
+
+        /**
+         * 由共享参数值解析出的数字，各 URL 共用
+         */
+        private final transient Map<String, Number> numbers = new SharedNumbers();
+
+        /**
+         * 无自有参数时共用的参数
+         */
+        private final URLParameters parameters;
+
+        private SharedValues(Shape shape, String[] values) {
+            this.shape = shape;
+            this.values = values;
+            this.hash = 31 * shape.hash + Arrays.hashCode(values);
+            this.parameters = shape.ownCount == 0 ? new URLParameters(this, null) : null;
+        }
+
+        static SharedValues of(Shape shape, String[] values) {
+            SharedValues shared = new SharedValues(shape, values);
+            Pool pool = POOLS[(shared.hash ^ (shared.hash >>> 16)) & (POOLS.length - 1)];
+            synchronized (pool) {
+                WeakReference<SharedValues> reference = pool.get(shared);
+                SharedValues pooled = reference == null ? null : reference.get();
+                if (pooled != null) {
+                    return pooled;
+                }
+                pool.put(shared, new WeakReference<SharedValues>(shared));
+            }
+            return shared;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SharedValues)) {
+                return false;
+            }
+            SharedValues other = (SharedValues) o;
+            return other.shape == shape && Arrays.equals(other.values, values);
+        }
+    }
+
+    private static final class Pool extends WeakHashMap<SharedValues, WeakReference<SharedValues>> {
+    }
+
+    /**
+     * Numbers of the shared values only, the own values differ from one url to another. A method parameter is
+     * cached under <code>method.key</code>, so the key is checked by its last segment.
+     */
+    private static final class SharedNumbers extends ConcurrentHashMap<String, Number> {
+
+        private static final long serialVersionUID = -6312876284312563542L;
+
+        @Override
+        public Number put(String key, Number value) {
+            return OWN_KEYS.contains(key.substring(key.lastIndexOf('.') + 1)) ? null : super.put(key, value);
+        }
+    }
+
+}
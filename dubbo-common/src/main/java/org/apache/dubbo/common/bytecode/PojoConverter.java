@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.bytecode;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.ClassHelper;
+import org.apache.dubbo.common.utils.ReflectUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PojoConverter.
+ * 用于 PojoUtils 读写某个 POJO 类的属性的生成类，以避免反射调用，提高性能
+ * <p>
+ * Reads the bean properties, then the public fields not read by a getter, the way
+ * {@link org.apache.dubbo.common.utils.PojoUtils#generalize(Object)} does, and writes the properties having a single
+ * setter. Only the public classes whose accessors are declared by public classes are generated, the others are left
+ * to reflection, like all of them with <code>-Ddubbo.pojo.converter=false</code>.
+ */
+public abstract class PojoConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PojoConverter.class);
+
+    /**
+     * 是否生成转换类，-Ddubbo.pojo.converter=false 时全部使用反射
+     */
+    private static final boolean ENABLED = !"false".equals(System.getProperty("dubbo.pojo.converter"));
+
+    /**
+     * 生成类的缓存
+     */
+    private static final ConcurrentMap<Class<?>, PojoConverter> CONVERTERS = new ConcurrentHashMap<Class<?>, PojoConverter>();
+
+    /**
+     * 不生成、使用反射的类
+     */
+    private static final Set<Class<?>> NOT_GENERATED = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    private static final String SETTER_PREFIX = "set";
+
+    private static final AtomicLong CONVERTER_CLASS_COUNTER = new AtomicLong(0);
+
+    /**
+     * 读取的属性名，getter 的属性在前，公有字段在后
+     */
+    private String[] readNames;
+
+    private int getterCount;
+
+    /**
+     * 属性名与 setter 下标的映射
+     */
+    private Map<String, Integer> setterIndexes;
+
+    private Class<?>[] setterTypes;
+
+    private Type[] setterGenericTypes;
+
+    /**
+     * 反射可以设置的字段名与 setter 名
+     */
+    private Set<String> writableNames;
+
+    /**
+     * @return the converter of the class, null if it's left to reflection
+     */
+    public static PojoConverter getConverter(Class<?> c) {
+        if (!ENABLED) {
+            return null;
+        }
+        PojoConverter converter = CONVERTERS.get(c);
+        if (converter != null || NOT_GENERATED.contains(c)) {
+            return converter;
+        }
+        try {
+            converter = makeConverter(c);
+        } catch (Throwable t) {
+            logger.warn("Failed to generate the pojo converter of " + c.getName() + ", use reflection instead, cause: " + t.getMessage(), t);
+        }
+        if (converter == null) {
+            NOT_GENERATED.add(c);
+            return null;
+        }
+        PojoConverter old = CONVERTERS.putIfAbsent(c, converter);
+        return old == null ? converter : old;
+    }
+
+    private static PojoConverter makeConverter(Class<?> c) throws Exception {
+        if (!Modifier.isPublic(c.getModifiers()) || c.isPrimitive() || c.isArray() || c.isInterface()
+                || ClassGenerator.isDynamicClass(c)) {
+            return null;
+        }
+        String name = c.getName();
+
+        List<String> readNames = new ArrayList<String>();
+        StringBuilder c1 = new StringBuilder("public void getValues(Object o, Object[] v){ ");
+        c1.append(name).append(" w = (").append(name).append(")$1;");
+        Method[] methods = c.getMethods();
+        for (Method m : methods) {
+            if (ReflectUtils.isBeanPropertyReadMethod(m)) {
+                if (!Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+                    return null;
+                }
+                c1.append(" $2[").append(readNames.size()).append("] = ($w)w.").append(m.getName()).append("();");
+                readNames.add(ReflectUtils.getPropertyNameFromBeanReadMethod(m));
+            }
+        }
+        int getterCount = readNames.size();
+        Set<String> getterNames = new HashSet<String>(readNames);
+        Set<String> fieldNames = new HashSet<String>();
+        for (Field f : c.getFields()) {
+            if (ReflectUtils.isPublicInstanceField(f) && !getterNames.contains(f.getName())) {
+                // a field hidden by another one can't be read by its name
+                if (!fieldNames.add(f.getName()) || !Modifier.isPublic(f.getDeclaringClass().getModifiers())) {
+                    return null;
+                }
+                c1.append(" $2[").append(readNames.size()).append("] = ($w)w.").append(f.getName()).append(";");
+                readNames.add(f.getName());
+            }
+        }
+        c1.append(" }");
+
+        // the setters alone of their name, an overloaded one is chosen by the value at runtime
+        Map<String, Method> setters = new LinkedHashMap<String, Method>();
+        Set<String> overloaded = new HashSet<String>();
+        for (Method m : methods) {
+            if (m.getName().startsWith("set") && m.getName().length() > 3 && m.getParameterTypes().length == 1
+                    && setters.put(m.getName(), m) != null) {
+                overloaded.add(m.getName());
+            }
+        }
+        Map<String, Integer> setterIndexes = new HashMap<String, Integer>();
+        List<Class<?>> setterTypes = new ArrayList<Class<?>>();
+        List<Type> setterGenericTypes = new ArrayList<Type>();
+        StringBuilder c2 = new StringBuilder("public void setValue(Object o, int i, Object v){ ");
+        c2.append(name).append(" w = (").append(name).append(")$1;");
+        Set<String> writableNames = new HashSet<String>();
+        for (Field f : c.getDeclaredFields()) {
+            writableNames.add(f.getName());
+        }
+        for (Field f : c.getFields()) {
+            writableNames.add(f.getName());
+        }
+        for (Method m : setters.values()) {
+            // PojoUtils looks up "set" + the name capitalized
+            String pn = m.getName().substring(3);
+            String first = pn.substring(0, 1);
+            writableNames.add(SETTER_PREFIX + pn);
+            if (overloaded.contains(m.getName()) || !ReflectUtils.isBeanPropertyWriteMethod(m)
+                    || !Modifier.isPublic(m.getDeclaringClass().getModifiers()) || !first.toUpperCase().equals(first)) {
+                continue;
+            }
+            int index = setterTypes.size();
+            Class<?> pt = m.getParameterTypes()[0];
+            c2.append(" if( $2 == ").append(index).append(" ){ w.").append(m.getName()).append("(")
+                    .append(Wrapper.arg(pt, "$3")).append("); return; }");
+            setterIndexes.put(pn, index);
+            if (first.toLowerCase().toUpperCase().equals(first)) {
+                setterIndexes.put(first.toLowerCase() + pn.substring(1), index);
+            }
+            setterTypes.add(pt);
+            setterGenericTypes.add(m.getGenericParameterTypes()[0]);
+        }
+        c2.append(" throw new IllegalArgumentException(\"No setter \"+$2+\" in class ").append(name).append(".\"); }");
+
+        long id = CONVERTER_CLASS_COUNTER.getAndIncrement();
+        ClassGenerator cc = ClassGenerator.newInstance(ClassHelper.getClassLoader(c));
+        cc.setClassName(PojoConverter.class.getName() + id);
+        cc.setSuperClass(PojoConverter.class);
+        cc.addDefaultConstructor();
+        cc.addMethod(c1.toString());
+        cc.addMethod(c2.toString());
+        try {
+            PojoConverter converter = (PojoConverter) cc.toClass().newInstance();
+            converter.readNames = readNames.toArray(new String[0]);
+            converter.getterCount = getterCount;
+            converter.setterIndexes = setterIndexes;
+            converter.setterTypes = setterTypes.toArray(new Class<?>[0]);
+            converter.setterGenericTypes = setterGenericTypes.toArray(new Type[0]);
+            converter.writableNames = writableNames;
+            return converter;
+        } finally {
+            cc.release();
+        }
+    }
+
+    /**
+     * @return the names of the values read by {@link #getValues(Object, Object[])}
+     */
+    public String[] getReadNames() {
+        return readNames;
+    }
+
+    /**
+     * @return the number of the values read by a getter, the public fields coming next
+     */
+    public int getGetterCount() {
+        return getterCount;
+    }
+
+    /**
+     * @param values filled in the order of {@link #getReadNames()}
+     */
+    public abstract void getValues(Object instance, Object[] values);
+
+    /**
+     * @return the index of the setter of the property, -1 if none generated
+     */
+    public int getSetterIndex(String name) {
+        Integer index = setterIndexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public Class<?> getSetterType(int index) {
+        return setterTypes[index];
+    }
+
+    public Type getSetterGenericType(int index) {
+        return setterGenericTypes[index];
+    }
+
+    public abstract void setValue(Object instance, int index, Object value);
+
+    /**
+     * @return whether a field or a setter not generated may set the property by reflection, false for the
+     * <code>class</code> of a generalized pojo, most often
+     */
+    public boolean isWritable(String name) {
+        return writableNames.contains(name)
+                || writableNames.contains(SETTER_PREFIX + name.substring(0, 1).toUpperCase() + name.substring(1));
+    }
+
+}
@@ -272,7 +272,7 @@ public abstract class Wrapper {
         }
     }
 
-    private static String arg(Class<?> cl, String name) {
+    static String arg(Class<?> cl, String name) {
         if (cl.isPrimitive()) {
             if (cl == Boolean.TYPE)
                 return "((Boolean)" + name + ").booleanValue()";
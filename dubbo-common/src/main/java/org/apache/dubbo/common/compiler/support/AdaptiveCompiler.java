@@ -16,8 +16,6 @@
  */
 package org.apache.dubbo.common.compiler.support;
 
-
-import com.sun.tools.javac.resources.compiler;
 import org.apache.dubbo.common.compiler.Compiler;
 import org.apache.dubbo.common.extension.Adaptive;
 import org.apache.dubbo.common.extension.ExtensionLoader;
@@ -63,7 +63,7 @@ public class UnsafeStringWriter extends Writer {
 
     @Override
     public void write(String str, int off, int len) {
-        mBuffer.append(str.substring(off, off + len));
+        mBuffer.append(str, off, off + len);
     }
 
     @Override
@@ -88,6 +88,10 @@ public class UnsafeStringWriter extends Writer {
         return this;
     }
 
+    public void reset() {
+        mBuffer.setLength(0);
+    }
+
     @Override
     public void close() {
     }
@@ -36,6 +36,17 @@ import java.util.concurrent.atomic.AtomicLong;
 @Deprecated
 public class GenericJSONConverter implements JSONConverter {
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 线程复用的日期格式，SimpleDateFormat 的创建开销远大于格式化本身
+     */
+    private static final ThreadLocal<SimpleDateFormat> LOCAL_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(DATE_FORMAT);
+        }
+    };
+
     private static final Map<Class<?>, Encoder> GlobalEncoderMap = new HashMap<Class<?>, Encoder>();
     private static final Map<Class<?>, Decoder> GlobalDecoderMap = new HashMap<Class<?>, Decoder>();
 
@@ -124,7 +135,7 @@ public class GenericJSONConverter implements JSONConverter {
         e = new Encoder() {
             @Override
             public void encode(Object obj, JSONWriter jb) throws IOException {
-                jb.valueString(new SimpleDateFormat(DATE_FORMAT).format((Date) obj));
+                jb.valueString(LOCAL_DATE_FORMAT.get().format((Date) obj));
             }
         };
         GlobalEncoderMap.put(Date.class, e);
@@ -348,7 +359,7 @@ public class GenericJSONConverter implements JSONConverter {
             public Object decode(Object jv) throws IOException {
                 if (jv instanceof String) {
                     try {
-                        return new SimpleDateFormat(DATE_FORMAT).parse((String) jv);
+                        return LOCAL_DATE_FORMAT.get().parse((String) jv);
                     } catch (ParseException e) {
                         throw new IllegalArgumentException(e.getMessage(), e);
                     }
@@ -17,12 +17,12 @@
 package org.apache.dubbo.common.json;
 
 import org.apache.dubbo.common.bytecode.Wrapper;
+import org.apache.dubbo.common.io.UnsafeStringWriter;
 import org.apache.dubbo.common.utils.Stack;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
 
 /**
@@ -41,6 +41,16 @@ public class JSON {
     public static final byte END = 0, START = 1, OBJECT_ITEM = 2, OBJECT_VALUE = 3, ARRAY_ITEM = 4;
     static final JSONConverter DEFAULT_CONVERTER = new GenericJSONConverter();
 
+    /**
+     * 超过该长度的 json 写完后不再复用其缓冲区
+     */
+    private static final int MAX_BUFFER_LENGTH = 64 * 1024;
+
+    /**
+     * 线程复用的 json 字符串缓冲区，使用时从线程中取出，避免重入时共用
+     */
+    private static final ThreadLocal<UnsafeStringWriter> LOCAL_WRITER = new ThreadLocal<UnsafeStringWriter>();
+
     private JSON() {
     }
 
@@ -53,13 +63,9 @@ public class JSON {
      */
     public static String json(Object obj) throws IOException {
         if (obj == null) return NULL;
-        StringWriter sw = new StringWriter();
-        try {
-            json(obj, sw);
-            return sw.getBuffer().toString();
-        } finally {
-            sw.close();
-        }
+        UnsafeStringWriter sw = getWriter();
+        json(obj, sw);
+        return release(sw);
     }
 
     /**
@@ -90,13 +96,9 @@ public class JSON {
      */
     public static String json(Object obj, String[] properties) throws IOException {
         if (obj == null) return NULL;
-        StringWriter sw = new StringWriter();
-        try {
-            json(obj, properties, sw);
-            return sw.getBuffer().toString();
-        } finally {
-            sw.close();
-        }
+        UnsafeStringWriter sw = getWriter();
+        json(obj, properties, sw);
+        return release(sw);
     }
 
     public static void json(Object obj, final String[] properties, Writer writer) throws IOException {
@@ -118,6 +120,24 @@ public class JSON {
             json(obj, properties, new JSONWriter(writer), writeClass);
     }
 
+    private static UnsafeStringWriter getWriter() {
+        UnsafeStringWriter sw = LOCAL_WRITER.get();
+        if (sw == null) {
+            return new UnsafeStringWriter();
+        }
+        LOCAL_WRITER.remove();
+        sw.reset();
+        return sw;
+    }
+
+    private static String release(UnsafeStringWriter sw) {
+        String json = sw.toString();
+        if (json.length() <= MAX_BUFFER_LENGTH) {
+            LOCAL_WRITER.set(sw);
+        }
+        return json;
+    }
+
     private static void json(Object obj, JSONWriter jb, boolean writeClass) throws IOException {
         if (obj == null)
             jb.valueNull();
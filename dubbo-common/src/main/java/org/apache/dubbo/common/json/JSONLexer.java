@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.json;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming JSON lexer, with the grammar of the JFlex {@link Yylex}: strings in double or single quotes, unquoted
+ * identifiers, and true, false and null in lower or upper case.
+ * <p>
+ * The source is read through a char buffer kept with the lexer, strings are built in a builder kept as well, and the
+ * tokens without a value or with a constant one are shared.
+ */
+final class JSONLexer {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * 超过该容量的字符串构建器在重置时丢弃，避免线程长期持有大字符串的内存
+     */
+    private static final int MAX_TEXT_CAPACITY = 64 * 1024;
+
+    private static final JSONToken LBRACE = new JSONToken(JSONToken.LBRACE);
+
+    private static final JSONToken RBRACE = new JSONToken(JSONToken.RBRACE);
+
+    private static final JSONToken LSQUARE = new JSONToken(JSONToken.LSQUARE);
+
+    private static final JSONToken RSQUARE = new JSONToken(JSONToken.RSQUARE);
+
+    private static final JSONToken COMMA = new JSONToken(JSONToken.COMMA);
+
+    private static final JSONToken COLON = new JSONToken(JSONToken.COLON);
+
+    private static final JSONToken NULL = new JSONToken(JSONToken.NULL, null);
+
+    private static final JSONToken TRUE = new JSONToken(JSONToken.BOOL, Boolean.TRUE);
+
+    private static final JSONToken FALSE = new JSONToken(JSONToken.BOOL, Boolean.FALSE);
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private StringBuilder text = new StringBuilder();
+
+    private Reader reader;
+
+    private int position;
+
+    private int limit;
+
+    JSONLexer(Reader reader) {
+        this.reader = reader;
+    }
+
+    void reset(Reader reader) {
+        this.reader = reader;
+        position = 0;
+        limit = 0;
+        if (text.capacity() > MAX_TEXT_CAPACITY) {
+            text = new StringBuilder();
+        }
+    }
+
+    /**
+     * @return the next token, null at the end of the source
+     */
+    JSONToken nextToken() throws IOException, ParseException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            position++;
+            c = peek();
+        }
+        if (c < 0) {
+            return null;
+        }
+        switch (c) {
+            case '{':
+                position++;
+                return LBRACE;
+            case '}':
+                position++;
+                return RBRACE;
+            case '[':
+                position++;
+                return LSQUARE;
+            case ']':
+                position++;
+                return RSQUARE;
+            case ',':
+                position++;
+                return COMMA;
+            case ':':
+                position++;
+                return COLON;
+            case '"':
+            case '\'':
+                position++;
+                return new JSONToken(JSONToken.STRING, readString((char) c));
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return readNumber();
+                }
+                if (isIdentifierStart(c)) {
+                    return readIdentifier();
+                }
+                position++;
+                throw new ParseException("Unexpected char [" + (char) c + "]");
+        }
+    }
+
+    private String readString(char quote) throws IOException, ParseException {
+        text.setLength(0);
+        while (true) {
+            if (position >= limit && !fill()) {
+                throw new ParseException("EOF error, unterminated string.");
+            }
+            // copy the chars up to the next quote or escape at once
+            int start = position;
+            while (position < limit && buffer[position] != quote && buffer[position] != '\\') {
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position < limit) {
+                if (buffer[position++] == quote) {
+                    return text.toString();
+                }
+                readEscape();
+            }
+        }
+    }
+
+    private void readEscape() throws IOException, ParseException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\'':
+            case '\\':
+            case '/':
+                text.append((char) c);
+                break;
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw new ParseException("Illegal unicode escape in string.");
+                    }
+                    value = (value << 4) | digit;
+                }
+                text.append((char) value);
+                break;
+            default:
+                throw new ParseException(c < 0 ? "EOF error, unterminated string." : "Unexpected char [\\" + (char) c + "]");
+        }
+    }
+
+    private JSONToken readNumber() throws IOException, ParseException {
+        text.setLength(0);
+        boolean floating = false;
+        if (peek() == '-') {
+            text.append('-');
+            position++;
+        }
+        readDigits();
+        if (peek() == '.') {
+            position++;
+            text.append('.');
+            readDigits();
+            floating = true;
+        }
+        int c = peek();
+        if (c == 'e' || c == 'E') {
+            position++;
+            text.append((char) c);
+            c = peek();
+            if (c == '-' || c == '+') {
+                position++;
+                text.append((char) c);
+            }
+            readDigits();
+            floating = true;
+        }
+        if (floating) {
+            return new JSONToken(JSONToken.FLOAT, Double.valueOf(text.toString()));
+        }
+        return new JSONToken(JSONToken.INT, toLong());
+    }
+
+    private void readDigits() throws IOException, ParseException {
+        int c = peek();
+        if (!isDigit(c)) {
+            throw new ParseException(c < 0 ? "EOF error, digit expected." : "Unexpected char [" + (char) c + "]");
+        }
+        do {
+            text.append((char) c);
+            position++;
+            c = peek();
+        } while (isDigit(c));
+    }
+
+    /**
+     * Converts the integer read without a string, but for the ones that may overflow
+     */
+    private Long toLong() {
+        int length = text.length();
+        boolean negative = text.charAt(0) == '-';
+        if (length > 18) {
+            return Long.valueOf(text.toString());
+        }
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private JSONToken readIdentifier() throws IOException {
+        text.setLength(0);
+        int c = peek();
+        do {
+            text.append((char) c);
+            position++;
+            c = peek();
+        } while (isIdentifierStart(c) || isDigit(c));
+        if (text.length() == 4) {
+            if (equalsText("true") || equalsText("TRUE")) {
+                return TRUE;
+            }
+            if (equalsText("null") || equalsText("NULL")) {
+                return NULL;
+            }
+        } else if (text.length() == 5 && (equalsText("false") || equalsText("FALSE"))) {
+            return FALSE;
+        }
+        return new JSONToken(JSONToken.IDENT, text.toString());
+    }
+
+    private boolean equalsText(String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (text.charAt(i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+}
@@ -24,20 +24,35 @@ import java.io.UnsupportedEncodingException;
 
 /**
  * JSON reader.
+ * <p>
+ * Tokenized by the streaming {@link JSONLexer}, or by the JFlex {@link Yylex} with <code>-Ddubbo.json.lexer=yylex</code>.
  */
 @Deprecated
 public class JSONReader {
+    /**
+     * 是否使用 JFlex 生成的词法分析器
+     */
+    private static final boolean YYLEX = "yylex".equals(System.getProperty("dubbo.json.lexer"));
+
     private static ThreadLocal<Yylex> LOCAL_LEXER = new ThreadLocal<Yylex>() {
     };
 
+    private static final ThreadLocal<JSONLexer> LOCAL_JSON_LEXER = new ThreadLocal<JSONLexer>();
+
     private Yylex mLex;
 
+    private JSONLexer mLexer;
+
     public JSONReader(InputStream is, String charset) throws UnsupportedEncodingException {
         this(new InputStreamReader(is, charset));
     }
 
     public JSONReader(Reader reader) {
-        mLex = getLexer(reader);
+        if (YYLEX) {
+            mLex = getLexer(reader);
+        } else {
+            mLexer = getJSONLexer(reader);
+        }
     }
 
     private static Yylex getLexer(Reader reader) {
@@ -51,12 +66,23 @@ public class JSONReader {
         return ret;
     }
 
+    private static JSONLexer getJSONLexer(Reader reader) {
+        JSONLexer ret = LOCAL_JSON_LEXER.get();
+        if (ret == null) {
+            ret = new JSONLexer(reader);
+            LOCAL_JSON_LEXER.set(ret);
+        } else {
+            ret.reset(reader);
+        }
+        return ret;
+    }
+
     public JSONToken nextToken() throws IOException, ParseException {
-        return mLex.yylex();
+        return mLexer == null ? mLex.yylex() : mLexer.nextToken();
     }
 
     public JSONToken nextToken(int expect) throws IOException, ParseException {
-        JSONToken ret = mLex.yylex();
+        JSONToken ret = nextToken();
         if (ret == null)
             throw new ParseException("EOF error.");
         if (expect != JSONToken.ANY && expect != ret.type)
@@ -52,42 +52,30 @@ public class JSONWriter {
         mWriter = new OutputStreamWriter(is, charset);
     }
 
-    private static String escape(String str) {
-        if (str == null)
-            return str;
-        int len = str.length();
-        if (len == 0)
-            return str;
-
+    /**
+     * write the string escaped, the runs of chars not escaped at once, without building the escaped string.
+     */
+    private void writeEscaped(String str) throws IOException {
+        int len = str.length(), start = 0;
         char c;
-        StringBuilder sb = null;
         for (int i = 0; i < len; i++) {
             c = str.charAt(i);
-            if (c < ' ') // control char.
-            {
-                if (sb == null) {
-                    sb = new StringBuilder(len << 1);
-                    sb.append(str, 0, i);
-                }
-                sb.append(CONTROL_CHAR_MAP[c]);
-            } else {
-                switch (c) {
-                    case '\\':
-                    case '/':
-                    case '"':
-                        if (sb == null) {
-                            sb = new StringBuilder(len << 1);
-                            sb.append(str, 0, i);
-                        }
-                        sb.append('\\').append(c);
-                        break;
-                    default:
-                        if (sb != null)
-                            sb.append(c);
+            if (c < ' ' || c == '\\' || c == '/' || c == '"') {
+                if (i > start)
+                    mWriter.write(str, start, i - start);
+                if (c < ' ') { // control char.
+                    mWriter.write(CONTROL_CHAR_MAP[c]);
+                } else {
+                    mWriter.write('\\');
+                    mWriter.write(c);
                 }
+                start = i + 1;
             }
         }
-        return sb == null ? str : sb.toString();
+        if (start == 0)
+            mWriter.write(str);
+        else if (start < len)
+            mWriter.write(str, start, len - start);
     }
 
     /**
@@ -128,7 +116,7 @@ public class JSONWriter {
         beforeObjectItem();
 
         mWriter.write(JSON.QUOTE);
-        mWriter.write(escape(name));
+        writeEscaped(name);
         mWriter.write(JSON.QUOTE);
         mWriter.write(JSON.COLON);
         return this;
@@ -185,7 +173,7 @@ public class JSONWriter {
         beforeValue();
 
         mWriter.write(JSON.QUOTE);
-        mWriter.write(escape(value));
+        writeEscaped(value);
         mWriter.write(JSON.QUOTE);
         return this;
     }
@@ -16,6 +16,8 @@
  */
 package org.apache.dubbo.common.utils;
 
+import org.apache.dubbo.common.bytecode.PojoConverter;
+
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -159,6 +161,23 @@ public class PojoUtils {
         Map<String, Object> map = new HashMap<String, Object>();
         history.put(pojo, map);
         map.put("class", pojo.getClass().getName());
+        PojoConverter converter = PojoConverter.getConverter(pojo.getClass());
+        if (converter != null) {
+            String[] names = converter.getReadNames();
+            Object[] values = new Object[names.length];
+            try {
+                converter.getValues(pojo, values);
+            } catch (Exception e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            for (int i = 0; i < names.length; i++) {
+                // null public fields are left out
+                if (i < converter.getGetterCount() || values[i] != null) {
+                    map.put(names[i], generalize(values[i], history));
+                }
+            }
+            return map;
+        }
         for (Method method : pojo.getClass().getMethods()) {
             if (ReflectUtils.isBeanPropertyReadMethod(method)) {
                 try {
@@ -439,12 +458,22 @@ public class PojoUtils {
             } else {
                 Object dest = newInstance(type);
                 history.put(pojo, dest);
+                PojoConverter converter = PojoConverter.getConverter(dest.getClass());
                 for (Map.Entry<Object, Object> entry : map.entrySet()) {
                     Object key = entry.getKey();
                     if (key instanceof String) {
                         String name = (String) key;
                         Object value = entry.getValue();
-                        if (value != null) {
+                        int index = converter == null || value == null ? -1 : converter.getSetterIndex(name);
+                        if (index >= 0) {
+                            value = realize0(value, converter.getSetterType(index), converter.getSetterGenericType(index), history);
+                            try {
+                                converter.setValue(dest, index, value);
+                            } catch (Exception e) {
+                                throw new RuntimeException("Failed to set pojo " + dest.getClass().getSimpleName() + " property " + name
+                                        + " value " + value + "(" + (value == null ? null : value.getClass()) + "), cause: " + e.getMessage(), e);
+                            }
+                        } else if (value != null && (converter == null || converter.isWritable(name))) {
                             Method method = getSetterMethod(dest.getClass(), name, value.getClass());
                             Field field = getField(dest.getClass(), name);
                             if (method != null) {
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory taken by the provider urls of a consumer, plain and compact.
+ * Run with -Durls=50000
+ */
+public class PerformanceURLTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceURLTest.class);
+
+    @Test
+    public void testMemory() {
+        int count = Integer.getInteger("urls", 0);
+        if (count <= 0) {
+            logger.warn("Please set -Durls=50000");
+            return;
+        }
+        StringBuilder methods = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            methods.append(i == 0 ? "" : ",").append("method").append(i);
+        }
+        String[] urls = new String[count];
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            // same service, different addresses and processes, like the providers of a large cluster
+            urls[i] = "dubbo://10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff) + ":20880/org.apache.dubbo.demo.DemoService"
+                    + "?anyhost=true&application=demo-provider&dubbo=2.0.2&generic=false&interface=org.apache.dubbo.demo.DemoService"
+                    + "&methods=" + methods + "&side=provider&timeout=3000&retries=2&loadbalance=random&cluster=failover"
+                    + "&version=1.0.0&group=test&threads=200&weight=100&owner=demo&organization=dubbo&release=2.6.5"
+                    + "&pid=" + (1000 + i * 7 % 30000) + "&timestamp=" + (timestamp - i * 1000L);
+        }
+
+        long plain = measure(urls, false);
+        long compact = measure(urls, true);
+        logger.info(count + " urls, plain: " + plain / 1024 + "KB, " + plain / count + " bytes per url; compact: "
+                + compact / 1024 + "KB, " + compact / count + " bytes per url");
+    }
+
+    private static long measure(String[] urls, boolean compact) {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        List<URL> list = new ArrayList<URL>(urls.length);
+        for (String u : urls) {
+            URL url = URL.valueOf(u);
+            list.add(compact ? url.compact() : url);
+        }
+        long elapsed = System.nanoTime() - start;
+        long used = usedMemory() - before;
+        logger.info((compact ? "compact" : "plain") + " valueOf: " + elapsed / urls.length + " ns per url");
+        if (list.size() != urls.length) {
+            throw new IllegalStateException();
+        }
+        return used;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
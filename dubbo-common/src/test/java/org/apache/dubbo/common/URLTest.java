@@ -20,7 +20,9 @@ import org.apache.dubbo.common.utils.CollectionUtils;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +30,7 @@ import java.util.Map;
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
@@ -680,4 +683,53 @@ public class URLTest {
         assertEquals("1.0.0", url.getParameter("version"));
         assertEquals("morgan", url.getParameter("application"));
     }
+
+    @Test
+    public void testCompact() throws Exception {
+        URL url = URL.valueOf("dubbo://10.20.130.230:20880/context/path?version=1.0.0&application=morgan&aa=&default.timeout=100");
+        URL compact = url.compact();
+        assertEquals(url, compact);
+        assertEquals(url.hashCode(), compact.hashCode());
+        assertEquals(url.toFullString(), compact.toFullString());
+        assertEquals("1.0.0", compact.getParameter("version"));
+        assertEquals(100, compact.getParameter("timeout", 0));
+        assertNull(compact.getParameter("none"));
+        assertEquals(url.getParameters(), compact.getParameters());
+        assertSame(compact, compact.compact());
+
+        // providers differing only in address share their parameters
+        URL other = URL.valueOf("dubbo://10.20.130.231:20881/context/path?application=morgan&version=1.0.0&default.timeout=100&aa=").compact();
+        assertSame(compact.getParameters(), other.getParameters());
+        assertSame(compact.getParameters(), compact.setPort(20882).getParameters());
+        assertEquals(url.addParameter("version", "2.0.0"), compact.addParameter("version", "2.0.0"));
+        try {
+            compact.getParameters().put("version", "2.0.0");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        out.writeObject(compact);
+    }
+
+    @Test
+    public void testCompactOwnParameters() throws Exception {
+        String parameters = "/context/path?version=1.0.0&timeout=100&pid=";
+        URL plain = URL.valueOf("dubbo://10.20.130.230:20880" + parameters + "1234&timestamp=1545000000000");
+        URL url = plain.compact();
+        URL other = URL.valueOf("dubbo://10.20.130.231:20880" + parameters + "5678&timestamp=1545000000001").compact();
+        assertEquals(plain, url);
+        assertEquals(plain.hashCode(), url.hashCode());
+        assertEquals(url, URL.valueOf(plain.toFullString()).compact());
+        assertFalse(url.equals(other.setHost("10.20.130.230")));
+
+        // the pid and timestamp are proper to each provider, the other parameters are shared
+        assertEquals("1234", url.getParameter(Constants.PID_KEY));
+        assertEquals("5678", other.getParameter(Constants.PID_KEY));
+        assertEquals(1545000000000L, url.getParameter(Constants.TIMESTAMP_KEY, 0L));
+        assertEquals(1545000000001L, other.getParameter(Constants.TIMESTAMP_KEY, 0L));
+        assertEquals(100, url.getParameter(Constants.TIMEOUT_KEY, 0));
+        assertEquals(100, other.getMethodParameter("sayHello", Constants.TIMEOUT_KEY, 0));
+        assertSame(((URLParameters) url.getParameters()).getNumbers(), ((URLParameters) other.getParameters()).getNumbers());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.bytecode;
+
+import org.apache.dubbo.common.utils.PojoUtils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PojoConverterTest {
+
+    @Test
+    public void testGetValues() throws Exception {
+        PojoConverter converter = PojoConverter.getConverter(Bean.class);
+        assertNotNull(converter);
+        assertSame(converter, PojoConverter.getConverter(Bean.class));
+
+        Bean bean = new Bean();
+        bean.setCount(3);
+        bean.setActive(true);
+        bean.note = "public";
+        List<String> names = Arrays.asList(converter.getReadNames());
+        assertEquals(5, names.size());
+        assertEquals(4, converter.getGetterCount());
+        assertTrue(names.containsAll(Arrays.asList("count", "active", "children", "label")));
+        assertEquals("note", names.get(4));
+
+        Object[] values = new Object[names.size()];
+        converter.getValues(bean, values);
+        assertEquals(3, values[names.indexOf("count")]);
+        assertEquals(Boolean.TRUE, values[names.indexOf("active")]);
+        assertNull(values[names.indexOf("children")]);
+        assertEquals("public", values[4]);
+    }
+
+    @Test
+    public void testSetValue() throws Exception {
+        PojoConverter converter = PojoConverter.getConverter(Bean.class);
+        Bean bean = new Bean();
+        int index = converter.getSetterIndex("count");
+        assertEquals(index, converter.getSetterIndex("Count"));
+        assertSame(int.class, converter.getSetterType(index));
+        converter.setValue(bean, index, 7L);
+        assertEquals(7, bean.getCount());
+
+        index = converter.getSetterIndex("children");
+        assertEquals("java.util.List<org.apache.dubbo.common.bytecode.PojoConverterTest$Bean>",
+                converter.getSetterGenericType(index).toString());
+        // the overloaded setter is chosen by reflection
+        assertEquals(-1, converter.getSetterIndex("label"));
+        assertEquals(-1, converter.getSetterIndex("note"));
+        assertTrue(converter.isWritable("label"));
+        assertTrue(converter.isWritable("note"));
+        assertTrue(converter.isWritable("count"));
+        assertFalse(converter.isWritable("class"));
+    }
+
+    @Test
+    public void testNotGenerated() throws Exception {
+        assertNull(PojoConverter.getConverter(Hidden.class));
+        // left to reflection once for all
+        assertNull(PojoConverter.getConverter(Hidden.class));
+    }
+
+    @Test
+    public void testPojoUtils() throws Exception {
+        Bean bean = new Bean();
+        bean.setCount(1);
+        Bean child = new Bean();
+        child.setCount(2);
+        child.setLabel(5);
+        child.note = "child";
+        bean.setChildren(Arrays.asList(child, bean));
+
+        Map<?, ?> map = (Map<?, ?>) PojoUtils.generalize(bean);
+        assertEquals(Bean.class.getName(), map.get("class"));
+        assertEquals(1, map.get("count"));
+        assertTrue(map.containsKey("children"));
+        assertTrue(!map.containsKey("note"));
+
+        Bean realized = (Bean) PojoUtils.realize(map, Bean.class);
+        assertEquals(1, realized.getCount());
+        Bean realizedChild = realized.getChildren().get(0);
+        assertEquals(2, realizedChild.getCount());
+        assertEquals("5", realizedChild.getLabel());
+        assertEquals("child", realizedChild.note);
+        assertSame(realized, realized.getChildren().get(1));
+    }
+
+    public static class Bean {
+
+        public String note;
+
+        private int count;
+
+        private boolean active;
+
+        private String label;
+
+        private List<Bean> children;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public List<Bean> getChildren() {
+            return children;
+        }
+
+        public void setChildren(List<Bean> children) {
+            this.children = children;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public void setLabel(int label) {
+            this.label = String.valueOf(label);
+        }
+    }
+
+    static class Hidden {
+
+        private int count;
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.json;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class JSONLexerTest {
+
+    @Test
+    public void testSameTokensAsYylex() throws Exception {
+        StringBuilder json = new StringBuilder("{ name: 'na\\'me', \"quoted\" : \"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u4e2d\", ");
+        json.append("values: [ 0, -12, 9223372036854775807, -9223372036854775808, 3.25, -1e3, 2.5E+2, 7e-1 ], ");
+        json.append("flags: [ true, TRUE, false, FALSE, null, NULL, trueish, _$x1 ], long: '");
+        // a string across the buffers of the lexer
+        for (int i = 0; i < 3000; i++) {
+            json.append(i % 100 == 0 ? "\\n" : "x");
+        }
+        json.append("' }");
+
+        Yylex yylex = new Yylex(new StringReader(json.toString()));
+        JSONLexer lexer = new JSONLexer(new StringReader(json.toString()));
+        int count = 0;
+        JSONToken expected;
+        do {
+            expected = yylex.yylex();
+            JSONToken token = lexer.nextToken();
+            if (expected == null) {
+                assertNull(token);
+            } else {
+                assertEquals(expected.type, token.type);
+                assertEquals(expected.value, token.value);
+                count++;
+            }
+        } while (expected != null);
+        assertEquals(53, count);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        JSONLexer lexer = new JSONLexer(new StringReader("[1"));
+        assertEquals(JSONToken.LSQUARE, lexer.nextToken().type);
+        lexer.reset(new StringReader("'s'"));
+        assertEquals("s", lexer.nextToken().value);
+        assertNull(lexer.nextToken());
+    }
+
+    @Test
+    public void testIllegal() throws Exception {
+        for (String json : new String[]{"#", "-", "1.", "1e", "'open", "\"\\x\"", "'\\u12'"}) {
+            try {
+                JSONLexer lexer = new JSONLexer(new StringReader(json));
+                while (lexer.nextToken() != null) {
+                }
+                fail(json);
+            } catch (ParseException expected) {
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.timer;
+
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(new NamedThreadFactory("test-timer", true), 10, TimeUnit.MILLISECONDS, 8, 3);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        long start = System.nanoTime();
+        // longer than a whole wheel, so it takes more than one round
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                latch.countDown();
+            }
+        }, 150, TimeUnit.MILLISECONDS);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                latch.countDown();
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(3, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        Assert.assertTrue(timeout.isExpired());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+                latch.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse(timeout.cancel());
+        Assert.assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(timeout.isCancelled());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    public void testMaxPendingTimeouts() {
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run(Timeout timeout) {
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            timer.newTimeout(task, 1, TimeUnit.SECONDS);
+        }
+        try {
+            timer.newTimeout(task, 1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(3, timer.stop().size());
+        Assert.assertTrue(timer.isStop());
+    }
+}
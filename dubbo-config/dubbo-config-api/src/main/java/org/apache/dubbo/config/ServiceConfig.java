@@ -21,6 +21,7 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.Version;
 import org.apache.dubbo.common.bytecode.Wrapper;
 import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
 import org.apache.dubbo.common.utils.ClassHelper;
 import org.apache.dubbo.common.utils.ConfigUtils;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
@@ -451,6 +452,18 @@ public class ServiceConfig<T> extends AbstractServiceConfig {
         appendParameters(map, provider, Constants.DEFAULT_KEY);
         appendParameters(map, protocolConfig);
         appendParameters(map, this);
+        // 序列化优化器的类摘要，供消费者校验
+        String optimizer = map.get(Constants.OPTIMIZER_KEY);
+        if (StringUtils.isNotEmpty(optimizer)) {
+            try {
+                String digest = SerializableClassRegistry.registerOptimizer(optimizer, map.get(Constants.SERIALIZATION_KEY));
+                if (digest != null) {
+                    map.put(Constants.OPTIMIZER_DIGEST_KEY, digest);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to register the serialization optimizer " + optimizer + ", cause: " + e.getMessage(), e);
+            }
+        }
         // 将 MethodConfig 对象数组，添加到 `map` 集合中
         if (methods != null && !methods.isEmpty()) {
             for (MethodConfig method : methods) {
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.command.impl;
+
+import org.apache.dubbo.qos.command.BaseCommand;
+import org.apache.dubbo.qos.command.CommandContext;
+import org.apache.dubbo.qos.command.annotation.Cmd;
+import org.apache.dubbo.qos.textui.TTable;
+import org.apache.dubbo.rpc.cluster.outlier.OutlierDetector;
+
+@Cmd(name = "outlier", summary = "show the outlier detection state of the consumed services", example = {
+        "outlier",
+        "outlier xx.xx.xxx.service"
+})
+public class Outlier implements BaseCommand {
+    @Override
+    public String execute(CommandContext commandContext, String[] args) {
+        String servicePattern = ".*";
+        if (args != null && args.length > 0) {
+            servicePattern = args[0];
+        }
+
+        TTable tTable = new TTable(new TTable.ColumnDefine[]{
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE)
+        });
+
+        //Header
+        tTable.addRow("Consumer Service Name", "Provider", "EJECTED", "Remaining(ms)", "Ejections", "Failures", "Latency(ms)");
+
+        //Content
+        for (OutlierDetector detector : OutlierDetector.getOutlierDetectors().values()) {
+            if (!detector.getKey().matches(servicePattern)) {
+                continue;
+            }
+            for (OutlierDetector.ProviderStatus status : detector.getProviderStatuses().values()) {
+                tTable.addRow(detector.getKey(), status.getAddress(), status.isEjected() ? "Y" : "N",
+                        status.getRemainingEjectionTime(), status.getTotalEjections(), status.getConsecutiveFailures(),
+                        status.getMeanLatency() < 0 ? "-" : String.valueOf((long) status.getMeanLatency()));
+            }
+        }
+
+        return tTable.rendering();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.command.impl;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.qos.command.CommandContext;
+import org.apache.dubbo.rpc.cluster.outlier.OutlierDetector;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class OutlierTest {
+    @Test
+    public void testExecute() throws Exception {
+        URL failing = URL.valueOf("dubbo://10.20.3.1:20880/org.apache.dubbo.FooService?outlier=true");
+        URL healthy = URL.valueOf("dubbo://10.20.3.2:20880/org.apache.dubbo.FooService?outlier=true");
+        OutlierDetector detector = OutlierDetector.referOutlierDetector(failing);
+        for (int i = 0; i < 5; i++) {
+            detector.record(healthy, true, 1);
+            detector.record(failing, false, 1);
+        }
+
+        Outlier outlier = new Outlier();
+        String output = outlier.execute(mock(CommandContext.class), null);
+        assertThat(output, containsString("10.20.3.1:20880|   Y"));
+        assertThat(output, containsString("10.20.3.2:20880|   N"));
+        assertThat(outlier.execute(mock(CommandContext.class), new String[]{"org.apache.dubbo.BarService"}),
+                not(containsString("10.20.3.1:20880")));
+        OutlierDetector.releaseOutlierDetector(detector);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.command.impl;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.qos.command.CommandContext;
+import org.apache.dubbo.rpc.cluster.support.RetryBudget;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RetryTest {
+    @Test
+    public void testExecute() throws Exception {
+        URL url = URL.valueOf("dubbo://10.20.3.1:20880/org.apache.dubbo.RetryService?retry.budget=10&retry.budget.min=0");
+        RetryBudget budget = RetryBudget.newRetryBudget(url, "sayHello");
+        budget.tryRetry();
+
+        Retry retry = new Retry();
+        String output = retry.execute(mock(CommandContext.class), null);
+        assertThat(output, containsString("org.apache.dubbo.RetryService|    Y"));
+        assertThat(retry.execute(mock(CommandContext.class), new String[]{"org.apache.dubbo.BarService"}),
+                not(containsString("org.apache.dubbo.RetryService")));
+        budget.remove();
+    }
+}
@@ -5,7 +5,9 @@ import org.apache.dubbo.qos.command.impl.Help;
 import org.apache.dubbo.qos.command.impl.Ls;
 import org.apache.dubbo.qos.command.impl.Offline;
 import org.apache.dubbo.qos.command.impl.Online;
+import org.apache.dubbo.qos.command.impl.Outlier;
 import org.apache.dubbo.qos.command.impl.Quit;
+import org.apache.dubbo.qos.command.impl.Retry;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
@@ -28,7 +30,7 @@ public class CommandHelperTest {
     @Test
     public void testGetAllCommandClass() throws Exception {
         List<Class<?>> classes = CommandHelper.getAllCommandClass();
-        assertThat(classes, containsInAnyOrder(GreetingCommand.class, Help.class, Ls.class, Offline.class, Online.class, Quit.class));
+        assertThat(classes, containsInAnyOrder(GreetingCommand.class, Help.class, Ls.class, Offline.class, Online.class, Outlier.class, Quit.class, Retry.class));
     }
 
     @Test
@@ -26,6 +26,7 @@ import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.common.utils.StringUtils;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
+import org.apache.dubbo.registry.metadata.ServiceMetadata;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Protocol;
@@ -79,6 +80,12 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
      */
     private static final ConfiguratorFactory configuratorFactory = ExtensionLoader.getExtensionLoader(ConfiguratorFactory.class).getAdaptiveExtension();
 
+    /**
+     * the provider changes are applied incrementally only if they are fewer than 1/4 of the providers,
+     * beyond a full refresh costs about the same
+     */
+    private static final int INCREMENTAL_REFRESH_RATIO = 4;
+
     /**
      * 注册中心的服务类，目前是 com.alibaba.dubbo.registry.RegistryService
      *
@@ -134,9 +141,9 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
     // Map<url, Invoker> cache service url to invoker mapping.
     /**
-     * [url]与[服务提供者 Invoker 集合]的映射缓存
+     * [url]与[服务提供者 Invoker 集合]的映射缓存，url 为合并后的紧凑形式
      */
-    private volatile Map<String, Invoker<T>> urlInvokerMap; // The initial value is null and the midway may be assigned to null, please use the local variable reference
+    private volatile Map<URL, Invoker<T>> urlInvokerMap; // The initial value is null and the midway may be assigned to null, please use the local variable reference
 
     // Map<methodName, Invoker> cache service method to invokers mapping.
     /**
@@ -144,9 +151,14 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
      */
     private volatile Map<String, List<Invoker<T>>> methodInvokerMap; // The initial value is null and the midway may be assigned to null, please use the local variable reference
 
+    /**
+     * [方法名]与[声明了该方法的服务提供者 Invoker 集合]的映射，未经路由，"*" 对应全部 Invoker。列表已排序且不可变，变更时复制
+     */
+    private volatile Map<String, List<Invoker<T>>> declaredMethodInvokerMap; // The initial value is null and the midway may be assigned to null, please use the local variable reference
+
     // Set<invokerUrls> cache invokeUrls to invokers mapping.
     /**
-     * [服务提供者 Invoker 集合]缓存
+     * [服务提供者 Invoker 集合]缓存，紧凑形式
      */
     private volatile Set<URL> cachedInvokerUrls; // The initial value is null and the midway may be assigned to null, please use the local variable reference
 
@@ -267,6 +279,10 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
                 logger.warn("Unsupported category " + category + " in notified url: " + url + " from registry " + getUrl().getAddress() + " to consumer " + NetUtils.getLocalHost());
             }
         }
+        // only the providers changed, apply the difference
+        if (configuratorUrls.isEmpty() && routerUrls.isEmpty() && refreshInvokerIncrementally(invokerUrls)) {
+            return;
+        }
         // configurators
         if (configuratorUrls != null && !configuratorUrls.isEmpty()) {
             this.configurators = toConfigurators(configuratorUrls);
@@ -309,25 +325,30 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
                 && Constants.EMPTY_PROTOCOL.equals(invokerUrls.get(0).getProtocol())) {
             this.forbidden = true; // Forbid to access
             this.methodInvokerMap = null; // Set the method invoker map to null
+            this.declaredMethodInvokerMap = null;
             destroyAllInvokers(); // Close all invokers
         } else {
             this.forbidden = false; // Allow to access
             // 引用老的 urlInvokerMap
-            Map<String, Invoker<T>> oldUrlInvokerMap = this.urlInvokerMap; // local reference
+            Map<URL, Invoker<T>> oldUrlInvokerMap = this.urlInvokerMap; // local reference
             // 传入的 invokerUrls 为空，说明是路由规则或配置规则发生改变，此时 invokerUrls 是空的，直接使用 cachedInvokerUrls
             if (invokerUrls.isEmpty() && this.cachedInvokerUrls != null) {
                 invokerUrls.addAll(this.cachedInvokerUrls);
             } else {
                 // 传入的 invokerUrls 非空，更新 cachedInvokerUrls
-                this.cachedInvokerUrls = new HashSet<URL>();
-                this.cachedInvokerUrls.addAll(invokerUrls);//Cached invoker urls, convenient for comparison
+                Set<URL> cachedUrls = new HashSet<URL>();
+                for (URL url : invokerUrls) {
+                    cachedUrls.add(url.compact());//Cached invoker urls, convenient for comparison
+                }
+                this.cachedInvokerUrls = cachedUrls;
             }
             if (invokerUrls.isEmpty()) {
                 return;
             }
             // 将传入的 invokerUrls ，转成新的 urlInvokerMap
-            Map<String, Invoker<T>> newUrlInvokerMap = toInvokers(invokerUrls);// Translate url list to Invoker map
-            Map<String, List<Invoker<T>>> newMethodInvokerMap = toMethodInvokers(newUrlInvokerMap); // Change method name to map Invoker Map
+            Map<URL, Invoker<T>> newUrlInvokerMap = toInvokers(invokerUrls);// Translate url list to Invoker map
+            Map<String, List<Invoker<T>>> newDeclaredMethodInvokerMap = toDeclaredMethodInvokers(newUrlInvokerMap);
+            Map<String, List<Invoker<T>>> newMethodInvokerMap = toMethodInvokers(newDeclaredMethodInvokerMap); // Change method name to map Invoker Map
             // state change
             // If the calculation is wrong, it is not processed.
             if (newUrlInvokerMap == null || newUrlInvokerMap.size() == 0) {
@@ -336,6 +357,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             }
             // 若服务引用多 group ，则按照 method + group 聚合 Invoker 集合
             this.methodInvokerMap = multiGroup ? toMergeMethodInvokerMap(newMethodInvokerMap) : newMethodInvokerMap;
+            this.declaredMethodInvokerMap = newDeclaredMethodInvokerMap;
             this.urlInvokerMap = newUrlInvokerMap;
             try {
                 destroyUnusedInvokers(oldUrlInvokerMap, newUrlInvokerMap); // Close the unused Invoker
@@ -345,6 +367,154 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         }
     }
 
+    /**
+     * Apply only the difference between the notified provider urls and the cached ones: the unchanged providers are
+     * neither merged nor sorted again, and only the method lists of the changed ones are copied.
+     *
+     * 增量刷新：仅处理新增与删除的服务提供者 URL ，参数变化的 URL 视为删除旧的并新增新的
+     *
+     * @param invokerUrls the whole list of provider urls
+     * @return false if the difference can't be applied incrementally, a full refresh is needed then
+     */
+    private boolean refreshInvokerIncrementally(List<URL> invokerUrls) {
+        Set<URL> oldInvokerUrls = this.cachedInvokerUrls; // local reference
+        Map<URL, Invoker<T>> oldUrlInvokerMap = this.urlInvokerMap; // local reference
+        Map<String, List<Invoker<T>>> oldDeclaredMethodInvokerMap = this.declaredMethodInvokerMap; // local reference
+        // the groups are merged into cluster invokers, and the routing rules may depend on the whole list
+        if (multiGroup || forbidden || invokerUrls.isEmpty() || oldInvokerUrls == null || oldUrlInvokerMap == null
+                || oldDeclaredMethodInvokerMap == null || hasRoutingRules()) {
+            return false;
+        }
+        if (invokerUrls.size() == 1 && invokerUrls.get(0) != null
+                && Constants.EMPTY_PROTOCOL.equals(invokerUrls.get(0).getProtocol())) {
+            return false;
+        }
+        Set<URL> newInvokerUrls = new HashSet<URL>(invokerUrls);
+        List<URL> addedUrls = new ArrayList<URL>();
+        for (URL url : newInvokerUrls) {
+            if (!oldInvokerUrls.contains(url)) {
+                addedUrls.add(url);
+            }
+        }
+        List<URL> removedUrls = new ArrayList<URL>();
+        for (URL url : oldInvokerUrls) {
+            if (!newInvokerUrls.contains(url)) {
+                removedUrls.add(url);
+            }
+        }
+        if (addedUrls.isEmpty() && removedUrls.isEmpty()) {
+            return true;
+        }
+        if ((addedUrls.size() + removedUrls.size()) * INCREMENTAL_REFRESH_RATIO > oldInvokerUrls.size()) {
+            return false;
+        }
+
+        Map<URL, Invoker<T>> newUrlInvokerMap = new HashMap<URL, Invoker<T>>(oldUrlInvokerMap);
+        List<Invoker<T>> removedInvokers = new ArrayList<Invoker<T>>(removedUrls.size());
+        for (URL providerUrl : removedUrls) {
+            if (accept(providerUrl)) {
+                // equal to the compact key
+                Invoker<T> invoker = newUrlInvokerMap.remove(mergeUrl(providerUrl));
+                if (invoker != null) {
+                    removedInvokers.add(invoker);
+                }
+            }
+        }
+        List<Invoker<T>> addedInvokers = new ArrayList<Invoker<T>>(addedUrls.size());
+        for (URL providerUrl : addedUrls) {
+            if (!accept(providerUrl)) {
+                continue;
+            }
+            URL url = mergeUrl(providerUrl).compact();
+            if (newUrlInvokerMap.containsKey(url)) {
+                continue;
+            }
+            Invoker<T> invoker = refer(url, providerUrl);
+            if (invoker != null) {
+                newUrlInvokerMap.put(url, invoker);
+                addedInvokers.add(invoker);
+            }
+        }
+        if (newUrlInvokerMap.isEmpty()) {
+            // the full refresh reports it
+            for (Invoker<T> invoker : addedInvokers) {
+                invoker.destroy();
+            }
+            return false;
+        }
+
+        Map<String, List<Invoker<T>>> newDeclaredMethodInvokerMap = new HashMap<String, List<Invoker<T>>>(oldDeclaredMethodInvokerMap);
+        for (Invoker<T> invoker : removedInvokers) {
+            for (String method : getDeclaredMethods(invoker)) {
+                List<Invoker<T>> methodInvokers = newDeclaredMethodInvokerMap.get(method);
+                int index = methodInvokers == null ? -1 : methodInvokers.indexOf(invoker);
+                if (index >= 0) {
+                    List<Invoker<T>> newMethodInvokers = new ArrayList<Invoker<T>>(methodInvokers);
+                    newMethodInvokers.remove(index);
+                    if (newMethodInvokers.isEmpty() && !Constants.ANY_VALUE.equals(method)) {
+                        newDeclaredMethodInvokerMap.remove(method);
+                    } else {
+                        newDeclaredMethodInvokerMap.put(method, Collections.unmodifiableList(newMethodInvokers));
+                    }
+                }
+            }
+        }
+        for (Invoker<T> invoker : addedInvokers) {
+            for (String method : getDeclaredMethods(invoker)) {
+                List<Invoker<T>> methodInvokers = newDeclaredMethodInvokerMap.get(method);
+                List<Invoker<T>> newMethodInvokers = new ArrayList<Invoker<T>>(methodInvokers == null ? 1 : methodInvokers.size() + 1);
+                if (methodInvokers != null) {
+                    newMethodInvokers.addAll(methodInvokers);
+                }
+                int index = Collections.binarySearch(newMethodInvokers, invoker, InvokerComparator.getComparator());
+                newMethodInvokers.add(index < 0 ? -(index + 1) : index, invoker);
+                newDeclaredMethodInvokerMap.put(method, Collections.unmodifiableList(newMethodInvokers));
+            }
+        }
+        newDeclaredMethodInvokerMap = Collections.unmodifiableMap(newDeclaredMethodInvokerMap);
+
+        // the urls kept are compact, only the added ones need to be compacted
+        Set<URL> cachedUrls = new HashSet<URL>(oldInvokerUrls);
+        cachedUrls.removeAll(removedUrls);
+        for (URL url : addedUrls) {
+            cachedUrls.add(url.compact());
+        }
+        this.cachedInvokerUrls = cachedUrls;
+        this.methodInvokerMap = toMethodInvokers(newDeclaredMethodInvokerMap);
+        this.declaredMethodInvokerMap = newDeclaredMethodInvokerMap;
+        this.urlInvokerMap = newUrlInvokerMap;
+        for (Invoker<T> invoker : removedInvokers) {
+            try {
+                invoker.destroy();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("destroy invoker[" + invoker.getUrl() + "] success. ");
+                }
+            } catch (Exception e) {
+                logger.warn("destroy invoker[" + invoker.getUrl() + "] faild. " + e.getMessage(), e);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Refreshed the invokers of service " + serviceKey + " incrementally, added: " + addedInvokers.size()
+                    + ", removed: " + removedInvokers.size() + ", total: " + newUrlInvokerMap.size());
+        }
+        return true;
+    }
+
+    /**
+     * @return whether routing rules apply when the invokers are refreshed, the mock selector has no url and doesn't
+     */
+    private boolean hasRoutingRules() {
+        List<Router> routers = getRouters();
+        if (routers != null) {
+            for (Router router : routers) {
+                if (router.getUrl() != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private Map<String, List<Invoker<T>>> toMergeMethodInvokerMap(Map<String, List<Invoker<T>>> methodMap) {
         Map<String, List<Invoker<T>>> result = new HashMap<String, List<Invoker<T>>>();
         for (Map.Entry<String, List<Invoker<T>>> entry : methodMap.entrySet()) {
@@ -412,72 +582,92 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
      * @param urls
      * @return invokers
      */
-    private Map<String, Invoker<T>> toInvokers(List<URL> urls) {
-        Map<String, Invoker<T>> newUrlInvokerMap = new HashMap<String, Invoker<T>>();
+    private Map<URL, Invoker<T>> toInvokers(List<URL> urls) {
+        Map<URL, Invoker<T>> newUrlInvokerMap = new HashMap<URL, Invoker<T>>();
         if (urls == null || urls.isEmpty()) {
             return newUrlInvokerMap;
         }
-        Set<String> keys = new HashSet<String>();
-        String queryProtocols = this.queryMap.get(Constants.PROTOCOL_KEY);
+        Set<URL> keys = new HashSet<URL>();
         // 循环服务提供者 URL 集合，转成 Invoker 集合
         for (URL providerUrl : urls) {
-            // If protocol is configured at the reference side, only the matching protocol is selected
-            if (queryProtocols != null && queryProtocols.length() > 0) {
-                boolean accept = false;
-                String[] acceptProtocols = queryProtocols.split(",");
-                for (String acceptProtocol : acceptProtocols) {
-                    if (providerUrl.getProtocol().equals(acceptProtocol)) {
-                        accept = true;
-                        break;
-                    }
-                }
-                if (!accept) {
-                    continue;
-                }
-            }
-            if (Constants.EMPTY_PROTOCOL.equals(providerUrl.getProtocol())) {
+            if (!accept(providerUrl)) {
                 continue;
             }
-            if (!ExtensionLoader.getExtensionLoader(Protocol.class).hasExtension(providerUrl.getProtocol())) {
-                logger.error(new IllegalStateException("Unsupported protocol " + providerUrl.getProtocol() + " in notified url: " + providerUrl + " from registry " + getUrl().getAddress() + " to consumer " + NetUtils.getLocalHost()
-                        + ", supported protocol: " + ExtensionLoader.getExtensionLoader(Protocol.class).getSupportedExtensions()));
+            // kept as long as the provider, and as many as the providers
+            URL url = mergeUrl(providerUrl).compact();
+            if (keys.contains(url)) { // Repeated url
                 continue;
             }
-            URL url = mergeUrl(providerUrl);
-
-            String key = url.toFullString(); // The parameter urls are sorted
-            if (keys.contains(key)) { // Repeated url
-                continue;
-            }
-            keys.add(key);
+            keys.add(url);
             // Cache key is url that does not merge with consumer side parameters, regardless of how the consumer combines parameters, if the server url changes, then refer again
-            Map<String, Invoker<T>> localUrlInvokerMap = this.urlInvokerMap; // local reference
-            Invoker<T> invoker = localUrlInvokerMap == null ? null : localUrlInvokerMap.get(key);
+            Map<URL, Invoker<T>> localUrlInvokerMap = this.urlInvokerMap; // local reference
+            Invoker<T> invoker = localUrlInvokerMap == null ? null : localUrlInvokerMap.get(url);
             if (invoker == null) { // Not in the cache, refer again
-                try {
-                    boolean enabled = true;
-                    if (url.hasParameter(Constants.DISABLED_KEY)) {
-                        enabled = !url.getParameter(Constants.DISABLED_KEY, false);
-                    } else {
-                        enabled = url.getParameter(Constants.ENABLED_KEY, true);
-                    }
-                    if (enabled) {
-                        invoker = new InvokerDelegate<T>(protocol.refer(serviceType, url), url, providerUrl);
-                    }
-                } catch (Throwable t) {
-                    logger.error("Failed to refer invoker for interface:" + serviceType + ",url:(" + url + ")" + t.getMessage(), t);
-                }
+                invoker = refer(url, providerUrl);
                 if (invoker != null) { // Put new invoker in cache
-                    newUrlInvokerMap.put(key, invoker);
+                    newUrlInvokerMap.put(url, invoker);
                 }
             } else {
-                newUrlInvokerMap.put(key, invoker);
+                newUrlInvokerMap.put(url, invoker);
             }
         }
         keys.clear();
         return newUrlInvokerMap;
     }
 
+    /**
+     * @param providerUrl url notified by the registry
+     * @return whether the consumer can refer the provider
+     */
+    private boolean accept(URL providerUrl) {
+        String queryProtocols = this.queryMap.get(Constants.PROTOCOL_KEY);
+        // If protocol is configured at the reference side, only the matching protocol is selected
+        if (queryProtocols != null && queryProtocols.length() > 0) {
+            boolean accept = false;
+            String[] acceptProtocols = queryProtocols.split(",");
+            for (String acceptProtocol : acceptProtocols) {
+                if (providerUrl.getProtocol().equals(acceptProtocol)) {
+                    accept = true;
+                    break;
+                }
+            }
+            if (!accept) {
+                return false;
+            }
+        }
+        if (Constants.EMPTY_PROTOCOL.equals(providerUrl.getProtocol())) {
+            return false;
+        }
+        if (!ExtensionLoader.getExtensionLoader(Protocol.class).hasExtension(providerUrl.getProtocol())) {
+            logger.error(new IllegalStateException("Unsupported protocol " + providerUrl.getProtocol() + " in notified url: " + providerUrl + " from registry " + getUrl().getAddress() + " to consumer " + NetUtils.getLocalHost()
+                    + ", supported protocol: " + ExtensionLoader.getExtensionLoader(Protocol.class).getSupportedExtensions()));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param url         merged url
+     * @param providerUrl url notified by the registry
+     * @return the invoker, null if the provider is disabled or can't be referred
+     */
+    private Invoker<T> refer(URL url, URL providerUrl) {
+        try {
+            boolean enabled = true;
+            if (url.hasParameter(Constants.DISABLED_KEY)) {
+                enabled = !url.getParameter(Constants.DISABLED_KEY, false);
+            } else {
+                enabled = url.getParameter(Constants.ENABLED_KEY, true);
+            }
+            if (enabled) {
+                return new InvokerDelegate<T>(protocol.refer(serviceType, url), url, providerUrl.compact());
+            }
+        } catch (Throwable t) {
+            logger.error("Failed to refer invoker for interface:" + serviceType + ",url:(" + url + ")" + t.getMessage(), t);
+        }
+        return null;
+    }
+
     /**
      * Merge url parameters. the order is: override > -D >Consumer > Provider
      * 合并 URL 参数，优先级为配置规则 > 服务消费者配置 > 服务提供者配置
@@ -485,6 +675,9 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
      * @return
      */
     private URL mergeUrl(URL providerUrl) {
+        if (registry != null) {
+            providerUrl = ServiceMetadata.restore(registry.getUrl(), providerUrl); // Restore the parameters left out of a simplified url
+        }
         providerUrl = ClusterUtils.mergeUrl(providerUrl, queryMap); // Merge the consumer side parameters
 
         List<Configurator> localConfigurators = this.configurators; // local reference
@@ -532,62 +725,107 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
     }
 
     /**
-     * Transform the invokers list into a mapping relationship with a method
+     * Transform the invokers list into a mapping relationship with the methods declared by the providers
      *
      * @param invokersMap Invoker Map
-     * @return Mapping relation between Invoker and method
+     * @return Mapping relation between method and the sorted invokers declaring it, "*" maps to all the invokers
      */
-    private Map<String, List<Invoker<T>>> toMethodInvokers(Map<String, Invoker<T>> invokersMap) {
+    private Map<String, List<Invoker<T>>> toDeclaredMethodInvokers(Map<URL, Invoker<T>> invokersMap) {
         Map<String, List<Invoker<T>>> newMethodInvokerMap = new HashMap<String, List<Invoker<T>>>();
         // According to the methods classification declared by the provider URL, the methods is compatible with the registry to execute the filtered methods
-        List<Invoker<T>> invokersList = new ArrayList<Invoker<T>>();
         if (invokersMap != null && invokersMap.size() > 0) {
             for (Invoker<T> invoker : invokersMap.values()) {
-                String parameter = invoker.getUrl().getParameter(Constants.METHODS_KEY);
-                if (parameter != null && parameter.length() > 0) {
-                    String[] methods = Constants.COMMA_SPLIT_PATTERN.split(parameter);
-                    if (methods != null && methods.length > 0) {
-                        for (String method : methods) {
-                            if (method != null && method.length() > 0
-                                    && !Constants.ANY_VALUE.equals(method)) {
-                                List<Invoker<T>> methodInvokers = newMethodInvokerMap.get(method);
-                                if (methodInvokers == null) {
-                                    methodInvokers = new ArrayList<Invoker<T>>();
-                                    newMethodInvokerMap.put(method, methodInvokers);
-                                }
-                                methodInvokers.add(invoker);
-                            }
-                        }
+                for (String method : getDeclaredMethods(invoker)) {
+                    List<Invoker<T>> methodInvokers = newMethodInvokerMap.get(method);
+                    if (methodInvokers == null) {
+                        methodInvokers = new ArrayList<Invoker<T>>();
+                        newMethodInvokerMap.put(method, methodInvokers);
+                    }
+                    methodInvokers.add(invoker);
+                }
+            }
+        }
+        if (!newMethodInvokerMap.containsKey(Constants.ANY_VALUE)) {
+            newMethodInvokerMap.put(Constants.ANY_VALUE, new ArrayList<Invoker<T>>(0));
+        }
+        // sort and unmodifiable
+        for (Map.Entry<String, List<Invoker<T>>> entry : newMethodInvokerMap.entrySet()) {
+            Collections.sort(entry.getValue(), InvokerComparator.getComparator());
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(newMethodInvokerMap);
+    }
+
+    /**
+     * @return the methods declared by the provider of the invoker, and "*"
+     */
+    private static List<String> getDeclaredMethods(Invoker<?> invoker) {
+        List<String> declaredMethods = new ArrayList<String>();
+        String parameter = invoker.getUrl().getParameter(Constants.METHODS_KEY);
+        if (parameter != null && parameter.length() > 0) {
+            String[] methods = Constants.COMMA_SPLIT_PATTERN.split(parameter);
+            if (methods != null && methods.length > 0) {
+                for (String method : methods) {
+                    if (method != null && method.length() > 0
+                            && !Constants.ANY_VALUE.equals(method) && !declaredMethods.contains(method)) {
+                        declaredMethods.add(method);
                     }
                 }
-                invokersList.add(invoker);
             }
         }
+        declaredMethods.add(Constants.ANY_VALUE);
+        return declaredMethods;
+    }
+
+    /**
+     * Apply the routing rules to the invokers declaring each method
+     *
+     * @param declaredMethodInvokerMap Mapping relation between method and the invokers declaring it
+     * @return Mapping relation between Invoker and method
+     */
+    private Map<String, List<Invoker<T>>> toMethodInvokers(Map<String, List<Invoker<T>>> declaredMethodInvokerMap) {
+        Map<String, List<Invoker<T>>> newMethodInvokerMap = new HashMap<String, List<Invoker<T>>>(declaredMethodInvokerMap);
+        List<Invoker<T>> invokersList = declaredMethodInvokerMap.get(Constants.ANY_VALUE);
+        if (!hasRoutingRules()) {
+            // no routing, the declared lists are already sorted and unmodifiable
+            if (serviceMethods != null && serviceMethods.length > 0) {
+                for (String method : serviceMethods) {
+                    List<Invoker<T>> methodInvokers = newMethodInvokerMap.get(method);
+                    if (methodInvokers == null || methodInvokers.isEmpty()) {
+                        newMethodInvokerMap.put(method, invokersList);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(newMethodInvokerMap);
+        }
         List<Invoker<T>> newInvokersList = route(invokersList, null);
-        newMethodInvokerMap.put(Constants.ANY_VALUE, newInvokersList);
+        newMethodInvokerMap.put(Constants.ANY_VALUE, sort(newInvokersList));
         if (serviceMethods != null && serviceMethods.length > 0) {
             for (String method : serviceMethods) {
                 List<Invoker<T>> methodInvokers = newMethodInvokerMap.get(method);
                 if (methodInvokers == null || methodInvokers.isEmpty()) {
                     methodInvokers = newInvokersList;
                 }
-                newMethodInvokerMap.put(method, route(methodInvokers, method));
+                newMethodInvokerMap.put(method, sort(route(methodInvokers, method)));
             }
         }
-        // sort and unmodifiable
-        for (String method : new HashSet<String>(newMethodInvokerMap.keySet())) {
-            List<Invoker<T>> methodInvokers = newMethodInvokerMap.get(method);
-            Collections.sort(methodInvokers, InvokerComparator.getComparator());
-            newMethodInvokerMap.put(method, Collections.unmodifiableList(methodInvokers));
-        }
         return Collections.unmodifiableMap(newMethodInvokerMap);
     }
 
+    /**
+     * @return sorted and unmodifiable copy of the invokers
+     */
+    private List<Invoker<T>> sort(List<Invoker<T>> invokers) {
+        List<Invoker<T>> sorted = new ArrayList<Invoker<T>>(invokers);
+        Collections.sort(sorted, InvokerComparator.getComparator());
+        return Collections.unmodifiableList(sorted);
+    }
+
     /**
      * Close all invokers
      */
     private void destroyAllInvokers() {
-        Map<String, Invoker<T>> localUrlInvokerMap = this.urlInvokerMap; // local reference
+        Map<URL, Invoker<T>> localUrlInvokerMap = this.urlInvokerMap; // local reference
         if (localUrlInvokerMap != null) {
             for (Invoker<T> invoker : new ArrayList<Invoker<T>>(localUrlInvokerMap.values())) {
                 try {
@@ -599,6 +837,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             localUrlInvokerMap.clear();
         }
         methodInvokerMap = null;
+        declaredMethodInvokerMap = null;
     }
 
     /**
@@ -608,19 +847,19 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
      * @param oldUrlInvokerMap
      * @param newUrlInvokerMap
      */
-    private void destroyUnusedInvokers(Map<String, Invoker<T>> oldUrlInvokerMap, Map<String, Invoker<T>> newUrlInvokerMap) {
+    private void destroyUnusedInvokers(Map<URL, Invoker<T>> oldUrlInvokerMap, Map<URL, Invoker<T>> newUrlInvokerMap) {
         if (newUrlInvokerMap == null || newUrlInvokerMap.size() == 0) {
             destroyAllInvokers();
             return;
         }
         // check deleted invoker
-        List<String> deleted = null;
+        List<URL> deleted = null;
         if (oldUrlInvokerMap != null) {
             Collection<Invoker<T>> newInvokers = newUrlInvokerMap.values();
-            for (Map.Entry<String, Invoker<T>> entry : oldUrlInvokerMap.entrySet()) {
+            for (Map.Entry<URL, Invoker<T>> entry : oldUrlInvokerMap.entrySet()) {
                 if (!newInvokers.contains(entry.getValue())) {
                     if (deleted == null) {
-                        deleted = new ArrayList<String>();
+                        deleted = new ArrayList<URL>();
                     }
                     deleted.add(entry.getKey());
                 }
@@ -628,7 +867,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         }
 
         if (deleted != null) {
-            for (String url : deleted) {
+            for (URL url : deleted) {
                 if (url != null) {
                     Invoker<T> invoker = oldUrlInvokerMap.remove(url);
                     if (invoker != null) {
@@ -699,7 +938,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         if (isDestroyed()) {
             return false;
         }
-        Map<String, Invoker<T>> localUrlInvokerMap = urlInvokerMap;
+        Map<URL, Invoker<T>> localUrlInvokerMap = urlInvokerMap;
         if (localUrlInvokerMap != null && localUrlInvokerMap.size() > 0) {
             for (Invoker<T> invoker : new ArrayList<Invoker<T>>(localUrlInvokerMap.values())) {
                 if (invoker.isAvailable()) {
@@ -713,7 +952,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
     /**
      * Haomin: added for test purpose
      */
-    public Map<String, Invoker<T>> getUrlInvokerMap() {
+    public Map<URL, Invoker<T>> getUrlInvokerMap() {
         return urlInvokerMap;
     }
 
@@ -737,7 +976,18 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
         @Override
         public int compare(Invoker<?> o1, Invoker<?> o2) {
-            return o1.getUrl().toString().compareTo(o2.getUrl().toString());
+            // in the order of the url strings, not cached for the compact urls, whose providers differ by their address
+            URL u1 = o1.getUrl();
+            URL u2 = o2.getUrl();
+            int c = compare(u1.getProtocol(), u2.getProtocol());
+            if (c == 0) {
+                c = compare(u1.getAddress(), u2.getAddress());
+            }
+            return c != 0 ? c : u1.toString().compareTo(u2.toString());
+        }
+
+        private static int compare(String s1, String s2) {
+            return s1 == null ? (s2 == null ? 0 : -1) : (s2 == null ? 1 : s1.compareTo(s2));
         }
 
     }
@@ -29,6 +29,7 @@ import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
 import org.apache.dubbo.registry.RegistryFactory;
 import org.apache.dubbo.registry.RegistryService;
+import org.apache.dubbo.registry.metadata.ServiceMetadata;
 import org.apache.dubbo.registry.support.ProviderConsumerRegTable;
 import org.apache.dubbo.rpc.Exporter;
 import org.apache.dubbo.rpc.Invoker;
@@ -142,10 +143,12 @@ public class RegistryProtocol implements Protocol {
         // 获得注册中心对象
         final Registry registry = getRegistry(originInvoker);
         // 获得服务提供者 URL
-        final URL registedProviderUrl = getRegistedProviderUrl(originInvoker);
+        final URL providerUrl = getRegistedProviderUrl(originInvoker);
 
         //to judge to delay publish whether or not
-        boolean register = registedProviderUrl.getParameter("register", true);
+        boolean register = providerUrl.getParameter("register", true);
+        // 简化模式下，只注册路由所需参数，其余参数发布到元数据中心
+        final URL registedProviderUrl = ServiceMetadata.simplify(registryUrl, providerUrl);
         // 向本地注册表，注册服务提供者
         ProviderConsumerRegTable.registerProvider(originInvoker, registryUrl, registedProviderUrl);
         // 向注册中心注册服务提供者
@@ -157,7 +160,7 @@ public class RegistryProtocol implements Protocol {
         // 使用 OverrideListener 对象，订阅配置规则
         // Subscribe the override data
         // FIXME When the provider subscribes, it will affect the scene : a certain JVM exposes the service and call the same service. Because the subscribed is cached key with the name of the service, it causes the subscription information to cover.
-        final URL overrideSubscribeUrl = getSubscribedOverrideUrl(registedProviderUrl);
+        final URL overrideSubscribeUrl = getSubscribedOverrideUrl(providerUrl);
         final OverrideListener overrideSubscribeListener = new OverrideListener(overrideSubscribeUrl, originInvoker);
         overrideListeners.put(overrideSubscribeUrl, overrideSubscribeListener);
         registry.subscribe(overrideSubscribeUrl, overrideSubscribeListener);
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.metadata;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * MetadataStore in a directory, <code>metadata.file</code> of the registry url, read by the providers and consumers
+ * of the same host, or of a shared file system with <code>metadata.shared=true</code>.
+ * <p>
+ * Each revision is a properties file, written once, to a temporary file renamed at last.
+ */
+public class FileMetadataStore implements MetadataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileMetadataStore.class);
+
+    @Override
+    public void publish(URL registryUrl, String serviceKey, String revision, Map<String, String> metadata) {
+        File file = getFile(registryUrl, serviceKey, revision);
+        if (file.exists()) {
+            return;
+        }
+        File dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw new IllegalStateException("Invalid metadata store dir " + dir + ", cause: Failed to create directory " + dir + "!");
+        }
+        Properties properties = new Properties();
+        properties.putAll(metadata);
+        File tmp = new File(dir, file.getName() + "." + System.nanoTime() + ".tmp");
+        try {
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                properties.store(out, "Dubbo Service Metadata " + serviceKey);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file) && !file.exists()) {
+                throw new IOException("Failed to rename " + tmp + " to " + file);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to publish metadata of " + serviceKey + " to " + file + ", cause: " + e.getMessage(), e);
+        } finally {
+            if (tmp.exists() && !tmp.delete()) {
+                logger.warn("Failed to delete " + tmp);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, String> fetch(URL registryUrl, String serviceKey, String revision) {
+        File file = getFile(registryUrl, serviceKey, revision);
+        if (!file.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to fetch metadata of " + serviceKey + " from " + file + ", cause: " + e.getMessage(), e);
+        }
+        Map<String, String> metadata = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames()) {
+            metadata.put(key, properties.getProperty(key));
+        }
+        return metadata;
+    }
+
+    @Override
+    public boolean isShared(URL registryUrl) {
+        return registryUrl.getParameter(Constants.METADATA_SHARED_KEY, false);
+    }
+
+    private static File getFile(URL registryUrl, String serviceKey, String revision) {
+        String dir = registryUrl.getParameter(Constants.METADATA_FILE_KEY,
+                System.getProperty("user.home") + "/.dubbo/metadata-" + registryUrl.getHost());
+        return new File(dir, serviceKey.replace('/', '_').replace(':', '_') + "-" + revision + ".properties");
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.metadata;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * MetadataStore in the memory of this JVM, for the providers and consumers in the same process and tests.
+ */
+public class MemoryMetadataStore implements MetadataStore {
+
+    private final ConcurrentMap<String, Map<String, String>> store = new ConcurrentHashMap<String, Map<String, String>>();
+
+    @Override
+    public void publish(URL registryUrl, String serviceKey, String revision, Map<String, String> metadata) {
+        store.putIfAbsent(serviceKey + "#" + revision, Collections.unmodifiableMap(new HashMap<String, String>(metadata)));
+    }
+
+    @Override
+    public Map<String, String> fetch(URL registryUrl, String serviceKey, String revision) {
+        return store.get(serviceKey + "#" + revision);
+    }
+
+    @Override
+    public boolean isShared(URL registryUrl) {
+        return false;
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.metadata;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.SPI;
+
+import java.util.Map;
+
+/**
+ * MetadataStore. (SPI, Singleton, ThreadSafe)
+ * <p>
+ * Holds the parameters left out of the simplified provider urls, once per revision of a service. The provider urls
+ * are only simplified with a store shared with the consumers.
+ *
+ * @see ServiceMetadata
+ */
+@SPI(Constants.DEFAULT_METADATA_STORE)
+public interface MetadataStore {
+
+    /**
+     * Publish the metadata of a revision of a service, publishing the same revision again does nothing.
+     *
+     * @param registryUrl the registry url, with the options of the store
+     * @param serviceKey  service key of the provider url
+     * @param revision    revision of the metadata
+     * @param metadata    the parameters left out of the provider url
+     */
+    void publish(URL registryUrl, String serviceKey, String revision, Map<String, String> metadata);
+
+    /**
+     * Fetch the metadata of a revision of a service.
+     *
+     * @param registryUrl the registry url, with the options of the store
+     * @param serviceKey  service key of the provider url
+     * @param revision    revision of the metadata
+     * @return the metadata, null if not published
+     */
+    Map<String, String> fetch(URL registryUrl, String serviceKey, String revision);
+
+    /**
+     * @param registryUrl the registry url, with the options of the store
+     * @return whether the consumers on other hosts read what this host publishes
+     */
+    boolean isShared(URL registryUrl);
+
+}
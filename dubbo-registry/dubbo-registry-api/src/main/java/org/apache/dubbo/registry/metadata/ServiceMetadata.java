@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.metadata;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.io.Bytes;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Simplified provider urls.
+ * <p>
+ * With <code>simplified=true</code> on the registry url, the provider url registered only keeps the keys the registry
+ * and the consumers route by, the other parameters, such as the methods and the method parameters, are published to the
+ * {@link MetadataStore} once per revision, and the url carries the revision in <code>metadata.revision</code>. The
+ * consumers fetch the metadata of a revision once, and restore the provider urls notified with it.
+ * <p>
+ * The full url is registered if the store is not shared with the consumers of the other hosts.
+ */
+public class ServiceMetadata {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceMetadata.class);
+
+    private static final int MAX_CACHED = 4096;
+
+    /**
+     * 简化后仍注册的参数
+     */
+    private static final Set<String> ROUTING_KEYS = new HashSet<String>(Arrays.asList(
+            Constants.APPLICATION_KEY, Constants.INTERFACE_KEY, Constants.GROUP_KEY, Constants.VERSION_KEY,
+            Constants.CATEGORY_KEY, Constants.CLASSIFIER_KEY, Constants.SIDE_KEY, Constants.DUBBO_VERSION_KEY,
+            Constants.DYNAMIC_KEY, Constants.ENABLED_KEY, Constants.DISABLED_KEY, Constants.WEIGHT_KEY,
+            Constants.WARMUP_KEY, Constants.TIMESTAMP_KEY, Constants.PID_KEY, Constants.ANYHOST_KEY,
+            Constants.TOKEN_KEY));
+
+    /**
+     * 已获取的元数据，键为服务键和版本
+     */
+    private static final ConcurrentMap<String, Map<String, String>> FETCHED = new ConcurrentHashMap<String, Map<String, String>>();
+
+    private ServiceMetadata() {
+    }
+
+    /**
+     * @return the provider url to register, the url itself if the registry is not simplified or the metadata can't
+     * be published
+     */
+    public static URL simplify(URL registryUrl, URL providerUrl) {
+        if (!registryUrl.getParameter(Constants.REGISTRY_SIMPLIFIED_KEY, false)) {
+            return providerUrl;
+        }
+        Map<String, String> parameters = new HashMap<String, String>();
+        Map<String, String> metadata = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : providerUrl.getParameters().entrySet()) {
+            if (ROUTING_KEYS.contains(entry.getKey())) {
+                parameters.put(entry.getKey(), entry.getValue());
+            } else {
+                metadata.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (metadata.isEmpty()) {
+            return providerUrl;
+        }
+        String revision = getRevision(metadata);
+        try {
+            MetadataStore store = getMetadataStore(registryUrl);
+            if (!store.isShared(registryUrl)) {
+                logger.warn("The metadata store of " + registryUrl.getAddress() + " is not shared with the consumers, register the full url of " + providerUrl.getServiceKey());
+                return providerUrl;
+            }
+            store.publish(registryUrl, providerUrl.getServiceKey(), revision, metadata);
+        } catch (Throwable t) {
+            logger.warn("Failed to publish metadata of " + providerUrl.getServiceKey() + ", register the full url instead, cause: " + t.getMessage(), t);
+            return providerUrl;
+        }
+        parameters.put(Constants.METADATA_REVISION_KEY, revision);
+        return new URL(providerUrl.getProtocol(), providerUrl.getUsername(), providerUrl.getPassword(),
+                providerUrl.getHost(), providerUrl.getPort(), providerUrl.getPath(), parameters);
+    }
+
+    /**
+     * @return the provider url with its metadata, the url itself if it is not simplified or the metadata can't be
+     * fetched
+     */
+    public static URL restore(URL registryUrl, URL providerUrl) {
+        String revision = providerUrl.getParameter(Constants.METADATA_REVISION_KEY);
+        if (revision == null || revision.length() == 0) {
+            return providerUrl;
+        }
+        String serviceKey = providerUrl.getServiceKey();
+        String key = serviceKey + "#" + revision;
+        Map<String, String> metadata = FETCHED.get(key);
+        if (metadata == null) {
+            try {
+                metadata = getMetadataStore(registryUrl).fetch(registryUrl, serviceKey, revision);
+            } catch (Throwable t) {
+                logger.warn("Failed to fetch metadata of " + serviceKey + " revision " + revision + ", cause: " + t.getMessage(), t);
+            }
+            if (metadata == null) {
+                logger.warn("No metadata of " + serviceKey + " revision " + revision + " in the metadata store, use the simplified url " + providerUrl);
+                return providerUrl;
+            }
+            metadata = Collections.unmodifiableMap(new HashMap<String, String>(metadata));
+            if (FETCHED.size() < MAX_CACHED) {
+                FETCHED.putIfAbsent(key, metadata);
+            }
+        }
+        return providerUrl.addParametersIfAbsent(metadata);
+    }
+
+    private static String getRevision(Map<String, String> metadata) {
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            buf.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+        }
+        return Bytes.bytes2hex(Bytes.getMD5(buf.toString()));
+    }
+
+    private static MetadataStore getMetadataStore(URL registryUrl) {
+        ExtensionLoader<MetadataStore> loader = ExtensionLoader.getExtensionLoader(MetadataStore.class);
+        String name = registryUrl.getParameter(Constants.METADATA_STORE_KEY);
+        if (name == null || name.length() == 0) {
+            // the registry itself, if it can hold the metadata
+            name = loader.hasExtension(registryUrl.getProtocol()) ? registryUrl.getProtocol() : Constants.DEFAULT_METADATA_STORE;
+        }
+        return loader.getExtension(name);
+    }
+
+}
@@ -38,6 +38,7 @@ import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -102,6 +103,14 @@ public abstract class AbstractRegistry implements Registry {
      * 本地磁盘缓存文件，缓存注册中心的数据
      */
     private File file;
+    /**
+     * 本地磁盘缓存的快照及变更日志，未开启时为空
+     */
+    private RegistryCacheJournal journal;
+    /**
+     * 尚未写入变更日志的缓存项
+     */
+    private final Map<String, String> journalPending = new LinkedHashMap<String, String>();
 
     public AbstractRegistry(URL url) {
         setUrl(url);
@@ -119,6 +128,9 @@ public abstract class AbstractRegistry implements Registry {
             }
         }
         this.file = file;
+        if (file != null && url.getParameter(Constants.REGISTRY_FILE_JOURNAL_KEY, false)) {
+            this.journal = new RegistryCacheJournal(file);
+        }
         // 加载本地磁盘缓存文件到内存缓存
         loadProperties();
         // 通知监听器，URL 变化结果
@@ -197,14 +209,18 @@ public abstract class AbstractRegistry implements Registry {
                     }
                     // Save
                     try {
-                        if (!file.exists()) {
-                            file.createNewFile();
-                        }
-                        FileOutputStream outputFile = new FileOutputStream(file);
-                        try {
-                            properties.store(outputFile, "Dubbo Registry Cache");
-                        } finally {
-                            outputFile.close();
+                        if (journal != null) {
+                            saveJournal();
+                        } else {
+                            if (!file.exists()) {
+                                file.createNewFile();
+                            }
+                            FileOutputStream outputFile = new FileOutputStream(file);
+                            try {
+                                properties.store(outputFile, "Dubbo Registry Cache");
+                            } finally {
+                                outputFile.close();
+                            }
                         }
                     } finally {
                         lock.release();
@@ -225,7 +241,44 @@ public abstract class AbstractRegistry implements Registry {
         }
     }
 
+    /**
+     * 追加尚未写入的缓存项到变更日志，失败时保留以便重试
+     */
+    private void saveJournal() throws IOException {
+        Map<String, String> changes;
+        synchronized (journalPending) {
+            if (journalPending.isEmpty()) {
+                return;
+            }
+            changes = new LinkedHashMap<String, String>(journalPending);
+            journalPending.clear();
+        }
+        try {
+            journal.append(changes, properties);
+        } catch (IOException e) {
+            synchronized (journalPending) {
+                for (Map.Entry<String, String> entry : changes.entrySet()) {
+                    if (!journalPending.containsKey(entry.getKey())) {
+                        journalPending.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
     private void loadProperties() {
+        if (journal != null && journal.exists()) {
+            try {
+                journal.load(properties);
+                if (logger.isInfoEnabled()) {
+                    logger.info("Load registry store file " + journal.getSnapshotFile() + ", " + properties.size() + " entries");
+                }
+            } catch (Throwable e) {
+                logger.warn("Failed to load registry store file " + journal.getSnapshotFile(), e);
+            }
+            return;
+        }
         if (file != null && file.exists()) {
             InputStream in = null;
             try {
@@ -249,19 +302,19 @@ public abstract class AbstractRegistry implements Registry {
     }
 
     public List<URL> getCacheUrls(URL url) {
-        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-            String key = (String) entry.getKey();
-            String value = (String) entry.getValue();
-            if (key != null && key.length() > 0 && key.equals(url.getServiceKey())
-                    && (Character.isLetter(key.charAt(0)) || key.charAt(0) == '_')
-                    && value != null && value.length() > 0) {
-                String[] arr = value.trim().split(URL_SPLIT);
-                List<URL> urls = new ArrayList<URL>();
-                for (String u : arr) {
-                    urls.add(URL.valueOf(u));
-                }
-                return urls;
+        String key = url.getServiceKey();
+        if (key == null || key.length() == 0
+                || !(Character.isLetter(key.charAt(0)) || key.charAt(0) == '_')) {
+            return null;
+        }
+        String value = properties.getProperty(key);
+        if (value != null && value.length() > 0) {
+            String[] arr = value.trim().split(URL_SPLIT);
+            List<URL> urls = new ArrayList<URL>();
+            for (String u : arr) {
+                urls.add(URL.valueOf(u));
             }
+            return urls;
         }
         return null;
     }
@@ -477,6 +530,11 @@ public abstract class AbstractRegistry implements Registry {
                 }
             }
             properties.setProperty(url.getServiceKey(), buf.toString());
+            if (journal != null) {
+                synchronized (journalPending) {
+                    journalPending.put(url.getServiceKey(), buf.toString());
+                }
+            }
             long version = lastCacheChanged.incrementAndGet();
             if (syncSaveFile) {
                 doSaveProperties(version);
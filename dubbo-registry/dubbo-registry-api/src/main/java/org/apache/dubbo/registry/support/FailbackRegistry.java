@@ -23,22 +23,42 @@ import org.apache.dubbo.common.utils.ExecutorUtil;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.registry.NotifyListener;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * FailbackRegistry. (SPI, Prototype, ThreadSafe)
  * 支持失败重试
+ * <p>
+ * With <code>notify.quiet.period</code> set, a burst of notifications to a subscriber is coalesced: the first one is
+ * notified at once, the following ones are held back until no other one comes within the quiet period, or at most
+ * <code>notify.max.delay</code>, then only the latest urls of each category are notified.
+ * <p>
+ * With <code>notify.threads</code> set, the subscribers are notified on a pool of that many threads instead of the
+ * registry client thread, in order for each subscriber, so that a slow subscriber only delays its own notifications.
+ * The notifications made while subscribing are still notified on the subscribing thread, and the older ones still
+ * queued for the same categories are dropped instead of overwriting them.
  *
  */
 public abstract class FailbackRegistry extends AbstractRegistry {
@@ -84,10 +104,52 @@ public abstract class FailbackRegistry extends AbstractRegistry {
      */
     private final int retryPeriod;
 
+    /**
+     * 通知合并的静默期，单位：毫秒，0 表示不合并
+     */
+    private final long notifyQuietPeriod;
+
+    /**
+     * 合并通知的最长延迟，单位：毫秒
+     */
+    private final long notifyMaxDelay;
+
+    /**
+     * 各订阅者的通知合并器
+     */
+    private final ConcurrentMap<URL, Map<NotifyListener, NotifyCoalescer>> notifyCoalescers = new ConcurrentHashMap<URL, Map<NotifyListener, NotifyCoalescer>>();
+
+    private final AtomicLong notifyCount = new AtomicLong();
+
+    private final AtomicLong coalescedNotifyCount = new AtomicLong();
+
+    /**
+     * 通知订阅者的线程池，为空时在注册中心客户端线程通知
+     */
+    private final ExecutorService notifyExecutor;
+
+    /**
+     * 各订阅者的通知队列
+     */
+    private final ConcurrentMap<NotifyListener, NotifyDispatcher> notifyDispatchers = new ConcurrentHashMap<NotifyListener, NotifyDispatcher>();
+
+    private final AtomicInteger notifyQueueSize = new AtomicInteger();
+
+    /**
+     * 当前线程是否正在订阅，订阅时的通知在订阅线程执行，保证订阅返回前已收到首次通知
+     */
+    private static final ThreadLocal<Boolean> SUBSCRIBING = new ThreadLocal<Boolean>();
+
     public FailbackRegistry(URL url) {
         super(url);
         // 重试频率，单位：毫秒 默认5000
         this.retryPeriod = url.getParameter(Constants.REGISTRY_RETRY_PERIOD_KEY, Constants.DEFAULT_REGISTRY_RETRY_PERIOD);
+        this.notifyQuietPeriod = Math.max(0, url.getParameter(Constants.REGISTRY_NOTIFY_QUIET_PERIOD_KEY, Constants.DEFAULT_REGISTRY_NOTIFY_QUIET_PERIOD));
+        this.notifyMaxDelay = Math.max(notifyQuietPeriod, url.getParameter(Constants.REGISTRY_NOTIFY_MAX_DELAY_KEY, Constants.DEFAULT_REGISTRY_NOTIFY_MAX_DELAY));
+        int notifyThreads = url.getParameter(Constants.REGISTRY_NOTIFY_THREADS_KEY, Constants.DEFAULT_REGISTRY_NOTIFY_THREADS);
+        // 每个订阅者同一时刻最多占用一个任务，队列长度不超过订阅者数量
+        this.notifyExecutor = notifyThreads <= 0 ? null : new ThreadPoolExecutor(notifyThreads, notifyThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("DubboRegistryNotify", true));
         // 创建失败重试定时器
         this.retryFuture = retryExecutor.scheduleWithFixedDelay(new Runnable() {
             @Override
@@ -126,6 +188,38 @@ public abstract class FailbackRegistry extends AbstractRegistry {
         return failedNotified;
     }
 
+    /**
+     * @return notifications received for the subscribers
+     */
+    public long getNotifyCount() {
+        return notifyCount.get();
+    }
+
+    /**
+     * @return notifications merged into a later one instead of being notified on their own
+     */
+    public long getCoalescedNotifyCount() {
+        return coalescedNotifyCount.get();
+    }
+
+    /**
+     * @return notifications waiting for their subscriber to be notified, always 0 without <code>notify.threads</code>
+     */
+    public int getNotifyQueueSize() {
+        return notifyQueueSize.get();
+    }
+
+    /**
+     * @return notify statistics of each subscriber
+     */
+    public Map<NotifyListener, NotifyStatistics> getNotifyStatistics() {
+        Map<NotifyListener, NotifyStatistics> statistics = new HashMap<NotifyListener, NotifyStatistics>();
+        for (Map.Entry<NotifyListener, NotifyDispatcher> entry : notifyDispatchers.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().statistics);
+        }
+        return statistics;
+    }
+
     private void addFailedSubscribed(URL url, NotifyListener listener) {
         Set<NotifyListener> listeners = failedSubscribed.get(url);
         if (listeners == null) {
@@ -212,6 +306,16 @@ public abstract class FailbackRegistry extends AbstractRegistry {
 
     @Override
     public void subscribe(URL url, NotifyListener listener) {
+        Boolean subscribing = SUBSCRIBING.get();
+        SUBSCRIBING.set(Boolean.TRUE);
+        try {
+            doSubscribeOrFailback(url, listener);
+        } finally {
+            SUBSCRIBING.set(subscribing);
+        }
+    }
+
+    private void doSubscribeOrFailback(URL url, NotifyListener listener) {
         super.subscribe(url, listener);
         removeFailedSubscribed(url, listener);
         try {
@@ -248,6 +352,8 @@ public abstract class FailbackRegistry extends AbstractRegistry {
     public void unsubscribe(URL url, NotifyListener listener) {
         super.unsubscribe(url, listener);
         removeFailedSubscribed(url, listener);
+        removeNotifyCoalescer(url, listener);
+        removeNotifyDispatcher(listener);
         try {
             // Sending a canceling subscription request to the server side
             doUnsubscribe(url, listener);
@@ -285,6 +391,24 @@ public abstract class FailbackRegistry extends AbstractRegistry {
         if (listener == null) {
             throw new IllegalArgumentException("notify listener == null");
         }
+        notifyCount.incrementAndGet();
+        if (notifyQuietPeriod > 0 && urls != null && !urls.isEmpty()) {
+            getNotifyCoalescer(url, listener).notify(urls);
+        } else {
+            notifyNow(url, listener, urls);
+        }
+    }
+
+    private void notifyNow(URL url, NotifyListener listener, List<URL> urls) {
+        NotifyDispatcher dispatcher = getNotifyDispatcher(listener);
+        if (notifyExecutor != null && SUBSCRIBING.get() == null) {
+            dispatcher.dispatch(url, urls);
+        } else {
+            dispatcher.notifyNow(url, urls);
+        }
+    }
+
+    private void notifyOrFailback(URL url, NotifyListener listener, List<URL> urls) {
         try {
             doNotify(url, listener, urls);
         } catch (Exception t) {
@@ -303,6 +427,49 @@ public abstract class FailbackRegistry extends AbstractRegistry {
         super.notify(url, listener, urls);
     }
 
+    private NotifyCoalescer getNotifyCoalescer(URL url, NotifyListener listener) {
+        Map<NotifyListener, NotifyCoalescer> coalescers = notifyCoalescers.get(url);
+        if (coalescers == null) {
+            notifyCoalescers.putIfAbsent(url, new ConcurrentHashMap<NotifyListener, NotifyCoalescer>());
+            coalescers = notifyCoalescers.get(url);
+        }
+        NotifyCoalescer coalescer = coalescers.get(listener);
+        if (coalescer == null) {
+            coalescers.putIfAbsent(listener, new NotifyCoalescer(url, listener));
+            coalescer = coalescers.get(listener);
+        }
+        return coalescer;
+    }
+
+    private NotifyDispatcher getNotifyDispatcher(NotifyListener listener) {
+        NotifyDispatcher dispatcher = notifyDispatchers.get(listener);
+        if (dispatcher == null) {
+            notifyDispatchers.putIfAbsent(listener, new NotifyDispatcher(listener));
+            dispatcher = notifyDispatchers.get(listener);
+        }
+        return dispatcher;
+    }
+
+    private void removeNotifyDispatcher(NotifyListener listener) {
+        // the listener may still subscribe other urls, keep its order with them
+        for (Set<NotifyListener> listeners : getSubscribed().values()) {
+            if (listeners.contains(listener)) {
+                return;
+            }
+        }
+        notifyDispatchers.remove(listener);
+    }
+
+    private void removeNotifyCoalescer(URL url, NotifyListener listener) {
+        Map<NotifyListener, NotifyCoalescer> coalescers = notifyCoalescers.get(url);
+        if (coalescers != null) {
+            NotifyCoalescer coalescer = coalescers.remove(listener);
+            if (coalescer != null) {
+                coalescer.cancel();
+            }
+        }
+    }
+
     @Override
     protected void recover() throws Exception {
         // register
@@ -464,12 +631,315 @@ public abstract class FailbackRegistry extends AbstractRegistry {
     @Override
     public void destroy() {
         super.destroy();
+        for (Map<NotifyListener, NotifyCoalescer> coalescers : notifyCoalescers.values()) {
+            for (NotifyCoalescer coalescer : coalescers.values()) {
+                coalescer.cancel();
+            }
+        }
+        notifyCoalescers.clear();
         try {
             retryFuture.cancel(true);
         } catch (Throwable t) {
             logger.warn(t.getMessage(), t);
         }
         ExecutorUtil.gracefulShutdown(retryExecutor, retryPeriod);
+        if (notifyExecutor != null) {
+            ExecutorUtil.gracefulShutdown(notifyExecutor, retryPeriod);
+        }
+    }
+
+    /**
+     * Notify statistics of a subscriber.
+     */
+    public static class NotifyStatistics {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong elapsed = new AtomicLong();
+
+        private final AtomicLong maxElapsed = new AtomicLong();
+
+        private final AtomicLong waited = new AtomicLong();
+
+        private final AtomicInteger queueSize = new AtomicInteger();
+
+        void notified(long elapsed, long waited) {
+            count.incrementAndGet();
+            this.elapsed.addAndGet(elapsed);
+            this.waited.addAndGet(waited);
+            long max = maxElapsed.get();
+            while (elapsed > max && !maxElapsed.compareAndSet(max, elapsed)) {
+                max = maxElapsed.get();
+            }
+        }
+
+        /**
+         * @return notifications to the subscriber
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * @return total milliseconds spent in the subscriber
+         */
+        public long getElapsed() {
+            return elapsed.get();
+        }
+
+        /**
+         * @return the longest milliseconds spent in the subscriber by one notification
+         */
+        public long getMaxElapsed() {
+            return maxElapsed.get();
+        }
+
+        /**
+         * @return average milliseconds spent in the subscriber by one notification
+         */
+        public long getAverageElapsed() {
+            long c = count.get();
+            return c == 0 ? 0 : elapsed.get() / c;
+        }
+
+        /**
+         * @return total milliseconds the notifications waited in the queue of the subscriber
+         */
+        public long getWaited() {
+            return waited.get();
+        }
+
+        /**
+         * @return notifications waiting in the queue of the subscriber
+         */
+        public int getQueueSize() {
+            return queueSize.get();
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + getCount() + ", avg: " + getAverageElapsed() + "ms, max: " + getMaxElapsed()
+                    + "ms, queue: " + getQueueSize();
+        }
+    }
+
+    /**
+     * Notifies one subscriber on the notify executor, in order, one notification at a time.
+     */
+    private class NotifyDispatcher implements Runnable {
+
+        /**
+         * 一次执行最多通知的次数，避免一个订阅者长期占用线程
+         */
+        private static final int BATCH = 16;
+
+        private final NotifyListener listener;
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final NotifyStatistics statistics = new NotifyStatistics();
+
+        /**
+         * 通知的版本号，入队的通知及订阅时的同步通知依次递增
+         */
+        private final AtomicLong version = new AtomicLong();
+
+        /**
+         * 通知订阅者时持有，保证同一订阅者的通知依次执行
+         */
+        private final Object notifyLock = new Object();
+
+        /**
+         * 各订阅 URL 的各分类最近一次同步通知的版本号，早于它的排队通知已过时
+         */
+        private final Map<URL, Map<String, Long>> syncVersions = new HashMap<URL, Map<String, Long>>();
+
+        NotifyDispatcher(NotifyListener listener) {
+            this.listener = listener;
+        }
+
+        void dispatch(final URL url, final List<URL> urls) {
+            final long queued = System.currentTimeMillis();
+            final long v = version.incrementAndGet();
+            statistics.queueSize.incrementAndGet();
+            notifyQueueSize.incrementAndGet();
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    statistics.queueSize.decrementAndGet();
+                    notifyQueueSize.decrementAndGet();
+                    synchronized (notifyLock) {
+                        List<URL> fresh = getFreshUrls(url, urls, v);
+                        if (fresh == null) {
+                            return;
+                        }
+                        long start = System.currentTimeMillis();
+                        notifyOrFailback(url, listener, fresh);
+                        statistics.notified(System.currentTimeMillis() - start, start - queued);
+                    }
+                }
+            });
+            schedule();
+        }
+
+        /**
+         * Notifies on the current thread, after the running notification if any.
+         */
+        void notifyNow(URL url, List<URL> urls) {
+            synchronized (notifyLock) {
+                long v = version.incrementAndGet();
+                if (notifyExecutor != null && urls != null) {
+                    Map<String, Long> versions = syncVersions.get(url);
+                    if (versions == null) {
+                        versions = new HashMap<String, Long>();
+                        syncVersions.put(url, versions);
+                    }
+                    for (URL u : urls) {
+                        versions.put(u.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY), v);
+                    }
+                }
+                long start = System.currentTimeMillis();
+                notifyOrFailback(url, listener, urls);
+                statistics.notified(System.currentTimeMillis() - start, 0);
+            }
+        }
+
+        /**
+         * @return the urls of the categories not notified since by a newer synchronous notification, null if none
+         */
+        private List<URL> getFreshUrls(URL url, List<URL> urls, long v) {
+            Map<String, Long> versions = syncVersions.get(url);
+            if (versions == null || urls == null || urls.isEmpty()) {
+                return urls;
+            }
+            List<URL> fresh = new ArrayList<URL>(urls.size());
+            for (URL u : urls) {
+                Long syncVersion = versions.get(u.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY));
+                if (syncVersion == null || syncVersion < v) {
+                    fresh.add(u);
+                }
+            }
+            return fresh.isEmpty() ? null : fresh;
+        }
+
+        private void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    notifyExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // destroyed
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                for (int i = 0; i < BATCH && (task = tasks.poll()) != null; i++) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.error("Unexpected error occur at notify, cause: " + t.getMessage(), t);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // more came while notifying, or the batch is full
+            schedule();
+        }
+    }
+
+    /**
+     * Coalesces the notifications of one subscriber, notified on the retry executor once quiet.
+     */
+    private class NotifyCoalescer implements Runnable {
+
+        private final URL url;
+
+        private final NotifyListener listener;
+
+        /**
+         * 待通知的 URL，每个分类只保留最新一次
+         */
+        private final Map<String, List<URL>> pending = new LinkedHashMap<String, List<URL>>();
+
+        private long firstPendingTime;
+
+        private long lastNotifyTime;
+
+        private ScheduledFuture<?> future;
+
+        private boolean cancelled;
+
+        NotifyCoalescer(URL url, NotifyListener listener) {
+            this.url = url;
+            this.listener = listener;
+        }
+
+        synchronized void notify(List<URL> urls) {
+            long now = System.currentTimeMillis();
+            if (cancelled || (pending.isEmpty() && now - lastNotifyTime >= notifyQuietPeriod)) {
+                // not in a burst, no need to wait
+                lastNotifyTime = now;
+                notifyNow(url, listener, urls);
+                return;
+            }
+            if (pending.isEmpty()) {
+                firstPendingTime = now;
+            } else {
+                coalescedNotifyCount.incrementAndGet();
+            }
+            Map<String, List<URL>> categoryUrls = new LinkedHashMap<String, List<URL>>();
+            for (URL u : urls) {
+                String category = u.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY);
+                List<URL> list = categoryUrls.get(category);
+                if (list == null) {
+                    list = new ArrayList<URL>();
+                    categoryUrls.put(category, list);
+                }
+                list.add(u);
+            }
+            pending.putAll(categoryUrls);
+            if (future != null) {
+                future.cancel(false);
+            }
+            long delay = Math.min(notifyQuietPeriod, firstPendingTime + notifyMaxDelay - now);
+            try {
+                future = retryExecutor.schedule(this, Math.max(0, delay), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // destroyed
+                run();
+            }
+        }
+
+        @Override
+        public synchronized void run() {
+            if (cancelled || pending.isEmpty()) {
+                return;
+            }
+            List<URL> urls = new ArrayList<URL>();
+            for (List<URL> list : pending.values()) {
+                urls.addAll(list);
+            }
+            pending.clear();
+            future = null;
+            lastNotifyTime = System.currentTimeMillis();
+            notifyNow(url, listener, urls);
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            pending.clear();
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
     }
 
     // ==== Template method ====
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Registry disk cache kept as a binary snapshot plus an append-only journal of the changes since.
+ * <p>
+ * A change only appends its entries to the journal, instead of rewriting the whole cache. Once the journal grows
+ * larger than the snapshot, both are compacted into a new snapshot. A record is the length prefixed UTF-8 bytes of the
+ * key and of the value; an incomplete record at the end of the journal, left by a crash, is dropped.
+ * <p>
+ * Not thread safe, the caller holds the cache file lock.
+ */
+public class RegistryCacheJournal {
+
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x44524331;
+
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File snapshotFile;
+
+    private final File journalFile;
+
+    private final long minCompactSize;
+
+    public RegistryCacheJournal(File file) {
+        this(file, MIN_COMPACT_SIZE);
+    }
+
+    RegistryCacheJournal(File file, long minCompactSize) {
+        this.snapshotFile = new File(file.getAbsolutePath() + SNAPSHOT_SUFFIX);
+        this.journalFile = new File(file.getAbsolutePath() + JOURNAL_SUFFIX);
+        this.minCompactSize = minCompactSize;
+    }
+
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    public boolean exists() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    /**
+     * Load the snapshot, then replay the journal on it.
+     */
+    public void load(Properties properties) throws IOException {
+        if (snapshotFile.exists()) {
+            ByteBuffer buffer = read(snapshotFile);
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("Invalid registry cache snapshot " + snapshotFile);
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                if (!readRecord(buffer, properties)) {
+                    throw new IOException("Truncated registry cache snapshot " + snapshotFile);
+                }
+            }
+        }
+        if (journalFile.exists()) {
+            ByteBuffer buffer = read(journalFile);
+            int end = 0;
+            while (readRecord(buffer, properties)) {
+                end = buffer.position();
+            }
+            if (end < buffer.limit()) {
+                // drop the incomplete tail, so that the next records are appended after a complete one
+                RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+                try {
+                    raf.setLength(end);
+                } finally {
+                    raf.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Append the changed entries to the journal, and compact it into the snapshot if it grew too large. The first
+     * append writes a snapshot of all the entries instead, so that the ones loaded from the plain cache file are kept.
+     *
+     * @param changes    changed entries
+     * @param properties all the entries, changes included
+     */
+    public void append(Map<String, String> changes, Properties properties) throws IOException {
+        if (!exists()) {
+            compact(properties);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        out.flush();
+        FileOutputStream journal = new FileOutputStream(journalFile, true);
+        try {
+            journal.write(bytes.toByteArray());
+        } finally {
+            journal.close();
+        }
+        if (journalFile.length() > Math.max(minCompactSize, snapshotFile.length())) {
+            compact(properties);
+        }
+    }
+
+    /**
+     * Write all the entries into a new snapshot, and clear the journal.
+     */
+    public void compact(Properties properties) throws IOException {
+        Map<String, String> entries = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames()) {
+            entries.put(key, properties.getProperty(key));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        out.flush();
+        File tmp = new File(snapshotFile.getAbsolutePath() + ".tmp");
+        FileOutputStream snapshot = new FileOutputStream(tmp);
+        try {
+            snapshot.write(bytes.toByteArray());
+            snapshot.getFD().sync();
+        } finally {
+            snapshot.close();
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            // not atomic on some platforms when the target exists
+            if (!snapshotFile.delete() || !tmp.renameTo(snapshotFile)) {
+                throw new IOException("Failed to replace registry cache snapshot " + snapshotFile);
+            }
+        }
+        RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+        try {
+            raf.setLength(0);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static ByteBuffer read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+            return buffer;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, String value) throws IOException {
+        byte[] k = key.getBytes(UTF_8);
+        byte[] v = value.getBytes(UTF_8);
+        out.writeInt(k.length);
+        out.write(k);
+        out.writeInt(v.length);
+        out.write(v);
+    }
+
+    /**
+     * @return false if no complete record is left
+     */
+    private static boolean readRecord(ByteBuffer buffer, Properties properties) {
+        int start = buffer.position();
+        String key = readString(buffer);
+        String value = key == null ? null : readString(buffer);
+        if (value == null) {
+            buffer.position(start);
+            return false;
+        }
+        properties.setProperty(key, value);
+        return true;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            return null;
+        }
+        String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.metadata;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ServiceMetadataTest {
+
+    private final URL providerUrl = URL.valueOf("dubbo://10.20.30.40:20880/com.test.DemoService?anyhost=true&application=demo"
+            + "&interface=com.test.DemoService&methods=sayHello,sayBye&sayHello.timeout=100&side=provider&timestamp=1"
+            + "&version=1.0.0&serialization=hessian2");
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("dubbo-metadata", "");
+        dir.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testSimplifyAndRestore() {
+        URL registryUrl = URL.valueOf("zookeeper://127.0.0.1:2181/org.apache.dubbo.registry.RegistryService?simplified=true&metadata.store=file&metadata.shared=true")
+                .addParameter(Constants.METADATA_FILE_KEY, dir.getAbsolutePath());
+        URL simplified = ServiceMetadata.simplify(registryUrl, providerUrl);
+        Assert.assertNotNull(simplified.getParameter(Constants.METADATA_REVISION_KEY));
+        Assert.assertNull(simplified.getParameter(Constants.METHODS_KEY));
+        Assert.assertNull(simplified.getParameter("sayHello.timeout"));
+        Assert.assertEquals("1.0.0", simplified.getParameter(Constants.VERSION_KEY));
+        Assert.assertEquals(providerUrl.getServiceKey(), simplified.getServiceKey());
+        Assert.assertTrue(simplified.toFullString().length() < providerUrl.toFullString().length());
+
+        // another provider of the same revision
+        URL other = ServiceMetadata.simplify(registryUrl, providerUrl.setHost("10.20.30.41").addParameter(Constants.TIMESTAMP_KEY, 2));
+        Assert.assertEquals(simplified.getParameter(Constants.METADATA_REVISION_KEY), other.getParameter(Constants.METADATA_REVISION_KEY));
+
+        URL restored = ServiceMetadata.restore(registryUrl, simplified);
+        Assert.assertEquals(providerUrl.addParameter(Constants.METADATA_REVISION_KEY, simplified.getParameter(Constants.METADATA_REVISION_KEY)), restored);
+    }
+
+    @Test
+    public void testNotSimplified() {
+        URL registryUrl = URL.valueOf("zookeeper://127.0.0.1:2181/org.apache.dubbo.registry.RegistryService");
+        Assert.assertSame(providerUrl, ServiceMetadata.simplify(registryUrl, providerUrl));
+        Assert.assertSame(providerUrl, ServiceMetadata.restore(registryUrl, providerUrl));
+    }
+
+    @Test
+    public void testNotSharedStore() {
+        URL registryUrl = URL.valueOf("zookeeper://127.0.0.1:2181/org.apache.dubbo.registry.RegistryService?simplified=true&metadata.store=memory");
+        Assert.assertSame(providerUrl, ServiceMetadata.simplify(registryUrl, providerUrl));
+        // the file store is local to the host unless said shared
+        registryUrl = registryUrl.removeParameter(Constants.METADATA_STORE_KEY).addParameter(Constants.METADATA_FILE_KEY, dir.getAbsolutePath());
+        Assert.assertSame(providerUrl, ServiceMetadata.simplify(registryUrl, providerUrl));
+        Assert.assertFalse(dir.exists());
+    }
+
+    @Test
+    public void testUnknownRevision() {
+        URL registryUrl = URL.valueOf("zookeeper://127.0.0.1:2181/org.apache.dubbo.registry.RegistryService?metadata.store=memory");
+        URL simplified = providerUrl.removeParameter(Constants.METHODS_KEY).addParameter(Constants.METADATA_REVISION_KEY, "unknown");
+        Assert.assertSame(simplified, ServiceMetadata.restore(registryUrl, simplified));
+    }
+
+    @Test
+    public void testFileMetadataStore() throws Exception {
+        URL registryUrl = URL.valueOf("zookeeper://127.0.0.1:2181/org.apache.dubbo.registry.RegistryService?simplified=true&metadata.shared=true")
+                .addParameter(Constants.METADATA_FILE_KEY, dir.getAbsolutePath());
+        URL simplified = ServiceMetadata.simplify(registryUrl, providerUrl);
+        String revision = simplified.getParameter(Constants.METADATA_REVISION_KEY);
+        Assert.assertNotNull(revision);
+        Assert.assertEquals("sayHello,sayBye", new FileMetadataStore().fetch(registryUrl, providerUrl.getServiceKey(), revision).get(Constants.METHODS_KEY));
+        Assert.assertNull(new FileMetadataStore().fetch(registryUrl, providerUrl.getServiceKey(), "unknown"));
+    }
+
+}
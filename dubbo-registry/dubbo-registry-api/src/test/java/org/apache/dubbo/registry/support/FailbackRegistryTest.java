@@ -24,9 +24,12 @@ import org.apache.dubbo.registry.NotifyListener;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -180,6 +183,136 @@ public class FailbackRegistryTest {
         assertEquals(2, count.get());
     }
 
+    @Test
+    public void testNotify_coalesce() throws Exception {
+        final AtomicInteger count = new AtomicInteger(0);
+        final AtomicReference<List<URL>> notified = new AtomicReference<List<URL>>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        NotifyListener listner = new NotifyListener() {
+            @Override
+            public void notify(List<URL> urls) {
+                count.incrementAndGet();
+                notified.set(urls);
+                latch.countDown();
+            }
+        };
+        URL url = registryUrl.addParameter(Constants.REGISTRY_NOTIFY_QUIET_PERIOD_KEY, 100)
+                .addParameter(Constants.REGISTRY_NOTIFY_MAX_DELAY_KEY, 2000);
+        registry = new MockRegistry(url, new CountDownLatch(0));
+        URL consumerUrl = serviceUrl.setProtocol(Constants.CONSUMER_PROTOCOL).addParameters(CollectionUtils.toStringMap("check", "false"));
+        registry.subscribe(consumerUrl, listner);
+        // the first one is not delayed
+        assertEquals(1, count.get());
+
+        for (int i = 1; i <= 5; i++) {
+            registry.notify(consumerUrl, listner, Arrays.asList(serviceUrl.setPort(20880 + i)));
+        }
+        assertEquals(1, count.get());
+        assertEquals(true, latch.await(1000, TimeUnit.MILLISECONDS));
+        Thread.sleep(200);
+        assertEquals(2, count.get());
+        assertEquals(Arrays.asList(serviceUrl.setPort(20885)), notified.get());
+        assertEquals(6, registry.getNotifyCount());
+        assertEquals(4, registry.getCoalescedNotifyCount());
+    }
+
+    @Test
+    public void testNotify_async() throws Exception {
+        final List<Integer> slowNotified = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch slowEntered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch slowDone = new CountDownLatch(4);
+        NotifyListener slow = new NotifyListener() {
+            @Override
+            public void notify(List<URL> urls) {
+                slowNotified.add(urls.get(0).getPort());
+                if (slowNotified.size() > 1) {
+                    slowEntered.countDown();
+                    try {
+                        release.await(5000, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                slowDone.countDown();
+            }
+        };
+        final CountDownLatch fastDone = new CountDownLatch(2);
+        NotifyListener fast = new NotifyListener() {
+            @Override
+            public void notify(List<URL> urls) {
+                fastDone.countDown();
+            }
+        };
+        registry = new MockRegistry(registryUrl.addParameter(Constants.REGISTRY_NOTIFY_THREADS_KEY, 2), new CountDownLatch(0));
+        URL consumerUrl = serviceUrl.setProtocol(Constants.CONSUMER_PROTOCOL).addParameters(CollectionUtils.toStringMap("check", "false"));
+        registry.subscribe(consumerUrl, slow);
+        registry.subscribe(consumerUrl, fast);
+        // notified on the subscribing thread
+        assertEquals(1, slowNotified.size());
+        assertEquals(1, fastDone.getCount());
+
+        for (int i = 1; i <= 3; i++) {
+            registry.notify(consumerUrl, slow, Arrays.asList(serviceUrl.setPort(20880 + i)));
+        }
+        assertEquals(true, slowEntered.await(1000, TimeUnit.MILLISECONDS));
+        registry.notify(consumerUrl, fast, Arrays.asList(serviceUrl.setPort(20890)));
+        // not blocked by the slow one
+        assertEquals(true, fastDone.await(1000, TimeUnit.MILLISECONDS));
+        assertEquals(2, registry.getNotifyQueueSize());
+        assertEquals(2, registry.getNotifyStatistics().get(slow).getQueueSize());
+
+        release.countDown();
+        assertEquals(true, slowDone.await(1000, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(serviceUrl.getPort(), 20881, 20882, 20883), slowNotified);
+        Thread.sleep(100);
+        assertEquals(0, registry.getNotifyQueueSize());
+        assertEquals(4, registry.getNotifyStatistics().get(slow).getCount());
+        assertEquals(2, registry.getNotifyStatistics().get(fast).getCount());
+        registry.destroy();
+    }
+
+    @Test
+    public void testNotify_subscribeAfterQueued() throws Exception {
+        final List<Integer> notified = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        NotifyListener listener = new NotifyListener() {
+            @Override
+            public void notify(List<URL> urls) {
+                notified.add(urls.get(0).getPort());
+                if (urls.get(0).getPort() == 20881) {
+                    entered.countDown();
+                    try {
+                        release.await(5000, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        registry = new MockRegistry(registryUrl.addParameter(Constants.REGISTRY_NOTIFY_THREADS_KEY, 1), new CountDownLatch(0));
+        final URL consumerUrl = serviceUrl.setProtocol(Constants.CONSUMER_PROTOCOL).addParameters(CollectionUtils.toStringMap("check", "false"));
+        registry.subscribe(consumerUrl, listener);
+        registry.notify(consumerUrl, listener, Arrays.asList(serviceUrl.setPort(20881)));
+        assertEquals(true, entered.await(1000, TimeUnit.MILLISECONDS));
+        // queued before the next subscribe, older than its urls
+        registry.notify(consumerUrl, listener, Arrays.asList(serviceUrl.setPort(20882)));
+        Thread subscriber = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                registry.subscribe(consumerUrl, listener);
+            }
+        });
+        subscriber.start();
+        Thread.sleep(100);
+        release.countDown();
+        subscriber.join(1000);
+        Thread.sleep(100);
+        assertEquals(Integer.valueOf(serviceUrl.getPort()), notified.get(notified.size() - 1));
+        assertEquals(0, registry.getNotifyQueueSize());
+        registry.destroy();
+    }
 
     private static class MockRegistry extends FailbackRegistry {
         CountDownLatch latch;
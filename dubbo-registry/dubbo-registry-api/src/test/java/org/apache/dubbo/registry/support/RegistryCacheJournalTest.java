@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.registry.NotifyListener;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+public class RegistryCacheJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("dubbo-registry", ".cache");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getAbsolutePath() + RegistryCacheJournal.SNAPSHOT_SUFFIX).delete();
+        new File(file.getAbsolutePath() + RegistryCacheJournal.JOURNAL_SUFFIX).delete();
+        new File(file.getAbsolutePath() + ".lock").delete();
+    }
+
+    @Test
+    public void testAppendAndLoad() throws Exception {
+        RegistryCacheJournal journal = new RegistryCacheJournal(file, 1024);
+        Properties properties = new Properties();
+        for (int i = 0; i < 100; i++) {
+            String key = "com.test.Service" + (i % 10);
+            String value = "dubbo://10.20.30.40:" + (20880 + i) + "/" + key;
+            properties.setProperty(key, value);
+            journal.append(Collections.singletonMap(key, value), properties);
+        }
+        // compacted at least once
+        Assert.assertTrue(journal.getSnapshotFile().exists());
+        Assert.assertTrue(journal.getJournalFile().length() <= 1024);
+
+        Properties loaded = new Properties();
+        new RegistryCacheJournal(file, 1024).load(loaded);
+        Assert.assertEquals(properties, loaded);
+    }
+
+    @Test
+    public void testLoadTruncatedJournal() throws Exception {
+        RegistryCacheJournal journal = new RegistryCacheJournal(file);
+        Properties properties = new Properties();
+        properties.setProperty("a", "1");
+        journal.append(Collections.singletonMap("a", "1"), properties);
+        long length = journal.getJournalFile().length();
+        properties.setProperty("b", "2");
+        journal.append(Collections.singletonMap("b", "2"), properties);
+        RandomAccessFile raf = new RandomAccessFile(journal.getJournalFile(), "rw");
+        try {
+            raf.setLength(raf.length() - 1);
+        } finally {
+            raf.close();
+        }
+
+        Properties loaded = new Properties();
+        journal.load(loaded);
+        Assert.assertEquals("1", loaded.getProperty("a"));
+        Assert.assertNull(loaded.getProperty("b"));
+        Assert.assertEquals(length, journal.getJournalFile().length());
+    }
+
+    @Test
+    public void testRegistryCache() throws Exception {
+        URL registryUrl = URL.valueOf("http://1.2.3.4:9090/registry")
+                .addParameter(Constants.FILE_KEY, file.getAbsolutePath())
+                .addParameter(Constants.REGISTRY_FILE_JOURNAL_KEY, true)
+                .addParameter(Constants.REGISTRY_FILESAVE_SYNC_KEY, true);
+        URL consumerUrl = URL.valueOf("consumer://10.20.30.40/com.test.DemoService?interface=com.test.DemoService");
+        URL providerUrl = URL.valueOf("dubbo://10.20.30.41:20880/com.test.DemoService?interface=com.test.DemoService");
+        NotifyListener listener = urls -> {
+        };
+        AbstractRegistry registry = new MockRegistry(registryUrl);
+        registry.notify(consumerUrl, listener, Collections.singletonList(providerUrl));
+        Assert.assertFalse(file.exists());
+
+        List<URL> urls = new MockRegistry(registryUrl).getCacheUrls(consumerUrl);
+        Assert.assertEquals(Collections.singletonList(providerUrl), urls);
+    }
+
+    @Test
+    public void testKeepPlainCacheEntries() throws Exception {
+        URL legacyConsumerUrl = URL.valueOf("consumer://10.20.30.40/com.test.LegacyService?interface=com.test.LegacyService");
+        URL legacyProviderUrl = URL.valueOf("dubbo://10.20.30.41:20880/com.test.LegacyService?interface=com.test.LegacyService");
+        Properties legacy = new Properties();
+        legacy.setProperty(legacyConsumerUrl.getServiceKey(), legacyProviderUrl.toFullString());
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            legacy.store(out, "Dubbo Registry Cache");
+        } finally {
+            out.close();
+        }
+
+        URL registryUrl = URL.valueOf("http://1.2.3.4:9090/registry")
+                .addParameter(Constants.FILE_KEY, file.getAbsolutePath())
+                .addParameter(Constants.REGISTRY_FILE_JOURNAL_KEY, true)
+                .addParameter(Constants.REGISTRY_FILESAVE_SYNC_KEY, true);
+        URL consumerUrl = URL.valueOf("consumer://10.20.30.40/com.test.DemoService?interface=com.test.DemoService");
+        URL providerUrl = URL.valueOf("dubbo://10.20.30.41:20880/com.test.DemoService?interface=com.test.DemoService");
+        NotifyListener listener = urls -> {
+        };
+        new MockRegistry(registryUrl).notify(consumerUrl, listener, Collections.singletonList(providerUrl));
+
+        // the journal now exists and the plain file is skipped on load
+        AbstractRegistry registry = new MockRegistry(registryUrl);
+        Assert.assertEquals(Collections.singletonList(providerUrl), registry.getCacheUrls(consumerUrl));
+        Assert.assertEquals(Collections.singletonList(legacyProviderUrl), registry.getCacheUrls(legacyConsumerUrl));
+    }
+
+    private static class MockRegistry extends AbstractRegistry {
+
+        MockRegistry(URL url) {
+            super(url);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    }
+}
@@ -413,7 +413,7 @@ public class RegistryDirectoryTest {
         registryDirectory.destroy();
 
         Map<String, List<Invoker<RegistryDirectoryTest>>> methodInvokerMap = registryDirectory.getMethodInvokerMap();
-        Map<String, Invoker<RegistryDirectoryTest>> urlInvokerMap = registryDirectory.getUrlInvokerMap();
+        Map<URL, Invoker<RegistryDirectoryTest>> urlInvokerMap = registryDirectory.getUrlInvokerMap();
 
         Assert.assertTrue(methodInvokerMap == null);
         Assert.assertEquals(0, urlInvokerMap.size());
@@ -881,6 +881,55 @@ public class RegistryDirectoryTest {
         Assert.assertEquals(1, invokers3.size());
     }
 
+    /**
+     * Test a provider change among many: the other invokers are kept, the method lists are updated
+     */
+    @Test
+    public void testNotify_IncrementalRefresh() {
+        RegistryDirectory registryDirectory = getRegistryDirectory();
+        List<URL> durls = new ArrayList<URL>();
+        for (int i = 0; i < 10; i++) {
+            durls.add(SERVICEURL.setHost("10.20.30." + i).addParameter("methods", "getXXX1"));
+        }
+        registryDirectory.notify(durls);
+        Map<URL, Invoker<?>> urlInvokerMap = registryDirectory.getUrlInvokerMap();
+        Assert.assertEquals(10, urlInvokerMap.size());
+        Map<String, List<Invoker<?>>> methodInvokerMap = registryDirectory.getMethodInvokerMap();
+        Invoker<?> removed = methodInvokerMap.get("getXXX1").get(0);
+        Invoker<?> kept = methodInvokerMap.get("getXXX1").get(1);
+
+        // one provider gone, one back with an other method
+        durls.remove(0);
+        durls.add(SERVICEURL.setHost("10.20.30.10").addParameter("methods", "getXXX1,getXXX2"));
+        registryDirectory.notify(durls);
+
+        Assert.assertNotSame(urlInvokerMap, registryDirectory.getUrlInvokerMap());
+        Assert.assertEquals(10, registryDirectory.getUrlInvokerMap().size());
+        // keyed by the compact urls
+        for (URL url : registryDirectory.getUrlInvokerMap().keySet()) {
+            Assert.assertSame(url, url.compact());
+        }
+        Assert.assertFalse(removed.isAvailable());
+        invocation = new RpcInvocation();
+        invocation.setMethodName("getXXX1");
+        List<Invoker<?>> invokers = registryDirectory.list(invocation);
+        Assert.assertEquals(10, invokers.size());
+        Assert.assertFalse(invokers.contains(removed));
+        Assert.assertTrue(invokers.contains(kept));
+        // still sorted, the new provider inserted in place
+        Assert.assertEquals("10.20.30.10", invokers.get(0).getUrl().getHost());
+        Assert.assertSame(kept, invokers.get(1));
+        invocation.setMethodName("getXXX2");
+        invokers = registryDirectory.list(invocation);
+        Assert.assertEquals(1, invokers.size());
+        Assert.assertEquals("10.20.30.10", invokers.get(0).getUrl().getHost());
+
+        // the same list again changes nothing
+        Map<URL, Invoker<?>> unchanged = registryDirectory.getUrlInvokerMap();
+        registryDirectory.notify(new ArrayList<URL>(durls));
+        Assert.assertSame(unchanged, registryDirectory.getUrlInvokerMap());
+    }
+
     /**
      * Test override disables a specified service provider through enable=false
      * It is expected that a specified service provider can be disable.
@@ -32,10 +32,15 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,6 +59,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * RedisRegistry
  * Redis注册中心
+ * <p>
+ * With <code>notify.diff=true</code>, which all the nodes sharing the redis must set, the register and unregister
+ * events carry the changed urls, and the subscribers apply them to their local copy of the category instead of reading
+ * it again, as long as the copy is younger than half the session.
  *
  */
 public class RedisRegistry extends FailbackRegistry {
@@ -69,6 +78,16 @@ public class RedisRegistry extends FailbackRegistry {
      */
     private final static String DEFAULT_ROOT = "dubbo";
 
+    /**
+     * 每次清理过期数据扫描的 Key 数量
+     */
+    private static final int CLEAN_BATCH = 100;
+
+    /**
+     * 事件与变更 URL 的分隔符
+     */
+    private static final String DIFF_SEPARATOR = "\n";
+
     /**
      * Redis Key 过期机制执行器
      */
@@ -118,6 +137,23 @@ public class RedisRegistry extends FailbackRegistry {
      */
     private boolean replicate;
 
+    /**
+     * 是否通知变更的 URL
+     */
+    private final boolean diffNotify;
+
+    /**
+     * 各 Redis 清理过期数据的扫描游标
+     * key：ip:port
+     */
+    private final Map<String, String> cleanCursors = new ConcurrentHashMap<String, String>();
+
+    /**
+     * 分类数据的本地副本，仅在通知变更的 URL 时使用
+     * key：分类路径，例如 `/dubbo/com.alibaba.dubbo.demo.DemoService/providers`
+     */
+    private final ConcurrentMap<String, CategoryValues> categoryValues = new ConcurrentHashMap<String, CategoryValues>();
+
     public RedisRegistry(URL url) {
         super(url);
         if (url.isAnyHost()) {
@@ -149,6 +185,7 @@ public class RedisRegistry extends FailbackRegistry {
             throw new IllegalArgumentException("Unsupported redis cluster: " + cluster + ". The redis cluster only supported failover or replicate.");
         }
         replicate = "replicate".equals(cluster);
+        diffNotify = url.getParameter(Constants.NOTIFY_DIFF_KEY, false);
 
         // 解析URL
         List<String> addresses = new ArrayList<String>();
@@ -206,16 +243,38 @@ public class RedisRegistry extends FailbackRegistry {
             try {
                 Jedis jedis = jedisPool.getResource();
                 try {
+                    List<URL> urls = new ArrayList<URL>();
                     for (URL url : new HashSet<URL>(getRegistered())) {
                         if (url.getParameter(Constants.DYNAMIC_KEY, true)) {
-                            String key = toCategoryPath(url);
-                            if (jedis.hset(key, url.toFullString(), String.valueOf(System.currentTimeMillis() + expirePeriod)) == 1) {
-                                jedis.publish(key, Constants.REGISTER);
+                            urls.add(url);
+                        }
+                    }
+                    if (!urls.isEmpty()) {
+                        // one round trip for all the renewals, and one more for the urls which had expired
+                        String expire = String.valueOf(System.currentTimeMillis() + expirePeriod);
+                        Pipeline pipeline = jedis.pipelined();
+                        List<Response<Long>> responses = new ArrayList<Response<Long>>(urls.size());
+                        for (URL url : urls) {
+                            responses.add(pipeline.hset(toCategoryPath(url), url.toFullString(), expire));
+                        }
+                        pipeline.sync();
+                        Pipeline publish = null;
+                        for (int i = 0; i < urls.size(); i++) {
+                            Long added = responses.get(i).get();
+                            if (added != null && added == 1) {
+                                if (publish == null) {
+                                    publish = jedis.pipelined();
+                                }
+                                URL url = urls.get(i);
+                                publish.publish(toCategoryPath(url), toMessage(Constants.REGISTER, url.toFullString()));
                             }
                         }
+                        if (publish != null) {
+                            publish.sync();
+                        }
                     }
                     if (admin) {
-                        clean(jedis);
+                        clean(entry.getKey(), jedis);
                     }
                     if (!replicate) {
                         break;//  If the server side has synchronized data, just write a single machine
@@ -230,35 +289,68 @@ public class RedisRegistry extends FailbackRegistry {
     }
 
     // The monitoring center is responsible for deleting outdated dirty data
-    private void clean(Jedis jedis) {
-        Set<String> keys = jedis.keys(root + Constants.ANY_VALUE);
-        if (keys != null && !keys.isEmpty()) {
-            for (String key : keys) {
-                Map<String, String> values = jedis.hgetAll(key);
-                if (values != null && values.size() > 0) {
-                    boolean delete = false;
-                    long now = System.currentTimeMillis();
-                    for (Map.Entry<String, String> entry : values.entrySet()) {
-                        URL url = URL.valueOf(entry.getKey());
-                        if (url.getParameter(Constants.DYNAMIC_KEY, true)) {
-                            long expire = Long.parseLong(entry.getValue());
-                            if (expire < now) {
-                                jedis.hdel(key, entry.getKey());
-                                delete = true;
-                                if (logger.isWarnEnabled()) {
-                                    logger.warn("Delete expired key: " + key + " -> value: " + entry.getKey() + ", expire: " + new Date(expire) + ", now: " + new Date(now));
-                                }
-                            }
+    /**
+     * 清理过期数据，每次从上次的游标继续扫描一批 Key
+     * @param address
+     * @param jedis
+     */
+    private void clean(String address, Jedis jedis) {
+        String cursor = cleanCursors.get(address);
+        if (cursor == null) {
+            cursor = ScanParams.SCAN_POINTER_START;
+        }
+        ScanParams params = new ScanParams().match(root + Constants.ANY_VALUE).count(CLEAN_BATCH);
+        int scanned = 0;
+        do {
+            ScanResult<String> result = jedis.scan(cursor, params);
+            cursor = result.getStringCursor();
+            for (String key : result.getResult()) {
+                clean(jedis, key);
+            }
+            scanned += result.getResult().size();
+        } while (scanned < CLEAN_BATCH && !ScanParams.SCAN_POINTER_START.equals(cursor));
+        cleanCursors.put(address, cursor);
+    }
+
+    private void clean(Jedis jedis, String key) {
+        Map<String, String> values = jedis.hgetAll(key);
+        if (values != null && values.size() > 0) {
+            List<String> expired = new ArrayList<String>();
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                URL url = URL.valueOf(entry.getKey());
+                if (url.getParameter(Constants.DYNAMIC_KEY, true)) {
+                    long expire = Long.parseLong(entry.getValue());
+                    if (expire < now) {
+                        expired.add(entry.getKey());
+                        if (logger.isWarnEnabled()) {
+                            logger.warn("Delete expired key: " + key + " -> value: " + entry.getKey() + ", expire: " + new Date(expire) + ", now: " + new Date(now));
                         }
                     }
-                    if (delete) {
-                        jedis.publish(key, Constants.UNREGISTER);
-                    }
                 }
             }
+            if (!expired.isEmpty()) {
+                String[] fields = expired.toArray(new String[expired.size()]);
+                jedis.hdel(key, fields);
+                jedis.publish(key, toMessage(Constants.UNREGISTER, fields));
+            }
         }
     }
 
+    /**
+     * @return the event, followed by the changed urls if they are notified
+     */
+    private String toMessage(String event, String... values) {
+        if (!diffNotify) {
+            return event;
+        }
+        StringBuilder buf = new StringBuilder(event);
+        for (String value : values) {
+            buf.append(DIFF_SEPARATOR).append(value);
+        }
+        return buf.toString();
+    }
+
     @Override
     public boolean isAvailable() {
         for (JedisPool jedisPool : jedisPools.values()) {
@@ -324,7 +416,7 @@ public class RedisRegistry extends FailbackRegistry {
                     // 写入 Redis Map 键
                     jedis.hset(key, value, expire);
                     // 发布 Redis 注册事件
-                    jedis.publish(key, Constants.REGISTER);
+                    jedis.publish(key, toMessage(Constants.REGISTER, value));
                     success = true;
                     //  如果服务器端已同步数据，只需写入单台机器
                     if (!replicate) {
@@ -358,7 +450,7 @@ public class RedisRegistry extends FailbackRegistry {
                 Jedis jedis = jedisPool.getResource();
                 try {
                     jedis.hdel(key, value);
-                    jedis.publish(key, Constants.UNREGISTER);
+                    jedis.publish(key, toMessage(Constants.UNREGISTER, value));
                     success = true;
                     if (!replicate) {
                         break; //  If the server side has synchronized data, just write a single machine
@@ -425,12 +517,13 @@ public class RedisRegistry extends FailbackRegistry {
                             }
                             // 循环 serviceKeys ，按照每个 Service 层的发起通知
                             for (Set<String> sk : serviceKeys.values()) {
-                                doNotify(jedis, sk, url, Arrays.asList(listener));
+                                doNotify(jedis, sk, url, Arrays.asList(listener), new HashMap<String, Map<String, String>>());
                             }
                         }
                     } else {
                         // 处理指定 Service 层的发起通知
-                        doNotify(jedis, jedis.keys(service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE), url, Arrays.asList(listener));
+                        doNotify(jedis, jedis.keys(service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE), url, Arrays.asList(listener),
+                                new HashMap<String, Map<String, String>>());
                     }
                     success = true;
                     break; // Just read one server's data
@@ -460,12 +553,65 @@ public class RedisRegistry extends FailbackRegistry {
      * @param key
      */
     private void doNotify(Jedis jedis, String key) {
+        // read once for all the subscribers
+        doNotify(jedis, key, new HashMap<String, Map<String, String>>());
+    }
+
+    private void doNotify(Jedis jedis, String key, Map<String, Map<String, String>> values) {
         for (Map.Entry<URL, Set<NotifyListener>> entry : new HashMap<URL, Set<NotifyListener>>(getSubscribed()).entrySet()) {
-            doNotify(jedis, Arrays.asList(key), entry.getKey(), new HashSet<NotifyListener>(entry.getValue()));
+            doNotify(jedis, Arrays.asList(key), entry.getKey(), new HashSet<NotifyListener>(entry.getValue()), values);
+        }
+    }
+
+    /**
+     * 读取分类数据，已读取过的不再读取
+     * @param jedis
+     * @param key
+     * @param read 已读取的分类数据
+     * @return
+     */
+    private Map<String, String> getValues(Jedis jedis, String key, Map<String, Map<String, String>> read) {
+        Map<String, String> values = read.get(key);
+        if (values == null) {
+            long now = System.currentTimeMillis();
+            values = jedis.hgetAll(key);
+            read.put(key, values);
+            if (diffNotify && values != null) {
+                categoryValues.put(key, new CategoryValues(new HashMap<String, String>(values), now));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Apply the changed urls of an event to the local copy of the category.
+     *
+     * @return the category values, null if they must be read again
+     */
+    private Map<String, String> applyDiff(String key, String msg) {
+        CategoryValues cached = categoryValues.get(key);
+        long now = System.currentTimeMillis();
+        // the renewals are not notified, the expiry times of the copy are only reliable for half the session
+        if (cached == null || now - cached.loadTime >= expirePeriod / 2) {
+            return null;
+        }
+        String[] parts = msg.split(DIFF_SEPARATOR);
+        boolean register = Constants.REGISTER.equals(parts[0]);
+        Map<String, String> values = new HashMap<String, String>(cached.values);
+        for (int i = 1; i < parts.length; i++) {
+            if (register) {
+                values.put(parts[i], String.valueOf(now + expirePeriod));
+            } else {
+                values.remove(parts[i]);
+            }
+        }
+        if (!categoryValues.replace(key, cached, new CategoryValues(values, cached.loadTime))) {
+            return null;
         }
+        return values;
     }
 
-    private void doNotify(Jedis jedis, Collection<String> keys, URL url, Collection<NotifyListener> listeners) {
+    private void doNotify(Jedis jedis, Collection<String> keys, URL url, Collection<NotifyListener> listeners, Map<String, Map<String, String>> read) {
         if (keys == null || keys.isEmpty()
                 || listeners == null || listeners.isEmpty()) {
             return;
@@ -486,7 +632,7 @@ public class RedisRegistry extends FailbackRegistry {
                 continue;
             }
             List<URL> urls = new ArrayList<URL>();
-            Map<String, String> values = jedis.hgetAll(key);
+            Map<String, String> values = getValues(jedis, key, read);
             if (values != null && values.size() > 0) {
                 for (Map.Entry<String, String> entry : values.entrySet()) {
                     URL u = URL.valueOf(entry.getKey());
@@ -545,6 +691,21 @@ public class RedisRegistry extends FailbackRegistry {
         return toServicePath(url) + Constants.PATH_SEPARATOR + url.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY);
     }
 
+    /**
+     * Values of a category, url to expiry time, as read at load time and changed by the events since.
+     */
+    private static class CategoryValues {
+
+        private final Map<String, String> values;
+
+        private final long loadTime;
+
+        CategoryValues(Map<String, String> values, long loadTime) {
+            this.values = values;
+            this.loadTime = loadTime;
+        }
+    }
+
     private class NotifySub extends JedisPubSub {
 
         private final JedisPool jedisPool;
@@ -558,8 +719,20 @@ public class RedisRegistry extends FailbackRegistry {
             if (logger.isInfoEnabled()) {
                 logger.info("redis event: " + key + " = " + msg);
             }
-            if (msg.equals(Constants.REGISTER)
-                    || msg.equals(Constants.UNREGISTER)) {
+            if (msg.startsWith(Constants.REGISTER + DIFF_SEPARATOR)
+                    || msg.startsWith(Constants.UNREGISTER + DIFF_SEPARATOR)) {
+                Map<String, String> values = applyDiff(key, msg);
+                if (values != null) {
+                    try {
+                        doNotify(null, key, Collections.singletonMap(key, values));
+                    } catch (Throwable t) {
+                        logger.error(t.getMessage(), t);
+                    }
+                    return;
+                }
+            }
+            if (msg.startsWith(Constants.REGISTER)
+                    || msg.startsWith(Constants.UNREGISTER)) {
                 try {
                     Jedis jedis = jedisPool.getResource();
                     try {
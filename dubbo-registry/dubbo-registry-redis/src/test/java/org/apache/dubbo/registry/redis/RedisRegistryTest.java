@@ -16,6 +16,7 @@
  */
 package org.apache.dubbo.registry.redis;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.registry.NotifyListener;
@@ -28,6 +29,9 @@ import redis.embedded.RedisServer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.dubbo.common.Constants.BACKUP_KEY;
 import static org.hamcrest.CoreMatchers.is;
@@ -117,4 +121,38 @@ public class RedisRegistryTest {
 
         assertThat(registry.isAvailable(), is(true));
     }
+
+    @Test
+    public void testDiffNotify() throws Exception {
+        URL url = registryUrl.addParameter(Constants.NOTIFY_DIFF_KEY, true).addParameter(Constants.SESSION_TIMEOUT_KEY, 60000);
+        RedisRegistry provider = (RedisRegistry) new RedisRegistryFactory().createRegistry(url);
+        RedisRegistry consumer = (RedisRegistry) new RedisRegistryFactory().createRegistry(url.addParameter("application", "consumer"));
+        try {
+            final BlockingQueue<List<URL>> notified = new LinkedBlockingQueue<List<URL>>();
+            URL consumerUrl = URL.valueOf("consumer://127.0.0.1/" + service + "?interface=" + service + "&category=providers&check=false");
+            consumer.subscribe(consumerUrl, new NotifyListener() {
+                @Override
+                public void notify(List<URL> urls) {
+                    notified.add(urls);
+                }
+            });
+            // wait for the subscription to the events
+            Thread.sleep(500);
+            notified.clear();
+
+            URL providerUrl = URL.valueOf("dubbo://127.0.0.1:20880/" + service + "?interface=" + service);
+            provider.register(providerUrl);
+            List<URL> urls = notified.poll(5, TimeUnit.SECONDS);
+            assertThat(urls.size(), is(1));
+            assertThat(urls.get(0).toFullString(), is(providerUrl.toFullString()));
+
+            provider.unregister(providerUrl);
+            urls = notified.poll(5, TimeUnit.SECONDS);
+            assertThat(urls.size(), is(1));
+            assertThat(urls.get(0).getProtocol(), is(Constants.EMPTY_PROTOCOL));
+        } finally {
+            consumer.destroy();
+            provider.destroy();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.zookeeper;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.registry.metadata.MetadataStore;
+import org.apache.dubbo.remoting.zookeeper.ZookeeperClient;
+import org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * MetadataStore in the zookeeper of the registry, shared by all the providers and consumers of the registry.
+ * <p>
+ * The metadata of a revision is the name of the only child of
+ * <code>/dubbo/{interface}/metadata/{service key}/{revision}</code>, encoded like the provider urls.
+ */
+public class ZookeeperMetadataStore implements MetadataStore {
+
+    private static final String DEFAULT_ROOT = "dubbo";
+
+    private static final String METADATA_CATEGORY = "metadata";
+
+    /**
+     * 注册中心地址与 Zookeeper 客户端的映射
+     */
+    private final ConcurrentMap<String, ZookeeperClient> clients = new ConcurrentHashMap<String, ZookeeperClient>();
+
+    private ZookeeperTransporter zookeeperTransporter;
+
+    /**
+     * 该方法，通过 Dubbo SPI 注入
+     */
+    public void setZookeeperTransporter(ZookeeperTransporter zookeeperTransporter) {
+        this.zookeeperTransporter = zookeeperTransporter;
+    }
+
+    @Override
+    public void publish(URL registryUrl, String serviceKey, String revision, Map<String, String> metadata) {
+        ZookeeperClient client = getClient(registryUrl);
+        String path = toRevisionPath(registryUrl, serviceKey, revision);
+        List<String> children = client.getChildren(path);
+        if (children != null && !children.isEmpty()) {
+            return;
+        }
+        client.create(path + Constants.PATH_SEPARATOR + URL.encode(StringUtils.toQueryString(metadata)), false);
+    }
+
+    @Override
+    public Map<String, String> fetch(URL registryUrl, String serviceKey, String revision) {
+        List<String> children = getClient(registryUrl).getChildren(toRevisionPath(registryUrl, serviceKey, revision));
+        if (children == null || children.isEmpty()) {
+            return null;
+        }
+        return StringUtils.parseQueryString(URL.decode(children.get(0)));
+    }
+
+    @Override
+    public boolean isShared(URL registryUrl) {
+        return true;
+    }
+
+    private ZookeeperClient getClient(URL registryUrl) {
+        String key = registryUrl.getBackupAddress();
+        ZookeeperClient client = clients.get(key);
+        if (client == null) {
+            synchronized (clients) {
+                client = clients.get(key);
+                if (client == null) {
+                    client = zookeeperTransporter.connect(registryUrl);
+                    clients.put(key, client);
+                }
+            }
+        }
+        return client;
+    }
+
+    private static String toRevisionPath(URL registryUrl, String serviceKey, String revision) {
+        String root = registryUrl.getParameter(Constants.GROUP_KEY, DEFAULT_ROOT);
+        if (!root.startsWith(Constants.PATH_SEPARATOR)) {
+            root = Constants.PATH_SEPARATOR + root;
+        }
+        if (!root.endsWith(Constants.PATH_SEPARATOR)) {
+            root = root + Constants.PATH_SEPARATOR;
+        }
+        // group/interface:version
+        String interfaceName = serviceKey;
+        int i = interfaceName.indexOf('/');
+        if (i >= 0) {
+            interfaceName = interfaceName.substring(i + 1);
+        }
+        i = interfaceName.indexOf(':');
+        if (i >= 0) {
+            interfaceName = interfaceName.substring(0, i);
+        }
+        return root + URL.encode(interfaceName) + Constants.PATH_SEPARATOR + METADATA_CATEGORY
+                + Constants.PATH_SEPARATOR + URL.encode(serviceKey) + Constants.PATH_SEPARATOR + revision;
+    }
+
+}
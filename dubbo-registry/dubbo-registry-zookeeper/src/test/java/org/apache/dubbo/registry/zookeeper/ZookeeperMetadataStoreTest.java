@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.registry.zookeeper;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.registry.metadata.ServiceMetadata;
+import org.apache.dubbo.remoting.zookeeper.curator.CuratorZookeeperTransporter;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ZookeeperMetadataStoreTest {
+    private TestingServer zkServer;
+    private URL registryUrl;
+    private URL providerUrl = URL.valueOf("dubbo://10.20.30.40:20880/org.apache.dubbo.demo.DemoService?interface=org.apache.dubbo.demo.DemoService"
+            + "&group=demo&version=1.0.0&methods=sayHello,sayBye&sayHello.timeout=100&timestamp=1");
+
+    @Before
+    public void setUp() throws Exception {
+        int zkServerPort = NetUtils.getAvailablePort();
+        this.zkServer = new TestingServer(zkServerPort, true);
+        this.registryUrl = URL.valueOf("zookeeper://localhost:" + zkServerPort + "/org.apache.dubbo.registry.RegistryService");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        zkServer.stop();
+    }
+
+    @Test
+    public void testPublishAndFetch() {
+        ZookeeperMetadataStore store = new ZookeeperMetadataStore();
+        store.setZookeeperTransporter(new CuratorZookeeperTransporter());
+        Assert.assertTrue(store.isShared(registryUrl));
+        Assert.assertNull(store.fetch(registryUrl, providerUrl.getServiceKey(), "1"));
+
+        Map<String, String> metadata = new HashMap<String, String>();
+        metadata.put(Constants.METHODS_KEY, "sayHello,sayBye");
+        metadata.put("sayHello.timeout", "100");
+        store.publish(registryUrl, providerUrl.getServiceKey(), "1", metadata);
+        store.publish(registryUrl, providerUrl.getServiceKey(), "1", metadata);
+        Assert.assertEquals(metadata, store.fetch(registryUrl, providerUrl.getServiceKey(), "1"));
+        Assert.assertNull(store.fetch(registryUrl, providerUrl.getServiceKey(), "2"));
+    }
+
+    @Test
+    public void testSimplifyAndRestore() {
+        // the store of the zookeeper registry by default
+        URL url = registryUrl.addParameter(Constants.REGISTRY_SIMPLIFIED_KEY, true);
+        URL simplified = ServiceMetadata.simplify(url, providerUrl);
+        Assert.assertNotNull(simplified.getParameter(Constants.METADATA_REVISION_KEY));
+        Assert.assertNull(simplified.getParameter(Constants.METHODS_KEY));
+
+        URL restored = ServiceMetadata.restore(registryUrl, simplified);
+        Assert.assertEquals("sayHello,sayBye", restored.getParameter(Constants.METHODS_KEY));
+        Assert.assertEquals("100", restored.getParameter("sayHello.timeout"));
+    }
+
+}
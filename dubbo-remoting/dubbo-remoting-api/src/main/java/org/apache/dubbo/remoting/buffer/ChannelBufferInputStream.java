@@ -19,6 +19,7 @@ package org.apache.dubbo.remoting.buffer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public class ChannelBufferInputStream extends InputStream {
 
@@ -51,6 +52,17 @@ public class ChannelBufferInputStream extends InputStream {
         return buffer.readerIndex() - startIndex;
     }
 
+    /**
+     * Read the rest of the stream at once, as a nio buffer sharing the content of the channel buffer whenever
+     * possible, valid until the channel buffer is discarded or written.
+     */
+    public ByteBuffer readByteBuffer() {
+        int length = endIndex - buffer.readerIndex();
+        ByteBuffer result = buffer.toByteBuffer(buffer.readerIndex(), length);
+        buffer.skipBytes(length);
+        return result;
+    }
+
     @Override
     public int available() throws IOException {
         return endIndex - buffer.readerIndex();
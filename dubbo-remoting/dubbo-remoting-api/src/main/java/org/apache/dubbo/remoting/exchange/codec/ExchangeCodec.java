@@ -142,7 +142,7 @@ public class ExchangeCodec extends TelnetCodec {
     protected Object decodeBody(Channel channel, InputStream is, byte[] header) throws IOException {
         byte flag = header[2], proto = (byte) (flag & SERIALIZATION_MASK);
         Serialization s = CodecSupport.getSerialization(channel.getUrl(), proto);
-        ObjectInput in = s.deserialize(channel.getUrl(), is);
+        ObjectInput in = CodecSupport.deserialize(s, channel.getUrl(), is);
         // get request id.
         long id = Bytes.bytes2long(header, 4);
         if ((flag & FLAG_REQUEST) == 0) {
@@ -232,6 +232,8 @@ public class ExchangeCodec extends TelnetCodec {
         // `[21]`：`event` 是否为事件。
         if (req.isTwoWay()) header[2] |= FLAG_TWOWAY;
         if (req.isEvent()) header[2] |= FLAG_EVENT;
+        // `[24 - 31]`：请求的 Body 格式，响应的状态
+        if (!req.isEvent()) header[3] = getRequestLayout(channel, req.getData());
 
         // set request id.
         // `[32 - 95]`：`id` 编号，Long 型
@@ -267,6 +269,14 @@ public class ExchangeCodec extends TelnetCodec {
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
     }
 
+    /**
+     * @return the layout of the body of a request, in the status byte of the header, unused by requests otherwise,
+     * 0 for the default one
+     */
+    protected byte getRequestLayout(Channel channel, Object data) {
+        return 0;
+    }
+
     protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
         int savedWriteIndex = buffer.writerIndex();
         try {
@@ -277,7 +287,8 @@ public class ExchangeCodec extends TelnetCodec {
             Bytes.short2bytes(MAGIC, header);
             // set request and serialization flag.
             header[2] = serialization.getContentTypeId();
-            if (res.isHeartbeat()) header[2] |= FLAG_EVENT;
+            // the events other than the heartbeat only when answered, their result is the event data
+            if (res.isHeartbeat() || (res.isEvent() && res.getStatus() == Response.OK)) header[2] |= FLAG_EVENT;
             // set response status.
             byte status = res.getStatus();
             header[3] = status;
@@ -291,6 +302,8 @@ public class ExchangeCodec extends TelnetCodec {
             if (status == Response.OK) {
                 if (res.isHeartbeat()) {
                     encodeHeartbeatData(channel, out, res.getResult());
+                } else if (res.isEvent()) {
+                    encodeEventData(channel, out, res.getResult());
                 } else {
                     encodeResponseData(channel, out, res.getResult(), res.getVersion());
                 }
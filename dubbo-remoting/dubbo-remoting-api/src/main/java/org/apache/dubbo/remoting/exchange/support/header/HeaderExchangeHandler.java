@@ -144,6 +144,14 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
         } finally {
             HeaderExchangeChannel.removeChannelIfDisconnected(channel);
         }
+        // 客户端，协商序列化
+        if (channel.getUrl().hasParameter(Constants.PREFER_SERIALIZATION_KEY) && isClientSide(channel)) {
+            try {
+                SerializationNegotiation.negotiate(channel);
+            } catch (RemotingException e) {
+                logger.warn("Failed to negotiate serialization with " + channel.getRemoteAddress() + ", cause: " + e.getMessage(), e);
+            }
+        }
     }
 
     @Override
@@ -205,7 +213,10 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
             if (message instanceof Request) {
                 // handle request.
                 Request request = (Request) message;
-                if (request.isEvent()) {
+                if (SerializationNegotiation.isNegotiation(request)) {
+                    // 处理协商序列化事件
+                    SerializationNegotiation.reply(channel, request);
+                } else if (request.isEvent()) {
                     // 处理事件请求
                     handlerEvent(channel, request);
                 } else {
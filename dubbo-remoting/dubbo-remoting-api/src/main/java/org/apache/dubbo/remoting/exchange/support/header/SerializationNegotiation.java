@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.exchange.support.header;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.exchange.ResponseCallback;
+import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
+import org.apache.dubbo.remoting.transport.CodecSupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Serialization negotiated per connection.
+ * <p>
+ * Once connected, a client with <code>prefer.serialization</code> sends the serializations of the list it supports
+ * in an event. The server answers with the first of its own <code>prefer.serialization</code>, or of the client's
+ * list without one, supported on both sides, or else its <code>serialization</code>. Both sides then encode with it,
+ * the messages sent meanwhile keep the serialization of the url, the id in each header tells the decoder. Servers
+ * not negotiating don't answer, the client keeps the serialization of the url.
+ */
+final class SerializationNegotiation {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializationNegotiation.class);
+
+    /**
+     * 事件 - 协商序列化，后接逗号分隔的序列化拓展名
+     */
+    static final String SERIALIZATION_EVENT_PREFIX = "serialization:";
+
+    private SerializationNegotiation() {
+    }
+
+    static boolean isNegotiation(Request request) {
+        return request.isEvent() && request.getData() instanceof String
+                && ((String) request.getData()).startsWith(SERIALIZATION_EVENT_PREFIX);
+    }
+
+    /**
+     * Client side, offer the serializations preferred by the url, if any
+     */
+    static void negotiate(final Channel channel) throws RemotingException {
+        final List<String> offered = getNegotiable(channel.getUrl().getParameter(Constants.PREFER_SERIALIZATION_KEY, new String[0]));
+        if (offered.isEmpty()) {
+            return;
+        }
+        Request request = new Request();
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setEvent(SERIALIZATION_EVENT_PREFIX + StringUtils.join(offered, ","));
+        DefaultFuture future = new DefaultFuture(channel, request, 0);
+        future.setCallback(new ResponseCallback() {
+            @Override
+            public void done(Object response) {
+                if (response instanceof String && offered.contains(response)) {
+                    channel.setAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY, getSerialization((String) response));
+                    if (logger.isInfoEnabled()) {
+                        logger.info("Negotiated serialization " + response + " with " + channel.getRemoteAddress());
+                    }
+                }
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                if (logger.isInfoEnabled()) {
+                    logger.info("No serialization negotiated with " + channel.getRemoteAddress()
+                            + ", keep the one of " + channel.getUrl() + ", cause: " + exception.getMessage());
+                }
+            }
+        });
+        try {
+            channel.send(request);
+        } catch (RemotingException e) {
+            future.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * Server side, answer the serialization chosen and encode with it from now on
+     */
+    static void reply(Channel channel, Request request) throws RemotingException {
+        List<String> offered = Arrays.asList(Constants.COMMA_SPLIT_PATTERN.split(
+                ((String) request.getData()).substring(SERIALIZATION_EVENT_PREFIX.length())));
+        String[] preferred = channel.getUrl().getParameter(Constants.PREFER_SERIALIZATION_KEY, offered.toArray(new String[0]));
+        String chosen = channel.getUrl().getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION);
+        for (String name : getNegotiable(preferred)) {
+            if (offered.contains(name)) {
+                chosen = name;
+                break;
+            }
+        }
+        if (request.isTwoWay()) {
+            Response response = new Response(request.getId(), request.getVersion());
+            response.setEvent(chosen);
+            channel.send(response);
+        }
+        channel.setAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY, getSerialization(chosen));
+    }
+
+    private static List<String> getNegotiable(String[] names) {
+        List<String> negotiable = new ArrayList<String>(names.length);
+        for (String name : names) {
+            if (CodecSupport.isNegotiable(name) && !negotiable.contains(name)) {
+                negotiable.add(name);
+            }
+        }
+        return negotiable;
+    }
+
+    private static Serialization getSerialization(String name) {
+        return ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(name);
+    }
+
+}
@@ -48,7 +48,7 @@ public abstract class AbstractCodec implements Codec2 {
     }
 
     protected Serialization getSerialization(Channel channel) {
-        return CodecSupport.getSerialization(channel.getUrl());
+        return CodecSupport.getSerialization(channel);
     }
 
     protected boolean isClientSide(Channel channel) {
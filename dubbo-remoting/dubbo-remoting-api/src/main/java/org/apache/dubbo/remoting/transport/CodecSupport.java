@@ -22,11 +22,14 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
+import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBufferInputStream;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
 import java.util.Set;
 
 /**
@@ -36,16 +39,16 @@ public class CodecSupport {
 
     private static final Logger logger = LoggerFactory.getLogger(CodecSupport.class);
     /**
-     * 序列化对象集合
-     * key：序列化类型编号
+     * 序列化对象数组
+     * 下标：序列化类型编号，即协议头的 5 位
      */
-    private static Map<Byte, Serialization> ID_SERIALIZATION_MAP = new HashMap<Byte, Serialization>();
+    private static final Serialization[] ID_SERIALIZATIONS = new Serialization[32];
     /**
-     * 序列化名集合
-     * key：序列化类型编号
+     * 序列化名数组
+     * 下标：序列化类型编号
      * value: 序列化拓展名
      */
-    private static Map<Byte, String> ID_SERIALIZATIONNAME_MAP = new HashMap<Byte, String>();
+    private static final String[] ID_SERIALIZATION_NAMES = new String[32];
 
     static {
         // 基于 Dubbo SPI ，初始化
@@ -53,15 +56,20 @@ public class CodecSupport {
         for (String name : supportedExtensions) {
             Serialization serialization = ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(name);
             byte idByte = serialization.getContentTypeId();
-            if (ID_SERIALIZATION_MAP.containsKey(idByte)) {
+            if (idByte < 0 || idByte >= ID_SERIALIZATIONS.length) {
+                logger.error("Serialization extension " + serialization.getClass().getName()
+                        + " has id " + idByte + " out of the header range, ignore this Serialization extension");
+                continue;
+            }
+            if (ID_SERIALIZATIONS[idByte] != null) {
                 logger.error("Serialization extension " + serialization.getClass().getName()
                         + " has duplicate id to Serialization extension "
-                        + ID_SERIALIZATION_MAP.get(idByte).getClass().getName()
+                        + ID_SERIALIZATIONS[idByte].getClass().getName()
                         + ", ignore this Serialization extension");
                 continue;
             }
-            ID_SERIALIZATION_MAP.put(idByte, serialization);
-            ID_SERIALIZATIONNAME_MAP.put(idByte, name);
+            ID_SERIALIZATIONS[idByte] = serialization;
+            ID_SERIALIZATION_NAMES[idByte] = name;
         }
     }
 
@@ -69,7 +77,10 @@ public class CodecSupport {
     }
 
     public static Serialization getSerializationById(Byte id) {
-        return ID_SERIALIZATION_MAP.get(id);
+        if (id == null || id < 0 || id >= ID_SERIALIZATIONS.length) {
+            return null;
+        }
+        return ID_SERIALIZATIONS[id];
     }
 
     public static Serialization getSerialization(URL url) {
@@ -77,15 +88,53 @@ public class CodecSupport {
                 url.getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION));
     }
 
+    /**
+     * @return the serialization negotiated by the channel, else the one of its url
+     */
+    public static Serialization getSerialization(Channel channel) {
+        Object serialization = channel.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY);
+        if (serialization instanceof Serialization) {
+            return (Serialization) serialization;
+        }
+        return getSerialization(channel.getUrl());
+    }
+
     public static Serialization getSerialization(URL url, Byte id) throws IOException {
         Serialization serialization = getSerializationById(id);
         String serializationName = url.getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION);
         // Check if "serialization id" passed from network matches the id on this side(only take effect for JDK serialization), for security purpose.
         if (serialization == null
-                || ((id == 3 || id == 7 || id == 4) && !(serializationName.equals(ID_SERIALIZATIONNAME_MAP.get(id))))) {
+                || (isJdkSerialization(id) && !(serializationName.equals(ID_SERIALIZATION_NAMES[id])))) {
             throw new IOException("Unexpected serialization id:" + id + " received from network, please check if the peer send the right id.");
         }
         return serialization;
     }
 
+    /**
+     * @return whether the serialization can be negotiated per connection, the jdk serializations, accepted only when
+     * configured on both sides, can't
+     */
+    public static boolean isNegotiable(String name) {
+        if (!ExtensionLoader.getExtensionLoader(Serialization.class).hasExtension(name)) {
+            return false;
+        }
+        byte id = ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(name).getContentTypeId();
+        return getSerializationById(id) != null && name.equals(ID_SERIALIZATION_NAMES[id]) && !isJdkSerialization(id);
+    }
+
+    private static boolean isJdkSerialization(byte id) {
+        return id == 3 || id == 7 || id == 4;
+    }
+
+    /**
+     * Deserializer of a message, reading the channel buffer under the stream in place if the serialization is a
+     * {@link ByteBufferSerialization}, in which case the whole stream is handed over.
+     */
+    public static ObjectInput deserialize(Serialization serialization, URL url, InputStream is) throws IOException {
+        if (serialization instanceof ByteBufferSerialization && is instanceof ChannelBufferInputStream) {
+            return ((ByteBufferSerialization) serialization).deserialize(url, ((ChannelBufferInputStream) is).readByteBuffer());
+        }
+        return serialization.deserialize(url, is);
+    }
+
 }
@@ -18,6 +18,8 @@ package org.apache.dubbo.remoting.buffer;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
@@ -101,4 +103,17 @@ public class ChannelBufferStreamTest {
 
         assertEquals(buf.readerIndex(), in.readBytes());
     }
+
+    @Test
+    public void testReadByteBuffer() throws Exception {
+        ChannelBuffer buf = ChannelBuffers.wrappedBuffer(new byte[]{1, 2, 3, 4, 5, 6});
+        buf.readByte();
+        ChannelBufferInputStream in = new ChannelBufferInputStream(buf, 4);
+        ByteBuffer bytes = in.readByteBuffer();
+        assertEquals(4, bytes.remaining());
+        assertEquals(2, bytes.get());
+        assertEquals(5, bytes.get(bytes.limit() - 1));
+        assertEquals(0, in.available());
+        assertEquals(5, buf.readerIndex());
+    }
 }
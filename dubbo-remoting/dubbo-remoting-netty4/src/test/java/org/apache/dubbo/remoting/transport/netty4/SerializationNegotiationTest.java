@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.transport.netty4;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.exchange.ExchangeChannel;
+import org.apache.dubbo.remoting.exchange.ExchangeServer;
+import org.apache.dubbo.remoting.exchange.Exchangers;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Serialization negotiated between a netty4 client and server, both configured with the jdk serialization.
+ */
+public class SerializationNegotiationTest {
+
+    private ExchangeServer server;
+
+    private ExchangeChannel client;
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            if (server != null)
+                server.close();
+        } finally {
+            if (client != null)
+                client.close();
+        }
+    }
+
+    @Test
+    public void testNegotiated() throws Exception {
+        int port = (int) (1000 * Math.random() + 10000);
+        server = Exchangers.bind(URL.valueOf("exchange://localhost:" + port + "?server=netty4&serialization=java&prefer.serialization=hessian2"), new WorldHandler());
+        client = Exchangers.connect(URL.valueOf("exchange://localhost:" + port + "?client=netty4&serialization=java&prefer.serialization=unknown,java,hessian2"));
+        Assert.assertEquals("hello,world", ((Hello) client.request(new World("world")).get()).getName());
+        waitForSerialization(client);
+        Assert.assertTrue(client.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY) instanceof Hessian2Serialization);
+        Channel channel = server.getChannels().iterator().next();
+        waitForSerialization(channel);
+        Assert.assertTrue(channel.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY) instanceof Hessian2Serialization);
+        // encoded by hessian2 both ways
+        Assert.assertEquals("hello,again", ((Hello) client.request(new World("again")).get()).getName());
+    }
+
+    @Test
+    public void testNotPreferred() throws Exception {
+        int port = (int) (1000 * Math.random() + 10000);
+        server = Exchangers.bind(URL.valueOf("exchange://localhost:" + port + "?server=netty4&serialization=java"), new WorldHandler());
+        client = Exchangers.connect(URL.valueOf("exchange://localhost:" + port + "?client=netty4&serialization=java"));
+        Assert.assertEquals("hello,world", ((Hello) client.request(new World("world")).get()).getName());
+        Assert.assertNull(client.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY));
+        Assert.assertNull(server.getChannels().iterator().next().getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY));
+    }
+
+    private static void waitForSerialization(Channel channel) throws InterruptedException {
+        for (int i = 0; i < 100 && channel.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY) == null; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package org.apache.dubbo.remoting.zookeeper.curator;
 
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.common.utils.StringUtils;
 import org.apache.dubbo.remoting.zookeeper.ChildListener;
 import org.apache.dubbo.remoting.zookeeper.StateListener;
@@ -34,18 +35,49 @@ import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.WatchedEvent;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 基于 Curator 的 Zookeeper 客户端实现类
+ * <p>
+ * With <code>child.cache=true</code>, the children of each watched path are mirrored locally: the path is watched
+ * once whatever the number of its listeners, which are only notified when its children did change, and the children of
+ * a watched path are read from the mirror. Once reconnected, the mirrors are refreshed by a thread of their own, after
+ * the state listeners are notified.
  */
 public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatcher> {
 
     private final CuratorFramework client;
 
+    /**
+     * 是否缓存子节点
+     */
+    private final boolean childCache;
+
+    /**
+     * 子节点缓存，key 为节点路径
+     */
+    private final ConcurrentMap<String, ChildrenCache> childrenCaches = new ConcurrentHashMap<String, ChildrenCache>();
+
+    /**
+     * 重连后刷新子节点缓存的线程，不阻塞 Curator 的连接状态线程
+     */
+    private final ExecutorService refreshExecutor;
+
     public CuratorZookeeperClient(URL url) {
         super(url);
+        this.childCache = url.getParameter(Constants.ZOOKEEPER_CHILD_CACHE_KEY, false);
+        this.refreshExecutor = childCache ? Executors.newSingleThreadExecutor(new NamedThreadFactory("DubboZookeeperChildrenRefresh", true)) : null;
         try {
             int timeout = url.getParameter(Constants.TIMEOUT_KEY, 5000);
             CuratorFrameworkFactory.Builder builder = CuratorFrameworkFactory.builder()
@@ -67,6 +99,7 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
                         CuratorZookeeperClient.this.stateChanged(StateListener.CONNECTED);
                     } else if (state == ConnectionState.RECONNECTED) {
                         CuratorZookeeperClient.this.stateChanged(StateListener.RECONNECTED);
+                        refreshChildrenCaches();
                     }
                 }
             });
@@ -110,6 +143,13 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
 
     @Override
     public List<String> getChildren(String path) {
+        ChildrenCache cache = childrenCaches.get(path);
+        if (cache != null) {
+            List<String> children = cache.getChildren();
+            if (children != null) {
+                return new ArrayList<String>(children);
+            }
+        }
         try {
             return client.getChildren().forPath(path);
         } catch (NoNodeException e) {
@@ -136,9 +176,34 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
 
     @Override
     public void doClose() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
         client.close();
     }
 
+    /**
+     * The watches may be lost with the session, and the children may have changed meanwhile: read them again, each
+     * a round trip notifying the listeners, out of the thread of the connection state.
+     */
+    private void refreshChildrenCaches() {
+        if (refreshExecutor == null || childrenCaches.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (ChildrenCache cache : childrenCaches.values()) {
+                        cache.refresh();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // closed
+        }
+    }
+
     @Override
     public CuratorWatcher createTargetChildListener(String path, ChildListener listener) {
         return new CuratorWatcherImpl(listener);
@@ -146,6 +211,15 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
 
     @Override
     public List<String> addTargetChildListener(String path, CuratorWatcher listener) {
+        if (childCache) {
+            ChildrenCache cache = childrenCaches.get(path);
+            if (cache == null) {
+                childrenCaches.putIfAbsent(path, new ChildrenCache(path));
+                cache = childrenCaches.get(path);
+            }
+            List<String> children = cache.addListener((CuratorWatcherImpl) listener);
+            return children == null ? null : new ArrayList<String>(children);
+        }
         try {
             return client.getChildren().usingWatcher(listener).forPath(path);
         } catch (NoNodeException e) {
@@ -158,6 +232,97 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
     @Override
     public void removeTargetChildListener(String path, CuratorWatcher listener) {
         ((CuratorWatcherImpl) listener).unwatch();
+        ChildrenCache cache = childrenCaches.get(path);
+        if (cache != null && cache.removeListener((CuratorWatcherImpl) listener)) {
+            childrenCaches.remove(path, cache);
+        }
+    }
+
+    /**
+     * Local mirror of the children of a path, kept up to date by a single watch.
+     */
+    private class ChildrenCache implements CuratorWatcher {
+
+        private final String path;
+
+        private final Set<CuratorWatcherImpl> listeners = new CopyOnWriteArraySet<CuratorWatcherImpl>();
+
+        /**
+         * 子节点列表，不可修改，节点不存在时为空
+         */
+        private volatile List<String> children;
+
+        private volatile boolean loaded;
+
+        ChildrenCache(String path) {
+            this.path = path;
+        }
+
+        List<String> getChildren() {
+            return loaded ? children : null;
+        }
+
+        synchronized List<String> addListener(CuratorWatcherImpl listener) {
+            listeners.add(listener);
+            if (!loaded) {
+                load();
+            }
+            return children;
+        }
+
+        /**
+         * @return true if no listener is left
+         */
+        synchronized boolean removeListener(CuratorWatcherImpl listener) {
+            listeners.remove(listener);
+            return listeners.isEmpty();
+        }
+
+        @Override
+        public void process(WatchedEvent event) throws Exception {
+            // the connection events are followed by a refresh once reconnected
+            if (StringUtils.isNotEmpty(event.getPath())) {
+                refresh();
+            }
+        }
+
+        /**
+         * Read the children again, and notify the listeners if they changed.
+         */
+        synchronized void refresh() {
+            if (listeners.isEmpty()) {
+                // removed, let the watch go
+                return;
+            }
+            List<String> previous = children;
+            try {
+                load();
+            } catch (Throwable t) {
+                logger.warn("Failed to refresh the children of " + path + ", cause: " + t.getMessage(), t);
+                return;
+            }
+            List<String> current = children;
+            if (previous == null ? current == null
+                    : current != null && new HashSet<String>(previous).equals(new HashSet<String>(current))) {
+                return;
+            }
+            for (CuratorWatcherImpl listener : listeners) {
+                listener.childChanged(path, current == null ? Collections.<String>emptyList() : current);
+            }
+        }
+
+        private void load() {
+            List<String> latest;
+            try {
+                latest = client.getChildren().usingWatcher(this).forPath(path);
+            } catch (NoNodeException e) {
+                latest = null;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            children = latest == null ? null : Collections.unmodifiableList(new ArrayList<String>(latest));
+            loaded = true;
+        }
     }
 
     private class CuratorWatcherImpl implements CuratorWatcher {
@@ -172,6 +337,17 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
             this.listener = null;
         }
 
+        void childChanged(String path, List<String> children) {
+            ChildListener listener = this.listener;
+            if (listener != null) {
+                try {
+                    listener.childChanged(path, children);
+                } catch (Throwable t) {
+                    logger.warn("Failed to notify the children of " + path + ", cause: " + t.getMessage(), t);
+                }
+            }
+        }
+
         @Override
         public void process(WatchedEvent event) throws Exception {
             if (listener != null) {
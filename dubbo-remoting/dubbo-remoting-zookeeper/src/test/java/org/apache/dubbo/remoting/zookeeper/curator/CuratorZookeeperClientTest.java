@@ -15,9 +15,11 @@
  * limitations under the License.
  */
 package org.apache.dubbo.remoting.zookeeper.curator;
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.remoting.zookeeper.ChildListener;
+import org.apache.dubbo.remoting.zookeeper.StateListener;
 import org.apache.curator.framework.api.CuratorWatcher;
 import org.apache.curator.test.TestingServer;
 import org.apache.zookeeper.WatchedEvent;
@@ -26,8 +28,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -113,6 +120,79 @@ public class CuratorZookeeperClientTest {
         assertThat(connected, is(true));
     }
 
+    @Test
+    public void testChildrenCache() throws Exception {
+        String path = "/dubbo/org.apache.dubbo.demo.DemoService/providers";
+        CuratorZookeeperClient cacheClient = new CuratorZookeeperClient(curatorClient.getUrl()
+                .addParameter(Constants.ZOOKEEPER_CHILD_CACHE_KEY, true));
+        try {
+            cacheClient.create(path + "/provider1", false);
+            final BlockingQueue<List<String>> first = new LinkedBlockingQueue<List<String>>();
+            final BlockingQueue<List<String>> second = new LinkedBlockingQueue<List<String>>();
+            ChildListener firstListener = new ChildListener() {
+                @Override
+                public void childChanged(String path, List<String> children) {
+                    first.add(children);
+                }
+            };
+            assertThat(cacheClient.addChildListener(path, firstListener), is(Arrays.asList("provider1")));
+            assertThat(cacheClient.addChildListener(path, new ChildListener() {
+                @Override
+                public void childChanged(String path, List<String> children) {
+                    second.add(children);
+                }
+            }), is(Arrays.asList("provider1")));
+
+            curatorClient.create(path + "/provider2", false);
+            assertThat(new HashSet<String>(first.poll(5, TimeUnit.SECONDS)), is(new HashSet<String>(Arrays.asList("provider1", "provider2"))));
+            assertThat(second.poll(5, TimeUnit.SECONDS).size(), is(2));
+            assertThat(cacheClient.getChildren(path).size(), is(2));
+
+            cacheClient.removeChildListener(path, firstListener);
+            curatorClient.delete(path + "/provider1");
+            assertThat(second.poll(5, TimeUnit.SECONDS), is(Arrays.asList("provider2")));
+            assertThat(cacheClient.getChildren(path), is(Arrays.asList("provider2")));
+            assertThat(first.isEmpty(), is(true));
+        } finally {
+            cacheClient.close();
+        }
+    }
+
+    @Test
+    public void testChildrenCacheReconnected() throws Exception {
+        String path = "/dubbo/org.apache.dubbo.demo.DemoService/consumers";
+        CuratorZookeeperClient cacheClient = new CuratorZookeeperClient(curatorClient.getUrl()
+                .addParameter(Constants.ZOOKEEPER_CHILD_CACHE_KEY, true));
+        try {
+            cacheClient.create(path + "/consumer1", false);
+            final BlockingQueue<List<String>> notified = new LinkedBlockingQueue<List<String>>();
+            final CountDownLatch reconnected = new CountDownLatch(1);
+            cacheClient.addStateListener(new StateListener() {
+                @Override
+                public void stateChanged(int state) {
+                    if (state == RECONNECTED) {
+                        reconnected.countDown();
+                    }
+                }
+            });
+            cacheClient.addChildListener(path, new ChildListener() {
+                @Override
+                public void childChanged(String path, List<String> children) {
+                    notified.add(children);
+                }
+            });
+
+            zkServer.restart();
+            assertThat(reconnected.await(10, TimeUnit.SECONDS), is(true));
+            // refreshed and watched again
+            curatorClient.create(path + "/consumer2", false);
+            assertThat(notified.poll(10, TimeUnit.SECONDS).size(), is(2));
+            assertThat(cacheClient.getChildren(path).size(), is(2));
+        } finally {
+            cacheClient.close();
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
         curatorClient.close();
@@ -270,6 +270,9 @@ public class RpcContext {
      * @serial
      */
     public Class<?>[] getParameterTypes() {
+        if (parameterTypes == null && invocation != null) {
+            return invocation.getParameterTypes();
+        }
         return parameterTypes;
     }
 
@@ -283,6 +286,9 @@ public class RpcContext {
      * @return arguments.
      */
     public Object[] getArguments() {
+        if (arguments == null && invocation != null) {
+            return invocation.getArguments();
+        }
         return arguments;
     }
 
@@ -614,8 +620,9 @@ public class RpcContext {
         this.invocation = invocation;
         if (invocation != null) {
             setMethodName(invocation.getMethodName());
-            setParameterTypes(invocation.getParameterTypes());
-            setArguments(invocation.getArguments());
+            // read from the invocation when asked for, the arguments may be decoded lazily
+            setParameterTypes(null);
+            setArguments(null);
         }
         return this;
     }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcResult;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Result of a method with the {@link ResponseCache}, encoded by {@link DubboCodec}: the body cached, written as it is,
+ * or else the value returned, cached once encoded.
+ */
+public class CachedResult extends RpcResult {
+
+    private static final long serialVersionUID = 4870293154361428813L;
+
+    private final transient ResponseCache cache;
+
+    private final String arguments;
+
+    /**
+     * 命中时，缓存的响应体的序列化编号
+     */
+    private final byte serializationId;
+
+    /**
+     * 命中时，缓存的响应体
+     */
+    private final transient ByteBuffer body;
+
+    /**
+     * Hit, the body encoded by the serialization of the response
+     */
+    public CachedResult(byte serializationId, ByteBuffer body) {
+        this.cache = null;
+        this.arguments = null;
+        this.serializationId = serializationId;
+        this.body = body;
+    }
+
+    /**
+     * Missed, the result of the invocation to cache
+     */
+    public CachedResult(ResponseCache cache, String arguments, Result result) {
+        super(result.getValue());
+        setAttachments(result.getAttachments());
+        this.cache = cache;
+        this.arguments = arguments;
+        this.serializationId = 0;
+        this.body = null;
+    }
+
+    public boolean isHit() {
+        return body != null;
+    }
+
+    byte getSerializationId() {
+        return serializationId;
+    }
+
+    ByteBuffer getBody() {
+        return body == null ? null : body.duplicate();
+    }
+
+    void cache(byte serializationId, boolean attachments, ByteBuffer body) {
+        if (cache != null) {
+            cache.put(serializationId, attachments, arguments, body);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResult [hit=" + isHit() + ", result=" + result + "]";
+    }
+}
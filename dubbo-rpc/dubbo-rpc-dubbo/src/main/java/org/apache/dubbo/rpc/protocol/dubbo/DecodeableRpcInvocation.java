@@ -17,6 +17,7 @@
 package org.apache.dubbo.rpc.protocol.dubbo;
 
 import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.serialize.Cleanable;
@@ -29,6 +30,7 @@ import org.apache.dubbo.remoting.Codec;
 import org.apache.dubbo.remoting.Decodeable;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcInvocation;
 
 import java.io.IOException;
@@ -41,6 +43,10 @@ import static org.apache.dubbo.rpc.protocol.dubbo.CallbackServiceCodec.decodeInv
 
 /**
  * 可解码的 RpcInvocation 实现类
+ * <p>
+ * With the layout {@link DubboCodec#REQUEST_LAZY_ARGUMENTS}, the parameter types and the arguments are kept undecoded,
+ * with the id of their serialization, until they are used. Forwarded by a proxy to a provider of the same layout and
+ * serialization, they are written as received.
  */
 public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Decodeable {
 
@@ -65,8 +71,28 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
      * 是否已经解码完成
      */
     private volatile boolean hasDecoded;
+    /**
+     * 方法参数在隐式传参之后，单独序列化
+     */
+    private final boolean lazyArguments;
+    /**
+     * 未解码的方法签名
+     */
+    private volatile String parameterDesc;
+    /**
+     * 未解码的方法参数
+     */
+    private volatile byte[] rawArguments;
+    /**
+     * 方法签名是否已经解码，解码后仍保留，以便原样转发
+     */
+    private volatile boolean parameterTypesDecoded;
 
     public DecodeableRpcInvocation(Channel channel, Request request, InputStream is, byte id) {
+        this(channel, request, is, id, false);
+    }
+
+    public DecodeableRpcInvocation(Channel channel, Request request, InputStream is, byte id, boolean lazyArguments) {
         Assert.notNull(channel, "channel == null");
         Assert.notNull(request, "request == null");
         Assert.notNull(is, "inputStream == null");
@@ -74,6 +100,7 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
         this.request = request;
         this.inputStream = is;
         this.serializationType = id;
+        this.lazyArguments = lazyArguments;
     }
 
     @Override
@@ -107,8 +134,8 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
      */
     @Override
     public Object decode(Channel channel, InputStream input) throws IOException {
-        ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
-                .deserialize(channel.getUrl(), input);
+        ObjectInput in = CodecSupport.deserialize(CodecSupport.getSerialization(channel.getUrl(), serializationType),
+                channel.getUrl(), input);
 
         // 解码 `dubbo` `path` `version`
         String dubboVersion = in.readUTF();
@@ -124,6 +151,12 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
             Object[] args;
             Class<?>[] pts;
             String desc = in.readUTF();
+            if (lazyArguments) {
+                decodeAttachments(in);
+                parameterDesc = desc;
+                rawArguments = in.readBytes();
+                return this;
+            }
             if (desc.length() == 0) {
                 pts = DubboCodec.EMPTY_CLASS_ARRAY;
                 args = DubboCodec.EMPTY_OBJECT_ARRAY;
@@ -142,15 +175,7 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
             }
             setParameterTypes(pts);
             // 解码隐式传参集合
-            Map<String, String> map = (Map<String, String>) in.readObject(Map.class);
-            if (map != null && map.size() > 0) {
-                Map<String, String> attachment = getAttachments();
-                if (attachment == null) {
-                    attachment = new HashMap<String, String>();
-                }
-                attachment.putAll(map);
-                setAttachments(attachment);
-            }
+            decodeAttachments(in);
             //decode argument ,may be callback
             // 进一步解码方法参数，主要为了参数返回
             for (int i = 0; i < args.length; i++) {
@@ -169,4 +194,118 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
         return this;
     }
 
+    @SuppressWarnings("unchecked")
+    private void decodeAttachments(ObjectInput in) throws IOException, ClassNotFoundException {
+        Map<String, String> map = (Map<String, String>) in.readObject(Map.class);
+        if (map != null && map.size() > 0) {
+            Map<String, String> attachment = getAttachments();
+            if (attachment == null) {
+                attachment = new HashMap<String, String>();
+            }
+            attachment.putAll(map);
+            setAttachments(attachment);
+        }
+    }
+
+    /**
+     * @return the id of the serialization of the request
+     */
+    public byte getSerializationId() {
+        return serializationType;
+    }
+
+    /**
+     * @return the id of the serialization the response is encoded by, the one of the channel
+     */
+    public byte getResponseSerializationId() {
+        return CodecSupport.getSerialization(channel).getContentTypeId();
+    }
+
+    /**
+     * @return the arguments still undecoded, if serialized by the serialization given
+     */
+    byte[] getRawArguments(byte serializationId) {
+        return serializationId == serializationType && parameterDesc != null ? rawArguments : null;
+    }
+
+    String getParameterDesc() {
+        return parameterDesc;
+    }
+
+    @Override
+    public Class<?>[] getParameterTypes() {
+        if (parameterDesc != null && !parameterTypesDecoded) {
+            decodeParameterTypes();
+        }
+        return super.getParameterTypes();
+    }
+
+    @Override
+    public void setParameterTypes(Class<?>[] parameterTypes) {
+        parameterDesc = null;
+        super.setParameterTypes(parameterTypes);
+    }
+
+    @Override
+    public Object[] getArguments() {
+        if (rawArguments != null) {
+            decodeArguments();
+        }
+        return super.getArguments();
+    }
+
+    @Override
+    public void setArguments(Object[] arguments) {
+        rawArguments = null;
+        super.setArguments(arguments);
+    }
+
+    private synchronized void decodeParameterTypes() {
+        String desc = parameterDesc;
+        if (desc == null || parameterTypesDecoded) {
+            return;
+        }
+        try {
+            super.setParameterTypes(desc.length() == 0 ? DubboCodec.EMPTY_CLASS_ARRAY : ReflectUtils.desc2classArray(desc));
+        } catch (ClassNotFoundException e) {
+            throw new RpcException("Decode parameter types " + desc + " of " + getMethodName() + " failed: " + e.getMessage(), e);
+        }
+        parameterTypesDecoded = true;
+    }
+
+    private synchronized void decodeArguments() {
+        byte[] bytes = rawArguments;
+        if (bytes == null) {
+            return;
+        }
+        Class<?>[] pts = getParameterTypes();
+        Object[] args = new Object[pts.length];
+        try {
+            ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
+                    .deserialize(channel.getUrl(), new UnsafeByteArrayInputStream(bytes));
+            try {
+                for (int i = 0; i < args.length; i++) {
+                    try {
+                        args[i] = in.readObject(pts[i]);
+                    } catch (Exception e) {
+                        if (log.isWarnEnabled()) {
+                            log.warn("Decode argument failed: " + e.getMessage(), e);
+                        }
+                    }
+                }
+            } finally {
+                if (in instanceof Cleanable) {
+                    ((Cleanable) in).cleanup();
+                }
+            }
+            for (int i = 0; i < args.length; i++) {
+                args[i] = decodeInvocationArgument(channel, this, pts, i, args[i]);
+            }
+        } catch (IOException e) {
+            throw new RpcException("Decode arguments of " + getMethodName() + " failed: " + e.getMessage(), e);
+        }
+        super.setArguments(args);
+        rawArguments = null;
+    }
+
 }
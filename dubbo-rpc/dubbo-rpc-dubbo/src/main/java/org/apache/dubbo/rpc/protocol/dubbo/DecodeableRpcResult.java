@@ -83,8 +83,8 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
      */
     @Override
     public Object decode(Channel channel, InputStream input) throws IOException {
-        ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
-                .deserialize(channel.getUrl(), input);
+        ObjectInput in = CodecSupport.deserialize(CodecSupport.getSerialization(channel.getUrl(), serializationType),
+                channel.getUrl(), input);
         
         byte flag = in.readByte();
         switch (flag) {
@@ -21,8 +21,10 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.Version;
 import org.apache.dubbo.common.io.Bytes;
 import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
@@ -30,17 +32,20 @@ import org.apache.dubbo.common.utils.ReflectUtils;
 import org.apache.dubbo.common.utils.StringUtils;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.Codec2;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.exchange.codec.ExchangeCodec;
 import org.apache.dubbo.remoting.transport.CodecSupport;
 import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.support.RpcUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import static org.apache.dubbo.rpc.protocol.dubbo.CallbackServiceCodec.encodeInvocationArgument;
 
@@ -79,6 +84,10 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
      */
     public static final byte RESPONSE_VALUE_WITH_ATTACHMENTS = 4;
     public static final byte RESPONSE_NULL_VALUE_WITH_ATTACHMENTS = 5;
+    /**
+     * 请求 Body 格式 - 隐式传参在方法参数之前，方法参数单独序列化为字节数组，见 {@link Constants#LAZY_ARGUMENTS_KEY}
+     */
+    public static final byte REQUEST_LAZY_ARGUMENTS = 1;
     public static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
     public static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[0];
     private static final Logger log = LoggerFactory.getLogger(DubboCodec.class);
@@ -167,11 +176,11 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
                     if (channel.getUrl().getParameter(
                             Constants.DECODE_IN_IO_THREAD_KEY,
                             Constants.DEFAULT_DECODE_IN_IO_THREAD)) {
-                        inv = new DecodeableRpcInvocation(channel, req, is, proto);
+                        inv = new DecodeableRpcInvocation(channel, req, is, proto, header[3] == REQUEST_LAZY_ARGUMENTS);
                         inv.decode();
                     } else {
                         inv = new DecodeableRpcInvocation(channel, req,
-                                new UnsafeByteArrayInputStream(readMessageData(is)), proto);
+                                new UnsafeByteArrayInputStream(readMessageData(is)), proto, header[3] == REQUEST_LAZY_ARGUMENTS);
                     }
                     data = inv;
                 }
@@ -190,7 +199,7 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
 
     private ObjectInput deserialize(Serialization serialization, URL url, InputStream is)
             throws IOException {
-        return serialization.deserialize(url, is);
+        return CodecSupport.deserialize(serialization, url, is);
     }
 
     private byte[] readMessageData(InputStream is) throws IOException {
@@ -229,6 +238,10 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         out.writeUTF(inv.getAttachment(Constants.VERSION_KEY));
         // 写入方法、方法签名、方法参数集合
         out.writeUTF(inv.getMethodName());
+        if (isLazyArguments(inv)) {
+            encodeLazyArguments(channel, out, inv);
+            return;
+        }
         out.writeUTF(ReflectUtils.getDesc(inv.getParameterTypes()));
         Object[] args = inv.getArguments();
         if (args != null)
@@ -239,6 +252,116 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         out.writeObject(RpcUtils.getNecessaryAttachments(inv));
     }
 
+    @Override
+    protected byte getRequestLayout(Channel channel, Object data) {
+        return data instanceof RpcInvocation && isLazyArguments((RpcInvocation) data) ? REQUEST_LAZY_ARGUMENTS : 0;
+    }
+
+    /**
+     * The layout of {@link #REQUEST_LAZY_ARGUMENTS}, when the provider invoked asks for it.
+     */
+    private static boolean isLazyArguments(RpcInvocation inv) {
+        Invoker<?> invoker = inv.getInvoker();
+        return invoker != null && invoker.getUrl() != null
+                && invoker.getUrl().getParameter(Constants.LAZY_ARGUMENTS_KEY, false);
+    }
+
+    private void encodeLazyArguments(Channel channel, ObjectOutput out, RpcInvocation inv) throws IOException {
+        Serialization serialization = getSerialization(channel);
+        if (inv instanceof DecodeableRpcInvocation) {
+            DecodeableRpcInvocation received = (DecodeableRpcInvocation) inv;
+            byte[] rawArguments = received.getRawArguments(serialization.getContentTypeId());
+            if (rawArguments != null) {
+                // forward the arguments as received, still undecoded
+                out.writeUTF(received.getParameterDesc());
+                out.writeObject(RpcUtils.getNecessaryAttachments(inv));
+                out.writeBytes(rawArguments);
+                return;
+            }
+        }
+        out.writeUTF(ReflectUtils.getDesc(inv.getParameterTypes()));
+        Object[] args = inv.getArguments();
+        if (args == null) {
+            args = EMPTY_OBJECT_ARRAY;
+        }
+        // the callback arguments add attachments
+        Object[] encoded = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            encoded[i] = encodeInvocationArgument(channel, inv, i);
+        }
+        out.writeObject(RpcUtils.getNecessaryAttachments(inv));
+        UnsafeByteArrayOutputStream bos = new UnsafeByteArrayOutputStream(256);
+        ObjectOutput argumentsOut = serialization.serialize(channel.getUrl(), bos);
+        for (Object arg : encoded) {
+            argumentsOut.writeObject(arg);
+        }
+        argumentsOut.flushBuffer();
+        if (argumentsOut instanceof Cleanable) {
+            ((Cleanable) argumentsOut).cleanup();
+        }
+        ByteBuffer bytes = bos.toByteBuffer();
+        out.writeBytes(bytes.array(), 0, bytes.limit());
+    }
+
+    @Override
+    protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
+        if (res.getStatus() == Response.OK && !res.isEvent() && res.getResult() instanceof CachedResult) {
+            int savedWriteIndex = buffer.writerIndex();
+            CachedResult result = (CachedResult) res.getResult();
+            try {
+                encodeCachedResponse(channel, buffer, res, result);
+                return;
+            } catch (Throwable t) {
+                buffer.writerIndex(savedWriteIndex);
+                if (result.isHit()) {
+                    log.warn("Fail to write the cached response " + res + ", send bad_response info instead, cause: " + t.getMessage(), t);
+                    Response r = new Response(res.getId(), res.getVersion());
+                    r.setStatus(Response.BAD_RESPONSE);
+                    r.setErrorMessage("Failed to send response: " + res + ", cause: " + StringUtils.toString(t));
+                    res = r;
+                }
+                // the value of a response missed is encoded again, failures reported the usual way
+            }
+        }
+        super.encodeResponse(channel, buffer, res);
+    }
+
+    /**
+     * 编码缓存的响应：命中时，直接写入缓存的响应体；否则，编码后缓存响应体
+     */
+    private void encodeCachedResponse(Channel channel, ChannelBuffer buffer, Response res, CachedResult result) throws IOException {
+        boolean attach = Version.isSupportResponseAttatchment(res.getVersion());
+        byte serializationId;
+        ByteBuffer body = result.getBody();
+        if (body != null) {
+            serializationId = result.getSerializationId();
+        } else {
+            Serialization serialization = getSerialization(channel);
+            serializationId = serialization.getContentTypeId();
+            UnsafeByteArrayOutputStream bos = new UnsafeByteArrayOutputStream(1024);
+            ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
+            encodeResponseData(channel, out, result, res.getVersion());
+            out.flushBuffer();
+            if (out instanceof Cleanable) {
+                ((Cleanable) out).cleanup();
+            }
+            body = bos.toByteBuffer();
+        }
+        int len = body.remaining();
+        checkPayload(channel, len);
+        if (!result.isHit()) {
+            result.cache(serializationId, attach, body);
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        Bytes.short2bytes(MAGIC, header);
+        header[2] = serializationId;
+        header[3] = Response.OK;
+        Bytes.long2bytes(res.getId(), header, 4);
+        Bytes.int2bytes(len, header, 12);
+        buffer.writeBytes(header);
+        buffer.writeBytes(body);
+    }
+
     /**
      * 编码响应体 Result
      * @param channel
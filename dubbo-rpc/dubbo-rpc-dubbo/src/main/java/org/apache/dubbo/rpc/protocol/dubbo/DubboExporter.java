@@ -41,6 +41,7 @@ public class DubboExporter<T> extends AbstractExporter<T> {
     public void unexport() {
         super.unexport();
         exporterMap.remove(key);
+        ResponseCache.removeCaches(getInvoker().getUrl());
     }
 
 }
\ No newline at end of file
@@ -20,7 +20,6 @@ import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
-import org.apache.dubbo.common.serialize.support.SerializationOptimizer;
 import org.apache.dubbo.common.utils.ConcurrentHashSet;
 import org.apache.dubbo.common.utils.ConfigUtils;
 import org.apache.dubbo.common.utils.NetUtils;
@@ -355,31 +354,26 @@ public class DubboProtocol extends AbstractProtocol {
         return server;
     }
 
-    private void optimizeSerialization(URL url) throws RpcException {
+    /**
+     * @return the digest of the classes given an id by the serialization, null if none
+     */
+    private String optimizeSerialization(URL url) throws RpcException {
         String className = url.getParameter(Constants.OPTIMIZER_KEY, "");
-        if (StringUtils.isEmpty(className) || optimizers.contains(className)) {
-            return;
+        if (StringUtils.isEmpty(className)) {
+            return null;
         }
 
-        logger.info("Optimizing the serialization process for Kryo, FST, etc...");
+        if (optimizers.add(className)) {
+            logger.info("Optimizing the serialization process for Kryo, FST, etc...");
+        }
 
         try {
-            Class clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
-            if (!SerializationOptimizer.class.isAssignableFrom(clazz)) {
-                throw new RpcException("The serialization optimizer " + className + " isn't an instance of " + SerializationOptimizer.class.getName());
-            }
-
-            SerializationOptimizer optimizer = (SerializationOptimizer) clazz.newInstance();
-
-            if (optimizer.getSerializableClasses() == null) {
-                return;
-            }
-
-            for (Class c : optimizer.getSerializableClasses()) {
-                SerializableClassRegistry.registerClass(c);
-            }
-
-            optimizers.add(className);
+            return SerializableClassRegistry.registerOptimizer(className,
+                    url.getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION));
+        } catch (IllegalArgumentException e) {
+            throw new RpcException(e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new RpcException("Cannot register the classes of the serialization optimizer " + className + ", cause: " + e.getMessage(), e);
         } catch (ClassNotFoundException e) {
             throw new RpcException("Cannot find the serialization optimizer class: " + className, e);
         } catch (InstantiationException e) {
@@ -391,8 +385,13 @@ public class DubboProtocol extends AbstractProtocol {
 
     @Override
     public <T> Invoker<T> refer(Class<T> serviceType, URL url) throws RpcException {
-        // 初始化序列化优化器
-        optimizeSerialization(url);
+        // 初始化序列化优化器，并校验与提供者的序列化类一致
+        String digest = optimizeSerialization(url);
+        String providerDigest = url.getParameter(Constants.OPTIMIZER_DIGEST_KEY);
+        if (digest != null && providerDigest != null && !digest.equals(providerDigest)) {
+            throw new RpcException("The classes of the serialization optimizer " + url.getParameter(Constants.OPTIMIZER_KEY)
+                    + " differ from the ones of the provider " + url.getAddress() + ", their class ids wouldn't match, please use the same optimizer");
+        }
         // create rpc invoker.
         // getClients(url),获得远程通信客户端数组
         // 创建 DubboInvoker 对象
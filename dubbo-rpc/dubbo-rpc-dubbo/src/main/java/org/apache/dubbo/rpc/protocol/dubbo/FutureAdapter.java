@@ -18,6 +18,7 @@ package org.apache.dubbo.rpc.protocol.dubbo;
 
 import org.apache.dubbo.remoting.exchange.ResponseCallback;
 import org.apache.dubbo.remoting.exchange.ResponseFuture;
+import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
 
@@ -54,6 +55,8 @@ public class FutureAdapter<V> extends CompletableFuture<V> {
 
             @Override
             public void caught(Throwable exception) {
+                // complete the result future too, so that callbacks registered on it see timeouts and transport errors
+                FutureAdapter.this.resultFuture.completeExceptionally(exception);
                 FutureAdapter.this.completeExceptionally(exception);
             }
         });
@@ -63,14 +66,17 @@ public class FutureAdapter<V> extends CompletableFuture<V> {
         return future;
     }
 
+    /**
+     * Cancel the request on the consumer side: the pending response is discarded when it arrives.
+     * The provider can't be told, it still executes the request.
+     */
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        return false;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return false;
+        if (future instanceof DefaultFuture && !future.isDone()) {
+            ((DefaultFuture) future).cancel();
+        }
+        resultFuture.cancel(mayInterruptIfRunning);
+        return super.cancel(mayInterruptIfRunning);
     }
 
     @Override
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.ConfigUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encoded response bodies of a provider method with <code>response.cache=true</code>, by serialization, response
+ * layout and arguments.
+ * <p>
+ * The bodies are copied to direct buffers, out of the heap, at most <code>response.cache.size</code> bytes per method,
+ * the least recently used evicted first, and expire <code>response.cache.ttl</code> milliseconds after being cached.
+ * All the methods together hold at most <code>dubbo.response.cache.total.size</code> bytes: a method out of the budget
+ * evicts its own bodies if that makes room for the body, and doesn't cache the body otherwise. The caches of a service are dropped when it is
+ * unexported.
+ */
+public class ResponseCache {
+
+    /**
+     * 缓存集合，键为服务键，值的键为方法名
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, ResponseCache>> CACHES = new ConcurrentHashMap<String, ConcurrentMap<String, ResponseCache>>();
+
+    private static final long MAX_TOTAL_BYTES = Long.parseLong(ConfigUtils.getProperty(Constants.RESPONSE_CACHE_TOTAL_SIZE_KEY,
+            String.valueOf(Constants.DEFAULT_RESPONSE_CACHE_TOTAL_SIZE)));
+
+    /**
+     * 所有缓存占用的堆外字节数
+     */
+    private static final AtomicLong TOTAL_BYTES = new AtomicLong();
+
+    private final long ttl;
+
+    private final long maxBytes;
+
+    private final AtomicLong totalBytes;
+
+    private final long maxTotalBytes;
+
+    /**
+     * 按访问顺序排列的缓存项
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /**
+     * 缓存项占用的堆外字节数
+     */
+    private long bytes;
+
+    ResponseCache(long ttl, long maxBytes) {
+        this(ttl, maxBytes, TOTAL_BYTES, MAX_TOTAL_BYTES);
+    }
+
+    /**
+     * @param totalBytes the bytes held by the caches sharing the budget
+     */
+    ResponseCache(long ttl, long maxBytes, AtomicLong totalBytes, long maxTotalBytes) {
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        this.totalBytes = totalBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public static ResponseCache getCache(URL url, String methodName) {
+        String serviceKey = url.getServiceKey();
+        ConcurrentMap<String, ResponseCache> caches = CACHES.get(serviceKey);
+        if (caches == null) {
+            CACHES.putIfAbsent(serviceKey, new ConcurrentHashMap<String, ResponseCache>());
+            caches = CACHES.get(serviceKey);
+        }
+        ResponseCache cache = caches.get(methodName);
+        if (cache == null) {
+            caches.putIfAbsent(methodName, new ResponseCache(
+                    url.getMethodParameter(methodName, Constants.RESPONSE_CACHE_TTL_KEY, Constants.DEFAULT_RESPONSE_CACHE_TTL),
+                    url.getMethodParameter(methodName, Constants.RESPONSE_CACHE_SIZE_KEY, Constants.DEFAULT_RESPONSE_CACHE_SIZE)));
+            cache = caches.get(methodName);
+        }
+        return cache;
+    }
+
+    /**
+     * Drops the caches of the service, once unexported
+     */
+    public static void removeCaches(URL url) {
+        ConcurrentMap<String, ResponseCache> caches = CACHES.remove(url.getServiceKey());
+        if (caches != null) {
+            for (ResponseCache cache : caches.values()) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the bytes out of the heap held by the bodies cached by all the methods
+     */
+    public static long getTotalBytes() {
+        return TOTAL_BYTES.get();
+    }
+
+    /**
+     * @param attachments whether the body carries the attachments, depending on the version of the consumer
+     * @return the body cached, read-only, null if none or expired
+     */
+    public synchronized ByteBuffer get(byte serializationId, boolean attachments, String arguments) {
+        String key = toKey(serializationId, attachments, arguments);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt < System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry.body.duplicate();
+    }
+
+    /**
+     * Caches a copy of the body, unless larger than the cache itself or out of the budget of all the caches
+     */
+    public void put(byte serializationId, boolean attachments, String arguments, ByteBuffer body) {
+        int length = body.remaining();
+        if (length > maxBytes) {
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocateDirect(length);
+        copy.put(body.duplicate());
+        copy.flip();
+        Entry entry = new Entry(copy.asReadOnlyBuffer(), System.currentTimeMillis() + ttl);
+        String key = toKey(serializationId, attachments, arguments);
+        synchronized (this) {
+            remove(key);
+            // the other caches hold the budget, evicting the bodies of this one wouldn't make room
+            if (totalBytes.get() + length - maxTotalBytes > bytes) {
+                return;
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((bytes + length > maxBytes || totalBytes.get() + length > maxTotalBytes) && eldest.hasNext()) {
+                int capacity = eldest.next().body.capacity();
+                eldest.remove();
+                bytes -= capacity;
+                totalBytes.addAndGet(-capacity);
+            }
+            // taken by the other caches meanwhile
+            if (totalBytes.addAndGet(length) > maxTotalBytes) {
+                totalBytes.addAndGet(-length);
+                return;
+            }
+            entries.put(key, entry);
+            bytes += length;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes.addAndGet(-bytes);
+        bytes = 0;
+    }
+
+    /**
+     * @return the bytes out of the heap held by the bodies cached
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.body.capacity();
+            totalBytes.addAndGet(-removed.body.capacity());
+        }
+    }
+
+    private static String toKey(byte serializationId, boolean attachments, String arguments) {
+        return serializationId + (attachments ? "+" : "-") + arguments;
+    }
+
+    private static class Entry {
+
+        private final ByteBuffer body;
+
+        private final long expireAt;
+
+        Entry(ByteBuffer body, long expireAt) {
+            this.body = body;
+            this.expireAt = expireAt;
+        }
+    }
+
+}
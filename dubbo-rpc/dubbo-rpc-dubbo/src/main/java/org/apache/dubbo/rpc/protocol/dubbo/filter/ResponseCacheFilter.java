@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.CachedResult;
+import org.apache.dubbo.rpc.protocol.dubbo.DecodeableRpcInvocation;
+import org.apache.dubbo.rpc.protocol.dubbo.ResponseCache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ResponseCacheFilter
+ * <p>
+ * Provider side, for the methods with <code>response.cache=true</code>: a response cached for the arguments is
+ * written as it was encoded, without invoking the method again.
+ */
+@Activate(group = Constants.PROVIDER, value = Constants.RESPONSE_CACHE_KEY)
+public class ResponseCacheFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        // only the calls received by the dubbo protocol, the generic ones are invoked by GenericFilter again
+        if (!(invocation instanceof DecodeableRpcInvocation)
+                || !invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.RESPONSE_CACHE_KEY, false)) {
+            return invoker.invoke(invocation);
+        }
+        DecodeableRpcInvocation inv = (DecodeableRpcInvocation) invocation;
+        ResponseCache cache = ResponseCache.getCache(invoker.getUrl(), inv.getMethodName());
+        String arguments = StringUtils.toArgumentString(inv.getArguments());
+        boolean attachments = Version.isSupportResponseAttatchment(inv.getAttachment(Constants.DUBBO_VERSION_KEY));
+        // the bodies are cached by the serialization encoding them, maybe not the one of the request
+        byte serializationId = inv.getResponseSerializationId();
+        ByteBuffer body = cache.get(serializationId, attachments, arguments);
+        if (body != null) {
+            return new CachedResult(serializationId, body);
+        }
+        Result result = invoker.invoke(invocation);
+        if (result instanceof RpcResult && !result.hasException() && result.getValue() != null) {
+            return new CachedResult(cache, arguments, result);
+        }
+        return result;
+    }
+
+}
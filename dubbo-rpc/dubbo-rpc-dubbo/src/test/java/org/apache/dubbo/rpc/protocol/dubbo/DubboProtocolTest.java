@@ -20,8 +20,16 @@ package org.apache.dubbo.rpc.protocol.dubbo;
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+import org.apache.dubbo.common.serialize.support.SerializationOptimizer;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Protocol;
 import org.apache.dubbo.rpc.ProxyFactory;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.protocol.dubbo.support.DemoService;
 import org.apache.dubbo.rpc.protocol.dubbo.support.DemoServiceImpl;
@@ -34,7 +42,12 @@ import org.apache.dubbo.rpc.service.EchoService;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -181,4 +194,101 @@ public class DubboProtocolTest {
             Assert.assertTrue(e.getMessage().contains("org.apache.dubbo.rpc.protocol.dubbo.support.NonSerialized must implement java.io.Serializable"));
         }
     }
+
+    @Test
+    public void testOptimizerDigest() throws Exception {
+        String digest = SerializableClassRegistry.registerOptimizer(DemoOptimizer.class.getName());
+        assertEquals(SerializableClassRegistry.getDigest(new DemoOptimizer().getSerializableClasses()), digest);
+        URL url = URL.valueOf("dubbo://127.0.0.1:9060/" + DemoService.class.getName())
+                .addParameter(Constants.OPTIMIZER_KEY, DemoOptimizer.class.getName())
+                .addParameter(Constants.OPTIMIZER_DIGEST_KEY, "unknown");
+        try {
+            protocol.refer(DemoService.class, url);
+            Assert.fail();
+        } catch (RpcException e) {
+            Assert.assertTrue(e.getMessage().contains("differ from the ones of the provider"));
+        }
+    }
+
+    @Test
+    public void testResponseCache() throws Exception {
+        DemoService service = new DemoServiceImpl();
+        URL url = URL.valueOf("dubbo://127.0.0.1:9072/" + DemoService.class.getName() + "?timestamp.response.cache=true&echo.response.cache=true");
+        Exporter<DemoService> exporter = protocol.export(proxy.getInvoker(service, DemoService.class, url));
+        service = proxy.getProxy(protocol.refer(DemoService.class, url));
+        // the cached response is written without invoking the method
+        long timestamp = service.timestamp();
+        Thread.sleep(10);
+        assertEquals(timestamp, service.timestamp());
+        assertEquals("a", service.echo("a"));
+        assertEquals("b", service.echo("b"));
+        assertEquals("a", service.echo("a"));
+        ResponseCache cache = ResponseCache.getCache(url, "echo");
+        assertEquals(2, cache.size());
+        Assert.assertTrue(cache.getBytes() > 0);
+        // not cached
+        Assert.assertNotNull(service.getThreadName());
+        assertEquals(0, ResponseCache.getCache(url, "getThreadName").size());
+        // dropped once unexported
+        exporter.unexport();
+        assertEquals(0, cache.size());
+        Assert.assertNotSame(cache, ResponseCache.getCache(url, "echo"));
+    }
+
+    @Test
+    public void testLazyArguments() throws Exception {
+        DemoService service = new DemoServiceImpl();
+        protocol.export(proxy.getInvoker(service, DemoService.class, URL.valueOf("dubbo://127.0.0.1:9070/" + DemoService.class.getName() + "?lazy.arguments=true")));
+        // a proxy forwarding the calls it receives, routing on the attachments
+        final Invoker<DemoService> backend = protocol.refer(DemoService.class, URL.valueOf("dubbo://127.0.0.1:9070/" + DemoService.class.getName() + "?lazy.arguments=true"));
+        final List<String> forwarded = Collections.synchronizedList(new ArrayList<String>());
+        protocol.export(new Invoker<DemoService>() {
+            private final URL url = URL.valueOf("dubbo://127.0.0.1:9071/" + DemoService.class.getName() + "?lazy.arguments=true");
+
+            @Override
+            public Class<DemoService> getInterface() {
+                return DemoService.class;
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                DecodeableRpcInvocation inv = (DecodeableRpcInvocation) invocation;
+                Assert.assertNotNull(inv.getRawArguments(Hessian2Serialization.ID));
+                Result result = backend.invoke(inv);
+                // forwarded undecoded
+                Assert.assertNotNull(inv.getRawArguments(Hessian2Serialization.ID));
+                forwarded.add(inv.getMethodName() + ":" + inv.getAttachment("route"));
+                return result;
+            }
+
+            @Override
+            public URL getUrl() {
+                return url;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void destroy() {
+            }
+        });
+        service = proxy.getProxy(protocol.refer(DemoService.class, URL.valueOf("dubbo://127.0.0.1:9071/" + DemoService.class.getName() + "?lazy.arguments=true")));
+        RpcContext.getContext().setAttachment("route", "blue");
+        assertEquals(3, service.getSize(new String[]{"", "", ""}));
+        Map<String, String> map = new HashMap<String, String>();
+        map.put("aa", "bb");
+        assertEquals(Collections.singleton("aa"), service.keys(map));
+        assertEquals(Arrays.asList("getSize:blue", "keys:null"), forwarded);
+    }
+
+    public static class DemoOptimizer implements SerializationOptimizer {
+
+        @Override
+        public Collection<Class> getSerializableClasses() {
+            return Arrays.<Class>asList(Type.class, NonSerialized.class);
+        }
+    }
 }
\ No newline at end of file
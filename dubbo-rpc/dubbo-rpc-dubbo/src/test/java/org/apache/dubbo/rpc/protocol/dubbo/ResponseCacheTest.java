@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.filter.ResponseCacheFilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ResponseCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        ResponseCache cache = new ResponseCache(60000, 1024);
+        cache.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        ByteBuffer body = cache.get((byte) 2, true, "a");
+        Assert.assertTrue(body.isDirect());
+        Assert.assertTrue(body.isReadOnly());
+        Assert.assertEquals(3, body.remaining());
+        Assert.assertEquals(3, body.get(2));
+        // by serialization and layout
+        Assert.assertNull(cache.get((byte) 8, true, "a"));
+        Assert.assertNull(cache.get((byte) 2, false, "a"));
+        Assert.assertEquals(3, cache.getBytes());
+    }
+
+    @Test
+    public void testEvict() {
+        ResponseCache cache = new ResponseCache(60000, 10);
+        cache.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        cache.put((byte) 2, true, "b", ByteBuffer.wrap(new byte[4]));
+        // the least recently used evicted
+        Assert.assertNotNull(cache.get((byte) 2, true, "a"));
+        cache.put((byte) 2, true, "c", ByteBuffer.wrap(new byte[4]));
+        Assert.assertNotNull(cache.get((byte) 2, true, "a"));
+        Assert.assertNull(cache.get((byte) 2, true, "b"));
+        Assert.assertEquals(8, cache.getBytes());
+        // larger than the cache
+        cache.put((byte) 2, true, "d", ByteBuffer.wrap(new byte[11]));
+        Assert.assertNull(cache.get((byte) 2, true, "d"));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testTotalBytes() {
+        AtomicLong total = new AtomicLong();
+        ResponseCache first = new ResponseCache(60000, 1024, total, 10);
+        ResponseCache second = new ResponseCache(60000, 1024, total, 10);
+        first.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        first.put((byte) 2, true, "b", ByteBuffer.wrap(new byte[4]));
+        // out of the budget, the cache gives up its own bodies, or doesn't cache
+        second.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        Assert.assertEquals(0, second.size());
+        first.put((byte) 2, true, "c", ByteBuffer.wrap(new byte[4]));
+        Assert.assertNull(first.get((byte) 2, true, "a"));
+        Assert.assertEquals(8, total.get());
+        first.clear();
+        Assert.assertEquals(0, total.get());
+        second.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        Assert.assertEquals(4, total.get());
+    }
+
+    @Test
+    public void testCompetingForTotalBytes() {
+        AtomicLong total = new AtomicLong();
+        ResponseCache first = new ResponseCache(60000, 1024, total, 10);
+        ResponseCache second = new ResponseCache(60000, 1024, total, 10);
+        first.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        first.put((byte) 2, true, "b", ByteBuffer.wrap(new byte[4]));
+        second.put((byte) 2, true, "x", ByteBuffer.wrap(new byte[1]));
+        // the body doesn't fit even without the bodies of the second cache, which keeps them
+        for (int i = 0; i < 3; i++) {
+            second.put((byte) 2, true, "y" + i, ByteBuffer.wrap(new byte[4]));
+            Assert.assertEquals(1, second.size());
+            Assert.assertNotNull(second.get((byte) 2, true, "x"));
+        }
+        // it fits evicting the eldest body of the second cache
+        second.put((byte) 2, true, "z", ByteBuffer.wrap(new byte[2]));
+        Assert.assertNull(second.get((byte) 2, true, "x"));
+        Assert.assertNotNull(second.get((byte) 2, true, "z"));
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(10, total.get());
+    }
+
+    @Test
+    public void testRemoveCaches() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.rpc.protocol.dubbo.ResponseCacheTest?version=remove");
+        ResponseCache cache = ResponseCache.getCache(url, "echo");
+        Assert.assertSame(cache, ResponseCache.getCache(url, "echo"));
+        long total = ResponseCache.getTotalBytes();
+        cache.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        Assert.assertEquals(total + 4, ResponseCache.getTotalBytes());
+        ResponseCache.removeCaches(url);
+        Assert.assertEquals(total, ResponseCache.getTotalBytes());
+        Assert.assertNotSame(cache, ResponseCache.getCache(url, "echo"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFilterBySerializationOfResponse() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.rpc.protocol.dubbo.ResponseCacheTest?version=filter&echo.response.cache=true");
+        Serialization negotiated = mock(Serialization.class);
+        given(negotiated.getContentTypeId()).willReturn((byte) 9);
+        Channel channel = mock(Channel.class);
+        given(channel.getUrl()).willReturn(url);
+        given(channel.getAttribute(Constants.CHANNEL_ATTRIBUTE_SERIALIZATION_KEY)).willReturn(negotiated);
+        // a request of hessian2, answered by the serialization negotiated
+        DecodeableRpcInvocation invocation = new DecodeableRpcInvocation(channel, new Request(), new ByteArrayInputStream(new byte[0]), (byte) 2);
+        invocation.setMethodName("echo");
+        invocation.setArguments(new Object[]{"a"});
+        invocation.setAttachment(Constants.DUBBO_VERSION_KEY, Version.getProtocolVersion());
+        ResponseCache.getCache(url, "echo").put((byte) 9, true, "a", ByteBuffer.wrap(new byte[]{1}));
+        Invoker<ResponseCacheTest> invoker = mock(Invoker.class);
+        given(invoker.getUrl()).willReturn(url);
+        given(invoker.invoke(invocation)).willReturn(new RpcResult("a"));
+
+        CachedResult result = (CachedResult) new ResponseCacheFilter().invoke(invoker, invocation);
+        Assert.assertTrue(result.isHit());
+        Assert.assertEquals(9, result.getSerializationId());
+        verify(invoker, never()).invoke(invocation);
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024);
+        cache.put((byte) 2, true, "a", ByteBuffer.wrap(new byte[4]));
+        Thread.sleep(20);
+        Assert.assertNull(cache.get((byte) 2, true, "a"));
+        Assert.assertEquals(0, cache.getBytes());
+    }
+
+}
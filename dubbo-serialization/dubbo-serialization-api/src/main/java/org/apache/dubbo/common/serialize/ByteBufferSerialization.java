@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize;
+
+import org.apache.dubbo.common.URL;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Optional capability of a {@link Serialization}: reading a message straight from a nio buffer, such as the one of
+ * the netty buffer a message is received in, instead of through an InputStream over the channel buffer.
+ * <p>
+ * The codecs check for it with instanceof, and fall back to {@link Serialization#deserialize(URL, java.io.InputStream)}.
+ */
+public interface ByteBufferSerialization {
+
+    /**
+     * Create a deserializer reading the buffer in place.
+     *
+     * @param url
+     * @param buffer the message, from the position to the limit of the buffer, which the deserializer may own and
+     *               move, valid only until the message is decoded
+     * @return deserializer
+     * @throws IOException
+     */
+    ObjectInput deserialize(URL url, ByteBuffer buffer) throws IOException;
+
+}
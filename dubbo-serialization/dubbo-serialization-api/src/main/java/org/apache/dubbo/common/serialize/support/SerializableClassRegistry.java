@@ -16,24 +16,206 @@
  */
 package org.apache.dubbo.common.serialize.support;
 
-import java.util.LinkedHashSet;
+import org.apache.dubbo.common.io.Bytes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * 序列化优化类的注册表
+ * <p>
+ * Each class has an id which doesn't depend on the order of the registrations, declared by
+ * {@link #registerClass(Class, int)}, or derived from the class name by {@link #registerClass(Class)}. The consumer
+ * and the provider compare the {@link #getDigest(Collection)} of the classes of an optimizer, to check they have the
+ * same ids. The serializations numbering the classes by their position, like fst, use the
+ * {@link #getNumberedClasses()} instead, and the digest covers all of them.
  */
 public abstract class SerializableClassRegistry {
 
-    private static final Set<Class> registrations = new LinkedHashSet<Class>();
+    /**
+     * The lowest declared id, the lower ids are left to the classes of the serializations
+     */
+    public static final int FIRST_CLASS_ID = 100;
+
+    /**
+     * The lowest id derived from a class name, the declared ids are lower
+     */
+    public static final int FIRST_HASHED_CLASS_ID = 1 << 14;
+
+    private static final int HASHED_CLASS_IDS = (1 << 27) - FIRST_HASHED_CLASS_ID;
+
+    /**
+     * The serialization numbering the classes by their position
+     */
+    private static final String NUMBERING_SERIALIZATION = "fst";
+
+    private static final Map<Class, Integer> registrations = new LinkedHashMap<Class, Integer>();
+
+    private static final Map<Integer, Class> classes = new HashMap<Integer, Class>();
+
+    private static final Map<String, String> optimizers = new HashMap<String, String>();
+
+    /**
+     * 按位置编号的类，首次使用时确定
+     */
+    private static List<Class> numberedClasses;
 
     /**
      * only supposed to be called at startup time
      */
-    public static void registerClass(Class clazz) {
-        registrations.add(clazz);
+    public static synchronized void registerClass(Class clazz) {
+        if (!registrations.containsKey(clazz)) {
+            addRegistration(clazz, getHashedId(clazz));
+        }
+    }
+
+    /**
+     * Registers the class with a declared id, such as for one of two classes whose derived ids collide
+     */
+    public static synchronized void registerClass(Class clazz, int id) {
+        if (id < FIRST_CLASS_ID || id >= FIRST_HASHED_CLASS_ID) {
+            throw new IllegalArgumentException("The id of " + clazz.getName() + " should be in ["
+                    + FIRST_CLASS_ID + ", " + FIRST_HASHED_CLASS_ID + "), but it is " + id);
+        }
+        Integer old = registrations.get(clazz);
+        if (old != null && old != id) {
+            if (old < FIRST_HASHED_CLASS_ID) {
+                throw new IllegalStateException("Class " + clazz.getName() + " is registered with id " + old + ", not " + id);
+            }
+            registrations.remove(clazz);
+            classes.remove(old);
+        }
+        addRegistration(clazz, id);
+    }
+
+    private static void addRegistration(Class clazz, int id) {
+        Class other = classes.get(id);
+        if (other != null && other != clazz) {
+            throw new IllegalStateException("The id " + id + " of class " + clazz.getName() + " collides with class "
+                    + other.getName() + ", register one of them with SerializableClassRegistry.registerClass(Class, int)");
+        }
+        registrations.put(clazz, id);
+        classes.put(id, clazz);
+    }
+
+    /**
+     * Registers the classes of the SerializationOptimizer once.
+     *
+     * @return the digest of the classes of the optimizer, null if the optimizer has no classes
+     */
+    public static synchronized String registerOptimizer(String className) throws ClassNotFoundException,
+            InstantiationException, IllegalAccessException {
+        if (optimizers.containsKey(className)) {
+            return optimizers.get(className);
+        }
+        Class clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
+        if (!SerializationOptimizer.class.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("The serialization optimizer " + className + " isn't an instance of " + SerializationOptimizer.class.getName());
+        }
+        Collection<Class> serializableClasses = ((SerializationOptimizer) clazz.newInstance()).getSerializableClasses();
+        String digest = null;
+        if (serializableClasses != null) {
+            for (Class c : serializableClasses) {
+                registerClass(c);
+            }
+            digest = getDigest(serializableClasses);
+        }
+        optimizers.put(className, digest);
+        return digest;
+    }
+
+    /**
+     * Registers the classes of the SerializationOptimizer once, for the serialization.
+     *
+     * @return the digest of the classes given an id by the serialization, all the {@link #getNumberedClasses()} for
+     * fst, null if the optimizer has no classes
+     */
+    public static synchronized String registerOptimizer(String className, String serialization)
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+        String digest = registerOptimizer(className);
+        if (digest != null && NUMBERING_SERIALIZATION.equals(serialization)) {
+            digest = getDigest(getNumberedClasses());
+        }
+        return digest;
+    }
+
+    /**
+     * The classes numbered by their position, the ones with a declared id first by id, then the others by name, the
+     * same order in the processes registering the same classes. They are numbered at the first call, the classes
+     * registered later are left out.
+     */
+    public static synchronized List<Class> getNumberedClasses() {
+        if (numberedClasses == null) {
+            Map<Integer, Class> declared = new TreeMap<Integer, Class>();
+            Map<String, Class> named = new TreeMap<String, Class>();
+            for (Map.Entry<Class, Integer> entry : registrations.entrySet()) {
+                if (entry.getValue() < FIRST_HASHED_CLASS_ID) {
+                    declared.put(entry.getValue(), entry.getKey());
+                } else {
+                    named.put(entry.getKey().getName(), entry.getKey());
+                }
+            }
+            List<Class> classes = new ArrayList<Class>(declared.values());
+            classes.addAll(named.values());
+            numberedClasses = Collections.unmodifiableList(classes);
+        }
+        return numberedClasses;
     }
 
     public static Set<Class> getRegisteredClasses() {
-        return registrations;
+        return registrations.keySet();
+    }
+
+    /**
+     * @return the registered classes and their ids
+     */
+    public static synchronized Map<Class, Integer> getRegisteredClassIds() {
+        return new LinkedHashMap<Class, Integer>(registrations);
+    }
+
+    /**
+     * @return the md5 of the names and the ids of the classes, by name
+     */
+    public static synchronized String getDigest(Collection<Class> serializableClasses) {
+        Map<String, Integer> ids = new TreeMap<String, Integer>();
+        for (Class clazz : serializableClasses) {
+            Integer id = registrations.get(clazz);
+            ids.put(clazz.getName(), id == null ? -1 : id);
+        }
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            buf.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+        }
+        return Bytes.bytes2hex(Bytes.getMD5(buf.toString()));
+    }
+
+    /**
+     * for tests
+     */
+    static synchronized void clear() {
+        registrations.clear();
+        classes.clear();
+        optimizers.clear();
+        numberedClasses = null;
+    }
+
+    /**
+     * The id derived from the FNV-1a hash of the class name, the same in all JVMs
+     */
+    static int getHashedId(Class clazz) {
+        String name = clazz.getName();
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x01000193;
+        }
+        return FIRST_HASHED_CLASS_ID + (hash & Integer.MAX_VALUE) % HASHED_CLASS_IDS;
     }
 }
@@ -16,14 +16,28 @@
  */
 package org.apache.dubbo.common.serialize.support;
 
+import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
 public class SerializableClassRegistryTest {
+
+    @Before
+    public void setUp() {
+        SerializableClassRegistry.clear();
+    }
+
     @Test
     public void testAddClasses() {
         SerializableClassRegistry.registerClass(A.class);
@@ -33,9 +47,88 @@ public class SerializableClassRegistryTest {
         assertThat(registeredClasses, hasSize(2));
     }
 
+    @Test
+    public void testClassIds() {
+        SerializableClassRegistry.registerClass(C.class);
+        SerializableClassRegistry.registerClass(D.class, 123);
+        Map<Class, Integer> ids = SerializableClassRegistry.getRegisteredClassIds();
+        assertThat(ids.get(C.class), is(SerializableClassRegistry.getHashedId(C.class)));
+        assertThat(ids.get(C.class), greaterThanOrEqualTo(SerializableClassRegistry.FIRST_HASHED_CLASS_ID));
+        assertThat(ids.get(D.class), is(123));
+
+        // the declared id wins, whatever the order
+        SerializableClassRegistry.registerClass(D.class);
+        SerializableClassRegistry.registerClass(C.class, 124);
+        ids = SerializableClassRegistry.getRegisteredClassIds();
+        assertThat(ids.get(C.class), is(124));
+        assertThat(ids.get(D.class), is(123));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCollision() {
+        SerializableClassRegistry.registerClass(E.class, 200);
+        SerializableClassRegistry.registerClass(F.class, 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidId() {
+        SerializableClassRegistry.registerClass(E.class, SerializableClassRegistry.FIRST_HASHED_CLASS_ID);
+    }
+
+    @Test
+    public void testDigest() {
+        SerializableClassRegistry.registerClass(G.class);
+        SerializableClassRegistry.registerClass(H.class);
+        String digest = SerializableClassRegistry.getDigest(Arrays.<Class>asList(G.class, H.class));
+        assertThat(SerializableClassRegistry.getDigest(Arrays.<Class>asList(H.class, G.class)), is(digest));
+        assertThat(SerializableClassRegistry.getDigest(Arrays.<Class>asList(G.class)), not(digest));
+    }
+
+    @Test
+    public void testNumberedClasses() throws Exception {
+        SerializableClassRegistry.registerClass(H.class);
+        SerializableClassRegistry.registerClass(D.class, 123);
+        String digest = SerializableClassRegistry.registerOptimizer(GOptimizer.class.getName(), "fst");
+        assertThat(SerializableClassRegistry.getNumberedClasses(), contains(D.class, G.class, H.class));
+        // fst digests all the numbered classes, the other serializations the classes of the optimizer
+        assertThat(digest, is(SerializableClassRegistry.getDigest(Arrays.<Class>asList(D.class, G.class, H.class))));
+        assertThat(SerializableClassRegistry.registerOptimizer(GOptimizer.class.getName(), "kryo"),
+                is(SerializableClassRegistry.getDigest(Arrays.<Class>asList(G.class))));
+
+        // numbered once
+        SerializableClassRegistry.registerClass(A.class);
+        assertThat(SerializableClassRegistry.getNumberedClasses(), contains(D.class, G.class, H.class));
+        assertThat(SerializableClassRegistry.registerOptimizer(GOptimizer.class.getName(), "fst"), is(digest));
+    }
+
+    public static class GOptimizer implements SerializationOptimizer {
+        @Override
+        public Collection<Class> getSerializableClasses() {
+            return Arrays.<Class>asList(G.class);
+        }
+    }
+
     private class A {
     }
 
     private class B {
     }
+
+    private class C {
+    }
+
+    private class D {
+    }
+
+    private class E {
+    }
+
+    private class F {
+    }
+
+    private class G {
+    }
+
+    private class H {
+    }
 }
\ No newline at end of file
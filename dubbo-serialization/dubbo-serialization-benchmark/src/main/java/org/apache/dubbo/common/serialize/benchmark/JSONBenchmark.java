@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.json.JSON;
+import org.apache.dubbo.common.json.ParseException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the json of <code>org.apache.dubbo.common.json</code> on the payloads of {@link Payloads}: written,
+ * parsed to their type by the streaming lexer and by the JFlex one, and fastjson for reference.
+ * <p>
+ * Run with <code>java -cp target/benchmarks.jar org.apache.dubbo.common.serialize.benchmark.JSONBenchmark</code>,
+ * the arguments are the ones of jmh, e.g. <code>-p shape=order</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONBenchmark {
+
+    private static final String YYLEX = "-Ddubbo.json.lexer=yylex";
+
+    @Param({Payloads.CUSTOMER, Payloads.ORDER, Payloads.PAGE})
+    private String shape;
+
+    private Object payload;
+
+    private Class<?> type;
+
+    private String json;
+
+    private String fastjson;
+
+    @Setup
+    public void setup() throws IOException {
+        payload = Payloads.create(shape);
+        type = payload.getClass();
+        json = JSON.json(payload);
+        fastjson = com.alibaba.fastjson.JSON.toJSONString(payload);
+    }
+
+    @Benchmark
+    public String write() throws IOException {
+        return JSON.json(payload);
+    }
+
+    @Benchmark
+    public Object parse() throws ParseException {
+        return JSON.parse(json, type);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = YYLEX)
+    public Object parseByYylex() throws ParseException {
+        return JSON.parse(json, type);
+    }
+
+    @Benchmark
+    public String writeByFastjson() {
+        return com.alibaba.fastjson.JSON.toJSONString(payload);
+    }
+
+    @Benchmark
+    public Object parseByFastjson() {
+        return com.alibaba.fastjson.JSON.parseObject(fastjson, type);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JSONBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
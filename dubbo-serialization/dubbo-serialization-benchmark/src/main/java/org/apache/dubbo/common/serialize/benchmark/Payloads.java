@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.serialize.benchmark.model.Customer;
+import org.apache.dubbo.common.serialize.benchmark.model.Order;
+import org.apache.dubbo.common.serialize.benchmark.model.OrderItem;
+import org.apache.dubbo.common.serialize.benchmark.model.OrderPage;
+import org.apache.dubbo.common.serialize.benchmark.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The payloads of the benchmarks, always the same for a shape:
+ * <ul>
+ * <li>customer: a small flat object, as the argument of a lookup</li>
+ * <li>order: an order of 20 items with a customer, attributes, a date, amounts and a status, as a request</li>
+ * <li>page: a page of 100 orders of 5 items, as a large response</li>
+ * </ul>
+ */
+public class Payloads {
+
+    public static final String CUSTOMER = "customer";
+
+    public static final String ORDER = "order";
+
+    public static final String PAGE = "page";
+
+    private static final long TIME = 1538352000000L;
+
+    private Payloads() {
+    }
+
+    public static Object create(String shape) {
+        if (CUSTOMER.equals(shape)) {
+            return customer(1);
+        }
+        if (ORDER.equals(shape)) {
+            return order(1, 20);
+        }
+        if (PAGE.equals(shape)) {
+            OrderPage page = new OrderPage();
+            page.setPageNo(1);
+            page.setPageSize(100);
+            page.setTotal(12345);
+            List<Order> orders = new ArrayList<Order>(100);
+            for (int i = 0; i < 100; i++) {
+                orders.add(order(i, 5));
+            }
+            page.setOrders(orders);
+            return page;
+        }
+        throw new IllegalArgumentException("Unknown payload shape " + shape);
+    }
+
+    private static Customer customer(long id) {
+        Customer customer = new Customer();
+        customer.setId(100000 + id);
+        customer.setName("customer-" + id);
+        customer.setEmail("customer" + id + "@example.com");
+        customer.setPhone("+86-571-8765" + (4000 + id % 1000));
+        customer.setVip(id % 3 == 0);
+        customer.setTags(Arrays.asList("mobile", "returning", "region-" + id % 8));
+        return customer;
+    }
+
+    private static Order order(long id, int items) {
+        Order order = new Order();
+        order.setId(20180000000L + id);
+        order.setCustomer(customer(id));
+        List<OrderItem> list = new ArrayList<OrderItem>(items);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.setSku(7000000 + id * 31 + i);
+            item.setTitle("Item " + i + " of order " + id);
+            item.setQuantity(1 + i % 4);
+            item.setPrice(new BigDecimal("19.90").add(BigDecimal.valueOf(i * 105, 2)));
+            item.setWeight(0.25 * (i + 1));
+            total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            list.add(item);
+        }
+        order.setItems(list);
+        Map<String, String> attributes = new HashMap<String, String>();
+        attributes.put("channel", "app");
+        attributes.put("coupon", "NEWYEAR" + id % 10);
+        attributes.put("warehouse", "hz-" + id % 4);
+        attributes.put("remark", "please deliver before noon");
+        order.setAttributes(attributes);
+        order.setCreateTime(new Date(TIME + id * 60000));
+        order.setTotal(total);
+        order.setStatus(OrderStatus.values()[(int) (id % OrderStatus.values().length)]);
+        return order;
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.utils.PojoUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link PojoUtils} on the payloads of {@link Payloads}, as a generic call converts them, with the
+ * generated converters and with reflection alone.
+ * <p>
+ * Run with <code>java -cp target/benchmarks.jar org.apache.dubbo.common.serialize.benchmark.PojoUtilsBenchmark</code>,
+ * the arguments are the ones of jmh, e.g. <code>-p shape=page</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PojoUtilsBenchmark {
+
+    private static final String REFLECTION = "-Ddubbo.pojo.converter=false";
+
+    @Param({Payloads.CUSTOMER, Payloads.ORDER, Payloads.PAGE})
+    private String shape;
+
+    private Object payload;
+
+    private Class<?> type;
+
+    private Object generalized;
+
+    @Setup
+    public void setup() {
+        payload = Payloads.create(shape);
+        type = payload.getClass();
+        generalized = PojoUtils.generalize(payload);
+    }
+
+    @Benchmark
+    public Object generalize() {
+        return PojoUtils.generalize(payload);
+    }
+
+    @Benchmark
+    public Object realize() {
+        return PojoUtils.realize(generalized, type);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = REFLECTION)
+    public Object generalizeByReflection() {
+        return PojoUtils.generalize(payload);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = REFLECTION)
+    public Object realizeByReflection() {
+        return PojoUtils.realize(generalized, type);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PojoUtilsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the serializations on the payloads of {@link Payloads}, one message per operation.
+ * <p>
+ * Run with <code>java -jar target/benchmarks.jar</code>, it prints the payload size of each serialization and shape,
+ * then runs the benchmarks with the gc profiler, whose <code>gc.alloc.rate.norm</code> is the bytes allocated per
+ * operation. The arguments are the ones of jmh, e.g. <code>-p serialization=hessian2,kryo -p shape=order</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String[] SERIALIZATIONS = {"hessian2", "kryo", "fst", "fastjson", "java", "compactedjava", "compact"};
+
+    private static final String[] SHAPES = {Payloads.CUSTOMER, Payloads.ORDER, Payloads.PAGE};
+
+    private final URL url = new URL("dubbo", "127.0.0.1", 20880);
+
+    @Param({"hessian2", "kryo", "fst", "fastjson", "java", "compactedjava", "compact"})
+    private String serialization;
+
+    @Param({Payloads.CUSTOMER, Payloads.ORDER, Payloads.PAGE})
+    private String shape;
+
+    private Serialization ser;
+
+    private Object payload;
+
+    private Class<?> type;
+
+    private ByteArrayOutputStream bos;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        ser = ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(serialization);
+        payload = Payloads.create(shape);
+        type = payload.getClass();
+        bos = new ByteArrayOutputStream(256 * 1024);
+        bytes = serialize(ser, url, payload, bos).toByteArray();
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        bos.reset();
+        return serialize(ser, url, payload, bos).size();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        ObjectInput in = ser.deserialize(url, new ByteArrayInputStream(bytes));
+        Object result = in.readObject(type);
+        if (in instanceof Cleanable) {
+            ((Cleanable) in).cleanup();
+        }
+        return result;
+    }
+
+    private static ByteArrayOutputStream serialize(Serialization ser, URL url, Object payload, ByteArrayOutputStream bos) throws IOException {
+        ObjectOutput out = ser.serialize(url, bos);
+        out.writeObject(payload);
+        out.flushBuffer();
+        if (out instanceof Cleanable) {
+            ((Cleanable) out).cleanup();
+        }
+        return bos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        URL url = new URL("dubbo", "127.0.0.1", 20880);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256 * 1024);
+        StringBuilder buf = new StringBuilder(String.format("%-16s", "payload bytes"));
+        for (String shape : SHAPES) {
+            buf.append(String.format("%12s", shape));
+        }
+        System.out.println(buf);
+        for (String name : SERIALIZATIONS) {
+            Serialization ser = ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(name);
+            buf.setLength(0);
+            buf.append(String.format("%-16s", name));
+            for (String shape : SHAPES) {
+                bos.reset();
+                buf.append(String.format("%12d", serialize(ser, url, Payloads.create(shape), bos).size()));
+            }
+            System.out.println(buf);
+        }
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import java.io.IOException;
+
+/**
+ * Writes and reads the fields of a POJO class, in the order of {@link CompactCodecs#getFields(Class)}.
+ *
+ * @see CompactCodecs#getCodec(Class)
+ */
+public abstract class CompactCodec {
+
+    Class<?> type;
+
+    long fingerprint;
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public abstract void write(CompactObjectOutput out, Object obj) throws IOException;
+
+    public abstract Object read(CompactObjectInput in) throws IOException, ClassNotFoundException;
+
+}
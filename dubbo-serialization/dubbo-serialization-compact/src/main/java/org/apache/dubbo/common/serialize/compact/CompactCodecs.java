@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import org.apache.dubbo.common.bytecode.ClassGenerator;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.ClassHelper;
+import org.apache.dubbo.common.utils.ReflectUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Codecs of the POJO classes, generated by {@link ClassGenerator} on the first use of a class, or for the classes of
+ * a service interface by {@link #prepare(Class)}.
+ * <p>
+ * The generated codec accesses the fields by the public fields and the accessors of public classes, and by reflection
+ * otherwise. Classes that can't be generated, such as the non-public ones, use a reflective codec.
+ */
+public class CompactCodecs {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactCodecs.class);
+
+    private static final AtomicLong CODEC_CLASS_COUNTER = new AtomicLong(0);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * POJO 类的编解码器，非 POJO 类为 NONE
+     */
+    private static final ConcurrentMap<Class<?>, CompactCodec> CODECS = new ConcurrentHashMap<Class<?>, CompactCodec>();
+
+    private static final ConcurrentMap<Class<?>, Long> FINGERPRINTS = new ConcurrentHashMap<Class<?>, Long>();
+
+    private static final ConcurrentMap<Class<?>, Boolean> INSTANTIABLES = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    private static final CompactCodec NONE = new ReflectiveCodec(new Field[0], null);
+
+    private static final Comparator<Field> FIELD_NAME_COMPARATOR = new Comparator<Field>() {
+        @Override
+        public int compare(Field f1, Field f2) {
+            return f1.getName().compareTo(f2.getName());
+        }
+    };
+
+    private CompactCodecs() {
+    }
+
+    /**
+     * @return the codec of the POJO class, null if the class is not a POJO
+     */
+    public static CompactCodec getCodec(Class<?> type) {
+        CompactCodec codec = CODECS.get(type);
+        if (codec == null) {
+            codec = isPojo(type) ? makeCodec(type) : NONE;
+            CompactCodec old = CODECS.putIfAbsent(type, codec);
+            if (old != null) {
+                codec = old;
+            }
+        }
+        return codec == NONE ? null : codec;
+    }
+
+    /**
+     * Generates the codecs of the POJOs in the parameters and the return types of the service interface, and in their
+     * fields, ahead of the first invocation.
+     */
+    public static void prepare(Class<?> serviceInterface) {
+        Set<Type> visited = new HashSet<Type>();
+        for (Method method : serviceInterface.getMethods()) {
+            for (Type type : method.getGenericParameterTypes()) {
+                prepare(type, visited);
+            }
+            prepare(method.getGenericReturnType(), visited);
+        }
+    }
+
+    private static void prepare(Type type, Set<Type> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        if (type instanceof Class) {
+            Class<?> c = (Class<?>) type;
+            if (c.isArray()) {
+                prepare(c.getComponentType(), visited);
+            } else if (getCodec(c) != null) {
+                for (Field field : getFields(c)) {
+                    prepare(field.getGenericType(), visited);
+                }
+            }
+        } else if (type instanceof ParameterizedType) {
+            prepare(((ParameterizedType) type).getRawType(), visited);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                prepare(argument, visited);
+            }
+        } else if (type instanceof GenericArrayType) {
+            prepare(((GenericArrayType) type).getGenericComponentType(), visited);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                prepare(bound, visited);
+            }
+        }
+    }
+
+    /**
+     * The fingerprint of the fields of a POJO class, or of the constants of an enum, 0 for the other classes.
+     */
+    public static long getFingerprint(Class<?> type) {
+        Long fingerprint = FINGERPRINTS.get(type);
+        if (fingerprint == null) {
+            fingerprint = makeFingerprint(type);
+            FINGERPRINTS.putIfAbsent(type, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static long makeFingerprint(Class<?> type) {
+        StringBuilder signature = new StringBuilder(type.getName());
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                signature.append(';').append(((Enum<?>) constant).name());
+            }
+        } else if (isPojo(type)) {
+            for (Field field : getFields(type)) {
+                signature.append(';').append(field.getName()).append(':').append(ReflectUtils.getName(field.getType()));
+            }
+        } else {
+            return 0;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < signature.length(); i++) {
+            hash ^= signature.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * The serialized fields, non static and non transient, from the super class down, and by name in a class.
+     */
+    static Field[] getFields(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c : hierarchy) {
+            List<Field> declared = new ArrayList<Field>();
+            for (Field field : c.getDeclaredFields()) {
+                int mod = field.getModifiers();
+                if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !field.isSynthetic()) {
+                    declared.add(field);
+                }
+            }
+            Collections.sort(declared, FIELD_NAME_COMPARATOR);
+            fields.addAll(declared);
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    /**
+     * A POJO is a concrete class out of the JDK, with a constructor without parameters, and isn't a collection, a
+     * map or an exception.
+     */
+    static boolean isPojo(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface()
+                || Modifier.isAbstract(type.getModifiers()) || type.isAnonymousClass() || type.isLocalClass()
+                || Throwable.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type)) {
+            return false;
+        }
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("com.sun.")) {
+            return false;
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.getParameterTypes().length == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the class is public, with a public constructor without parameters
+     */
+    static boolean isInstantiable(Class<?> type) {
+        Boolean instantiable = INSTANTIABLES.get(type);
+        if (instantiable == null) {
+            instantiable = false;
+            if (Modifier.isPublic(type.getModifiers()) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                try {
+                    type.getConstructor();
+                    instantiable = true;
+                } catch (NoSuchMethodException e) {
+                    // no public constructor without parameters
+                }
+            }
+            INSTANTIABLES.putIfAbsent(type, instantiable);
+        }
+        return instantiable;
+    }
+
+    private static CompactCodec makeCodec(Class<?> type) {
+        Field[] fields = getFields(type);
+        for (Field field : fields) {
+            field.setAccessible(true);
+        }
+        CompactCodec codec = null;
+        if (isInstantiable(type)) {
+            try {
+                codec = generateCodec(type, fields);
+            } catch (Throwable t) {
+                logger.warn("Failed to generate the compact codec of " + type.getName() + ", use reflection instead, cause: " + t.getMessage(), t);
+            }
+        }
+        if (codec == null) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                codec = new ReflectiveCodec(fields, constructor);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("No constructor without parameters in " + type.getName(), e);
+            }
+        }
+        codec.type = type;
+        codec.fingerprint = getFingerprint(type);
+        return codec;
+    }
+
+    private static CompactCodec generateCodec(Class<?> type, Field[] fields) throws Exception {
+        String name = ReflectUtils.getName(type);
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        boolean reflective = false;
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            Class<?> ft = field.getType();
+            String get, setPrefix;
+            Method getter = getAccessor(type, field, (ft == boolean.class ? "is" : "get") + capitalize(field.getName()));
+            Method setter = getAccessor(type, field, "set" + capitalize(field.getName()), ft);
+            if (!isPublicType(ft)) {
+                getter = null;
+                setter = null;
+            }
+            if (isPublicType(ft) && Modifier.isPublic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())
+                    && Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                String w = field.getDeclaringClass() == type ? "w" : "((" + ReflectUtils.getName(field.getDeclaringClass()) + ") w)";
+                get = w + "." + field.getName();
+                setPrefix = w + "." + field.getName() + " = ";
+            } else if (getter != null && setter != null) {
+                get = "w." + getter.getName() + "()";
+                setPrefix = "w." + setter.getName() + "(";
+            } else {
+                reflective = true;
+                String accessor = ft.isPrimitive() ? capitalize(ft.getName()) : "";
+                get = (ft == String.class ? "(String) " : "") + "fs[" + i + "].get" + accessor + "(w)";
+                setPrefix = "fs[" + i + "].set" + accessor + "(w, ";
+            }
+            String value = "$1.read" + getSuffix(ft) + "()";
+            if (!ft.isPrimitive() && ft != String.class && !setPrefix.startsWith("fs[")) {
+                value = "(" + ReflectUtils.getName(ft) + ") " + value;
+            }
+            write.append("$1.write").append(getSuffix(ft)).append("(").append(get).append("); ");
+            read.append(setPrefix).append(value).append(setPrefix.endsWith(" = ") ? "; " : "); ");
+        }
+        if (reflective) {
+            String c = " catch (" + IllegalAccessException.class.getName() + " e) { throw new " + IOException.class.getName() + "(e.getMessage(), e); } ";
+            write.insert(0, "try { ").append("}").append(c);
+            read.insert(0, "try { ").append("}").append(c);
+        }
+        write.insert(0, "public void write(" + CompactObjectOutput.class.getName() + " out, Object obj) throws " + IOException.class.getName()
+                + "{ " + name + " w = (" + name + ") $2; ").append("}");
+        read.insert(0, "public Object read(" + CompactObjectInput.class.getName() + " in) throws " + IOException.class.getName()
+                + ", " + ClassNotFoundException.class.getName() + "{ " + name + " w = new " + name + "(); ").append("return w; }");
+
+        long id = CODEC_CLASS_COUNTER.getAndIncrement();
+        ClassGenerator cc = ClassGenerator.newInstance(ClassHelper.getClassLoader(type));
+        cc.setClassName(CompactCodec.class.getName() + id);
+        cc.setSuperClass(CompactCodec.class);
+        cc.addDefaultConstructor();
+        cc.addField("public static " + Field.class.getName() + "[] fs;"); // fields accessed by reflection.
+        cc.addMethod(write.toString());
+        cc.addMethod(read.toString());
+        try {
+            Class<?> wc = cc.toClass();
+            wc.getField("fs").set(null, fields);
+            return (CompactCodec) wc.newInstance();
+        } finally {
+            cc.release();
+        }
+    }
+
+    /**
+     * @return the public accessor of the field, declared by the class of the field, null if not found
+     */
+    private static Method getAccessor(Class<?> type, Field field, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            if (method.getDeclaringClass() == field.getDeclaringClass() && !Modifier.isStatic(method.getModifiers())
+                    && (parameterTypes.length > 0 || method.getReturnType() == field.getType())) {
+                return method;
+            }
+        } catch (NoSuchMethodException e) {
+            // no accessor
+        }
+        return null;
+    }
+
+    private static boolean isPublicType(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    private static String getSuffix(Class<?> type) {
+        if (type == boolean.class) {
+            return "Bool";
+        }
+        if (type.isPrimitive()) {
+            return capitalize(type.getName());
+        }
+        return type == String.class ? "UTF" : "Object";
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static class ReflectiveCodec extends CompactCodec {
+
+        private final Field[] fields;
+
+        private final Constructor<?> constructor;
+
+        ReflectiveCodec(Field[] fields, Constructor<?> constructor) {
+            this.fields = fields;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public void write(CompactObjectOutput out, Object obj) throws IOException {
+            try {
+                for (Field field : fields) {
+                    Class<?> t = field.getType();
+                    if (t == int.class) {
+                        out.writeInt(field.getInt(obj));
+                    } else if (t == long.class) {
+                        out.writeLong(field.getLong(obj));
+                    } else if (t == boolean.class) {
+                        out.writeBool(field.getBoolean(obj));
+                    } else if (t == double.class) {
+                        out.writeDouble(field.getDouble(obj));
+                    } else if (t == float.class) {
+                        out.writeFloat(field.getFloat(obj));
+                    } else if (t == short.class) {
+                        out.writeShort(field.getShort(obj));
+                    } else if (t == byte.class) {
+                        out.writeByte(field.getByte(obj));
+                    } else if (t == char.class) {
+                        out.writeChar(field.getChar(obj));
+                    } else if (t == String.class) {
+                        out.writeUTF((String) field.get(obj));
+                    } else {
+                        out.writeObject(field.get(obj));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public Object read(CompactObjectInput in) throws IOException, ClassNotFoundException {
+            try {
+                Object obj = constructor.newInstance();
+                for (Field field : fields) {
+                    Class<?> t = field.getType();
+                    if (t == int.class) {
+                        field.setInt(obj, in.readInt());
+                    } else if (t == long.class) {
+                        field.setLong(obj, in.readLong());
+                    } else if (t == boolean.class) {
+                        field.setBoolean(obj, in.readBool());
+                    } else if (t == double.class) {
+                        field.setDouble(obj, in.readDouble());
+                    } else if (t == float.class) {
+                        field.setFloat(obj, in.readFloat());
+                    } else if (t == short.class) {
+                        field.setShort(obj, in.readShort());
+                    } else if (t == byte.class) {
+                        field.setByte(obj, in.readByte());
+                    } else if (t == char.class) {
+                        field.setChar(obj, in.readChar());
+                    } else if (t == String.class) {
+                        field.set(obj, in.readUTF());
+                    } else {
+                        field.set(obj, in.readObject());
+                    }
+                }
+                return obj;
+            } catch (InstantiationException e) {
+                throw new IOException(e.getMessage(), e);
+            } catch (IllegalAccessException e) {
+                throw new IOException(e.getMessage(), e);
+            } catch (InvocationTargetException e) {
+                throw new IOException(e.getTargetException().getMessage(), e.getTargetException());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.io.ByteBufferInputStream;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.utils.ClassHelper;
+import org.apache.dubbo.common.utils.ReflectUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the compact format written by {@link CompactObjectOutput}, the fingerprint of each class is checked against
+ * the local class.
+ */
+public class CompactObjectInput implements ObjectInput {
+
+    /**
+     * 按长度预分配集合的上限
+     */
+    private static final int MAX_PRESIZE = 1024;
+
+    /**
+     * 从输入流读取时，字符串、字节数组和数组的字节数上限，即默认的最大消息长度
+     */
+    private static final int MAX_LENGTH = Constants.DEFAULT_PAYLOAD;
+
+    /**
+     * 输入流，直接读取堆内缓冲区时为空
+     */
+    private final InputStream is;
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * 本消息已读的类，按序号
+     */
+    private final List<Class<?>> classes = new ArrayList<Class<?>>();
+
+    private int depth;
+
+    public CompactObjectInput(InputStream is) {
+        this.is = is;
+        this.buffer = new byte[256];
+    }
+
+    /**
+     * Read the array of a heap buffer in place, a direct buffer through a buffer of its own.
+     */
+    public CompactObjectInput(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            this.is = null;
+            this.buffer = buffer.array();
+            this.position = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            this.is = new ByteBufferInputStream(buffer);
+            this.buffer = new byte[256];
+        }
+    }
+
+    @Override
+    public boolean readBool() throws IOException {
+        return readRawByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return readRawByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return (short) readInt();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int n = readVarint32();
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        long n = readVarint64();
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readFixed32());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readFixed64());
+    }
+
+    public char readChar() throws IOException {
+        return (char) readVarint32();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int len = readVarint32() - 1;
+        if (len == -1) {
+            return null;
+        }
+        // a char takes a byte at least
+        checkLength(len, 1);
+        char[] chars = new char[len];
+        int i = 0;
+        while (i < len) {
+            // ascii in a run, as many as the buffer holds
+            int end = Math.min(len, i + limit - position);
+            for (byte b; i < end && (b = buffer[position]) >= 0; i++, position++) {
+                chars[i] = (char) b;
+            }
+            if (i < len && (i == end || buffer[position] < 0)) {
+                int b = readRawByte() & 0xff;
+                if (b < 0x80) {
+                    chars[i++] = (char) b;
+                } else if ((b & 0xe0) == 0xc0) {
+                    chars[i++] = (char) ((b & 0x1f) << 6 | readRawByte() & 0x3f);
+                } else if ((b & 0xf0) == 0xe0) {
+                    chars[i++] = (char) ((b & 0x0f) << 12 | (readRawByte() & 0x3f) << 6 | readRawByte() & 0x3f);
+                } else {
+                    throw new IOException("Invalid utf8 byte " + b);
+                }
+            }
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public byte[] readBytes() throws IOException {
+        int len = readVarint32() - 1;
+        if (len == -1) {
+            return null;
+        }
+        checkLength(len, 1);
+        byte[] bytes = new byte[len];
+        int n = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, bytes, 0, n);
+        position += n;
+        while (n < len) {
+            int read = is == null ? -1 : is.read(bytes, n, len - n);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            n += read;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object readObject() throws IOException, ClassNotFoundException {
+        byte tag = readRawByte();
+        switch (tag) {
+            case CompactTags.NULL:
+                return null;
+            case CompactTags.TRUE:
+                return Boolean.TRUE;
+            case CompactTags.FALSE:
+                return Boolean.FALSE;
+            case CompactTags.BYTE:
+                return readByte();
+            case CompactTags.SHORT:
+                return readShort();
+            case CompactTags.INT:
+                return readInt();
+            case CompactTags.LONG:
+                return readLong();
+            case CompactTags.FLOAT:
+                return readFloat();
+            case CompactTags.DOUBLE:
+                return readDouble();
+            case CompactTags.CHAR:
+                return readChar();
+            case CompactTags.STRING:
+                return readUTF();
+            case CompactTags.BYTES:
+                return readBytes();
+            case CompactTags.DATE:
+                return new Date(readLong());
+            case CompactTags.BIG_DECIMAL:
+                return new BigDecimal(readUTF());
+            case CompactTags.BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case CompactTags.ENUM:
+                return readEnum();
+            default:
+                if (++depth > CompactObjectOutput.MAX_DEPTH) {
+                    throw new IOException("The object graph is deeper than " + CompactObjectOutput.MAX_DEPTH);
+                }
+                try {
+                    return readComplexObject(tag);
+                } finally {
+                    depth--;
+                }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readComplexObject(byte tag) throws IOException, ClassNotFoundException {
+        switch (tag) {
+            case CompactTags.ARRAY:
+                return readArray(readClass());
+            case CompactTags.LIST:
+            case CompactTags.SET: {
+                Collection<Object> collection = (Collection<Object>) newInstance(Collection.class);
+                int size = readVarint32();
+                if (collection == null) {
+                    collection = tag == CompactTags.LIST ? new ArrayList<Object>(Math.min(size, MAX_PRESIZE))
+                            : new HashSet<Object>(Math.min(size, MAX_PRESIZE) * 4 / 3 + 1);
+                }
+                for (int i = 0; i < size; i++) {
+                    collection.add(readObject());
+                }
+                return collection;
+            }
+            case CompactTags.MAP: {
+                Map<Object, Object> map = (Map<Object, Object>) newInstance(Map.class);
+                int size = readVarint32();
+                if (map == null) {
+                    map = new HashMap<Object, Object>(Math.min(size, MAX_PRESIZE) * 4 / 3 + 1);
+                }
+                for (int i = 0; i < size; i++) {
+                    map.put(readObject(), readObject());
+                }
+                return map;
+            }
+            case CompactTags.OBJECT: {
+                Class<?> c = readClass();
+                CompactCodec codec = CompactCodecs.getCodec(c);
+                if (codec == null) {
+                    throw new IOException("Class " + c.getName() + " is not a POJO");
+                }
+                return codec.read(this);
+            }
+            case CompactTags.JAVA: {
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes())) {
+                    @Override
+                    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                        try {
+                            return Class.forName(desc.getName(), false, ClassHelper.getClassLoader());
+                        } catch (ClassNotFoundException e) {
+                            return super.resolveClass(desc);
+                        }
+                    }
+                };
+                try {
+                    return ois.readObject();
+                } finally {
+                    ois.close();
+                }
+            }
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    private Object readEnum() throws IOException, ClassNotFoundException {
+        Class<?> c = readClass();
+        if (!c.isEnum()) {
+            throw new IOException("Class " + c.getName() + " is not an enum");
+        }
+        Object[] constants = c.getEnumConstants();
+        int ordinal = readVarint32();
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new IOException("Invalid ordinal " + ordinal + " of enum " + c.getName());
+        }
+        return constants[ordinal];
+    }
+
+    private Object readArray(Class<?> componentType) throws IOException, ClassNotFoundException {
+        int len = readVarint32();
+        checkLength(len, componentType == double.class ? 8 : componentType == float.class ? 4 : 1);
+        if (componentType == int.class) {
+            int[] a = new int[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readInt();
+            }
+            return a;
+        }
+        if (componentType == long.class) {
+            long[] a = new long[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readLong();
+            }
+            return a;
+        }
+        if (componentType == boolean.class) {
+            boolean[] a = new boolean[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readBool();
+            }
+            return a;
+        }
+        if (componentType == double.class) {
+            double[] a = new double[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readDouble();
+            }
+            return a;
+        }
+        if (componentType == float.class) {
+            float[] a = new float[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readFloat();
+            }
+            return a;
+        }
+        if (componentType == short.class) {
+            short[] a = new short[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readShort();
+            }
+            return a;
+        }
+        if (componentType == char.class) {
+            char[] a = new char[len];
+            for (int i = 0; i < len; i++) {
+                a[i] = readChar();
+            }
+            return a;
+        }
+        if (componentType.isPrimitive()) {
+            throw new IOException("Invalid array of " + componentType.getName());
+        }
+        Object[] a = (Object[]) Array.newInstance(componentType, len);
+        for (int i = 0; i < len; i++) {
+            a[i] = readObject();
+        }
+        return a;
+    }
+
+    /**
+     * @return the collection or the map of the class written, null for the default class
+     */
+    private Object newInstance(Class<?> type) throws IOException, ClassNotFoundException {
+        if (readVarint32() == CompactTags.KIND_DEFAULT) {
+            return null;
+        }
+        Class<?> c = readClass();
+        if (!type.isAssignableFrom(c) || !CompactCodecs.isInstantiable(c)) {
+            throw new IOException("Class " + c.getName() + " is not an instantiable " + type.getSimpleName());
+        }
+        try {
+            return c.newInstance();
+        } catch (InstantiationException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+        int index = readVarint32();
+        if (index > 0) {
+            if (index > classes.size()) {
+                throw new IOException("Invalid class reference " + index);
+            }
+            return classes.get(index - 1);
+        }
+        String name = readUTF();
+        long fingerprint = readFixed64();
+        Class<?> c = ReflectUtils.name2class(name);
+        if (CompactCodecs.getFingerprint(c) != fingerprint) {
+            throw new IOException("Incompatible class " + name + ", the fields differ between the writer and the reader");
+        }
+        classes.add(c);
+        return c;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readObject(Class<T> cls) throws IOException, ClassNotFoundException {
+        return (T) readObject();
+    }
+
+    @Override
+    public <T> T readObject(Class<T> cls, Type type) throws IOException, ClassNotFoundException {
+        return readObject(cls);
+    }
+
+    /**
+     * Checks the length read before allocating for it, against the bytes left in a buffer read in place, or against
+     * {@link #MAX_LENGTH} for a stream.
+     *
+     * @param elementBytes the least bytes written for an element
+     */
+    private void checkLength(int len, int elementBytes) throws IOException {
+        if (len < 0) {
+            throw new IOException("Invalid length " + len);
+        }
+        long bytes = (long) len * elementBytes;
+        if (is == null && bytes > limit - position) {
+            throw new IOException("Length " + len + " exceeds the " + (limit - position) + " bytes left");
+        }
+        if (is != null && bytes > MAX_LENGTH) {
+            throw new IOException("Length " + len + " exceeds the limit of " + MAX_LENGTH + " bytes");
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (is == null) {
+            return false;
+        }
+        position = 0;
+        limit = is.read(buffer, 0, buffer.length);
+        if (limit < 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private byte readRawByte() throws IOException {
+        while (position == limit) {
+            if (!fill()) {
+                throw new EOFException();
+            }
+        }
+        return buffer[position++];
+    }
+
+    private int readVarint32() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = readRawByte();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private long readVarint64() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readRawByte();
+            result |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readFixed32() throws IOException {
+        return readRawByte() & 0xff | (readRawByte() & 0xff) << 8 | (readRawByte() & 0xff) << 16 | (readRawByte() & 0xff) << 24;
+    }
+
+    private long readFixed64() throws IOException {
+        return readFixed32() & 0xffffffffL | (long) readFixed32() << 32;
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.utils.ReflectUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Writes the compact format through a buffer.
+ * <p>
+ * The integers are zigzag varints, the floats fixed little endian, the strings and the bytes prefixed with their
+ * length plus one, 0 for null. The objects are tagged by {@link CompactTags}, a class is written once per message,
+ * by its name and fingerprint, and referenced by its index after.
+ */
+public class CompactObjectOutput implements ObjectOutput {
+
+    static final int MAX_DEPTH = 512;
+
+    private final OutputStream out;
+
+    private final byte[] buffer = new byte[256];
+
+    private int position;
+
+    /**
+     * 本消息已写的类及其序号
+     */
+    private final Map<Class<?>, Integer> classes = new IdentityHashMap<Class<?>, Integer>();
+
+    private int depth;
+
+    public CompactObjectOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void writeBool(boolean v) throws IOException {
+        writeRawByte(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(byte v) throws IOException {
+        writeRawByte(v);
+    }
+
+    @Override
+    public void writeShort(short v) throws IOException {
+        writeVarint32((v << 1) ^ (v >> 31));
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        writeVarint32((v << 1) ^ (v >> 31));
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        writeVarint64((v << 1) ^ (v >> 63));
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeFixed32(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeFixed64(Double.doubleToLongBits(v));
+    }
+
+    public void writeChar(char v) throws IOException {
+        writeVarint32(v);
+    }
+
+    @Override
+    public void writeUTF(String v) throws IOException {
+        if (v == null) {
+            writeRawByte(0);
+            return;
+        }
+        int len = v.length();
+        writeVarint32(len + 1);
+        int i = 0;
+        while (i < len) {
+            if (buffer.length - position < 3) {
+                flush();
+            }
+            // ascii in a run, as many as the buffer holds
+            int end = Math.min(len, i + buffer.length - position);
+            for (char c; i < end && (c = v.charAt(i)) < 0x80; i++) {
+                buffer[position++] = (byte) c;
+            }
+            if (i < end && buffer.length - position >= 3) {
+                char c = v.charAt(i++);
+                if (c < 0x800) {
+                    buffer[position++] = (byte) (0xc0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                } else {
+                    buffer[position++] = (byte) (0xe0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void writeBytes(byte[] v) throws IOException {
+        if (v == null) {
+            writeRawByte(0);
+        } else {
+            writeBytes(v, 0, v.length);
+        }
+    }
+
+    @Override
+    public void writeBytes(byte[] v, int off, int len) throws IOException {
+        writeVarint32(len + 1);
+        if (len <= buffer.length - position) {
+            System.arraycopy(v, off, buffer, position, len);
+            position += len;
+        } else {
+            flush();
+            out.write(v, off, len);
+        }
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        if (obj == null) {
+            writeRawByte(CompactTags.NULL);
+            return;
+        }
+        Class<?> c = obj.getClass();
+        if (c == String.class) {
+            writeRawByte(CompactTags.STRING);
+            writeUTF((String) obj);
+        } else if (c == Integer.class) {
+            writeRawByte(CompactTags.INT);
+            writeInt((Integer) obj);
+        } else if (c == Long.class) {
+            writeRawByte(CompactTags.LONG);
+            writeLong((Long) obj);
+        } else if (c == Boolean.class) {
+            writeRawByte((Boolean) obj ? CompactTags.TRUE : CompactTags.FALSE);
+        } else if (c == Double.class) {
+            writeRawByte(CompactTags.DOUBLE);
+            writeDouble((Double) obj);
+        } else if (c == Float.class) {
+            writeRawByte(CompactTags.FLOAT);
+            writeFloat((Float) obj);
+        } else if (c == Short.class) {
+            writeRawByte(CompactTags.SHORT);
+            writeShort((Short) obj);
+        } else if (c == Byte.class) {
+            writeRawByte(CompactTags.BYTE);
+            writeByte((Byte) obj);
+        } else if (c == Character.class) {
+            writeRawByte(CompactTags.CHAR);
+            writeChar((Character) obj);
+        } else if (c == byte[].class) {
+            writeRawByte(CompactTags.BYTES);
+            writeBytes((byte[]) obj);
+        } else if (c == Date.class) {
+            writeRawByte(CompactTags.DATE);
+            writeLong(((Date) obj).getTime());
+        } else if (c == BigDecimal.class) {
+            writeRawByte(CompactTags.BIG_DECIMAL);
+            writeUTF(obj.toString());
+        } else if (c == BigInteger.class) {
+            writeRawByte(CompactTags.BIG_INTEGER);
+            writeBytes(((BigInteger) obj).toByteArray());
+        } else if (obj instanceof Enum) {
+            writeRawByte(CompactTags.ENUM);
+            writeClass(((Enum<?>) obj).getDeclaringClass());
+            writeVarint32(((Enum<?>) obj).ordinal());
+        } else {
+            if (++depth > MAX_DEPTH) {
+                throw new IOException("The object graph is deeper than " + MAX_DEPTH + ", a cyclic reference? the compact serialization doesn't support cyclic references");
+            }
+            try {
+                writeComplexObject(obj, c);
+            } finally {
+                depth--;
+            }
+        }
+    }
+
+    private void writeComplexObject(Object obj, Class<?> c) throws IOException {
+        if (c.isArray()) {
+            writeRawByte(CompactTags.ARRAY);
+            writeClass(c.getComponentType());
+            writeArray(obj, c.getComponentType());
+        } else if (obj instanceof Collection && (obj instanceof List || obj instanceof Set) && !hasComparator(obj)) {
+            writeRawByte(obj instanceof List ? CompactTags.LIST : CompactTags.SET);
+            writeKind(c, c == ArrayList.class || c == HashSet.class);
+            Collection<?> collection = (Collection<?>) obj;
+            writeVarint32(collection.size());
+            for (Object element : collection) {
+                writeObject(element);
+            }
+        } else if (obj instanceof Map && !hasComparator(obj)) {
+            writeRawByte(CompactTags.MAP);
+            writeKind(c, c == HashMap.class);
+            Map<?, ?> map = (Map<?, ?>) obj;
+            writeVarint32(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        } else {
+            CompactCodec codec = CompactCodecs.getCodec(c);
+            if (codec != null) {
+                writeRawByte(CompactTags.OBJECT);
+                writeClass(c);
+                codec.write(this, obj);
+            } else if (obj instanceof Serializable) {
+                writeRawByte(CompactTags.JAVA);
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                ObjectOutputStream oos = new ObjectOutputStream(bos);
+                oos.writeObject(obj);
+                oos.close();
+                writeBytes(bos.toByteArray());
+            } else {
+                throw new NotSerializableException(c.getName());
+            }
+        }
+    }
+
+    private void writeArray(Object array, Class<?> componentType) throws IOException {
+        if (componentType == int.class) {
+            int[] a = (int[]) array;
+            writeVarint32(a.length);
+            for (int v : a) {
+                writeInt(v);
+            }
+        } else if (componentType == long.class) {
+            long[] a = (long[]) array;
+            writeVarint32(a.length);
+            for (long v : a) {
+                writeLong(v);
+            }
+        } else if (componentType == boolean.class) {
+            boolean[] a = (boolean[]) array;
+            writeVarint32(a.length);
+            for (boolean v : a) {
+                writeBool(v);
+            }
+        } else if (componentType == double.class) {
+            double[] a = (double[]) array;
+            writeVarint32(a.length);
+            for (double v : a) {
+                writeDouble(v);
+            }
+        } else if (componentType == float.class) {
+            float[] a = (float[]) array;
+            writeVarint32(a.length);
+            for (float v : a) {
+                writeFloat(v);
+            }
+        } else if (componentType == short.class) {
+            short[] a = (short[]) array;
+            writeVarint32(a.length);
+            for (short v : a) {
+                writeShort(v);
+            }
+        } else if (componentType == char.class) {
+            char[] a = (char[]) array;
+            writeVarint32(a.length);
+            for (char v : a) {
+                writeChar(v);
+            }
+        } else {
+            Object[] a = (Object[]) array;
+            writeVarint32(a.length);
+            for (Object v : a) {
+                writeObject(v);
+            }
+        }
+    }
+
+    /**
+     * The collections and maps of other classes than the default ones are written with their class, if it can be
+     * instantiated, and read as the default class otherwise, such as the unmodifiable ones.
+     */
+    private void writeKind(Class<?> c, boolean isDefault) throws IOException {
+        if (!isDefault && CompactCodecs.isInstantiable(c)) {
+            writeVarint32(CompactTags.KIND_CLASS);
+            writeClass(c);
+        } else {
+            writeVarint32(CompactTags.KIND_DEFAULT);
+        }
+    }
+
+    /**
+     * The sorted collections with a comparator fall back to java serialization, to keep the comparator.
+     */
+    private static boolean hasComparator(Object obj) {
+        return obj instanceof SortedSet && ((SortedSet<?>) obj).comparator() != null
+                || obj instanceof SortedMap && ((SortedMap<?, ?>) obj).comparator() != null;
+    }
+
+    private void writeClass(Class<?> c) throws IOException {
+        Integer index = classes.get(c);
+        if (index != null) {
+            writeVarint32(index + 1);
+            return;
+        }
+        classes.put(c, classes.size());
+        writeVarint32(0);
+        writeUTF(ReflectUtils.getName(c));
+        writeFixed64(CompactCodecs.getFingerprint(c));
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flush();
+        out.flush();
+    }
+
+    private void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void writeRawByte(int v) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeVarint32(int v) throws IOException {
+        if (buffer.length - position < 5) {
+            flush();
+        }
+        while ((v & ~0x7f) != 0) {
+            buffer[position++] = (byte) (v & 0x7f | 0x80);
+            v >>>= 7;
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeVarint64(long v) throws IOException {
+        if (buffer.length - position < 10) {
+            flush();
+        }
+        while ((v & ~0x7fL) != 0) {
+            buffer[position++] = (byte) (v & 0x7f | 0x80);
+            v >>>= 7;
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeFixed32(int v) throws IOException {
+        if (buffer.length - position < 4) {
+            flush();
+        }
+        buffer[position++] = (byte) v;
+        buffer[position++] = (byte) (v >> 8);
+        buffer[position++] = (byte) (v >> 16);
+        buffer[position++] = (byte) (v >> 24);
+    }
+
+    private void writeFixed64(long v) throws IOException {
+        writeFixed32((int) v);
+        writeFixed32((int) (v >> 32));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary serialization, the fields of the POJOs are written in order by generated codecs, without field names
+ * and tags, the numbers as varints. Each class is described once per message, by its name and the fingerprint of its
+ * fields, checked by the reader.
+ */
+public class CompactSerialization implements Serialization, ByteBufferSerialization {
+
+    @Override
+    public byte getContentTypeId() {
+        return 10;
+    }
+
+    @Override
+    public String getContentType() {
+        return "x-application/compact";
+    }
+
+    @Override
+    public ObjectOutput serialize(URL url, OutputStream out) throws IOException {
+        return new CompactObjectOutput(out);
+    }
+
+    @Override
+    public ObjectInput deserialize(URL url, InputStream is) throws IOException {
+        return new CompactObjectInput(is);
+    }
+
+    @Override
+    public ObjectInput deserialize(URL url, ByteBuffer buffer) throws IOException {
+        return new CompactObjectInput(buffer);
+    }
+}
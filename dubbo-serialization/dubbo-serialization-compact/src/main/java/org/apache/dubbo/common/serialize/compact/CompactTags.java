@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+/**
+ * Tags of the values written by {@link CompactObjectOutput#writeObject(Object)}.
+ */
+final class CompactTags {
+
+    static final byte NULL = 0;
+
+    static final byte TRUE = 1;
+
+    static final byte FALSE = 2;
+
+    static final byte BYTE = 3;
+
+    static final byte SHORT = 4;
+
+    static final byte INT = 5;
+
+    static final byte LONG = 6;
+
+    static final byte FLOAT = 7;
+
+    static final byte DOUBLE = 8;
+
+    static final byte CHAR = 9;
+
+    static final byte STRING = 10;
+
+    static final byte BYTES = 11;
+
+    static final byte DATE = 12;
+
+    static final byte BIG_DECIMAL = 13;
+
+    static final byte BIG_INTEGER = 14;
+
+    /**
+     * class, ordinal
+     */
+    static final byte ENUM = 15;
+
+    /**
+     * kind, size, elements
+     */
+    static final byte LIST = 16;
+
+    static final byte SET = 17;
+
+    /**
+     * kind, size, keys and values
+     */
+    static final byte MAP = 18;
+
+    /**
+     * component class, length, elements
+     */
+    static final byte ARRAY = 19;
+
+    /**
+     * class, fields written by the codec of the class
+     */
+    static final byte OBJECT = 20;
+
+    /**
+     * bytes of java serialization, for the other serializable objects, such as exceptions
+     */
+    static final byte JAVA = 21;
+
+    /**
+     * collection or map of the default class, ArrayList, HashSet or HashMap
+     */
+    static final int KIND_DEFAULT = 0;
+
+    /**
+     * collection or map of the class written after the kind
+     */
+    static final int KIND_CLASS = 1;
+
+    private CompactTags() {
+    }
+
+}
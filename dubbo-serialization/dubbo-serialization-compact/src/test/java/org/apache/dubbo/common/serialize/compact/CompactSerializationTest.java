@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compact;
+
+import org.apache.dubbo.common.bytecode.ClassGenerator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CompactSerializationTest {
+
+    private final CompactSerialization serialization = new CompactSerialization();
+
+    @Test
+    public void testData() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CompactObjectOutput out = (CompactObjectOutput) serialization.serialize(null, bos);
+        out.writeBool(true);
+        out.writeByte((byte) -3);
+        out.writeShort(Short.MIN_VALUE);
+        out.writeInt(-1);
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeLong(Long.MIN_VALUE);
+        out.writeFloat(1.5f);
+        out.writeDouble(-2.25d);
+        out.writeChar('中');
+        out.writeUTF("I don’t know 知りません Не знаю");
+        out.writeUTF(null);
+        out.writeUTF(repeat("a中", 300));
+        out.writeBytes(new byte[]{1, 2, 3});
+        out.writeBytes(null);
+        out.writeBytes(new byte[1000]);
+        out.flushBuffer();
+
+        CompactObjectInput in = (CompactObjectInput) serialization.deserialize(null, new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertTrue(in.readBool());
+        Assert.assertEquals(-3, in.readByte());
+        Assert.assertEquals(Short.MIN_VALUE, in.readShort());
+        Assert.assertEquals(-1, in.readInt());
+        Assert.assertEquals(Integer.MAX_VALUE, in.readInt());
+        Assert.assertEquals(Long.MIN_VALUE, in.readLong());
+        Assert.assertEquals(1.5f, in.readFloat(), 0);
+        Assert.assertEquals(-2.25d, in.readDouble(), 0);
+        Assert.assertEquals('中', in.readChar());
+        Assert.assertEquals("I don’t know 知りません Не знаю", in.readUTF());
+        Assert.assertNull(in.readUTF());
+        Assert.assertEquals(repeat("a中", 300), in.readUTF());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, in.readBytes());
+        Assert.assertNull(in.readBytes());
+        Assert.assertArrayEquals(new byte[1000], in.readBytes());
+    }
+
+    @Test
+    public void testObjects() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("b", 1);
+        map.put("a", Arrays.asList("x", null));
+        Object[] objects = new Object[]{null, Boolean.FALSE, (byte) 1, (short) 2, 3, 4L, 5f, 6d, 'c', "s", new byte[]{7},
+                new Date(8), new BigDecimal("9.01"), new BigInteger("-10"), Color.GREEN, new int[]{1, -1},
+                new String[]{"a", null}, new ArrayList<Object>(Arrays.asList(1, "2")), new LinkedList<Object>(Arrays.asList(3)),
+                new TreeSet<String>(Arrays.asList("b", "a")), map, new ConcurrentHashMap<String, String>(Collections.singletonMap("k", "v")),
+                new IllegalStateException("error")};
+        Object[] result = (Object[]) roundTrip(objects);
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] instanceof Throwable) {
+                Assert.assertEquals(((Throwable) objects[i]).getMessage(), ((Throwable) result[i]).getMessage());
+            } else if (objects[i] != null && objects[i].getClass().isArray()) {
+                Assert.assertTrue(Arrays.deepEquals(new Object[]{objects[i]}, new Object[]{result[i]}));
+            } else {
+                Assert.assertEquals(objects[i], result[i]);
+                Assert.assertSame(objects[i] == null ? null : objects[i].getClass(), result[i] == null ? null : result[i].getClass());
+            }
+        }
+        Assert.assertEquals(Arrays.asList(1), roundTrip(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void testPojo() throws Exception {
+        Person person = newPerson();
+        Person result = (Person) roundTrip(person);
+        Assert.assertEquals(person, result);
+        Assert.assertTrue(ClassGenerator.isDynamicClass(CompactCodecs.getCodec(Person.class).getClass()));
+        Assert.assertTrue(ClassGenerator.isDynamicClass(CompactCodecs.getCodec(Address.class).getClass()));
+        Assert.assertFalse(ClassGenerator.isDynamicClass(CompactCodecs.getCodec(Secret.class).getClass()));
+        Assert.assertNull(CompactCodecs.getCodec(String.class));
+        Assert.assertNull(CompactCodecs.getCodec(Color.class));
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        CompactCodecs.prepare(PersonService.class);
+        Assert.assertNotNull(CompactCodecs.getCodec(Person.class));
+        Assert.assertEquals(Person.class, CompactCodecs.getCodec(Person.class).getType());
+    }
+
+    @Test
+    public void testClassWrittenOnce() throws Exception {
+        List<Address> addresses = new ArrayList<Address>();
+        for (int i = 0; i < 10; i++) {
+            addresses.add(new Address("street" + i, i));
+        }
+        int one = serialize(addresses.subList(0, 1)).length;
+        int ten = serialize(addresses).length;
+        Assert.assertTrue(ten - one < 9 * (Address.class.getName().length() + 8));
+        Assert.assertEquals(addresses, roundTrip(addresses));
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Assert.assertNotEquals(0, CompactCodecs.getFingerprint(Address.class));
+        Assert.assertNotEquals(CompactCodecs.getFingerprint(Address.class), CompactCodecs.getFingerprint(Secret.class));
+        Assert.assertEquals(0, CompactCodecs.getFingerprint(String.class));
+
+        byte[] bytes = serialize(new Address("street", 1));
+        // corrupt the fingerprint after the tag, the class index and the class name
+        int offset = 3 + Address.class.getName().length();
+        bytes[offset] ^= 1;
+        try {
+            serialization.deserialize(null, new ByteArrayInputStream(bytes)).readObject();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("Incompatible class"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCycle() throws Exception {
+        List<Object> list = new ArrayList<Object>();
+        list.add(list);
+        serialize(list);
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        Person person = newPerson();
+        byte[] bytes = serialize(person);
+        // in the middle of a heap buffer, read in place, and of a direct one
+        byte[] array = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, array, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+        direct.position(5);
+        direct.put(bytes);
+        direct.flip().position(5);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(array, 5, bytes.length), direct}) {
+            Assert.assertEquals(person, serialization.deserialize(null, buffer).readObject());
+        }
+        try {
+            serialization.deserialize(null, ByteBuffer.wrap(array, 5, bytes.length - 1)).readObject();
+            Assert.fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidLength() throws Exception {
+        // a length of 2^28 - 2, then -2, before the end of the bytes
+        byte[][] lengths = {{(byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f}, {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f}};
+        for (byte[] bytes : lengths) {
+            CompactObjectInput[] inputs = {new CompactObjectInput(ByteBuffer.wrap(bytes)), new CompactObjectInput(new ByteArrayInputStream(bytes)),
+                    new CompactObjectInput(ByteBuffer.wrap(bytes)), new CompactObjectInput(new ByteArrayInputStream(bytes))};
+            for (int i = 0; i < inputs.length; i++) {
+                try {
+                    if (i < 2) {
+                        inputs[i].readUTF();
+                    } else {
+                        inputs[i].readBytes();
+                    }
+                    Assert.fail();
+                } catch (IOException expected) {
+                    Assert.assertTrue(expected.getMessage().contains("ength"));
+                }
+            }
+        }
+    }
+
+    private static Person newPerson() {
+        Person person = new Person();
+        person.setName("superman");
+        person.setAge(30);
+        person.setColor(Color.RED);
+        person.setTags(new String[]{"a", "b"});
+        person.setScores(new long[]{1, Long.MAX_VALUE});
+        person.setAddresses(Arrays.asList(new Address("wensanlu", 1), new Address("huanglong", 2)));
+        person.height = 1.8d;
+        person.setSecret(new Secret(7));
+        return person;
+    }
+
+    private byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CompactObjectOutput out = (CompactObjectOutput) serialization.serialize(null, bos);
+        out.writeObject(obj);
+        out.flushBuffer();
+        return bos.toByteArray();
+    }
+
+    private Object roundTrip(Object obj) throws Exception {
+        return serialization.deserialize(null, new ByteArrayInputStream(serialize(obj))).readObject();
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            buf.append(s);
+        }
+        return buf.toString();
+    }
+
+    public enum Color {
+        RED, GREEN
+    }
+
+    public interface PersonService {
+
+        Person getPerson(Map<String, List<Address>> addresses);
+    }
+
+    public static class Person {
+
+        public double height;
+
+        private String name;
+
+        private int age;
+
+        private Color color;
+
+        private String[] tags;
+
+        private long[] scores;
+
+        private List<Address> addresses;
+
+        private Secret secret;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+
+        public void setColor(Color color) {
+            this.color = color;
+        }
+
+        public String[] getTags() {
+            return tags;
+        }
+
+        public void setTags(String[] tags) {
+            this.tags = tags;
+        }
+
+        public long[] getScores() {
+            return scores;
+        }
+
+        public void setScores(long[] scores) {
+            this.scores = scores;
+        }
+
+        public List<Address> getAddresses() {
+            return addresses;
+        }
+
+        public void setAddresses(List<Address> addresses) {
+            this.addresses = addresses;
+        }
+
+        public Secret getSecret() {
+            return secret;
+        }
+
+        public void setSecret(Secret secret) {
+            this.secret = secret;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Person)) {
+                return false;
+            }
+            Person p = (Person) o;
+            return height == p.height && age == p.age && name.equals(p.name) && color == p.color
+                    && Arrays.equals(tags, p.tags) && Arrays.equals(scores, p.scores) && addresses.equals(p.addresses)
+                    && secret.equals(p.secret);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    /**
+     * Without accessors, the fields are accessed by reflection in the generated codec.
+     */
+    public static class Address {
+
+        private String street;
+
+        private int number;
+
+        public Address() {
+        }
+
+        Address(String street, int number) {
+            this.street = street;
+            this.number = number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Address && street.equals(((Address) o).street) && number == ((Address) o).number;
+        }
+
+        @Override
+        public int hashCode() {
+            return number;
+        }
+    }
+
+    /**
+     * Not public, read and written by the reflective codec.
+     */
+    static class Secret {
+
+        private final int value;
+
+        private Secret() {
+            this(0);
+        }
+
+        Secret(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Secret && value == ((Secret) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+}
@@ -37,7 +37,9 @@ public class FstFactory {
     }
 
     public FstFactory() {
-        for (Class clazz : SerializableClassRegistry.getRegisteredClasses()) {
+        // fst numbers the classes in the order of registration, in an array, so the ids derived from the class names
+        // don't fit, the classes numbered are the ones digested for the consumers to check
+        for (Class clazz : SerializableClassRegistry.getNumberedClasses()) {
             conf.registerClass(clazz);
         }
     }
@@ -49,4 +51,11 @@ public class FstFactory {
     public FSTObjectInput getObjectInput(InputStream inputStream) {
         return conf.getObjectInput(inputStream);
     }
+
+    public FSTObjectInput getObjectInput(byte[] bytes, int offset, int length) {
+        if (offset == 0) {
+            return conf.getObjectInput(bytes, length);
+        }
+        return conf.getObjectInputCopyFrom(bytes, offset, length);
+    }
 }
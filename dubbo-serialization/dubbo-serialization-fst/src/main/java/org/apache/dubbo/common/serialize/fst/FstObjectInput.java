@@ -16,6 +16,7 @@
  */
 package org.apache.dubbo.common.serialize.fst;
 
+import org.apache.dubbo.common.io.ByteBufferInputStream;
 import org.apache.dubbo.common.serialize.ObjectInput;
 
 import org.nustaq.serialization.FSTObjectInput;
@@ -23,6 +24,7 @@ import org.nustaq.serialization.FSTObjectInput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 
 public class FstObjectInput implements ObjectInput {
@@ -33,6 +35,17 @@ public class FstObjectInput implements ObjectInput {
         input = FstFactory.getDefaultFactory().getObjectInput(inputStream);
     }
 
+    /**
+     * Read the array of a heap buffer, in place when it starts the array, fst reads a direct buffer into its own.
+     */
+    public FstObjectInput(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            input = FstFactory.getDefaultFactory().getObjectInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            input = FstFactory.getDefaultFactory().getObjectInput(new ByteBufferInputStream(buffer));
+        }
+    }
+
     @Override
     public boolean readBool() throws IOException {
         return input.readBoolean();
@@ -17,6 +17,7 @@
 package org.apache.dubbo.common.serialize.fst;
 
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
@@ -24,8 +25,9 @@ import org.apache.dubbo.common.serialize.Serialization;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
-public class FstSerialization implements Serialization {
+public class FstSerialization implements Serialization, ByteBufferSerialization {
 
     @Override
     public byte getContentTypeId() {
@@ -46,4 +48,9 @@ public class FstSerialization implements Serialization {
     public ObjectInput deserialize(URL url, InputStream is) throws IOException {
         return new FstObjectInput(is);
     }
+
+    @Override
+    public ObjectInput deserialize(URL url, ByteBuffer buffer) throws IOException {
+        return new FstObjectInput(buffer);
+    }
 }
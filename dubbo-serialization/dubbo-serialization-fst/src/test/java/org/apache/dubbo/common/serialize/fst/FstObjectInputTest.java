@@ -21,7 +21,9 @@ import org.apache.dubbo.common.serialize.fst.model.FullAddress;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
@@ -44,5 +46,27 @@ public class FstObjectInputTest {
         assertThat(bytes.length, is(0));
     }
 
+    @Test
+    public void testByteBuffer() throws IOException, ClassNotFoundException {
+        FullAddress fullAddress = new FullAddress("cId", "pN", "cityId", "Nan Long Street", "51000");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FstObjectOutput fstObjectOutput = new FstObjectOutput(bos);
+        fstObjectOutput.writeObject(fullAddress);
+        fstObjectOutput.flushBuffer();
+        byte[] bytes = bos.toByteArray();
+
+        // at the start of a heap buffer, in the middle of one, and of a direct one
+        byte[] array = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, array, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+        direct.position(5);
+        direct.put(bytes);
+        direct.flip().position(5);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), ByteBuffer.wrap(array, 5, bytes.length), direct}) {
+            this.fstObjectInput = new FstObjectInput(buffer);
+            assertThat(fstObjectInput.readObject(FullAddress.class), is(fullAddress));
+        }
+    }
+
 
 }
\ No newline at end of file
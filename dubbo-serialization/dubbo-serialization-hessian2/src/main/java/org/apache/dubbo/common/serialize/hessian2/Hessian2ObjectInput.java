@@ -17,6 +17,7 @@
 package org.apache.dubbo.common.serialize.hessian2;
 
 import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectInput;
 
 import java.io.IOException;
@@ -25,12 +26,24 @@ import java.lang.reflect.Type;
 
 /**
  * Hessian2 Object input.
+ * <p>
+ * The Hessian2Input, with its buffer and reference lists, is kept by the thread and reused by its next input once
+ * {@link #cleanup()} is called. An input not cleaned up is simply not reused.
  */
-public class Hessian2ObjectInput implements ObjectInput {
-    private final Hessian2Input mH2i;
+public class Hessian2ObjectInput implements ObjectInput, Cleanable {
+
+    private static final ThreadLocal<ReusableHessian2Input> INPUT = new ThreadLocal<ReusableHessian2Input>();
+
+    private Hessian2Input mH2i;
 
     public Hessian2ObjectInput(InputStream is) {
-        mH2i = new Hessian2Input(is);
+        ReusableHessian2Input input = INPUT.get();
+        if (input == null || input.inUse) {
+            input = new ReusableHessian2Input(new SwitchableInputStream());
+            INPUT.set(input);
+        }
+        input.reset(is);
+        mH2i = input;
         mH2i.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
     }
 
@@ -96,4 +109,72 @@ public class Hessian2ObjectInput implements ObjectInput {
         return readObject(cls);
     }
 
+    @Override
+    public void cleanup() {
+        if (mH2i instanceof ReusableHessian2Input) {
+            ((ReusableHessian2Input) mH2i).release();
+        }
+        mH2i = null;
+    }
+
+    /**
+     * Hessian2Input reading from a stream switched between messages.
+     */
+    private static final class ReusableHessian2Input extends Hessian2Input {
+
+        private final SwitchableInputStream stream;
+
+        private boolean inUse;
+
+        ReusableHessian2Input(SwitchableInputStream stream) {
+            super(stream);
+            this.stream = stream;
+        }
+
+        void reset(InputStream is) {
+            stream.is = is;
+            inUse = true;
+        }
+
+        void release() {
+            stream.is = null;
+            try {
+                // drop what an unfinished message left in the buffer
+                while (read() >= 0) {
+                }
+            } catch (IOException e) {
+                // left in use, never reused
+                return;
+            }
+            resetReferences();
+            if (_classDefs != null) {
+                _classDefs.clear();
+            }
+            if (_types != null) {
+                _types.clear();
+            }
+            inUse = false;
+        }
+    }
+
+    private static final class SwitchableInputStream extends InputStream {
+
+        private InputStream is;
+
+        @Override
+        public int read() throws IOException {
+            return is == null ? -1 : is.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return is == null ? -1 : is.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return is == null ? 0 : is.available();
+        }
+    }
+
 }
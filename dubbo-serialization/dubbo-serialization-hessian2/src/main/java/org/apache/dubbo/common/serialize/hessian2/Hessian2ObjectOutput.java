@@ -17,19 +17,40 @@
 package org.apache.dubbo.common.serialize.hessian2;
 
 import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Map;
 
 /**
  * Hessian2 Object output.
+ * <p>
+ * The Hessian2Output, with its buffer and reference maps, is kept by the thread and reused by its next output once
+ * {@link #cleanup()} is called. An output not cleaned up is simply not reused.
  */
-public class Hessian2ObjectOutput implements ObjectOutput {
-    private final Hessian2Output mH2o;
+public class Hessian2ObjectOutput implements ObjectOutput, Cleanable {
+
+    private static final ThreadLocal<ReusableHessian2Output> OUTPUT = new ThreadLocal<ReusableHessian2Output>();
+
+    private Hessian2Output mH2o;
 
     public Hessian2ObjectOutput(OutputStream os) {
-        mH2o = new Hessian2Output(os);
+        if (ReusableHessian2Output.SUPPORTED) {
+            ReusableHessian2Output output = OUTPUT.get();
+            if (output == null || output.inUse) {
+                output = new ReusableHessian2Output();
+                OUTPUT.set(output);
+            }
+            output.reset(os);
+            mH2o = output;
+        } else {
+            mH2o = new Hessian2Output(os);
+        }
         mH2o.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
     }
 
@@ -92,4 +113,81 @@ public class Hessian2ObjectOutput implements ObjectOutput {
     public void flushBuffer() throws IOException {
         mH2o.flushBuffer();
     }
+
+    @Override
+    public void cleanup() {
+        if (mH2o instanceof ReusableHessian2Output) {
+            ((ReusableHessian2Output) mH2o).release();
+        }
+        mH2o = null;
+    }
+
+    /**
+     * Hessian2Output reset between messages, its class and type definitions being private to each message.
+     */
+    private static final class ReusableHessian2Output extends Hessian2Output {
+
+        private static final Logger logger = LoggerFactory.getLogger(ReusableHessian2Output.class);
+
+        private static final Field CLASS_REFS = getField("_classRefs");
+
+        private static final Field TYPE_REFS = getField("_typeRefs");
+
+        static final boolean SUPPORTED = CLASS_REFS != null && TYPE_REFS != null;
+
+        private static final OutputStream DISCARD = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        private boolean inUse;
+
+        ReusableHessian2Output() {
+            super(null);
+        }
+
+        void reset(OutputStream os) {
+            _os = os;
+            inUse = true;
+        }
+
+        void release() {
+            try {
+                // drop what an unfinished message left in the buffer
+                _os = DISCARD;
+                flushBuffer();
+                _os = null;
+                resetReferences();
+                clear(CLASS_REFS);
+                clear(TYPE_REFS);
+                inUse = false;
+            } catch (Throwable t) {
+                // left in use, never reused
+                logger.warn("Failed to reset hessian2 output, cause: " + t.getMessage(), t);
+            }
+        }
+
+        private void clear(Field field) throws IllegalAccessException {
+            Map<?, ?> map = (Map<?, ?>) field.get(this);
+            if (map != null) {
+                map.clear();
+            }
+        }
+
+        private static Field getField(String name) {
+            try {
+                Field field = Hessian2Output.class.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (Throwable t) {
+                logger.warn("Hessian2 output can't be reused, cause: " + t.getMessage(), t);
+                return null;
+            }
+        }
+    }
 }
@@ -17,6 +17,8 @@
 package org.apache.dubbo.common.serialize.hessian2;
 
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.io.ByteBufferInputStream;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
@@ -24,8 +26,9 @@ import org.apache.dubbo.common.serialize.Serialization;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
-public class Hessian2Serialization implements Serialization {
+public class Hessian2Serialization implements Serialization, ByteBufferSerialization {
 
     public static final byte ID = 2;
 
@@ -49,4 +52,10 @@ public class Hessian2Serialization implements Serialization {
         return new Hessian2ObjectInput(is);
     }
 
+    @Override
+    public ObjectInput deserialize(URL url, ByteBuffer buffer) throws IOException {
+        // the hessian2 input reads its own buffer, filled from the nio buffer without the channel buffer in between
+        return new Hessian2ObjectInput(new ByteBufferInputStream(buffer));
+    }
+
 }
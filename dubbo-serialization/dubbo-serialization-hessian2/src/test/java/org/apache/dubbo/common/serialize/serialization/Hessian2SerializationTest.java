@@ -16,6 +16,9 @@
  */
 package org.apache.dubbo.common.serialize.serialization;
 
+import org.apache.dubbo.common.model.person.BigPerson;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
@@ -24,9 +27,12 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -35,8 +41,68 @@ public class Hessian2SerializationTest extends AbstractSerializationPersionFailT
         serialization = new Hessian2Serialization();
     }
 
+    @Test
+    public void test_ByteBuffer() throws Exception {
+        ObjectOutput objectOutput = serialization.serialize(url, byteArrayOutputStream);
+        objectOutput.writeObject(bigPerson);
+        objectOutput.writeUTF("end");
+        objectOutput.flushBuffer();
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+
+        // in the middle of a heap buffer, and of a direct one
+        byte[] array = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, array, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+        direct.position(5);
+        direct.put(bytes);
+        direct.flip().position(5);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(array, 5, bytes.length), direct}) {
+            ObjectInput objectInput = ((ByteBufferSerialization) serialization).deserialize(url, buffer);
+            assertEquals(bigPerson, objectInput.readObject(BigPerson.class));
+            assertEquals("end", objectInput.readUTF());
+            ((Cleanable) objectInput).cleanup();
+        }
+    }
+
     // Hessian2 
 
+    @Test
+    public void test_reuse() throws Exception {
+        byte[] first = write(bigPerson);
+        byte[] second = write(bigPerson);
+        // class definitions are written again for each message
+        assertArrayEquals(first, second);
+
+        for (int i = 0; i < 2; i++) {
+            ObjectInput in = serialization.deserialize(url, new ByteArrayInputStream(i == 0 ? first : second));
+            assertEquals(bigPerson, in.readObject(BigPerson.class));
+            ((Cleanable) in).cleanup();
+        }
+
+        // a message read in part, its rest dropped at cleanup
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutput out = serialization.serialize(url, bos);
+        out.writeUTF("first");
+        out.writeObject(bigPerson);
+        out.flushBuffer();
+        ((Cleanable) out).cleanup();
+        ObjectInput in = serialization.deserialize(url, new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals("first", in.readUTF());
+        ((Cleanable) in).cleanup();
+        in = serialization.deserialize(url, new ByteArrayInputStream(second));
+        assertEquals(bigPerson, in.readObject(BigPerson.class));
+        ((Cleanable) in).cleanup();
+    }
+
+    private byte[] write(Object obj) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutput out = serialization.serialize(url, bos);
+        out.writeObject(obj);
+        out.flushBuffer();
+        ((Cleanable) out).cleanup();
+        return bos.toByteArray();
+    }
+
     @Test
     public void test_boolArray_withType() throws Exception {
         boolean[] data = new boolean[]{true, false, true};
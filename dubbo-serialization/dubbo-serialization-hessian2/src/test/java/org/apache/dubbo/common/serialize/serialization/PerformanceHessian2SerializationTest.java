@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.serialization;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.model.person.BigPerson;
+import org.apache.dubbo.common.model.person.FullAddress;
+import org.apache.dubbo.common.model.person.PersonInfo;
+import org.apache.dubbo.common.model.person.PersonStatus;
+import org.apache.dubbo.common.model.person.Phone;
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2SerializerFactory;
+
+import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Throughput and allocation of hessian2 messages, with a new Hessian2Output/Hessian2Input per message and with the
+ * reused ones of Hessian2ObjectOutput/Hessian2ObjectInput.
+ * Run with -Dmessages=1000000
+ */
+public class PerformanceHessian2SerializationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceHessian2SerializationTest.class);
+
+    private final Serialization serialization = new Hessian2Serialization();
+
+    private final URL url = new URL("protocol", "1.1.1.1", 1234);
+
+    private final BigPerson bigPerson = new BigPerson();
+
+    {
+        bigPerson.setPersonId("superman111");
+        bigPerson.setLoginName("superman");
+        bigPerson.setStatus(PersonStatus.ENABLED);
+        bigPerson.setEmail("sm@1.com");
+        bigPerson.setPenName("pname");
+        PersonInfo pi = new PersonInfo();
+        pi.setPhones(Arrays.asList(new Phone("86", "0571", "87654321", "001"), new Phone("86", "0571", "87654322", "002")));
+        pi.setFullAddress(new FullAddress("CN", "zj", "3480", "wensanlu", "315000"));
+        pi.setMobileNo("13584652131");
+        pi.setName("superman");
+        bigPerson.setInfoProfile(pi);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        int messages = Integer.getInteger("messages", 0);
+        if (messages <= 0) {
+            logger.warn("Please set -Dmessages=1000000");
+            return;
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(4096);
+        for (int round = 0; round < 3; round++) {
+            // the last round is measured, the others warm up
+            run("new", messages, bos, false, round == 2);
+            run("reused", messages, bos, true, round == 2);
+        }
+    }
+
+    private void run(String name, int messages, ByteArrayOutputStream bos, boolean reuse, boolean log) throws Exception {
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            bos.reset();
+            if (reuse) {
+                ObjectOutput out = serialization.serialize(url, bos);
+                out.writeObject(bigPerson);
+                out.flushBuffer();
+                ((Cleanable) out).cleanup();
+                ObjectInput in = serialization.deserialize(url, new ByteArrayInputStream(bos.toByteArray()));
+                in.readObject(BigPerson.class);
+                ((Cleanable) in).cleanup();
+            } else {
+                Hessian2Output out = new Hessian2Output(bos);
+                out.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
+                out.writeObject(bigPerson);
+                out.flushBuffer();
+                Hessian2Input in = new Hessian2Input(new ByteArrayInputStream(bos.toByteArray()));
+                in.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
+                in.readObject(BigPerson.class);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+        if (log) {
+            logger.info(name + ": " + (messages * 1000000000L / elapsed) + " msgs/s, "
+                    + (allocated < 0 ? "?" : String.valueOf(allocated / messages)) + " bytes allocated per msg");
+        }
+    }
+
+    /**
+     * @return bytes allocated by the current thread, -1 if not supported by the JVM
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
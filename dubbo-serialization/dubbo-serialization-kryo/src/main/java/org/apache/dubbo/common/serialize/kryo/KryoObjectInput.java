@@ -22,11 +22,13 @@ import org.apache.dubbo.common.serialize.kryo.utils.KryoUtils;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.Input;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 public class KryoObjectInput implements ObjectInput, Cleanable {
 
@@ -38,6 +40,14 @@ public class KryoObjectInput implements ObjectInput, Cleanable {
         this.kryo = KryoUtils.get();
     }
 
+    /**
+     * Read the buffer in place, heap or direct.
+     */
+    public KryoObjectInput(ByteBuffer buffer) {
+        input = new ByteBufferInput(buffer);
+        this.kryo = KryoUtils.get();
+    }
+
     @Override
     public boolean readBool() throws IOException {
         try {
@@ -17,6 +17,7 @@
 package org.apache.dubbo.common.serialize.kryo;
 
 import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
@@ -24,12 +25,13 @@ import org.apache.dubbo.common.serialize.Serialization;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * TODO for now kryo serialization doesn't deny classes that don't implement the serializable interface
  *
  */
-public class KryoSerialization implements Serialization {
+public class KryoSerialization implements Serialization, ByteBufferSerialization {
 
     @Override
     public byte getContentTypeId() {
@@ -50,4 +52,9 @@ public class KryoSerialization implements Serialization {
     public ObjectInput deserialize(URL url, InputStream is) throws IOException {
         return new KryoObjectInput(is);
     }
+
+    @Override
+    public ObjectInput deserialize(URL url, ByteBuffer buffer) throws IOException {
+        return new KryoObjectInput(buffer);
+    }
 }
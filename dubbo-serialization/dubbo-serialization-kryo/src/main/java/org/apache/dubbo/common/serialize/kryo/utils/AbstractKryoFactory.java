@@ -48,6 +48,7 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
@@ -134,8 +135,9 @@ public abstract class AbstractKryoFactory implements KryoFactory {
             kryo.register(clazz);
         }
 
-        for (Class clazz : SerializableClassRegistry.getRegisteredClasses()) {
-            kryo.register(clazz);
+        // the ids of the registry are the same in the consumer and the provider, whatever the order of registration
+        for (Map.Entry<Class, Integer> entry : SerializableClassRegistry.getRegisteredClassIds().entrySet()) {
+            kryo.register(entry.getKey(), entry.getValue());
         }
 
         return kryo;
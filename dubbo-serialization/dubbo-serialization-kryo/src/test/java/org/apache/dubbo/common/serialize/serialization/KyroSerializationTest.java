@@ -16,11 +16,43 @@
  */
 package org.apache.dubbo.common.serialize.serialization;
 
+import org.apache.dubbo.common.model.person.BigPerson;
+import org.apache.dubbo.common.serialize.ByteBufferSerialization;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.kryo.KryoSerialization;
 
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
 public class KyroSerializationTest extends AbstractSerializationTest {
 
     {
         serialization = new KryoSerialization();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_ByteBuffer() throws Exception {
+        ObjectOutput objectOutput = serialization.serialize(url, byteArrayOutputStream);
+        objectOutput.writeObject(bigPerson);
+        objectOutput.writeUTF("end");
+        objectOutput.flushBuffer();
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+
+        // in the middle of a heap buffer, and of a direct one
+        byte[] array = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, array, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+        direct.position(5);
+        direct.put(bytes);
+        direct.flip().position(5);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(array, 5, bytes.length), direct}) {
+            ObjectInput objectInput = ((ByteBufferSerialization) serialization).deserialize(url, buffer);
+            assertEquals(bigPerson, objectInput.readObject(BigPerson.class));
+            assertEquals("end", objectInput.readUTF());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.serialization;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.model.media.Image;
+import org.apache.dubbo.common.model.media.Media;
+import org.apache.dubbo.common.model.media.MediaContent;
+import org.apache.dubbo.common.model.person.BigPerson;
+import org.apache.dubbo.common.model.person.FullAddress;
+import org.apache.dubbo.common.model.person.PersonInfo;
+import org.apache.dubbo.common.model.person.PersonStatus;
+import org.apache.dubbo.common.model.person.Phone;
+import org.apache.dubbo.common.serialize.kryo.utils.PrototypeKryoFactory;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Payload size and throughput of kryo, with the class names written and with the ids of SerializableClassRegistry,
+ * in registration required mode.
+ * Run with -Dmessages=1000000
+ */
+public class PerformanceKryoSerializationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceKryoSerializationTest.class);
+
+    private final BigPerson bigPerson = new BigPerson();
+
+    private final MediaContent mediaContent;
+
+    {
+        bigPerson.setPersonId("superman111");
+        bigPerson.setLoginName("superman");
+        bigPerson.setStatus(PersonStatus.ENABLED);
+        bigPerson.setEmail("sm@1.com");
+        bigPerson.setPenName("pname");
+        PersonInfo pi = new PersonInfo();
+        pi.setPhones(new ArrayList<Phone>(Arrays.asList(new Phone("86", "0571", "87654321", "001"), new Phone("86", "0571", "87654322", "002"))));
+        pi.setFax(new Phone("86", "0571", "87654321", null));
+        pi.setFullAddress(new FullAddress("CN", "zj", "3480", "wensanlu", "315000"));
+        pi.setMobileNo("13584652131");
+        pi.setMale(true);
+        pi.setDepartment("b2b");
+        pi.setName("superman");
+        bigPerson.setInfoProfile(pi);
+
+        Media media = new Media();
+        media.setUri("uri://中华人民共和国");
+        media.setTitle("title");
+        media.setWidth(1239);
+        media.setHeight(1938);
+        media.setFormat("format-xxxx");
+        media.setDuration(93419235);
+        media.setSize(3477897);
+        media.setBitrate(94523);
+        media.setPersons(new ArrayList<String>(Arrays.asList("jerry", "tom", "lucy")));
+        media.setCopyright("1999-2011");
+        media.setPlayer(Media.Player.FLASH);
+        List<Image> images = new ArrayList<Image>();
+        for (int i = 0; i < 10; ++i) {
+            Image image = new Image();
+            image.setUri("url" + i);
+            image.setTitle("title" + i);
+            image.setWidth(34 + i);
+            image.setHeight(2323 + i);
+            image.setSize(i % 2 == 0 ? Image.Size.SMALL : Image.Size.LARGE);
+            images.add(image);
+        }
+        mediaContent = new MediaContent(media, images);
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        int messages = Integer.getInteger("messages", 0);
+        if (messages <= 0) {
+            logger.warn("Please set -Dmessages=1000000");
+            return;
+        }
+        Kryo unregistered = new PrototypeKryoFactory().create();
+        for (Class clazz : new Class[]{BigPerson.class, PersonInfo.class, PersonStatus.class, Phone.class, FullAddress.class,
+                MediaContent.class, Media.class, Media.Player.class, Image.class, Image.Size.class}) {
+            SerializableClassRegistry.registerClass(clazz);
+        }
+        Kryo registered = new PrototypeKryoFactory().create();
+        registered.setRegistrationRequired(true);
+        for (Object graph : new Object[]{bigPerson, mediaContent}) {
+            for (int round = 0; round < 3; round++) {
+                // the last round is measured, the others warm up
+                run("class names", unregistered, graph, messages, round == 2);
+                run("class ids", registered, graph, messages, round == 2);
+            }
+        }
+    }
+
+    private void run(String name, Kryo kryo, Object graph, int messages, boolean log) {
+        Output output = new Output(4096, -1);
+        Object result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            output.clear();
+            kryo.writeClassAndObject(output, graph);
+            result = kryo.readClassAndObject(new Input(output.getBuffer(), 0, output.position()));
+        }
+        long elapsed = System.nanoTime() - start;
+        Assert.assertEquals(graph, result);
+        if (log) {
+            logger.info(graph.getClass().getSimpleName() + " with " + name + ": " + output.position() + " bytes, "
+                    + (messages * 1000000000L / elapsed) + " msgs/s");
+        }
+    }
+}